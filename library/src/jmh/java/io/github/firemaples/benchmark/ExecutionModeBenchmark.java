@@ -0,0 +1,103 @@
+package io.github.firemaples.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import io.github.firemaples.ExecutionMode;
+import io.github.firemaples.http.HttpRequest;
+import io.github.firemaples.http.HttpResponse;
+import io.github.firemaples.http.HttpTransport;
+import io.github.firemaples.language.Language;
+import io.github.firemaples.translate.Translate;
+
+/**
+ * Compares platform threads with virtual threads for many concurrent translate calls.
+ * <p>
+ * The service is stubbed by a transport that blocks for a fixed latency, so the benchmark measures how
+ * quickly each execution mode gets {@code concurrency} blocked requests through, not the network.
+ * VIRTUAL_THREADS needs Java 21 or greater.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ExecutionModeBenchmark {
+    private static final byte[] RESPONSE = "[{\"translations\":[{\"text\":\"Bonjour\",\"to\":\"fr\"}]}]".getBytes();
+
+    @Param({"PLATFORM_THREADS", "VIRTUAL_THREADS"})
+    public ExecutionMode mode;
+
+    @Param({"200", "2000"})
+    public int concurrency;
+
+    @Param({"1000"})
+    public int platformThreads;
+
+    @Param({"20"})
+    public long latencyMillis;
+
+    private ExecutorService platformPool;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Translate.setSubscriptionKey("benchmark");
+        Translate.setTransport(new HttpTransport() {
+            @Override
+            public HttpResponse execute(HttpRequest request) throws IOException {
+                try {
+                    Thread.sleep(latencyMillis);
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException();
+                }
+                return new HttpResponse(200, null, new ByteArrayInputStream(RESPONSE));
+            }
+        });
+        if (mode == ExecutionMode.PLATFORM_THREADS) {
+            //A bounded pool is what a service would deploy, an unbounded one would need a thread per request
+            platformPool = Executors.newFixedThreadPool(platformThreads);
+            Translate.setExecutor(platformPool);
+        } else {
+            Translate.setExecutionMode(mode);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Translate.setExecutor(null);
+        Translate.setTransport(null);
+        if (platformPool != null) {
+            platformPool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public int translateConcurrently() {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            futures[i] = Translate.executeAsync("Hello", Language.ENGLISH, Language.FRENCH);
+        }
+        CompletableFuture.allOf(futures).join();
+        return futures.length;
+    }
+}
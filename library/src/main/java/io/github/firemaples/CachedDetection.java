@@ -0,0 +1,72 @@
+package io.github.firemaples;
+
+import java.util.Arrays;
+
+import io.github.firemaples.cache.DetectionCache;
+import io.github.firemaples.models.DetectResult;
+
+/**
+ * CachedDetection
+ * <p>
+ * The texts of a detect call looked up in a {@link DetectionCache}: the hits are kept aside, the misses are sent,
+ * and their results are put into the cache and merged back in the order of the texts.
+ */
+final class CachedDetection {
+    private final DetectionCache cache;
+    private final DetectResult.Result[] hits;
+    private final String[] misses;
+    private final int[] missIndexes;
+
+    private CachedDetection(DetectionCache cache, DetectResult.Result[] hits, String[] misses, int[] missIndexes) {
+        this.cache = cache;
+        this.hits = hits;
+        this.misses = misses;
+        this.missIndexes = missIndexes;
+    }
+
+    static CachedDetection lookup(DetectionCache cache, String[] texts) {
+        final DetectResult.Result[] hits = new DetectResult.Result[texts.length];
+        final String[] misses = new String[texts.length];
+        final int[] missIndexes = new int[texts.length];
+        int missCount = 0;
+        for (int i = 0; i < texts.length; i++) {
+            //Null texts are sent as they are
+            hits[i] = texts[i] != null ? cache.get(texts[i]) : null;
+            if (hits[i] == null) {
+                misses[missCount] = texts[i];
+                missIndexes[missCount++] = i;
+            }
+        }
+        return new CachedDetection(cache, hits, Arrays.copyOf(misses, missCount), Arrays.copyOf(missIndexes, missCount));
+    }
+
+    /**
+     * @return The texts to send, empty if all were cached.
+     */
+    String[] getMisses() {
+        return misses;
+    }
+
+    /**
+     * @param missResult The result of the misses, or null if there were none.
+     * @return The result with one element per text.
+     */
+    DetectResult complete(DetectResult missResult) {
+        if (misses.length > 0 && (missResult == null || missResult.size() != misses.length)) {
+            throw new IllegalStateException("Parsing result failed");
+        }
+        final DetectResult result = new DetectResult();
+        result.addAll(Arrays.asList(hits));
+        if (missResult != null) {
+            result.setDeduplicatedCharacters(missResult.getDeduplicatedCharacters());
+        }
+        for (int i = 0; i < misses.length; i++) {
+            final DetectResult.Result element = missResult.get(i);
+            result.set(missIndexes[i], element);
+            if (misses[i] != null && element != null) {
+                cache.put(misses[i], element);
+            }
+        }
+        return result;
+    }
+}
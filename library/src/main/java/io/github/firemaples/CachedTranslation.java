@@ -0,0 +1,78 @@
+package io.github.firemaples;
+
+import java.util.Arrays;
+
+import io.github.firemaples.cache.TranslationCache;
+import io.github.firemaples.language.Language;
+import io.github.firemaples.models.TranslationResult;
+
+/**
+ * CachedTranslation
+ * <p>
+ * The texts of a translate call looked up in a {@link TranslationCache}: the hits are kept aside, the misses are
+ * sent, and their results are put into the cache and merged back in the order of the texts.
+ */
+final class CachedTranslation {
+    private final TranslationCache cache;
+    private final Language from;
+    private final Language to;
+    private final TranslationResult.Result[] hits;
+    private final String[] misses;
+    private final int[] missIndexes;
+
+    private CachedTranslation(TranslationCache cache, Language from, Language to, TranslationResult.Result[] hits,
+                              String[] misses, int[] missIndexes) {
+        this.cache = cache;
+        this.from = from;
+        this.to = to;
+        this.hits = hits;
+        this.misses = misses;
+        this.missIndexes = missIndexes;
+    }
+
+    static CachedTranslation lookup(TranslationCache cache, Language from, Language to, String[] texts) {
+        final TranslationResult.Result[] hits = new TranslationResult.Result[texts.length];
+        final String[] misses = new String[texts.length];
+        final int[] missIndexes = new int[texts.length];
+        int missCount = 0;
+        for (int i = 0; i < texts.length; i++) {
+            //Null texts are sent as they are
+            hits[i] = texts[i] != null ? cache.get(from, to, texts[i]) : null;
+            if (hits[i] == null) {
+                misses[missCount] = texts[i];
+                missIndexes[missCount++] = i;
+            }
+        }
+        return new CachedTranslation(cache, from, to, hits, Arrays.copyOf(misses, missCount), Arrays.copyOf(missIndexes, missCount));
+    }
+
+    /**
+     * @return The texts to send, empty if all were cached.
+     */
+    String[] getMisses() {
+        return misses;
+    }
+
+    /**
+     * @param missResult The result of the misses, or null if there were none.
+     * @return The result with one element per text.
+     */
+    TranslationResult complete(TranslationResult missResult) {
+        if (misses.length > 0 && (missResult == null || missResult.size() != misses.length)) {
+            throw new IllegalStateException("Parsing result failed");
+        }
+        final TranslationResult result = new TranslationResult();
+        result.addAll(Arrays.asList(hits));
+        if (missResult != null) {
+            result.setDeduplicatedCharacters(missResult.getDeduplicatedCharacters());
+        }
+        for (int i = 0; i < misses.length; i++) {
+            final TranslationResult.Result element = missResult.get(i);
+            result.set(missIndexes[i], element);
+            if (misses[i] != null && element != null) {
+                cache.put(from, to, misses[i], element);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,90 @@
+package io.github.firemaples;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * Deduplication
+ * <p>
+ * The distinct texts of a request, so each is sent and paid for once, and the way back from their results to
+ * the original texts. Duplicates get their own copy of the result element of their first occurrence, so callers
+ * can modify the elements independently.
+ */
+final class Deduplication {
+    private final String[] unique;
+    //The index in unique of each original text, null if there are no duplicates
+    private final int[] indexes;
+    private final long savedCharacters;
+
+    private Deduplication(String[] unique, int[] indexes, long savedCharacters) {
+        this.unique = unique;
+        this.indexes = indexes;
+        this.savedCharacters = savedCharacters;
+    }
+
+    static Deduplication of(String[] texts) {
+        if (texts.length < 2) {
+            return new Deduplication(texts, null, 0);
+        }
+        final Map<String, Integer> seen = new HashMap<>();
+        final String[] unique = new String[texts.length];
+        final int[] indexes = new int[texts.length];
+        int count = 0;
+        long savedCharacters = 0;
+        for (int i = 0; i < texts.length; i++) {
+            final String text = texts[i];
+            final Integer index = seen.get(text);
+            if (index != null) {
+                indexes[i] = index;
+                savedCharacters += text != null ? text.length() : 0;
+            } else {
+                seen.put(text, count);
+                unique[count] = text;
+                indexes[i] = count++;
+            }
+        }
+        if (count == texts.length) {
+            return new Deduplication(texts, null, 0);
+        }
+        return new Deduplication(Arrays.copyOf(unique, count), indexes, savedCharacters);
+    }
+
+    /**
+     * @return The distinct texts, in the order of their first occurrence.
+     */
+    String[] getUnique() {
+        return unique;
+    }
+
+    /**
+     * @return The characters of the texts left out as duplicates.
+     */
+    long getSavedCharacters() {
+        return savedCharacters;
+    }
+
+    /**
+     * @param result   The result of the distinct texts, one element each.
+     * @param expanded An empty result to fill.
+     * @param copier   Copies an element for the duplicates after its first occurrence.
+     * @return The result with one element per original text, {@code result} itself if there were no duplicates.
+     */
+    <E, R extends List<E>> R expand(R result, R expanded, UnaryOperator<E> copier) {
+        if (indexes == null) {
+            return result;
+        }
+        if (result == null || result.size() != unique.length) {
+            throw new IllegalStateException("Parsing result failed");
+        }
+        final boolean[] used = new boolean[unique.length];
+        for (int index : indexes) {
+            final E element = result.get(index);
+            expanded.add(used[index] && element != null ? copier.apply(element) : element);
+            used[index] = true;
+        }
+        return expanded;
+    }
+}
@@ -0,0 +1,98 @@
+package io.github.firemaples;
+
+import java.text.BreakIterator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import io.github.firemaples.language.Language;
+import io.github.firemaples.models.RequestSize;
+
+/**
+ * DocumentSplitter
+ * <p>
+ * Cuts a text too long for one translate request into chunks that each fit a request of their own. Cuts are made
+ * at sentence boundaries found by a local {@link BreakIterator}, packing as many whole sentences into a chunk as
+ * fit; only a sentence too long for a request on its own is cut further, at a space if there is one. The chunks
+ * joined together are the original text, whitespace included.
+ */
+final class DocumentSplitter {
+    //The longest escaped text that fits a request on its own
+    private static final int MAX_CHUNK_LENGTH = TextPacking.MAX_TRANSLATE_LENGTH - 2 - RequestSize.ELEMENT_OVERHEAD;
+
+    private DocumentSplitter() {
+    }
+
+    /**
+     * @param language The language of the text, to find its sentence boundaries, or {@link Language#AUTO_DETECT}.
+     * @return The chunks, in order.
+     */
+    static List<String> split(String text, Language language) {
+        final List<String> chunks = new ArrayList<>();
+        final BreakIterator sentences = BreakIterator.getSentenceInstance(toLocale(language));
+        sentences.setText(text);
+        int chunkStart = 0;
+        int chunkLength = 0;
+        int start = sentences.first();
+        for (int end = sentences.next(); end != BreakIterator.DONE; start = end, end = sentences.next()) {
+            final int length = RequestSize.escapedLength(text, start, end);
+            if (chunkLength + length <= MAX_CHUNK_LENGTH) {
+                chunkLength += length;
+                continue;
+            }
+            if (start > chunkStart) {
+                chunks.add(text.substring(chunkStart, start));
+            }
+            chunkStart = start;
+            chunkLength = length;
+            if (length > MAX_CHUNK_LENGTH) {
+                chunkStart = cutLongSentence(text, start, end, chunks);
+                chunkLength = RequestSize.escapedLength(text, chunkStart, end);
+            }
+        }
+        if (chunkStart < text.length()) {
+            chunks.add(text.substring(chunkStart));
+        }
+        return chunks;
+    }
+
+    //Adds the pieces of an overlong sentence that fill a chunk each and returns where the remainder starts
+    private static int cutLongSentence(String text, int start, int end, List<String> chunks) {
+        while (RequestSize.escapedLength(text, start, end) > MAX_CHUNK_LENGTH) {
+            final int cut = longestFit(text, start, end);
+            chunks.add(text.substring(start, cut));
+            start = cut;
+        }
+        return start;
+    }
+
+    //The end of the longest piece from start that fits a chunk, moved back to after a space in its second half
+    private static int longestFit(String text, int start, int end) {
+        int low = start + 1;
+        int high = end;
+        while (low < high) {
+            final int middle = (low + high + 1) >>> 1;
+            if (RequestSize.escapedLength(text, start, middle) <= MAX_CHUNK_LENGTH) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        int cut = low;
+        //Do not cut a surrogate pair in half
+        if (cut > start + 1 && Character.isHighSurrogate(text.charAt(cut - 1))) {
+            cut--;
+        }
+        for (int i = cut; i > start + (cut - start) / 2; i--) {
+            if (Character.isWhitespace(text.charAt(i - 1))) {
+                return i;
+            }
+        }
+        return cut;
+    }
+
+    private static Locale toLocale(Language language) {
+        return language == null || language == Language.AUTO_DETECT
+                ? Locale.ROOT : Locale.forLanguageTag(language.toString());
+    }
+}
@@ -0,0 +1,82 @@
+package io.github.firemaples;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URL;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.github.firemaples.http.HttpRequest;
+import io.github.firemaples.http.HttpResponse;
+import io.github.firemaples.http.HttpTransport;
+import io.github.firemaples.routing.Endpoint;
+import io.github.firemaples.routing.EndpointRouter;
+import io.github.firemaples.utils.BomSkippingReader;
+import io.github.firemaples.utils.DaemonThreads;
+
+/**
+ * EndpointProber
+ * <p>
+ * Sends a cheap unauthenticated request to each idle endpoint of a router every probe interval, so the router
+ * keeps their scores current. The requests are sent on the executor, one round at a time.
+ */
+final class EndpointProber implements Closeable {
+    private final EndpointRouter router;
+    private final HttpTransport transport;
+    private final Executor executor;
+    private final AtomicBoolean probing = new AtomicBoolean();
+    private final ScheduledFuture<?> probes;
+
+    EndpointProber(EndpointRouter router, HttpTransport transport, Executor executor) {
+        this.router = router;
+        this.transport = transport;
+        this.executor = executor;
+        this.probes = DaemonThreads.scheduler().scheduleWithFixedDelay(this::probeEndpoints, router.getProbeIntervalMillis(),
+                router.getProbeIntervalMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        probes.cancel(false);
+    }
+
+    private void probeEndpoints() {
+        if (!probing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    for (Endpoint endpoint : router.getEndpoints()) {
+                        if (router.needsProbe(endpoint)) {
+                            probe(endpoint);
+                        }
+                    }
+                } finally {
+                    probing.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            //The client is closing
+            probing.set(false);
+        }
+    }
+
+    private void probe(Endpoint endpoint) {
+        final long start = System.nanoTime();
+        try (HttpResponse response = transport.execute(new HttpRequest(RequestExecutor.HTTP_GET,
+                new URL(endpoint.getUrl() + "/languages" + TranslatorClient.API_VERSION + "&scope=dictionary"), null, null))) {
+            BomSkippingReader.readFully(new BomSkippingReader(response.getBody()));
+            if (response.getStatusCode() >= 500) {
+                router.onFailure(endpoint);
+            } else {
+                router.onSuccess(endpoint, System.nanoTime() - start);
+            }
+        } catch (IOException e) {
+            router.onFailure(endpoint);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package io.github.firemaples;
+
+/**
+ * ExecutionMode
+ * <p>
+ * Selects which kind of thread runs the requests of the asynchronous API.
+ *
+ * @see MicrosoftTranslatorAPI#setExecutionMode(ExecutionMode)
+ */
+public enum ExecutionMode {
+    /**
+     * Requests run on a shared pool of platform threads, one parked thread per in-flight request.
+     */
+    PLATFORM_THREADS,
+    /**
+     * Each request runs on its own virtual thread, which unmounts from its carrier while waiting on the
+     * network. Requires Java 21 or greater.
+     */
+    VIRTUAL_THREADS
+}
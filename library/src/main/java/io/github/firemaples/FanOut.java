@@ -0,0 +1,103 @@
+package io.github.firemaples;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * FanOut
+ * <p>
+ * Sends the requests of a call split into several parts, at most {@code parallelism} of them in flight at a time,
+ * and collects their results in the order of the parts. The first failed part fails the whole call, no further
+ * parts are sent and the parts still in flight are cancelled, as they are when the call is cancelled.
+ */
+final class FanOut<T> {
+    /**
+     * Sends one part.
+     */
+    interface Part<T> {
+        CompletableFuture<T> send(int index);
+    }
+
+    private final Part<T> part;
+    private final Object[] results;
+    //The parts in flight, so a failed or cancelled call can cancel them
+    private final AtomicReferenceArray<CompletableFuture<T>> sent;
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicInteger remaining;
+    private final CompletableFuture<List<T>> result = new CompletableFuture<>();
+
+    private FanOut(Part<T> part, int count) {
+        this.part = part;
+        this.results = new Object[count];
+        this.sent = new AtomicReferenceArray<>(count);
+        this.remaining = new AtomicInteger(count);
+        result.whenComplete((value, error) -> {
+            if (error != null) {
+                cancelSent();
+            }
+        });
+    }
+
+    /**
+     * @param count       The number of parts, at least one.
+     * @param parallelism The most parts in flight at a time.
+     * @return A future completed with the result of each part, in order.
+     */
+    static <T> CompletableFuture<List<T>> run(int count, int parallelism, Part<T> part) {
+        final FanOut<T> fanOut = new FanOut<>(part, count);
+        for (int i = 0; i < Math.min(parallelism, count); i++) {
+            fanOut.sendNext();
+        }
+        return fanOut.result;
+    }
+
+    private void sendNext() {
+        final int index = next.getAndIncrement();
+        if (index >= results.length || result.isDone()) {
+            return;
+        }
+        final CompletableFuture<T> response;
+        try {
+            response = part.send(index);
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+            return;
+        }
+        sent.set(index, response);
+        if (result.isDone()) {
+            //The call failed while this part was being sent
+            response.cancel(false);
+        }
+        response.whenComplete((value, error) -> {
+            sent.set(index, null);
+            if (error != null) {
+                result.completeExceptionally(error);
+                return;
+            }
+            results[index] = value;
+            if (remaining.decrementAndGet() == 0) {
+                result.complete(collect());
+            } else {
+                sendNext();
+            }
+        });
+    }
+
+    private void cancelSent() {
+        for (int i = 0; i < sent.length(); i++) {
+            final CompletableFuture<T> response = sent.getAndSet(i, null);
+            if (response != null) {
+                response.cancel(false);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<T> collect() {
+        return new ArrayList<>((List<T>) Arrays.asList(results));
+    }
+}
@@ -0,0 +1,181 @@
+package io.github.firemaples;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.github.firemaples.language.Language;
+import io.github.firemaples.models.LanguagesResult;
+
+/**
+ * LanguagesCache
+ * <p>
+ * Keeps the languages response of each locale with its ETag. The first calls for a locale share one request and
+ * wait for its response; later calls return the cached one right away and, once it is older than the refresh
+ * interval, start a conditional request in the background. A response that did not change costs a 304 without
+ * a body.
+ * <p>
+ * A snapshot is never modified once published: a refresh swaps in a new one, so readers neither block nor see
+ * a response in the middle of an update, and every caller gets its own copy of the snapshot. A failed refresh
+ * keeps the response and tries again after another interval.
+ */
+final class LanguagesCache {
+    /**
+     * Supplies the current time in nanoseconds, {@link System#nanoTime()} outside of tests.
+     */
+    interface Clock {
+        long nanoTime();
+    }
+
+    /**
+     * Sends the languages request of a locale.
+     */
+    interface Fetcher {
+        /**
+         * @param etag The ETag of the cached response to send as {@code If-None-Match}, or null.
+         */
+        CompletableFuture<Fetched> fetch(Language locale, String etag);
+    }
+
+    /**
+     * A languages response: the result and its ETag, or no result if it was not modified.
+     */
+    static final class Fetched {
+        final LanguagesResult result;
+        final String etag;
+
+        Fetched(LanguagesResult result, String etag) {
+            this.result = result;
+            this.etag = etag;
+        }
+    }
+
+    private final Fetcher fetcher;
+    private final long refreshNanos;
+    private final Clock clock;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    LanguagesCache(Fetcher fetcher, long refreshMillis) {
+        this(fetcher, refreshMillis, System::nanoTime);
+    }
+
+    LanguagesCache(Fetcher fetcher, long refreshMillis, Clock clock) {
+        this.fetcher = fetcher;
+        this.refreshNanos = TimeUnit.MILLISECONDS.toNanos(refreshMillis);
+        this.clock = clock;
+    }
+
+    /**
+     * @param locale The language of the language names, or null for the service default.
+     * @return A copy of the cached languages of the locale.
+     * @throws Exception if there is none yet and the request fails.
+     */
+    LanguagesResult get(Language locale) throws Exception {
+        final Entry entry = entries.computeIfAbsent(locale != null ? locale.toString() : "", key -> new Entry());
+        final Snapshot snapshot = entry.snapshot.get();
+        if (snapshot == null) {
+            return copyOf(RequestExecutor.await(load(locale, entry)).result);
+        }
+        if (clock.nanoTime() - snapshot.checkedAt >= refreshNanos && entry.refreshing.compareAndSet(false, true)) {
+            refresh(locale, entry, snapshot);
+        }
+        return copyOf(snapshot.result);
+    }
+
+    //Sends the first request of a locale, or joins the one in flight
+    private CompletableFuture<Snapshot> load(Language locale, Entry entry) {
+        final CompletableFuture<Snapshot> loading = entry.loading.get();
+        if (loading != null) {
+            return loading;
+        }
+        final CompletableFuture<Snapshot> created = new CompletableFuture<>();
+        if (!entry.loading.compareAndSet(null, created)) {
+            return entry.loading.get();
+        }
+        CompletableFuture<Fetched> future;
+        try {
+            future = fetcher.fetch(locale, null);
+        } catch (RuntimeException e) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+        }
+        future.whenComplete((fetched, error) -> {
+            Throwable failure = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (failure == null && fetched.result == null) {
+                failure = new IllegalStateException("Parsing result failed");
+            }
+            if (failure != null) {
+                //The next call sends a new request
+                entry.loading.set(null);
+                created.completeExceptionally(failure);
+                return;
+            }
+            final Snapshot snapshot = new Snapshot(fetched.result, fetched.etag, clock.nanoTime());
+            entry.snapshot.set(snapshot);
+            created.complete(snapshot);
+        });
+        return created;
+    }
+
+    private void refresh(Language locale, Entry entry, Snapshot snapshot) {
+        CompletableFuture<Fetched> future;
+        try {
+            future = fetcher.fetch(locale, snapshot.etag);
+        } catch (RuntimeException e) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+        }
+        future.whenComplete((fetched, error) -> {
+            if (error == null && fetched.result != null) {
+                entry.snapshot.set(new Snapshot(fetched.result, fetched.etag, clock.nanoTime()));
+            } else {
+                //Not modified or failed, the response is checked again after another interval
+                final String etag = fetched != null && fetched.etag != null ? fetched.etag : snapshot.etag;
+                entry.snapshot.set(new Snapshot(snapshot.result, etag, clock.nanoTime()));
+            }
+            entry.refreshing.set(false);
+        });
+    }
+
+    private static LanguagesResult copyOf(LanguagesResult result) {
+        final LanguagesResult copy = new LanguagesResult();
+        if (result.translation != null) {
+            copy.translation = new HashMap<>(result.translation.size() * 4 / 3 + 1);
+            for (Map.Entry<String, LanguagesResult.TranslationLanguage> entry : result.translation.entrySet()) {
+                final LanguagesResult.TranslationLanguage language = entry.getValue();
+                LanguagesResult.TranslationLanguage languageCopy = null;
+                if (language != null) {
+                    languageCopy = new LanguagesResult.TranslationLanguage();
+                    languageCopy.name = language.name;
+                    languageCopy.nativeName = language.nativeName;
+                    languageCopy.dir = language.dir;
+                }
+                copy.translation.put(entry.getKey(), languageCopy);
+            }
+        }
+        return copy;
+    }
+
+    private static final class Entry {
+        final AtomicReference<CompletableFuture<Snapshot>> loading = new AtomicReference<>();
+        final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+        final AtomicBoolean refreshing = new AtomicBoolean();
+    }
+
+    private static final class Snapshot {
+        final LanguagesResult result;
+        final String etag;
+        final long checkedAt;
+
+        Snapshot(LanguagesResult result, String etag, long checkedAt) {
+            this.result = result;
+            this.etag = etag;
+            this.checkedAt = checkedAt;
+        }
+    }
+}
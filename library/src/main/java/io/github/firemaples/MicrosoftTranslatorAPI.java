@@ -21,16 +21,37 @@ import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 import org.json.simple.JSONValue;
 
-import java.io.BufferedReader;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
-import java.net.HttpURLConnection;
 import java.net.URL;
 import java.util.HashMap;
-
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+
+import io.github.firemaples.auth.KeyPool;
+import io.github.firemaples.auth.SubscriptionKey;
+import io.github.firemaples.cache.DetectionCache;
+import io.github.firemaples.cache.TranslationCache;
+import io.github.firemaples.codec.JsonCodec;
+import io.github.firemaples.codec.ModelCodecs;
+import io.github.firemaples.hedge.HedgePolicy;
+import io.github.firemaples.http.HttpRequest;
+import io.github.firemaples.http.HttpResponse;
+import io.github.firemaples.http.HttpTransport;
+import io.github.firemaples.http.RequestBody;
+import io.github.firemaples.http.UrlConnectionTransport;
+import io.github.firemaples.ratelimit.CharacterRateLimiter;
+import io.github.firemaples.retry.RetryPolicy;
+import io.github.firemaples.routing.EndpointRouter;
+import io.github.firemaples.utils.BomSkippingReader;
+import io.github.firemaples.utils.DaemonThreads;
 import io.github.firemaples.utils.JsonUtil;
 import io.github.firemaples.utils.TypeReference;
+import io.github.firemaples.utils.VirtualThreads;
 
 /**
  * MicrosoftAPI
@@ -59,15 +80,23 @@ public abstract class MicrosoftTranslatorAPI<RQ, RP> {
     protected static String apiKey;
     @SuppressWarnings("FieldCanBeLocal")
     private static String DatamarketAccessUri = "https://api.cognitive.microsoft.com/sts/v1.0/issueToken";
-    @SuppressWarnings("FieldCanBeLocal")
-    private static String OcpApimSubscriptionKeyHeader = "Ocp-Apim-Subscription-Key";
-    private static String referrer;
-    private static String subscriptionKey;
-    private static String token;
-    @SuppressWarnings("FieldCanBeLocal")
-    private static long tokenCacheExpiration = 5 * 60 * 1000;
-    private static long tokenExpiration = 0;
+    private static volatile String referrer;
+    private static volatile String subscriptionKey;
+    private static volatile KeyPool keyPool;
+    private static volatile CharacterRateLimiter rateLimiter;
+    private static volatile RetryPolicy retryPolicy = RetryPolicy.DEFAULT;
+    private static volatile HedgePolicy hedgePolicy;
+    private static volatile long batchLingerMillis;
+    private static volatile TranslationCache translationCache;
+    private static volatile DetectionCache detectionCache;
+    private static volatile long languagesRefreshMillis = TranslatorConfig.DEFAULT_LANGUAGES_REFRESH_MILLIS;
+    private static volatile EndpointRouter router;
     private static String contentType = "text/plain";
+    private static volatile HttpTransport transport = new UrlConnectionTransport();
+    private static volatile Executor executor;
+    //Reconfigured from the static settings whenever one of them changes
+    private static final ReentrantLock defaultClientLock = new ReentrantLock();
+    private static final TranslatorClient defaultClient = new TranslatorClient(buildDefaultConfig());
 
     protected static final String PARAM_APP_ID = "appId=",
             PARAM_TO_LANG = "&to=",
@@ -138,7 +167,209 @@ public abstract class MicrosoftTranslatorAPI<RQ, RP> {
     }
 
     public static void setSubscriptionKey(String pSubscriptionKey) {
-        subscriptionKey = pSubscriptionKey;
+        updateDefaultClient(() -> subscriptionKey = pSubscriptionKey);
+    }
+
+    /**
+     * Spreads the requests of the static services over several subscription keys, see {@link KeyPool}.
+     * Takes precedence over {@link #setSubscriptionKey(String)}.
+     *
+     * @param keys The keys, or none to go back to the single subscription key.
+     */
+    public static void setSubscriptionKeys(SubscriptionKey... keys) {
+        updateDefaultClient(() -> keyPool = keys != null && keys.length > 0 ? new KeyPool(keys) : null);
+    }
+
+    /**
+     * Keeps the static services within a character quota, e.g.
+     * {@code setRateLimiter(CharacterRateLimiter.forTier(PricingTier.F0))}.
+     *
+     * @param pRateLimiter The limiter, or null to send requests unthrottled.
+     */
+    public static void setRateLimiter(CharacterRateLimiter pRateLimiter) {
+        updateDefaultClient(() -> rateLimiter = pRateLimiter);
+    }
+
+    /**
+     * Sets how the static services retry throttled, timed out and failed requests.
+     * <p>
+     * Errors that are not retried, or still fail after the last attempt, are thrown as a
+     * {@link TranslatorException} carrying the status code and Retry-After of the response.
+     *
+     * @param pRetryPolicy The policy, {@link RetryPolicy#NONE} to disable retries, or null for
+     *                     {@link RetryPolicy#DEFAULT}.
+     */
+    public static void setRetryPolicy(RetryPolicy pRetryPolicy) {
+        updateDefaultClient(() -> retryPolicy = pRetryPolicy != null ? pRetryPolicy : RetryPolicy.DEFAULT);
+    }
+
+    /**
+     * Hedges slow {@link io.github.firemaples.translate.Translate} and {@link io.github.firemaples.detect.Detect}
+     * requests, see {@link HedgePolicy}.
+     *
+     * @param pHedgePolicy The policy, or null to disable hedging.
+     */
+    public static void setHedgePolicy(HedgePolicy pHedgePolicy) {
+        updateDefaultClient(() -> hedgePolicy = pHedgePolicy);
+    }
+
+    /**
+     * Lets concurrent single-text {@link io.github.firemaples.translate.Translate} calls of the same language pair
+     * share a request.
+     *
+     * @param pBatchLingerMillis How long a call waits for others to join its request, 0 to disable batching.
+     */
+    public static void setBatchLingerMillis(long pBatchLingerMillis) {
+        updateDefaultClient(() -> batchLingerMillis = pBatchLingerMillis);
+    }
+
+    /**
+     * Looks up {@link io.github.firemaples.translate.Translate} texts in a cache before sending them, see
+     * {@link TranslationCache}.
+     *
+     * @param pTranslationCache The cache, or null to disable caching.
+     */
+    public static void setTranslationCache(TranslationCache pTranslationCache) {
+        updateDefaultClient(() -> translationCache = pTranslationCache);
+    }
+
+    /**
+     * Looks up {@link io.github.firemaples.detect.Detect} texts in a cache before sending them, see
+     * {@link DetectionCache}.
+     *
+     * @param pDetectionCache The cache, or null to disable caching.
+     */
+    public static void setDetectionCache(DetectionCache pDetectionCache) {
+        updateDefaultClient(() -> detectionCache = pDetectionCache);
+    }
+
+    /**
+     * Sets how long the supported languages of {@link io.github.firemaples.language.Language} are served from the cache before they are checked
+     * for changes in the background.
+     *
+     * @param pLanguagesRefreshMillis The refresh interval, 0 to request the languages on every call.
+     */
+    public static void setLanguagesRefreshMillis(long pLanguagesRefreshMillis) {
+        updateDefaultClient(() -> languagesRefreshMillis = pLanguagesRefreshMillis);
+    }
+
+    /**
+     * Routes the requests of the static services between several endpoints, failing over when one degrades.
+     *
+     * @param pRouter The router, or null to send all requests to the global endpoint.
+     */
+    public static void setEndpointRouter(EndpointRouter pRouter) {
+        updateDefaultClient(() -> router = pRouter);
+    }
+
+    /**
+     * Gets the client the static services delegate to, configured by the static setters.
+     * <p>
+     * It is the same client for the lifetime of the class: the setters reconfigure it, so it keeps its access
+     * token, cached languages and statistics.
+     * <p>
+     * Applications that need several subscriptions, regions or transports at once should create their own
+     * {@link TranslatorClient}s instead.
+     *
+     * @return The default client.
+     */
+    public static TranslatorClient getDefaultClient() {
+        return defaultClient;
+    }
+
+    /**
+     * Repeated texts within one {@link io.github.firemaples.translate.Translate} or
+     * {@link io.github.firemaples.detect.Detect} call are sent once.
+     *
+     * @return The characters not sent as duplicates by the default client.
+     */
+    public static long getDeduplicatedCharacters() {
+        return defaultClient.getDeduplicatedCharacters();
+    }
+
+    //Applies a change to the static settings and reconfigures the default client with them
+    private static void updateDefaultClient(Runnable change) {
+        defaultClientLock.lock();
+        try {
+            change.run();
+            defaultClient.reconfigure(buildDefaultConfig());
+        } finally {
+            defaultClientLock.unlock();
+        }
+    }
+
+    private static TranslatorConfig buildDefaultConfig() {
+        return new TranslatorConfig.Builder()
+                .subscriptionKey(subscriptionKey)
+                .keyPool(keyPool)
+                .rateLimiter(rateLimiter)
+                .retryPolicy(retryPolicy)
+                .hedgePolicy(hedgePolicy)
+                .batchLingerMillis(batchLingerMillis)
+                .translationCache(translationCache)
+                .detectionCache(detectionCache)
+                .languagesRefreshMillis(languagesRefreshMillis)
+                .router(router)
+                .referrer(referrer)
+                .transport(transport)
+                .executor(getExecutor())
+                .build();
+    }
+
+    /**
+     * Sets the HTTP transport used for all service calls.
+     * <p>
+     * Useful to tune the connection pool, plug in another HTTP stack or stub the service in tests.
+     *
+     * @param pTransport The transport, or null to restore the default {@link UrlConnectionTransport}.
+     */
+    public static void setTransport(final HttpTransport pTransport) {
+        updateDefaultClient(() -> transport = pTransport != null ? pTransport : new UrlConnectionTransport());
+    }
+
+    /**
+     * Gets the HTTP transport used for all service calls.
+     *
+     * @return The current transport.
+     */
+    public static HttpTransport getTransport() {
+        return transport;
+    }
+
+    /**
+     * Sets the executor running the blocking part of asynchronous calls, e.g. a transport without a
+     * non-blocking I/O path.
+     *
+     * @param pExecutor The executor, or null to restore the default cached pool of daemon threads.
+     */
+    public static void setExecutor(final Executor pExecutor) {
+        updateDefaultClient(() -> executor = pExecutor);
+    }
+
+    /**
+     * Selects which kind of thread runs the requests of the asynchronous API.
+     * <p>
+     * With {@link ExecutionMode#VIRTUAL_THREADS} every request runs on its own virtual thread, so tens of
+     * thousands of requests can wait on the network at once without a platform thread each. The request
+     * path holds no monitors, so the virtual threads never pin their carrier while blocked on I/O.
+     * Blocking callers get the same benefit by calling the synchronous API from virtual threads.
+     *
+     * @param mode The execution mode.
+     * @throws IllegalStateException if virtual threads are requested on a JDK older than 21.
+     */
+    public static void setExecutionMode(final ExecutionMode mode) {
+        final Executor modeExecutor = mode == ExecutionMode.VIRTUAL_THREADS ? VirtualThreads.newExecutor() : null;
+        updateDefaultClient(() -> executor = modeExecutor);
+    }
+
+    /**
+     * Gets the executor running the blocking part of asynchronous calls.
+     *
+     * @return The current executor.
+     */
+    public static Executor getExecutor() {
+        Executor current = executor;
+        return current != null ? current : DefaultExecutorHolder.INSTANCE;
     }
 
     /**
@@ -147,7 +378,7 @@ public abstract class MicrosoftTranslatorAPI<RQ, RP> {
      * @param pReferrer The HTTP client referrer.
      */
     public static void setHttpReferrer(final String pReferrer) {
-        referrer = pReferrer;
+        updateDefaultClient(() -> referrer = pReferrer);
     }
 
     /**
@@ -160,37 +391,14 @@ public abstract class MicrosoftTranslatorAPI<RQ, RP> {
 //               + "&client_id=" + URLEncoder.encode(clientId,ENCODING)
 //               + "&client_secret=" + URLEncoder.encode(clientSecret,ENCODING) ;
 
-        final URL url = new URL(DatamarketAccessUri);
-        final HttpURLConnection uc = (HttpURLConnection) url.openConnection();
-        if (referrer != null) {
-            uc.setRequestProperty("referer", referrer);
-        }
-        uc.setRequestProperty("Content-Type", "application/x-www-form-urlencoded; charset=" + ENCODING);
-        uc.setRequestProperty("Accept-Charset", ENCODING);
-        uc.setRequestMethod("POST");
-        uc.setDoOutput(true);
-        uc.setRequestProperty(OcpApimSubscriptionKeyHeader, subscriptionKey);
-        uc.setFixedLengthStreamingMode(0);
-
-        OutputStreamWriter wr = new OutputStreamWriter(uc.getOutputStream());
-        wr.write("");
-        wr.flush();
-
-        try {
-            final int responseCode = uc.getResponseCode();
-            final String result = inputStreamToString(uc.getInputStream());
-            if (responseCode != 200) {
-                throw new Exception("Error retrieving token from Microsoft Translator API (" + responseCode + "): " + result);
-            }
-            return result;
-        } finally {
-            uc.disconnect();
-        }
+        return TranslatorClient.issueToken(transport, new URL(DatamarketAccessUri), subscriptionKey, referrer);
     }
 
+    /**
+     * Drops the current access token, the next request issues a new one.
+     */
     public static void resetToken() {
-        token = null;
-        tokenExpiration = 0;
+        getDefaultClient().resetAccessToken();
     }
 
     /**
@@ -201,89 +409,160 @@ public abstract class MicrosoftTranslatorAPI<RQ, RP> {
      * @throws Exception on error.
      */
     private static String retrieveResponse(final URL url) throws Exception {
-        if (subscriptionKey != null && System.currentTimeMillis() > tokenExpiration) {
-            String tokenKey = getToken(subscriptionKey);
-            tokenExpiration = System.currentTimeMillis() + tokenCacheExpiration;
-            token = "Bearer " + tokenKey;
-        }
-        final HttpURLConnection uc = (HttpURLConnection) url.openConnection();
-        if (referrer != null) {
-            uc.setRequestProperty("referer", referrer);
-        }
-        uc.setRequestProperty("Content-Type", contentType + "; charset=" + ENCODING);
-        uc.setRequestProperty("Accept-Charset", ENCODING);
-        if (token != null) {
-            uc.setRequestProperty("Authorization", token);
-        }
-        uc.setRequestMethod("GET");
-        uc.setDoOutput(true);
-
-        try {
-            final int responseCode = uc.getResponseCode();
-            final String result = inputStreamToString(uc.getInputStream());
+        //Renewed in the background, so only the very first request waits for a token
+        final TranslatorClient client = getDefaultClient();
+        final String token = client.getConfig().getSubscriptionKey() != null || client.getConfig().getKeyPool() != null ? "Bearer " + client.getAccessToken() : null;
+        final Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("referer", referrer);
+        headers.put("Content-Type", contentType + "; charset=" + ENCODING);
+        headers.put("Accept-Charset", ENCODING);
+        headers.put("Authorization", token);
+
+        try (HttpResponse response = transport.execute(new HttpRequest(HTTP_GET, url, headers, null))) {
+            final int responseCode = response.getStatusCode();
+            final String result = inputStreamToString(response.getBody());
             if (responseCode != 200) {
-                throw new Exception("Error retrieving translation from Microsoft Translator API (" + responseCode + "): " + result);
+                throw new TranslatorException("Error retrieving translation from Microsoft Translator API (" + responseCode + "): " + result,
+                        responseCode, RequestExecutor.retryAfterMillis(response), result);
             }
             return result;
-        } finally {
-            uc.disconnect();
         }
     }
 
+    /**
+     * @deprecated The services encode their requests with {@link io.github.firemaples.models.TextArrayBody}; kept
+     * for subclasses.
+     */
+    @Deprecated
     protected String toJsonString(Object object) {
         return jsonUtil.writeJson(object);
     }
 
+    /**
+     * @deprecated Use a {@link TranslatorClient}, e.g. {@link #getDefaultClient()}; kept for subclasses.
+     */
+    @Deprecated
     protected RP retrieveResponseV3(URL url, String httpMethod, RQ requestBody, TypeReference<RP> type) throws Exception {
         return retrieveResponseV3(url, httpMethod, requestBody, type, null);
     }
 
+    /**
+     * Sends a v3 request through the default client and parses the response reflectively.
+     *
+     * @deprecated Use a {@link TranslatorClient}, e.g. {@link #getDefaultClient()}; kept for subclasses.
+     */
+    @Deprecated
     protected RP retrieveResponseV3(URL url, String httpMethod, RQ requestBody, TypeReference<RP> type, HashMap<String, String> headers) throws Exception {
-        HttpURLConnection uc = (HttpURLConnection) url.openConnection();
-        uc.setRequestProperty("Content-Type", "application/json");
-        if (headers != null) {
-            for (String key : headers.keySet()) {
-                uc.setRequestProperty(key, headers.get(key));
-            }
-        }
+        return retrieveResponseV3(url, httpMethod, requestBody, reflectiveParser(type), headers);
+    }
+
+    /**
+     * @deprecated Use a {@link TranslatorClient}, e.g. {@link #getDefaultClient()}; kept for subclasses.
+     */
+    @Deprecated
+    protected RP retrieveResponseV3(URL url, String httpMethod, RQ requestBody, JsonCodec<RP> codec) throws Exception {
+        return retrieveResponseV3(url, httpMethod, requestBody, codec, null);
+    }
+
+    /**
+     * Sends a v3 request through the default client and decodes the response with a precompiled codec, e.g. one
+     * of the {@link ModelCodecs}.
+     *
+     * @return The parsed result.
+     * @throws Exception on error.
+     * @deprecated Use a {@link TranslatorClient}, e.g. {@link #getDefaultClient()}; kept for subclasses.
+     */
+    @Deprecated
+    protected RP retrieveResponseV3(URL url, String httpMethod, RQ requestBody, JsonCodec<RP> codec, HashMap<String, String> headers) throws Exception {
+        return retrieveResponseV3(url, httpMethod, requestBody, RequestExecutor.codecParser(codec), headers);
+    }
+
+    private RP retrieveResponseV3(URL url, String httpMethod, RQ requestBody, ResponseParser<RP> parser, HashMap<String, String> headers) throws Exception {
         if (httpMethod == null) {
             httpMethod = HTTP_GET;
         }
-        uc.setRequestMethod(httpMethod);
-        uc.setDoOutput(true);
-        uc.setRequestProperty(OcpApimSubscriptionKeyHeader, subscriptionKey);
-//        uc.setFixedLengthStreamingMode(0);
-
-        if (HTTP_POST.equals(httpMethod)) {
-            String body;
-            if (requestBody != null) {
-                body = toJsonString(requestBody);
-            } else {
-                body = "";
-            }
+        return getDefaultClient().getRequests().execute(httpMethod, url, toRequestBody(httpMethod, requestBody), headers, parser, 0);
+    }
 
-            OutputStreamWriter wr = new OutputStreamWriter(uc.getOutputStream());
-            wr.write(body);
-            wr.flush();
-        }
+    /**
+     * @deprecated Use a {@link TranslatorClient}, e.g. {@link #getDefaultClient()}; kept for subclasses.
+     */
+    @Deprecated
+    protected CompletableFuture<RP> retrieveResponseV3Async(URL url, String httpMethod, RQ requestBody, TypeReference<RP> type) {
+        return retrieveResponseV3Async(url, httpMethod, requestBody, type, null);
+    }
 
-        try {
-            final int responseCode = uc.getResponseCode();
-            final String resultString;
-            if (responseCode == 200 || responseCode == 204) {
-                resultString = inputStreamToString(uc.getInputStream());
-            } else {
-                resultString = inputStreamToString(uc.getErrorStream());
-                throw new Exception("Error retrieving result from Microsoft Translator API (" + responseCode + "): " + resultString);
-            }
+    /**
+     * Asynchronous variant of {@link #retrieveResponseV3(URL, String, Object, TypeReference, HashMap)}.
+     * <p>
+     * The request goes through {@link HttpTransport#executeAsync(HttpRequest, Executor)}, so it only occupies
+     * a thread if the current transport has no non-blocking I/O path.
+     *
+     * @return A future completed with the parsed result, or exceptionally on error.
+     * @deprecated Use a {@link TranslatorClient}, e.g. {@link #getDefaultClient()}; kept for subclasses.
+     */
+    @Deprecated
+    protected CompletableFuture<RP> retrieveResponseV3Async(URL url, String httpMethod, RQ requestBody, TypeReference<RP> type, HashMap<String, String> headers) {
+        return retrieveResponseV3Async(url, httpMethod, requestBody, reflectiveParser(type), headers);
+    }
 
-            //noinspection UnnecessaryLocalVariable
-            RP result = jsonUtil.parseJson(resultString, type);
+    /**
+     * @deprecated Use a {@link TranslatorClient}, e.g. {@link #getDefaultClient()}; kept for subclasses.
+     */
+    @Deprecated
+    protected CompletableFuture<RP> retrieveResponseV3Async(URL url, String httpMethod, RQ requestBody, JsonCodec<RP> codec) {
+        return retrieveResponseV3Async(url, httpMethod, requestBody, codec, null);
+    }
 
-            return result;
-        } finally {
-            uc.disconnect();
+    /**
+     * Asynchronous variant of {@link #retrieveResponseV3(URL, String, Object, JsonCodec, HashMap)}.
+     *
+     * @return A future completed with the parsed result, or exceptionally on error.
+     * @deprecated Use a {@link TranslatorClient}, e.g. {@link #getDefaultClient()}; kept for subclasses.
+     */
+    @Deprecated
+    protected CompletableFuture<RP> retrieveResponseV3Async(URL url, String httpMethod, RQ requestBody, JsonCodec<RP> codec, HashMap<String, String> headers) {
+        return retrieveResponseV3Async(url, httpMethod, requestBody, RequestExecutor.codecParser(codec), headers);
+    }
+
+    private CompletableFuture<RP> retrieveResponseV3Async(URL url, String httpMethod, RQ requestBody, ResponseParser<RP> parser, HashMap<String, String> headers) {
+        if (httpMethod == null) {
+            httpMethod = HTTP_GET;
+        }
+        final RequestBody body;
+        try {
+            body = toRequestBody(httpMethod, requestBody);
+        } catch (Exception e) {
+            return failedFuture(e);
         }
+        return getDefaultClient().getRequests().executeAsync(httpMethod, url, body, headers, parser, 0);
+    }
+
+    private RequestBody toRequestBody(String httpMethod, RQ requestBody) throws Exception {
+        if (!HTTP_POST.equals(httpMethod) || requestBody == null) {
+            return null;
+        }
+        if (requestBody instanceof RequestBody) {
+            //Streamed straight to the connection, e.g. a TextArrayBody
+            return (RequestBody) requestBody;
+        }
+        return RequestBody.of(jsonUtil.writeJson(requestBody).getBytes(ENCODING));
+    }
+
+    private ResponseParser<RP> reflectiveParser(final TypeReference<RP> type) {
+        return reader -> jsonUtil.parseJson(reader, type);
+    }
+
+    /**
+     * Returns a future that is already completed exceptionally.
+     *
+     * @param throwable The failure.
+     * @return The failed future.
+     */
+    protected static <T> CompletableFuture<T> failedFuture(Throwable throwable) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(throwable);
+        return future;
     }
 
     /**
@@ -392,35 +671,28 @@ public abstract class MicrosoftTranslatorAPI<RQ, RP> {
 
     /**
      * Reads an InputStream and returns its contents as a String.
-     * Also effects rate control.
+     * <p>
+     * The Unicode Zero-width Non-breaking Space the Microsoft services prepend to every response is
+     * stripped, line breaks are kept.
      *
      * @param inputStream The InputStream to read from.
      * @return The contents of the InputStream as a String.
      * @throws Exception on error.
      */
     private static String inputStreamToString(final InputStream inputStream) throws Exception {
-        final StringBuilder outputBuilder = new StringBuilder();
-
+        if (inputStream == null) {
+            return "";
+        }
         try {
-            String string;
-            if (inputStream != null) {
-                BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, ENCODING));
-                while (null != (string = reader.readLine())) {
-                    // Need to strip the Unicode Zero-width Non-breaking Space. For some reason, the Microsoft AJAX
-                    // services prepend this to every response
-                    outputBuilder.append(string.replaceAll("\uFEFF", ""));
-                }
-            }
+            return BomSkippingReader.readFully(new BomSkippingReader(inputStream));
         } catch (Exception ex) {
             throw new Exception("[microsoft-translator-api] Error reading translation stream: " + ex.getMessage(), ex);
         }
-
-        return outputBuilder.toString();
     }
 
     //Check if ready to make request, if not, throw a RuntimeException
     protected static void validateServiceState() throws Exception {
-        if (subscriptionKey == null) {
+        if (subscriptionKey == null && keyPool == null) {
             throw new RuntimeException("Must provide a Windows Azure Marketplace SubscriptionKey - Please see https://www.microsoft.com/cognitive-services/en-us/translator-api/documentation/TranslatorInfo/overview for further documentation");
         }
     }
@@ -440,4 +712,8 @@ public abstract class MicrosoftTranslatorAPI<RQ, RP> {
         return list.toJSONString();
     }
 
+    //Created with the default client; the cached pool starts no thread before the first asynchronous call
+    private static final class DefaultExecutorHolder {
+        static final ExecutorService INSTANCE = Executors.newCachedThreadPool(DaemonThreads.factory("microsoft-translator-api"));
+    }
 }
@@ -0,0 +1,385 @@
+package io.github.firemaples;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import io.github.firemaples.auth.KeyPool;
+import io.github.firemaples.auth.SubscriptionKey;
+import io.github.firemaples.codec.JsonCodec;
+import io.github.firemaples.codec.ModelCodecs;
+import io.github.firemaples.hedge.LatencyTracker;
+import io.github.firemaples.http.HttpRequest;
+import io.github.firemaples.http.HttpResponse;
+import io.github.firemaples.http.HttpTransport;
+import io.github.firemaples.http.RequestBody;
+import io.github.firemaples.models.RequestSize;
+import io.github.firemaples.models.TextArrayBody;
+import io.github.firemaples.ratelimit.CharacterRateLimiter;
+import io.github.firemaples.retry.RetryAfter;
+import io.github.firemaples.retry.RetryBudget;
+import io.github.firemaples.retry.RetryPolicy;
+import io.github.firemaples.routing.Endpoint;
+import io.github.firemaples.routing.EndpointRouter;
+import io.github.firemaples.utils.BomSkippingReader;
+import io.github.firemaples.utils.DaemonThreads;
+
+/**
+ * RequestExecutor
+ * <p>
+ * Sends the v3 requests of a {@link TranslatorClient} with the settings of one config: the characters of a
+ * request go through the rate limiter and the key pool, the request goes to the endpoint the router chooses,
+ * and failed attempts are retried as the {@link RetryPolicy} says.
+ * <p>
+ * The retry budget is handed in by the client, it is not tied to one executor.
+ */
+final class RequestExecutor {
+    static final String ENCODING = "UTF-8";
+    static final String HTTP_GET = "GET";
+    static final String HTTP_POST = "POST";
+    static final String SUBSCRIPTION_KEY_HEADER = "Ocp-Apim-Subscription-Key";
+    private static final String SUBSCRIPTION_REGION_HEADER = "Ocp-Apim-Subscription-Region";
+
+    private final TranslatorConfig config;
+    private final HttpTransport transport;
+    private final Executor executor;
+    private final RetryPolicy retryPolicy;
+    private final RetryBudget retryBudget;
+
+    RequestExecutor(TranslatorConfig config, HttpTransport transport, Executor executor, RetryBudget retryBudget) {
+        this.config = config;
+        this.transport = transport;
+        this.executor = executor;
+        this.retryPolicy = config.getRetryPolicy();
+        this.retryBudget = retryBudget;
+    }
+
+    TranslatorConfig getConfig() {
+        return config;
+    }
+
+    HttpTransport getTransport() {
+        return transport;
+    }
+
+    Executor getExecutor() {
+        return executor;
+    }
+
+    RetryBudget getRetryBudget() {
+        return retryBudget;
+    }
+
+    <T> T execute(URL url, String[] texts, JsonCodec<T> codec) throws Exception {
+        return execute(HTTP_POST, url, TextArrayBody.of(texts), null, codecParser(codec), RequestSize.characters(texts));
+    }
+
+    <T> CompletableFuture<T> executeAsync(URL url, String[] texts, JsonCodec<T> codec) {
+        return executeAsync(url, texts, codec, null);
+    }
+
+    <T> CompletableFuture<T> executeAsync(URL url, String[] texts, JsonCodec<T> codec, LatencyTracker latencies) {
+        return executeAsync(HTTP_POST, url, TextArrayBody.of(texts), null, codecParser(codec), RequestSize.characters(texts), latencies);
+    }
+
+    /**
+     * Sends a request and parses the response, retrying failed attempts as the {@link RetryPolicy} of the
+     * config says.
+     *
+     * @param characters The characters the request translates. They go through the rate limiter of the config
+     *                   and count against the quota of the key the request is sent with, once however often
+     *                   the request is retried.
+     */
+    <T> T execute(String method, URL url, RequestBody body, Map<String, String> headers, ResponseParser<T> parser, long characters) throws Exception {
+        final CharacterRateLimiter rateLimiter = config.getRateLimiter();
+        if (rateLimiter != null && characters > 0) {
+            rateLimiter.acquire(characters);
+        }
+        SubscriptionKey key = null;
+        long delay = 0;
+        for (int attempt = 1; ; attempt++) {
+            key = selectKey(key, characters);
+            try {
+                final T result = executeOnce(method, url, body, headers, parser, key);
+                retryBudget.onSuccess();
+                return result;
+            } catch (Exception e) {
+                delay = retryDelay(e, attempt, delay);
+                if (delay < 0) {
+                    throw e;
+                }
+                Thread.sleep(delay);
+            }
+        }
+    }
+
+    /**
+     * Asynchronous variant of {@link #execute(String, URL, RequestBody, Map, ResponseParser, long)}.
+     * <p>
+     * The request goes through {@link HttpTransport#executeAsync(HttpRequest, Executor)}, so it only occupies
+     * a thread if the transport has no non-blocking I/O path. A request that has to wait for the rate limiter
+     * waits on the executor, and retries are scheduled after their delay instead of sleeping on a thread.
+     * <p>
+     * Cancelling the returned future cancels the attempt in flight, see
+     * {@link HttpTransport#executeAsync(HttpRequest, Executor)}, and stops the retries.
+     */
+    <T> CompletableFuture<T> executeAsync(String method, URL url, RequestBody body, Map<String, String> headers,
+                                          ResponseParser<T> parser, long characters) {
+        return executeAsync(method, url, body, headers, parser, characters, null);
+    }
+
+    //Records the latency of each successful attempt if a tracker is given, without the delays between retries
+    private <T> CompletableFuture<T> executeAsync(final String method, final URL url, final RequestBody body, final Map<String, String> headers,
+                                                  final ResponseParser<T> parser, final long characters, final LatencyTracker latencies) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        //Each attempt goes to the best key, the characters move along with it
+        final AtomicReference<SubscriptionKey> key = new AtomicReference<>();
+        final Supplier<CompletableFuture<T>> call = () -> {
+            key.set(selectKey(key.get(), characters));
+            return send(method, url, body, headers, parser, key.get(), latencies);
+        };
+        final CharacterRateLimiter rateLimiter = config.getRateLimiter();
+        if (rateLimiter == null || characters <= 0 || rateLimiter.tryAcquire(characters)) {
+            attemptAsync(call, result, 1, 0);
+            return result;
+        }
+        CompletableFuture.runAsync(() -> {
+            try {
+                rateLimiter.acquire(characters);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+        }, executor).whenComplete((ignored, error) -> {
+            if (error != null) {
+                result.completeExceptionally(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+            } else {
+                attemptAsync(call, result, 1, 0);
+            }
+        });
+        return result;
+    }
+
+    private <T> void attemptAsync(final Supplier<CompletableFuture<T>> call, final CompletableFuture<T> result,
+                                  final int attempt, final long previousDelay) {
+        //Nothing is sent for a call that was cancelled, e.g. the loser of a hedge
+        if (result.isDone()) {
+            return;
+        }
+        final CompletableFuture<T> sent = call.get();
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                sent.cancel(false);
+            }
+        });
+        sent.whenComplete((value, error) -> {
+            if (error == null) {
+                retryBudget.onSuccess();
+                result.complete(value);
+                return;
+            }
+            if (result.isDone()) {
+                return;
+            }
+            final Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            final long delay = retryDelay(cause, attempt, previousDelay);
+            if (delay < 0) {
+                result.completeExceptionally(cause);
+                return;
+            }
+            DaemonThreads.scheduler().schedule(() -> attemptAsync(call, result, attempt + 1, delay), delay, TimeUnit.MILLISECONDS);
+        });
+    }
+
+    //Returns the delay before the next attempt, or -1 to give up
+    private long retryDelay(Throwable error, int attempt, long previousDelay) {
+        if (!retryPolicy.isRetryable(error)) {
+            return -1;
+        }
+        retryBudget.onFailure();
+        if (attempt >= retryPolicy.getMaxAttempts() || !retryBudget.canRetry()) {
+            return -1;
+        }
+        long retryAfter = -1;
+        if (error instanceof TranslatorException) {
+            final TranslatorException exception = (TranslatorException) error;
+            //A throttled pool key is drained by the pool, the retry can go to another key right away
+            final boolean pooled = config.getKeyPool() != null && config.getKeyPool().getKeys().size() > 1;
+            if (!(pooled && exception.getStatusCode() == 429)) {
+                retryAfter = exception.getRetryAfterMillis();
+            }
+        }
+        return retryPolicy.nextDelayMillis(previousDelay, retryAfter);
+    }
+
+    private <T> T executeOnce(String method, URL url, RequestBody body, Map<String, String> headers, ResponseParser<T> parser, SubscriptionKey key) throws Exception {
+        final Endpoint endpoint = selectEndpoint(url);
+        final HttpRequest request = buildRequest(method, routeUrl(url, endpoint), body, headers, key);
+        final long start = System.nanoTime();
+        final HttpResponse response;
+        try {
+            response = transport.execute(request);
+        } catch (IOException e) {
+            reportFailure(endpoint);
+            throw e;
+        }
+        try {
+            reportResponse(key, endpoint, response, start);
+            return readResponse(response, parser);
+        } finally {
+            response.close();
+        }
+    }
+
+    private <T> CompletableFuture<T> send(String method, URL url, RequestBody body, Map<String, String> headers, final ResponseParser<T> parser,
+                                          final SubscriptionKey key, final LatencyTracker latencies) {
+        final Endpoint endpoint;
+        final HttpRequest request;
+        try {
+            endpoint = selectEndpoint(url);
+            request = buildRequest(method, routeUrl(url, endpoint), body, headers, key);
+        } catch (Exception e) {
+            return failedFuture(e);
+        }
+        final long start = System.nanoTime();
+        final CompletableFuture<HttpResponse> exchange = transport.executeAsync(request, executor);
+        final CompletableFuture<T> attempt = exchange.handle((response, error) -> {
+            if (error != null) {
+                //A cancelled request says nothing about the endpoint
+                if (!(error instanceof CancellationException)) {
+                    reportFailure(endpoint);
+                }
+                throw error instanceof CompletionException ? (CompletionException) error : new CompletionException(error);
+            }
+            try {
+                reportResponse(key, endpoint, response, start);
+                final T value = readResponse(response, parser);
+                if (latencies != null) {
+                    latencies.record(System.nanoTime() - start);
+                }
+                return value;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            } finally {
+                closeQuietly(response);
+            }
+        });
+        attempt.whenComplete((value, error) -> {
+            if (attempt.isCancelled()) {
+                exchange.cancel(true);
+            }
+        });
+        return attempt;
+    }
+
+    //Returns null when the requests all go out with the key of the config
+    private SubscriptionKey selectKey(SubscriptionKey previous, long characters) {
+        final KeyPool keyPool = config.getKeyPool();
+        if (keyPool == null) {
+            return null;
+        }
+        return previous != null ? keyPool.reselect(previous, characters) : keyPool.select(characters);
+    }
+
+    //Returns null when the request goes to the URL as given
+    private Endpoint selectEndpoint(URL url) {
+        final EndpointRouter router = config.getRouter();
+        return router != null && url.toString().startsWith(config.getEndpoint()) ? router.select() : null;
+    }
+
+    private URL routeUrl(URL url, Endpoint endpoint) throws IOException {
+        if (endpoint == null) {
+            return url;
+        }
+        return new URL(endpoint.getUrl() + url.toString().substring(config.getEndpoint().length()));
+    }
+
+    private void reportResponse(SubscriptionKey key, Endpoint endpoint, HttpResponse response, long startNanos) {
+        final int status = response.getStatusCode();
+        if (key != null) {
+            config.getKeyPool().onResponse(key, status, retryAfterMillis(response));
+        }
+        if (endpoint != null) {
+            if (status >= 500 || status == 408) {
+                config.getRouter().onFailure(endpoint);
+            } else {
+                config.getRouter().onSuccess(endpoint, System.nanoTime() - startNanos);
+            }
+        }
+    }
+
+    private void reportFailure(Endpoint endpoint) {
+        if (endpoint != null) {
+            config.getRouter().onFailure(endpoint);
+        }
+    }
+
+    private HttpRequest buildRequest(String method, URL url, RequestBody body, Map<String, String> headers, SubscriptionKey key) {
+        final Map<String, String> requestHeaders = new LinkedHashMap<>();
+        requestHeaders.put("Content-Type", "application/json; charset=" + ENCODING);
+        if (headers != null) {
+            requestHeaders.putAll(headers);
+        }
+        final String region = key != null ? key.getRegion() : config.getRegion();
+        requestHeaders.put(SUBSCRIPTION_KEY_HEADER, key != null ? key.getKey() : config.getSubscriptionKey());
+        if (region != null) {
+            requestHeaders.put(SUBSCRIPTION_REGION_HEADER, region);
+        }
+        if (HTTP_POST.equals(method) && body == null) {
+            body = RequestBody.of(new byte[0]);
+        }
+        return new HttpRequest(method, url, requestHeaders, body);
+    }
+
+    private static <T> T readResponse(HttpResponse response, ResponseParser<T> parser) throws Exception {
+        final int responseCode = response.getStatusCode();
+        //Only conditional requests are answered with 304, their parsers handle it
+        if (responseCode != 200 && responseCode != 204 && responseCode != 304) {
+            final String resultString = BomSkippingReader.readFully(new BomSkippingReader(response.getBody()));
+            throw new TranslatorException("Error retrieving result from Microsoft Translator API (" + responseCode + "): " + resultString,
+                    responseCode, retryAfterMillis(response), resultString);
+        }
+
+        return parser.parse(response);
+    }
+
+    static long retryAfterMillis(HttpResponse response) {
+        return RetryAfter.parseMillis(response.getHeader("Retry-After"), System.currentTimeMillis());
+    }
+
+    static <T> ResponseParser<T> codecParser(final JsonCodec<T> codec) {
+        return reader -> ModelCodecs.decode(codec, reader);
+    }
+
+    static <T> T await(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : new RuntimeException(cause);
+        }
+    }
+
+    static <T> CompletableFuture<T> failedFuture(Throwable throwable) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(throwable);
+        return future;
+    }
+
+    private static void closeQuietly(HttpResponse response) {
+        try {
+            response.close();
+        } catch (IOException ignored) {
+            //The result is already read
+        }
+    }
+}
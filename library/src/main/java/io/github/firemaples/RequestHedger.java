@@ -0,0 +1,129 @@
+package io.github.firemaples;
+
+import java.net.URL;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.github.firemaples.codec.JsonCodec;
+import io.github.firemaples.hedge.HedgeBudget;
+import io.github.firemaples.hedge.HedgePolicy;
+import io.github.firemaples.hedge.LatencyTracker;
+import io.github.firemaples.utils.DaemonThreads;
+
+/**
+ * RequestHedger
+ * <p>
+ * Hedges the text array requests of a {@link TranslatorClient} as its {@link HedgePolicy} says. Once a request
+ * has been running for the hedge percentile of the recent latencies, and the hedge budget allows it, a
+ * duplicate is sent and the first successful response wins. The request that loses is cancelled.
+ */
+final class RequestHedger {
+    private final HedgePolicy policy;
+    private final HedgeBudget budget;
+    private final LatencyTracker latencies;
+
+    RequestHedger(HedgePolicy policy) {
+        this.policy = policy;
+        this.budget = policy.newBudget();
+        this.latencies = policy.newLatencyTracker();
+    }
+
+    HedgePolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Sends a text array request through the executor, hedged. It only fails if both the request and its
+     * hedge fail, with the error of the original request.
+     */
+    <T> CompletableFuture<T> executeAsync(final RequestExecutor requests, final URL url, final String[] texts, final JsonCodec<T> codec) {
+        budget.onRequest();
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final AtomicInteger pending = new AtomicInteger(1);
+        final AtomicReference<Throwable> firstError = new AtomicReference<>();
+        final CompletableFuture<T> primary = requests.executeAsync(url, texts, codec, latencies);
+        completeFirst(primary, result, pending, firstError);
+
+        final long delay = hedgeDelayMillis();
+        if (delay >= 0 && !result.isDone()) {
+            final ScheduledFuture<?> timer = DaemonThreads.scheduler().schedule(() -> {
+                //The primary may fail meanwhile, then there is nothing left to hedge
+                if (result.isDone() || !budget.tryHedge() || !incrementIfPositive(pending)) {
+                    return;
+                }
+                CompletableFuture<T> hedge;
+                try {
+                    hedge = requests.executeAsync(hedgeUrl(requests, url), texts, codec, latencies);
+                } catch (Exception e) {
+                    hedge = RequestExecutor.failedFuture(e);
+                }
+                final CompletableFuture<T> sent = hedge;
+                completeFirst(sent, result, pending, firstError);
+                result.whenComplete((value, error) -> sent.cancel(false));
+            }, delay, TimeUnit.MILLISECONDS);
+            result.whenComplete((value, error) -> {
+                timer.cancel(false);
+                primary.cancel(false);
+            });
+        }
+        return result;
+    }
+
+    //Completes the result with the first success, or with the first error once every attempt has failed
+    private static <T> void completeFirst(CompletableFuture<T> attempt, final CompletableFuture<T> result,
+                                          final AtomicInteger pending, final AtomicReference<Throwable> firstError) {
+        attempt.whenComplete((value, error) -> {
+            if (error == null) {
+                result.complete(value);
+                return;
+            }
+            if (error.getCause() != null && error instanceof CompletionException) {
+                error = error.getCause();
+            }
+            if (!(error instanceof CancellationException)) {
+                firstError.compareAndSet(null, error);
+            }
+            if (pending.decrementAndGet() == 0) {
+                final Throwable cause = firstError.get();
+                result.completeExceptionally(cause != null ? cause : error);
+            }
+        });
+    }
+
+    //Returns -1 while there are too few latencies to hedge on
+    private long hedgeDelayMillis() {
+        if (latencies.getSampleCount() < policy.getMinSamples()) {
+            return -1;
+        }
+        final long percentile = TimeUnit.NANOSECONDS.toMillis(latencies.percentile(policy.getPercentile()));
+        return Math.max(policy.getMinDelayMillis(), percentile);
+    }
+
+    //Without a hedge endpoint the policy allows hedges to the endpoint of the request
+    private URL hedgeUrl(RequestExecutor requests, URL url) throws Exception {
+        final String endpoint = policy.getHedgeEndpoint();
+        final String base = requests.getConfig().getEndpoint();
+        final String original = url.toString();
+        if (endpoint == null || !original.startsWith(base)) {
+            return url;
+        }
+        return new URL(endpoint + original.substring(base.length()));
+    }
+
+    private static boolean incrementIfPositive(AtomicInteger counter) {
+        while (true) {
+            final int current = counter.get();
+            if (current <= 0) {
+                return false;
+            }
+            if (counter.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+}
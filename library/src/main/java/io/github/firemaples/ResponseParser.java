@@ -0,0 +1,23 @@
+package io.github.firemaples;
+
+import java.io.Reader;
+
+import io.github.firemaples.http.HttpResponse;
+import io.github.firemaples.utils.BomSkippingReader;
+
+/**
+ * ResponseParser
+ * <p>
+ * Parses a successful response body.
+ */
+interface ResponseParser<T> {
+    T parse(Reader reader) throws Exception;
+
+    /**
+     * Parses a response with its status and headers, by default its body.
+     */
+    default T parse(HttpResponse response) throws Exception {
+        //The body is decoded and parsed as it arrives, without buffering it into a String first
+        return parse(new BomSkippingReader(response.getBody()));
+    }
+}
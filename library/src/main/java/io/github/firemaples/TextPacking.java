@@ -0,0 +1,78 @@
+package io.github.firemaples;
+
+import java.util.Arrays;
+
+import io.github.firemaples.models.RequestSize;
+
+/**
+ * TextPacking
+ * <p>
+ * The request limits of the translate service, measured the same way {@link TranslatorClient} validates them,
+ * for code that combines texts into requests.
+ */
+final class TextPacking {
+    static final int MAX_TRANSLATE_TEXTS = 100;
+    static final int MAX_TRANSLATE_LENGTH = 5000;
+
+    private TextPacking() {
+    }
+
+    /**
+     * @param elementLengths The sum of the {@link RequestSize#elementLength(String)} of the texts.
+     * @param count          The number of texts.
+     * @return The length of the JSON request of the texts.
+     */
+    static int requestLength(long elementLengths, int count) {
+        return (int) Math.min(Integer.MAX_VALUE, 2 + elementLengths + Math.max(0, count - 1));
+    }
+
+    /**
+     * @return The length of the JSON request of the texts.
+     */
+    static int requestLength(String[] texts) {
+        return (int) Math.min(Integer.MAX_VALUE, RequestSize.requestLength(texts));
+    }
+
+    /**
+     * @param requestLength The length of a request that fits the limit.
+     * @return How many target languages a request of the length may have, as every target counts towards the
+     * limit.
+     */
+    static int targetsPerRequest(int requestLength) {
+        return Math.max(1, MAX_TRANSLATE_LENGTH / Math.max(1, requestLength));
+    }
+
+    /**
+     * Splits texts into as few consecutive chunks as the request limits allow.
+     *
+     * @return The exclusive end index of each chunk, one chunk for no texts.
+     * @throws RuntimeException if a text is too large for a request of its own.
+     */
+    static int[] pack(String[] texts) {
+        int[] ends = new int[1];
+        int chunks = 0;
+        int count = 0;
+        long elementLengths = 0;
+        for (int i = 0; i < texts.length; i++) {
+            final int length = RequestSize.elementLength(texts[i]);
+            if (requestLength(length, 1) > MAX_TRANSLATE_LENGTH) {
+                throw new RuntimeException("TEXT_TOO_LARGE - Microsoft Translator (Translate) can handle up to 5,000 characters per request");
+            }
+            if (count == MAX_TRANSLATE_TEXTS || requestLength(elementLengths + length, count + 1) > MAX_TRANSLATE_LENGTH) {
+                if (chunks == ends.length) {
+                    ends = Arrays.copyOf(ends, chunks * 2);
+                }
+                ends[chunks++] = i;
+                count = 0;
+                elementLengths = 0;
+            }
+            count++;
+            elementLengths += length;
+        }
+        if (chunks == ends.length) {
+            ends = Arrays.copyOf(ends, chunks + 1);
+        }
+        ends[chunks++] = texts.length;
+        return Arrays.copyOf(ends, chunks);
+    }
+}
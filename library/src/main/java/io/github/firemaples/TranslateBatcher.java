@@ -0,0 +1,168 @@
+package io.github.firemaples;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import io.github.firemaples.language.Language;
+import io.github.firemaples.models.RequestSize;
+import io.github.firemaples.models.TranslationResult;
+import io.github.firemaples.utils.DaemonThreads;
+
+/**
+ * TranslateBatcher
+ * <p>
+ * Gathers concurrent single-text translations of the same language pair into one request. The first text of
+ * a pair opens a batch that is sent once the linger window has passed, or as soon as the next text would take
+ * it past 100 texts or 5,000 characters. Each caller gets the element of the response for its own text.
+ */
+final class TranslateBatcher {
+    private final TranslateSender sender;
+    private final long lingerMillis;
+    private final ReentrantLock lock = new ReentrantLock();
+    //The open batch of each language pair
+    private final Map<String, Batch> open = new HashMap<>();
+
+    TranslateBatcher(TranslateSender sender, long lingerMillis) {
+        this.sender = sender;
+        this.lingerMillis = lingerMillis;
+    }
+
+    /**
+     * @return A future completed with the result element of the text.
+     */
+    CompletableFuture<TranslationResult.Result> submit(Language from, Language to, String text) {
+        final int length = RequestSize.elementLength(text);
+        final CompletableFuture<TranslationResult.Result> future = new CompletableFuture<>();
+        //A text too large to share a request goes out alone, and fails validation there if it is too large at all
+        if (TextPacking.requestLength(length, 1) > TextPacking.MAX_TRANSLATE_LENGTH) {
+            send(new Batch(from, to), text, future);
+            return future;
+        }
+        final String key = from + ">" + to;
+        Batch full = null;
+        Batch ready = null;
+        lock.lock();
+        try {
+            Batch batch = open.get(key);
+            if (batch != null && !batch.fits(length)) {
+                open.remove(key);
+                full = batch;
+                batch = null;
+            }
+            if (batch == null) {
+                batch = new Batch(from, to);
+                open.put(key, batch);
+                final Batch opened = batch;
+                batch.timer = DaemonThreads.scheduler().schedule(() -> flush(key, opened), lingerMillis, TimeUnit.MILLISECONDS);
+            }
+            batch.add(text, length, future);
+            if (batch.texts.size() >= TextPacking.MAX_TRANSLATE_TEXTS) {
+                open.remove(key);
+                ready = batch;
+            }
+        } finally {
+            lock.unlock();
+        }
+        //Requests are started outside of the lock
+        if (full != null) {
+            full.timer.cancel(false);
+            send(full);
+        }
+        if (ready != null) {
+            ready.timer.cancel(false);
+            send(ready);
+        }
+        return future;
+    }
+
+    /**
+     * Sends all open batches right away.
+     */
+    void flushAll() {
+        final List<Batch> batches;
+        lock.lock();
+        try {
+            batches = new ArrayList<>(open.values());
+            open.clear();
+        } finally {
+            lock.unlock();
+        }
+        for (Batch batch : batches) {
+            batch.timer.cancel(false);
+            send(batch);
+        }
+    }
+
+    private void flush(String key, Batch batch) {
+        lock.lock();
+        try {
+            //The batch may have been sent when it filled up
+            if (open.get(key) != batch) {
+                return;
+            }
+            open.remove(key);
+        } finally {
+            lock.unlock();
+        }
+        send(batch);
+    }
+
+    private void send(Batch batch, String text, CompletableFuture<TranslationResult.Result> future) {
+        batch.add(text, 0, future);
+        send(batch);
+    }
+
+    private void send(final Batch batch) {
+        final List<CompletableFuture<TranslationResult.Result>> futures = batch.futures;
+        final CompletableFuture<TranslationResult> response;
+        try {
+            response = sender.send(batch.from, batch.to, batch.texts.toArray(new String[0]));
+        } catch (RuntimeException e) {
+            for (CompletableFuture<TranslationResult.Result> future : futures) {
+                future.completeExceptionally(e);
+            }
+            return;
+        }
+        response.whenComplete((result, error) -> {
+            for (int i = 0; i < futures.size(); i++) {
+                if (error != null) {
+                    futures.get(i).completeExceptionally(error);
+                } else if (result == null || i >= result.size()) {
+                    futures.get(i).completeExceptionally(new IllegalStateException("Parsing result failed"));
+                } else {
+                    futures.get(i).complete(result.get(i));
+                }
+            }
+        });
+    }
+
+    private static final class Batch {
+        final Language from;
+        final Language to;
+        final List<String> texts = new ArrayList<>();
+        final List<CompletableFuture<TranslationResult.Result>> futures = new ArrayList<>();
+        long elementLengths;
+        ScheduledFuture<?> timer;
+
+        Batch(Language from, Language to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        boolean fits(int length) {
+            return TextPacking.requestLength(elementLengths + length, texts.size() + 1) <= TextPacking.MAX_TRANSLATE_LENGTH;
+        }
+
+        void add(String text, int length, CompletableFuture<TranslationResult.Result> future) {
+            texts.add(text);
+            futures.add(future);
+            elementLengths += length;
+        }
+    }
+}
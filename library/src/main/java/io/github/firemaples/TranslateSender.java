@@ -0,0 +1,15 @@
+package io.github.firemaples;
+
+import java.util.concurrent.CompletableFuture;
+
+import io.github.firemaples.language.Language;
+import io.github.firemaples.models.TranslationResult;
+
+/**
+ * TranslateSender
+ * <p>
+ * Sends validated texts that fit the request limits as one translate request.
+ */
+interface TranslateSender {
+    CompletableFuture<TranslationResult> send(Language from, Language to, String[] texts);
+}
@@ -0,0 +1,841 @@
+package io.github.firemaples;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import io.github.firemaples.auth.KeyPool;
+import io.github.firemaples.auth.SubscriptionKey;
+import io.github.firemaples.auth.TokenManager;
+import io.github.firemaples.cache.DetectionCache;
+import io.github.firemaples.cache.TranslationCache;
+import io.github.firemaples.codec.JsonCodec;
+import io.github.firemaples.codec.ModelCodecs;
+import io.github.firemaples.hedge.HedgePolicy;
+import io.github.firemaples.http.HttpRequest;
+import io.github.firemaples.http.HttpResponse;
+import io.github.firemaples.http.HttpTransport;
+import io.github.firemaples.http.RequestBody;
+import io.github.firemaples.http.UrlConnectionTransport;
+import io.github.firemaples.language.Language;
+import io.github.firemaples.models.BreakSentencesResult;
+import io.github.firemaples.models.DetectResult;
+import io.github.firemaples.models.LanguagesResult;
+import io.github.firemaples.models.RequestSize;
+import io.github.firemaples.models.TextArrayBody;
+import io.github.firemaples.models.TranslationResult;
+import io.github.firemaples.retry.RetryPolicy;
+import io.github.firemaples.routing.EndpointRouter;
+import io.github.firemaples.utils.BomSkippingReader;
+import io.github.firemaples.utils.DaemonThreads;
+import io.github.firemaples.utils.VirtualThreads;
+
+/**
+ * TranslatorClient
+ * <p>
+ * Calls the Translator v3 services with the settings of one immutable {@link TranslatorConfig}, so clients for
+ * different subscriptions or regions can be used side by side. A client is thread-safe and meant to be
+ * shared; create one per configuration and {@link #close()} it when done.
+ * <p>
+ * The client owns the resources it creates itself (its transport, executor and token manager) and releases
+ * them on close. Transports and executors passed in through the config are shared and left untouched.
+ * <p>
+ * The static {@link io.github.firemaples.translate.Translate}, {@link io.github.firemaples.detect.Detect} and
+ * {@link io.github.firemaples.sentence.BreakSentences} facades delegate to a default client, see
+ * {@link MicrosoftTranslatorAPI#getDefaultClient()}.
+ */
+public class TranslatorClient implements Closeable {
+    private static final String ENCODING = RequestExecutor.ENCODING;
+    private static final String HTTP_GET = RequestExecutor.HTTP_GET;
+    private static final String HTTP_POST = RequestExecutor.HTTP_POST;
+    private static final String ISSUE_TOKEN_URL = "https://api.cognitive.microsoft.com/sts/v1.0/issueToken";
+    private static final String REGIONAL_ISSUE_TOKEN_URL = "https://%s.api.cognitive.microsoft.com/sts/v1.0/issueToken";
+    static final String API_VERSION = "?api-version=3.0";
+    //Tokens are renewed after 5 minutes and issued tokens are valid for 10 minutes
+    private static final long TOKEN_REFRESH_AFTER = 5 * 60 * 1000;
+    private static final long TOKEN_EXPIRE_AFTER = 9 * 60 * 1000;
+
+    //Guards reconfiguring and closing, and the owned resources
+    private final ReentrantLock lock = new ReentrantLock();
+    private HttpTransport ownedTransport;
+    private final Map<ExecutionMode, ExecutorService> ownedExecutors = new EnumMap<>(ExecutionMode.class);
+    //Swapped by reconfigure, a call reads each of them once
+    private volatile TranslatorConfig config;
+    private volatile RequestExecutor requests;
+    private volatile RequestHedger hedger;
+    private volatile EndpointProber prober;
+    private volatile TranslateBatcher batcher;
+    private volatile LanguagesCache languagesCache;
+    //Created with the first subscription key, then kept across reconfigurations
+    private volatile TokenManager tokenManager;
+    private final AtomicLong deduplicatedCharacters = new AtomicLong();
+
+    public TranslatorClient(TranslatorConfig config) {
+        reconfigure(config);
+    }
+
+    public TranslatorConfig getConfig() {
+        return config;
+    }
+
+    //Sends the requests of the deprecated MicrosoftTranslatorAPI.retrieveResponseV3 methods
+    RequestExecutor getRequests() {
+        return requests;
+    }
+
+    /**
+     * Switches the client to another config without losing its state: the access token, the budgets and latencies
+     * of the retry and hedge policies, the cached languages and the pending batches are kept as long as the
+     * settings they depend on stay the same. Calls in flight finish with the collaborators they started with.
+     */
+    void reconfigure(TranslatorConfig next) {
+        lock.lock();
+        try {
+            final TranslatorConfig previous = config;
+            final RequestExecutor current = requests;
+            final HttpTransport transport = next.getTransport() != null ? next.getTransport() : ownedTransport();
+            final Executor executor = next.getExecutor() != null ? next.getExecutor() : ownedExecutor(next.getExecutionMode());
+
+            final RetryPolicy retryPolicy = next.getRetryPolicy();
+            requests = new RequestExecutor(next, transport, executor, current != null && current.getConfig().getRetryPolicy() == retryPolicy
+                    ? current.getRetryBudget() : retryPolicy.newBudget());
+            final HedgePolicy hedgePolicy = next.getHedgePolicy();
+            if (hedgePolicy == null || hedger == null || hedger.getPolicy() != hedgePolicy) {
+                hedger = hedgePolicy != null ? new RequestHedger(hedgePolicy) : null;
+            }
+            final EndpointRouter router = next.getRouter();
+            if (current == null || router != previous.getRouter() || transport != current.getTransport() || executor != current.getExecutor()) {
+                if (prober != null) {
+                    prober.close();
+                }
+                prober = router != null && router.getProbeIntervalMillis() > 0 ? new EndpointProber(router, transport, executor) : null;
+            }
+            if (previous == null || previous.getLanguagesRefreshMillis() != next.getLanguagesRefreshMillis()) {
+                languagesCache = next.getLanguagesRefreshMillis() > 0
+                        ? new LanguagesCache(this::fetchLanguages, next.getLanguagesRefreshMillis()) : null;
+            }
+            config = next;
+
+            //The batches waiting for the old linger are sent right away
+            if (previous == null || previous.getBatchLingerMillis() != next.getBatchLingerMillis()) {
+                final TranslateBatcher old = batcher;
+                batcher = next.getBatchLingerMillis() > 0 ? new TranslateBatcher(this::translateUnbatched, next.getBatchLingerMillis()) : null;
+                if (old != null) {
+                    old.flushAll();
+                }
+            }
+            //Issues tokens with the current config, a token of other credentials is dropped
+            if (tokenManager == null) {
+                if (next.getSubscriptionKey() != null || next.getKeyPool() != null) {
+                    tokenManager = new TokenManager(this::issueToken, TOKEN_REFRESH_AFTER, TOKEN_EXPIRE_AFTER, this::executeOnCurrent);
+                }
+            } else if (!sameCredentials(previous, next)) {
+                tokenManager.reset();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Translate and detect requests send each distinct text once, however often it occurs in the call, and
+     * hand a copy of its result to every occurrence. What a single call saved is reported by
+     * {@link TranslationResult#getDeduplicatedCharacters()} and {@link DetectResult#getDeduplicatedCharacters()}.
+     *
+     * @return The characters this client did not send as duplicates in the calls that succeeded, counted once
+     * per target language.
+     */
+    public long getDeduplicatedCharacters() {
+        return deduplicatedCharacters.get();
+    }
+
+    /**
+     * Translates texts from a given Language to another given Language.
+     * <p>
+     * Note that the Microsoft Translator expects all source texts to be of the SAME language.
+     * <p>
+     * If the config has a {@link TranslatorConfig#getBatchLingerMillis() batch linger}, a single text shares its
+     * request with the concurrent single-text translations of the same language pair. If it has a
+     * {@link TranslatorConfig#getTranslationCache() translation cache}, only the texts the cache misses are sent.
+     *
+     * @param from  The language to translate from, {@link Language#AUTO_DETECT} to detect it.
+     * @param to    The language to translate to.
+     * @param texts Up to 100 texts, of 5,000 characters in total.
+     * @return The translation result, one element per text.
+     * @throws Exception on error.
+     */
+    public TranslationResult translate(Language from, Language to, String... texts) throws Exception {
+        validateTranslate(texts);
+        final TranslationCache translationCache = config.getTranslationCache();
+        if (translationCache != null) {
+            final CachedTranslation cached = CachedTranslation.lookup(translationCache, from, to, texts);
+            return cached.complete(cached.getMisses().length > 0 ? translateUncached(from, to, cached.getMisses()) : null);
+        }
+        return translateUncached(from, to, texts);
+    }
+
+    private TranslationResult translateUncached(Language from, Language to, String[] texts) throws Exception {
+        final TranslateBatcher batcher = this.batcher;
+        if (batcher != null && texts.length == 1) {
+            return await(translateBatched(batcher, from, to, texts[0]));
+        }
+        final Deduplication deduplication = Deduplication.of(texts);
+        return expand(deduplication, executeHedged(translateUrl(from, to), deduplication.getUnique(), ModelCodecs.TRANSLATION_RESULT), 1);
+    }
+
+    /**
+     * Asynchronous variant of {@link #translate(Language, Language, String...)}.
+     * <p>
+     * Validation errors and service errors complete the returned future exceptionally.
+     */
+    public CompletableFuture<TranslationResult> translateAsync(Language from, Language to, String... texts) {
+        try {
+            validateTranslate(texts);
+        } catch (Exception e) {
+            return failedFuture(e);
+        }
+        final TranslationCache translationCache = config.getTranslationCache();
+        if (translationCache != null) {
+            return translateCachedAsync(translationCache, from, to, texts, this::translateUncachedAsync);
+        }
+        return translateUncachedAsync(from, to, texts);
+    }
+
+    private CompletableFuture<TranslationResult> translateUncachedAsync(Language from, Language to, String[] texts) {
+        final TranslateBatcher batcher = this.batcher;
+        if (batcher != null && texts.length == 1) {
+            return translateBatched(batcher, from, to, texts[0]);
+        }
+        return translateUnbatched(from, to, texts);
+    }
+
+    private static CompletableFuture<TranslationResult> translateCachedAsync(TranslationCache translationCache, Language from, Language to,
+                                                                            String[] texts, TranslateSender sender) {
+        final CachedTranslation cached = CachedTranslation.lookup(translationCache, from, to, texts);
+        if (cached.getMisses().length == 0) {
+            return CompletableFuture.completedFuture(cached.complete(null));
+        }
+        return sender.send(from, to, cached.getMisses()).thenApply(cached::complete);
+    }
+
+    /**
+     * Translates any number of texts, split into as many requests as the request limits need.
+     * <p>
+     * At most {@link TranslatorConfig#getFanOutParallelism()} of the requests are in flight at a time. The result
+     * has one element per text, in the order of the texts.
+     *
+     * @param from  The language to translate from, {@link Language#AUTO_DETECT} to detect it.
+     * @param to    The language to translate to.
+     * @param texts The texts, each of up to 5,000 characters.
+     * @return The translation result, one element per text.
+     * @throws Exception on error.
+     */
+    public TranslationResult translateAll(Language from, Language to, String... texts) throws Exception {
+        return await(translateAllAsync(from, to, texts));
+    }
+
+    /**
+     * Asynchronous variant of {@link #translateAll(Language, Language, String...)}.
+     * <p>
+     * Validation errors and service errors complete the returned future exceptionally.
+     */
+    public CompletableFuture<TranslationResult> translateAllAsync(Language from, Language to, String... texts) {
+        return translateAllAsync(from, to, texts, config.getFanOutParallelism());
+    }
+
+    private CompletableFuture<TranslationResult> translateAllAsync(Language from, Language to, String[] texts, final int parallelism) {
+        final TranslationCache translationCache = config.getTranslationCache();
+        if (translationCache != null) {
+            try {
+                checkSubscriptionKey();
+            } catch (Exception e) {
+                return failedFuture(e);
+            }
+            return translateCachedAsync(translationCache, from, to, texts,
+                    (cachedFrom, cachedTo, misses) -> translateAllUncachedAsync(cachedFrom, cachedTo, misses, parallelism));
+        }
+        return translateAllUncachedAsync(from, to, texts, parallelism);
+    }
+
+    private CompletableFuture<TranslationResult> translateAllUncachedAsync(Language from, Language to, String[] texts, int parallelism) {
+        //Duplicates in different chunks are only sent once as well
+        final Deduplication deduplication = Deduplication.of(texts);
+        final String[] unique = deduplication.getUnique();
+        final int[] ends;
+        try {
+            ends = TextPacking.pack(unique);
+            checkSubscriptionKey();
+        } catch (Exception e) {
+            return failedFuture(e);
+        }
+        if (ends.length == 1) {
+            return translateUncachedAsync(from, to, unique).thenApply(result -> expand(deduplication, result, 1));
+        }
+        return FanOut.run(ends.length, parallelism, index -> {
+            final String[] chunk = Arrays.copyOfRange(unique, index == 0 ? 0 : ends[index - 1], ends[index]);
+            return translateUnbatched(from, to, chunk).thenApply(result -> {
+                if (result == null || result.size() != chunk.length) {
+                    throw new IllegalStateException("Parsing result failed");
+                }
+                return result;
+            });
+        }).thenApply(parts -> {
+            final TranslationResult merged = new TranslationResult();
+            merged.ensureCapacity(unique.length);
+            for (TranslationResult part : parts) {
+                merged.addAll(part);
+            }
+            return expand(deduplication, merged, 1);
+        });
+    }
+
+    /**
+     * Translates texts into several languages.
+     * <p>
+     * The service charges every character once per target language, so the targets are split into as many
+     * requests as the request limit needs; the requests are sent like the parts of
+     * {@link #translateAll(Language, Language, String...)}. Multi-target requests are not hedged, a hedge would
+     * pay for every target again.
+     *
+     * @param from  The language to translate from, {@link Language#AUTO_DETECT} to detect it.
+     * @param to    The languages to translate to.
+     * @param texts Up to 100 texts, of 5,000 characters in total.
+     * @return The translation result, one element per text with one translation per target language, in the
+     * order of {@code to}.
+     * @throws Exception on error.
+     */
+    public TranslationResult translate(Language from, Language[] to, String... texts) throws Exception {
+        return await(translateAsync(from, to, texts));
+    }
+
+    /**
+     * Asynchronous variant of {@link #translate(Language, Language[], String...)}.
+     * <p>
+     * Validation errors and service errors complete the returned future exceptionally.
+     */
+    public CompletableFuture<TranslationResult> translateAsync(final Language from, final Language[] to, final String... texts) {
+        final int targetsPerRequest;
+        try {
+            if (to == null || to.length == 0) {
+                throw new IllegalArgumentException("At least one target language is required");
+            }
+            validateTranslate(texts);
+            targetsPerRequest = TextPacking.targetsPerRequest(TextPacking.requestLength(texts));
+        } catch (Exception e) {
+            return failedFuture(e);
+        }
+        final Deduplication deduplication = Deduplication.of(texts);
+        final String[] unique = deduplication.getUnique();
+        final int requestCount = (to.length + targetsPerRequest - 1) / targetsPerRequest;
+        final long characters = RequestSize.characters(unique);
+        return FanOut.run(requestCount, config.getFanOutParallelism(), index -> {
+            final Language[] targets = Arrays.copyOfRange(to, index * targetsPerRequest, Math.min(to.length, (index + 1) * targetsPerRequest));
+            final URL url;
+            try {
+                url = translateUrl(from, targets);
+            } catch (Exception e) {
+                return failedFuture(e);
+            }
+            return requests.executeAsync(HTTP_POST, url, TextArrayBody.of(unique), null, RequestExecutor.codecParser(ModelCodecs.TRANSLATION_RESULT),
+                    characters * targets.length).thenApply(result -> {
+                if (result == null || result.size() != unique.length) {
+                    throw new IllegalStateException("Parsing result failed");
+                }
+                for (TranslationResult.Result element : result) {
+                    if (element.translations == null || element.translations.size() != targets.length) {
+                        throw new IllegalStateException("Parsing result failed");
+                    }
+                }
+                return result;
+            });
+        }).thenApply(parts -> {
+            //Join the translations of each text in the order of the targets
+            final TranslationResult merged = parts.get(0);
+            for (int i = 1; i < parts.size(); i++) {
+                for (int j = 0; j < unique.length; j++) {
+                    merged.get(j).translations.addAll(parts.get(i).get(j).translations);
+                }
+            }
+            return expand(deduplication, merged, to.length);
+        });
+    }
+
+    /**
+     * Translates a text of any length, such as a whole article.
+     * <p>
+     * The text is cut at sentence boundaries into chunks that fit a request each, the chunks are translated like
+     * {@link #translateAll(Language, Language, String...)} does and the translations are joined back together,
+     * keeping the whitespace around each chunk as it was.
+     * <p>
+     * Each chunk fills a request of its own, so the chunk requests are sent with the
+     * {@link TranslatorConfig#getDocumentParallelism() document parallelism} rather than the fan-out parallelism:
+     * with the default of 32, a document of up to about 160,000 characters takes about one round trip.
+     *
+     * @param from The language to translate from, {@link Language#AUTO_DETECT} to detect it for each chunk.
+     * @param to   The language to translate to.
+     * @param text The text to translate.
+     * @return The translated text.
+     * @throws Exception on error.
+     */
+    public String translateDocument(Language from, Language to, String text) throws Exception {
+        return await(translateDocumentAsync(from, to, text));
+    }
+
+    /**
+     * Asynchronous variant of {@link #translateDocument(Language, Language, String)}.
+     * <p>
+     * Validation errors and service errors complete the returned future exceptionally.
+     */
+    public CompletableFuture<String> translateDocumentAsync(Language from, Language to, String text) {
+        final List<String> chunks;
+        try {
+            checkSubscriptionKey();
+            chunks = DocumentSplitter.split(text, from);
+        } catch (Exception e) {
+            return failedFuture(e);
+        }
+        //Only the text between the leading and trailing whitespace of a chunk is sent
+        final List<String> cores = new ArrayList<>();
+        final int[] coreStarts = new int[chunks.size()];
+        final int[] coreEnds = new int[chunks.size()];
+        for (int i = 0; i < chunks.size(); i++) {
+            final String chunk = chunks.get(i);
+            int start = 0;
+            int end = chunk.length();
+            while (start < end && Character.isWhitespace(chunk.charAt(start))) {
+                start++;
+            }
+            while (end > start && Character.isWhitespace(chunk.charAt(end - 1))) {
+                end--;
+            }
+            coreStarts[i] = start;
+            coreEnds[i] = end;
+            if (start < end) {
+                cores.add(chunk.substring(start, end));
+            }
+        }
+        if (cores.isEmpty()) {
+            //Nothing but whitespace, there is nothing to translate
+            return CompletableFuture.completedFuture(text);
+        }
+        return translateAllAsync(from, to, cores.toArray(new String[0]), config.getDocumentParallelism()).thenApply(result -> {
+            final StringBuilder document = new StringBuilder(text.length());
+            int core = 0;
+            for (int i = 0; i < chunks.size(); i++) {
+                final String chunk = chunks.get(i);
+                document.append(chunk, 0, coreStarts[i]);
+                if (coreStarts[i] < coreEnds[i]) {
+                    final List<TranslationResult.Translation> translations = result.get(core++).translations;
+                    if (translations == null || translations.isEmpty()) {
+                        throw new IllegalStateException("Parsing result failed");
+                    }
+                    document.append(translations.get(0).text);
+                }
+                document.append(chunk, coreEnds[i], chunk.length());
+            }
+            return document.toString();
+        });
+    }
+
+    /**
+     * Detects the language of texts.
+     * <p>
+     * If the config has a {@link TranslatorConfig#getDetectionCache() detection cache}, only the texts the cache
+     * misses are sent.
+     *
+     * @param texts Up to 100 texts of 10,000 characters each, 50,000 characters in total.
+     * @return The detection result, one element per text.
+     * @throws Exception on error.
+     */
+    public DetectResult detect(String... texts) throws Exception {
+        validateDetect(texts);
+        final DetectionCache detectionCache = config.getDetectionCache();
+        if (detectionCache != null) {
+            final CachedDetection cached = CachedDetection.lookup(detectionCache, texts);
+            return cached.complete(cached.getMisses().length > 0 ? detectUncached(cached.getMisses()) : null);
+        }
+        return detectUncached(texts);
+    }
+
+    private DetectResult detectUncached(String[] texts) throws Exception {
+        final Deduplication deduplication = Deduplication.of(texts);
+        return expand(deduplication, executeHedged(serviceUrl("/detect", ""), deduplication.getUnique(), ModelCodecs.DETECT_RESULT));
+    }
+
+    /**
+     * Asynchronous variant of {@link #detect(String...)}.
+     * <p>
+     * Validation errors and service errors complete the returned future exceptionally.
+     */
+    public CompletableFuture<DetectResult> detectAsync(String... texts) {
+        try {
+            validateDetect(texts);
+        } catch (Exception e) {
+            return failedFuture(e);
+        }
+        final DetectionCache detectionCache = config.getDetectionCache();
+        if (detectionCache != null) {
+            final CachedDetection cached = CachedDetection.lookup(detectionCache, texts);
+            if (cached.getMisses().length == 0) {
+                return CompletableFuture.completedFuture(cached.complete(null));
+            }
+            return detectUncachedAsync(cached.getMisses()).thenApply(cached::complete);
+        }
+        return detectUncachedAsync(texts);
+    }
+
+    private CompletableFuture<DetectResult> detectUncachedAsync(String[] texts) {
+        final URL url;
+        try {
+            url = serviceUrl("/detect", "");
+        } catch (Exception e) {
+            return failedFuture(e);
+        }
+        final Deduplication deduplication = Deduplication.of(texts);
+        return executeHedgedAsync(url, deduplication.getUnique(), ModelCodecs.DETECT_RESULT)
+                .thenApply(result -> expand(deduplication, result));
+    }
+
+    /**
+     * Reports the lengths of the sentences of texts.
+     *
+     * @param language The language of the texts.
+     * @param texts    Up to 100 texts of 10,000 characters each, 50,000 characters in total.
+     * @return The sentence lengths, one element per text.
+     * @throws Exception on error.
+     */
+    public BreakSentencesResult breakSentences(Language language, String... texts) throws Exception {
+        validateBreakSentences(texts);
+        return requests.execute(breakSentencesUrl(language), texts, ModelCodecs.BREAK_SENTENCES_RESULT);
+    }
+
+    /**
+     * Asynchronous variant of {@link #breakSentences(Language, String...)}.
+     * <p>
+     * Validation errors and service errors complete the returned future exceptionally.
+     */
+    public CompletableFuture<BreakSentencesResult> breakSentencesAsync(Language language, String... texts) {
+        final URL url;
+        try {
+            validateBreakSentences(texts);
+            url = breakSentencesUrl(language);
+        } catch (Exception e) {
+            return failedFuture(e);
+        }
+        return requests.executeAsync(url, texts, ModelCodecs.BREAK_SENTENCES_RESULT);
+    }
+
+    /**
+     * Gets the languages supported for translation.
+     * <p>
+     * Unless the config has no {@link TranslatorConfig#getLanguagesRefreshMillis() languages refresh interval},
+     * the response of each locale is cached and checked for changes in the background once the interval has
+     * passed, see {@link LanguagesCache}. Each call returns its own copy of the cached result.
+     *
+     * @param locale The language to localize the language names in, or null for the service default.
+     * @return The supported languages, keyed by language code.
+     * @throws Exception on error.
+     */
+    public LanguagesResult languages(Language locale) throws Exception {
+        checkSubscriptionKey();
+        final LanguagesCache languagesCache = this.languagesCache;
+        if (languagesCache != null) {
+            return languagesCache.get(locale);
+        }
+        return requests.execute(HTTP_GET, serviceUrl("/languages", "&scope=translation"), null, languagesHeaders(locale, null),
+                RequestExecutor.codecParser(ModelCodecs.LANGUAGES_RESULT), 0);
+    }
+
+    private CompletableFuture<LanguagesCache.Fetched> fetchLanguages(Language locale, String etag) {
+        final URL url;
+        try {
+            url = serviceUrl("/languages", "&scope=translation");
+        } catch (Exception e) {
+            return failedFuture(e);
+        }
+        return requests.executeAsync(HTTP_GET, url, null, languagesHeaders(locale, etag), new ResponseParser<LanguagesCache.Fetched>() {
+            @Override
+            public LanguagesCache.Fetched parse(Reader reader) throws Exception {
+                return new LanguagesCache.Fetched(ModelCodecs.decode(ModelCodecs.LANGUAGES_RESULT, reader), null);
+            }
+
+            @Override
+            public LanguagesCache.Fetched parse(HttpResponse response) throws Exception {
+                final String etag = response.getHeader("ETag");
+                if (response.getStatusCode() == 304) {
+                    return new LanguagesCache.Fetched(null, etag);
+                }
+                return new LanguagesCache.Fetched(parse(new BomSkippingReader(response.getBody())).result, etag);
+            }
+        }, 0);
+    }
+
+    private static Map<String, String> languagesHeaders(Language locale, String etag) {
+        final Map<String, String> headers = new LinkedHashMap<>();
+        if (locale != null) {
+            headers.put("Accept-Language", locale.toString());
+        }
+        if (etag != null) {
+            headers.put("If-None-Match", etag);
+        }
+        return headers;
+    }
+
+    /**
+     * Gets a bearer access token for the subscription, e.g. for services that do not accept the subscription
+     * key. Tokens are renewed in the background, so this only waits for the first one.
+     *
+     * @return The access token, without the "Bearer " prefix.
+     * @throws Exception on error.
+     */
+    public String getAccessToken() throws Exception {
+        checkSubscriptionKey();
+        return tokenManager.getToken();
+    }
+
+    /**
+     * Drops the current access token, the next {@link #getAccessToken()} issues a new one.
+     */
+    public void resetAccessToken() {
+        if (tokenManager != null) {
+            tokenManager.reset();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            //Send the waiting translations before the executor and the transport go away
+            final TranslateBatcher batcher = this.batcher;
+            if (batcher != null) {
+                batcher.flushAll();
+            }
+            if (tokenManager != null) {
+                tokenManager.close();
+            }
+            if (prober != null) {
+                prober.close();
+            }
+            for (ExecutorService executor : ownedExecutors.values()) {
+                executor.shutdown();
+            }
+            if (ownedTransport instanceof Closeable) {
+                try {
+                    ((Closeable) ownedTransport).close();
+                } catch (IOException ignored) {
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static CompletableFuture<TranslationResult> translateBatched(TranslateBatcher batcher, Language from, Language to, String text) {
+        return batcher.submit(from, to, text).thenApply(result -> {
+            final TranslationResult translationResult = new TranslationResult();
+            translationResult.add(result);
+            return translationResult;
+        });
+    }
+
+    //Translates validated texts in one request
+    private CompletableFuture<TranslationResult> translateUnbatched(Language from, Language to, String[] texts) {
+        final URL url;
+        try {
+            url = translateUrl(from, to);
+        } catch (Exception e) {
+            return failedFuture(e);
+        }
+        final Deduplication deduplication = Deduplication.of(texts);
+        return executeHedgedAsync(url, deduplication.getUnique(), ModelCodecs.TRANSLATION_RESULT)
+                .thenApply(result -> expand(deduplication, result, 1));
+    }
+
+    //Expands the result of the distinct texts, the characters left out are only counted once it has arrived
+    private TranslationResult expand(Deduplication deduplication, TranslationResult result, int targets) {
+        final TranslationResult expanded = deduplication.expand(result, new TranslationResult(), TranslationResult.Result::copy);
+        if (expanded != null) {
+            expanded.setDeduplicatedCharacters(countDeduplicated(deduplication.getSavedCharacters() * targets));
+        }
+        return expanded;
+    }
+
+    private DetectResult expand(Deduplication deduplication, DetectResult result) {
+        final DetectResult expanded = deduplication.expand(result, new DetectResult(), DetectResult.Result::copy);
+        if (expanded != null) {
+            expanded.setDeduplicatedCharacters(countDeduplicated(deduplication.getSavedCharacters()));
+        }
+        return expanded;
+    }
+
+    private long countDeduplicated(long characters) {
+        deduplicatedCharacters.addAndGet(characters);
+        return characters;
+    }
+
+    //Sends a text array request, hedged if the config has a HedgePolicy
+    private <T> T executeHedged(URL url, String[] texts, JsonCodec<T> codec) throws Exception {
+        final RequestHedger hedger = this.hedger;
+        if (hedger == null) {
+            return requests.execute(url, texts, codec);
+        }
+        return await(hedger.executeAsync(requests, url, texts, codec));
+    }
+
+    private <T> CompletableFuture<T> executeHedgedAsync(URL url, String[] texts, JsonCodec<T> codec) {
+        final RequestHedger hedger = this.hedger;
+        if (hedger == null) {
+            return requests.executeAsync(url, texts, codec);
+        }
+        return hedger.executeAsync(requests, url, texts, codec);
+    }
+
+    //Token refreshes run on the executor of the current config
+    private void executeOnCurrent(Runnable task) {
+        requests.getExecutor().execute(task);
+    }
+
+    private static boolean sameCredentials(TranslatorConfig previous, TranslatorConfig next) {
+        return Objects.equals(previous.getSubscriptionKey(), next.getSubscriptionKey()) && previous.getKeyPool() == next.getKeyPool()
+                && Objects.equals(previous.getRegion(), next.getRegion()) && Objects.equals(previous.getReferrer(), next.getReferrer());
+    }
+
+    //Tokens are issued for the key of the config, or the first key of the pool
+    private String issueToken() throws Exception {
+        final TranslatorConfig config = this.config;
+        final KeyPool keyPool = config.getKeyPool();
+        final SubscriptionKey primary = keyPool != null ? keyPool.getKeys().get(0) : null;
+        final String region = primary != null ? primary.getRegion() : config.getRegion();
+        final String url = region != null ? String.format(REGIONAL_ISSUE_TOKEN_URL, region) : ISSUE_TOKEN_URL;
+        return issueToken(requests.getTransport(), new URL(url), primary != null ? primary.getKey() : config.getSubscriptionKey(), config.getReferrer());
+    }
+
+    /**
+     * Issues a new access token for a subscription key.
+     */
+    static String issueToken(HttpTransport transport, URL url, String subscriptionKey, String referrer) throws Exception {
+        final Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("referer", referrer);
+        headers.put("Content-Type", "application/x-www-form-urlencoded; charset=" + ENCODING);
+        headers.put("Accept-Charset", ENCODING);
+        headers.put(RequestExecutor.SUBSCRIPTION_KEY_HEADER, subscriptionKey);
+
+        try (HttpResponse response = transport.execute(new HttpRequest(HTTP_POST, url, headers, RequestBody.of(new byte[0])))) {
+            final int responseCode = response.getStatusCode();
+            final String result = BomSkippingReader.readFully(new BomSkippingReader(response.getBody()));
+            if (responseCode != 200) {
+                throw new TranslatorException("Error retrieving token from Microsoft Translator API (" + responseCode + "): " + result,
+                        responseCode, RequestExecutor.retryAfterMillis(response), result);
+            }
+            return result;
+        }
+    }
+
+    private URL translateUrl(Language from, Language to) throws Exception {
+        return serviceUrl("/translate", "&from=" + URLEncoder.encode(from.toString(), ENCODING)
+                + "&to=" + URLEncoder.encode(to.toString(), ENCODING));
+    }
+
+    private URL translateUrl(Language from, Language[] to) throws Exception {
+        final StringBuilder params = new StringBuilder("&from=").append(URLEncoder.encode(from.toString(), ENCODING));
+        for (Language language : to) {
+            params.append("&to=").append(URLEncoder.encode(language.toString(), ENCODING));
+        }
+        return serviceUrl("/translate", params.toString());
+    }
+
+    private URL breakSentencesUrl(Language language) throws Exception {
+        return serviceUrl("/breaksentence", "&language=" + URLEncoder.encode(language.toString(), ENCODING));
+    }
+
+    private URL serviceUrl(String path, String params) throws Exception {
+        return new URL(config.getEndpoint() + path + API_VERSION + params);
+    }
+
+    private void validateTranslate(String[] texts) {
+        if (texts.length > 100) {
+            throw new RuntimeException("TEXT_COUNT_OVER_LIMIT - Microsoft Translator (Translate) can handle up to 100 texts per request");
+        }
+        if (RequestSize.requestLength(texts) > TextPacking.MAX_TRANSLATE_LENGTH) {
+            throw new RuntimeException("TEXT_TOO_LARGE - Microsoft Translator (Translate) can handle up to 5,000 characters per request");
+        }
+        checkSubscriptionKey();
+    }
+
+    private void validateDetect(String[] texts) {
+        validateTextArray("Detect", texts);
+    }
+
+    private void validateBreakSentences(String[] texts) {
+        validateTextArray("BreakSentences", texts);
+    }
+
+    private void validateTextArray(String service, String[] texts) {
+        if (texts.length > 100) {
+            throw new RuntimeException("TEXT_COUNT_OVER_LIMIT - Microsoft Translator (" + service + ") can handle up to 100 texts per request");
+        }
+        //Measures each element once for both limits
+        long length = 2 + Math.max(0, texts.length - 1);
+        for (String text : texts) {
+            final int elementLength = RequestSize.elementLength(text);
+            if (elementLength > 10000) {
+                throw new RuntimeException("TEXT_TOO_LARGE - Microsoft Translator (" + service + ") can handle up to 10,000 characters per array element");
+            }
+            length += elementLength;
+        }
+
+        if (length > 50000) {
+            throw new RuntimeException("TEXT_TOO_LARGE - Microsoft Translator (" + service + ") can handle up to 50,000 characters per request");
+        }
+
+        checkSubscriptionKey();
+    }
+
+    private void checkSubscriptionKey() {
+        if (config.getSubscriptionKey() == null && config.getKeyPool() == null) {
+            throw new RuntimeException("Must provide a Windows Azure Marketplace SubscriptionKey - Please see https://www.microsoft.com/cognitive-services/en-us/translator-api/documentation/TranslatorInfo/overview for further documentation");
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws Exception {
+        return RequestExecutor.await(future);
+    }
+
+    private static <T> CompletableFuture<T> failedFuture(Throwable throwable) {
+        return RequestExecutor.failedFuture(throwable);
+    }
+
+    //Created when a config first needs it, and kept until the client is closed
+    private HttpTransport ownedTransport() {
+        if (ownedTransport == null) {
+            ownedTransport = new UrlConnectionTransport();
+        }
+        return ownedTransport;
+    }
+
+    private ExecutorService ownedExecutor(ExecutionMode mode) {
+        ExecutorService executor = ownedExecutors.get(mode);
+        if (executor == null) {
+            executor = mode == ExecutionMode.VIRTUAL_THREADS
+                    ? VirtualThreads.newExecutor() : Executors.newCachedThreadPool(DaemonThreads.factory("microsoft-translator-client"));
+            ownedExecutors.put(mode, executor);
+        }
+        return executor;
+    }
+}
@@ -0,0 +1,443 @@
+package io.github.firemaples;
+
+import java.util.concurrent.Executor;
+
+import io.github.firemaples.auth.KeyPool;
+import io.github.firemaples.auth.SubscriptionKey;
+import io.github.firemaples.cache.DetectionCache;
+import io.github.firemaples.cache.TranslationCache;
+import io.github.firemaples.hedge.HedgePolicy;
+import io.github.firemaples.http.HttpTransport;
+import io.github.firemaples.ratelimit.CharacterRateLimiter;
+import io.github.firemaples.retry.RetryPolicy;
+import io.github.firemaples.routing.EndpointRouter;
+
+/**
+ * TranslatorConfig
+ * <p>
+ * The immutable settings of a {@link TranslatorClient}. Create one with a {@link Builder}; derive variants
+ * from an existing config with {@link #toBuilder()}.
+ */
+public final class TranslatorConfig {
+    public static final String DEFAULT_ENDPOINT = "https://api.cognitive.microsofttranslator.com";
+    public static final int DEFAULT_FAN_OUT_PARALLELISM = 4;
+    //Enough for about 160,000 characters in one round trip
+    public static final int DEFAULT_DOCUMENT_PARALLELISM = 32;
+    public static final long DEFAULT_LANGUAGES_REFRESH_MILLIS = 60 * 60 * 1000;
+
+    private final String subscriptionKey;
+    private final String region;
+    private final KeyPool keyPool;
+    private final CharacterRateLimiter rateLimiter;
+    private final RetryPolicy retryPolicy;
+    private final HedgePolicy hedgePolicy;
+    private final long batchLingerMillis;
+    private final int fanOutParallelism;
+    private final int documentParallelism;
+    private final TranslationCache translationCache;
+    private final DetectionCache detectionCache;
+    private final long languagesRefreshMillis;
+    private final String endpoint;
+    private final EndpointRouter router;
+    private final String referrer;
+    private final HttpTransport transport;
+    private final Executor executor;
+    private final ExecutionMode executionMode;
+
+    private TranslatorConfig(Builder builder) {
+        this.subscriptionKey = builder.subscriptionKey;
+        this.region = builder.region;
+        this.keyPool = builder.keyPool;
+        this.rateLimiter = builder.rateLimiter;
+        this.retryPolicy = builder.retryPolicy;
+        this.hedgePolicy = builder.hedgePolicy;
+        this.batchLingerMillis = builder.batchLingerMillis;
+        this.fanOutParallelism = builder.fanOutParallelism;
+        this.documentParallelism = builder.documentParallelism;
+        this.translationCache = builder.translationCache;
+        this.detectionCache = builder.detectionCache;
+        this.languagesRefreshMillis = builder.languagesRefreshMillis;
+        this.endpoint = builder.endpoint;
+        this.router = builder.router;
+        this.referrer = builder.referrer;
+        this.transport = builder.transport;
+        this.executor = builder.executor;
+        this.executionMode = builder.executionMode;
+    }
+
+    /**
+     * @return The Azure subscription key, or null if not set.
+     */
+    public String getSubscriptionKey() {
+        return subscriptionKey;
+    }
+
+    /**
+     * @return The Azure region of a regional subscription, or null for a global one.
+     */
+    public String getRegion() {
+        return region;
+    }
+
+    /**
+     * @return The pool of keys requests are spread over, or null to send all of them with
+     * {@link #getSubscriptionKey()}.
+     */
+    public KeyPool getKeyPool() {
+        return keyPool;
+    }
+
+    /**
+     * @return The limiter the billable characters of each request go through, or null to send requests
+     * unthrottled.
+     */
+    public CharacterRateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    /**
+     * @return The policy failed requests are retried with, {@link RetryPolicy#DEFAULT} unless set.
+     */
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * @return The policy translate and detect requests are hedged with, or null if they are not.
+     */
+    public HedgePolicy getHedgePolicy() {
+        return hedgePolicy;
+    }
+
+    /**
+     * @return How long a single-text translation waits for others to share its request, 0 if it does not wait.
+     */
+    public long getBatchLingerMillis() {
+        return batchLingerMillis;
+    }
+
+    /**
+     * @return The most requests a translation split into several requests has in flight at a time.
+     */
+    public int getFanOutParallelism() {
+        return fanOutParallelism;
+    }
+
+    /**
+     * @return The most chunk requests a document translation has in flight at a time.
+     */
+    public int getDocumentParallelism() {
+        return documentParallelism;
+    }
+
+    /**
+     * @return The cache translations are looked up in before they are sent, or null if there is none.
+     */
+    public TranslationCache getTranslationCache() {
+        return translationCache;
+    }
+
+    /**
+     * @return The cache detections are looked up in before they are sent, or null if there is none.
+     */
+    public DetectionCache getDetectionCache() {
+        return detectionCache;
+    }
+
+    /**
+     * @return How old a cached languages response gets before it is checked for changes in the background, 0 if
+     * languages are not cached.
+     */
+    public long getLanguagesRefreshMillis() {
+        return languagesRefreshMillis;
+    }
+
+    /**
+     * @return The base URL of the v3 Translator API, without trailing slash.
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * @return The router that spreads the requests to {@link #getEndpoint()} over several endpoints, or null to
+     * send them to that endpoint.
+     */
+    public EndpointRouter getRouter() {
+        return router;
+    }
+
+    /**
+     * @return The HTTP referrer sent with token requests, or null.
+     */
+    public String getReferrer() {
+        return referrer;
+    }
+
+    /**
+     * @return The transport to use, or null to let the client create its own.
+     */
+    public HttpTransport getTransport() {
+        return transport;
+    }
+
+    /**
+     * @return The executor of the asynchronous calls, or null to let the client create one per
+     * {@link #getExecutionMode()}.
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    public ExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
+    /**
+     * @return A builder initialized with this config.
+     */
+    public Builder toBuilder() {
+        return new Builder(this);
+    }
+
+    public static class Builder {
+        private String subscriptionKey;
+        private String region;
+        private KeyPool keyPool;
+        private CharacterRateLimiter rateLimiter;
+        private RetryPolicy retryPolicy = RetryPolicy.DEFAULT;
+        private HedgePolicy hedgePolicy;
+        private long batchLingerMillis;
+        private int fanOutParallelism = DEFAULT_FAN_OUT_PARALLELISM;
+        private int documentParallelism = DEFAULT_DOCUMENT_PARALLELISM;
+        private TranslationCache translationCache;
+        private DetectionCache detectionCache;
+        private long languagesRefreshMillis = DEFAULT_LANGUAGES_REFRESH_MILLIS;
+        private String endpoint = DEFAULT_ENDPOINT;
+        private EndpointRouter router;
+        private String referrer;
+        private HttpTransport transport;
+        private Executor executor;
+        private ExecutionMode executionMode = ExecutionMode.PLATFORM_THREADS;
+
+        public Builder() {
+        }
+
+        private Builder(TranslatorConfig config) {
+            this.subscriptionKey = config.subscriptionKey;
+            this.region = config.region;
+            this.keyPool = config.keyPool;
+            this.rateLimiter = config.rateLimiter;
+            this.retryPolicy = config.retryPolicy;
+            this.hedgePolicy = config.hedgePolicy;
+            this.batchLingerMillis = config.batchLingerMillis;
+            this.fanOutParallelism = config.fanOutParallelism;
+            this.documentParallelism = config.documentParallelism;
+            this.translationCache = config.translationCache;
+            this.detectionCache = config.detectionCache;
+            this.languagesRefreshMillis = config.languagesRefreshMillis;
+            this.endpoint = config.endpoint;
+            this.router = config.router;
+            this.referrer = config.referrer;
+            this.transport = config.transport;
+            this.executor = config.executor;
+            this.executionMode = config.executionMode;
+        }
+
+        /**
+         * @param subscriptionKey The Azure subscription key.
+         */
+        public Builder subscriptionKey(String subscriptionKey) {
+            this.subscriptionKey = subscriptionKey;
+            return this;
+        }
+
+        /**
+         * @param region The Azure region of a regional or multi-service subscription, e.g. "westeurope".
+         */
+        public Builder region(String region) {
+            this.region = region;
+            return this;
+        }
+
+        /**
+         * Spreads the requests over several subscription keys, see {@link KeyPool}. Takes precedence over
+         * {@link #subscriptionKey(String)} and {@link #region(String)}.
+         *
+         * @param keyPool The pool, may be shared by several clients.
+         */
+        public Builder keyPool(KeyPool keyPool) {
+            this.keyPool = keyPool;
+            return this;
+        }
+
+        /**
+         * Shorthand for {@link #keyPool(KeyPool)} with a new pool of the given keys.
+         */
+        public Builder subscriptionKeys(SubscriptionKey... keys) {
+            this.keyPool = keys != null && keys.length > 0 ? new KeyPool(keys) : null;
+            return this;
+        }
+
+        /**
+         * @param rateLimiter The limiter to keep the requests within the character quota, e.g.
+         *                    {@link CharacterRateLimiter#forTier(io.github.firemaples.auth.PricingTier)}. May be
+         *                    shared by the clients of one subscription.
+         */
+        public Builder rateLimiter(CharacterRateLimiter rateLimiter) {
+            this.rateLimiter = rateLimiter;
+            return this;
+        }
+
+        /**
+         * @param retryPolicy The policy failed requests are retried with, {@link RetryPolicy#NONE} to disable
+         *                    retries.
+         */
+        public Builder retryPolicy(RetryPolicy retryPolicy) {
+            this.retryPolicy = retryPolicy != null ? retryPolicy : RetryPolicy.DEFAULT;
+            return this;
+        }
+
+        /**
+         * @param hedgePolicy The policy to hedge slow translate and detect requests with, or null to disable
+         *                    hedging.
+         */
+        public Builder hedgePolicy(HedgePolicy hedgePolicy) {
+            this.hedgePolicy = hedgePolicy;
+            return this;
+        }
+
+        /**
+         * @param batchLingerMillis How long a single-text translation waits for concurrent translations of the
+         *                          same language pair, to send them all in one request. 0, the default, sends
+         *                          every call in its own request.
+         */
+        public Builder batchLingerMillis(long batchLingerMillis) {
+            if (batchLingerMillis < 0) {
+                throw new IllegalArgumentException("batchLingerMillis must not be negative");
+            }
+            this.batchLingerMillis = batchLingerMillis;
+            return this;
+        }
+
+        /**
+         * @param fanOutParallelism The most requests a translation split into several requests has in flight at
+         *                          a time, defaults to {@link #DEFAULT_FAN_OUT_PARALLELISM}.
+         */
+        public Builder fanOutParallelism(int fanOutParallelism) {
+            if (fanOutParallelism < 1) {
+                throw new IllegalArgumentException("fanOutParallelism must be at least 1");
+            }
+            this.fanOutParallelism = fanOutParallelism;
+            return this;
+        }
+
+        /**
+         * @param documentParallelism The most chunk requests a document translation has in flight at a time,
+         *                            defaults to {@link #DEFAULT_DOCUMENT_PARALLELISM}. Each chunk fills a request
+         *                            of up to 5,000 characters, so documents of up to this many chunks are
+         *                            translated in about one round trip; longer ones take a round trip per this
+         *                            many chunks.
+         */
+        public Builder documentParallelism(int documentParallelism) {
+            if (documentParallelism < 1) {
+                throw new IllegalArgumentException("documentParallelism must be at least 1");
+            }
+            this.documentParallelism = documentParallelism;
+            return this;
+        }
+
+        /**
+         * @param translationCache The cache to look up translations of a single target language in before they
+         *                         are sent, e.g. a {@link io.github.firemaples.cache.LruTranslationCache}. May be
+         *                         shared by several clients. Null, the default, disables caching.
+         */
+        public Builder translationCache(TranslationCache translationCache) {
+            this.translationCache = translationCache;
+            return this;
+        }
+
+        /**
+         * @param detectionCache The cache to look up detections in before they are sent, e.g. a
+         *                       {@link io.github.firemaples.cache.LruDetectionCache}. May be shared by several
+         *                       clients. Null, the default, disables caching.
+         */
+        public Builder detectionCache(DetectionCache detectionCache) {
+            this.detectionCache = detectionCache;
+            return this;
+        }
+
+        /**
+         * @param languagesRefreshMillis How old a cached languages response gets before it is checked for changes
+         *                               with a conditional request in the background, defaults to
+         *                               {@link #DEFAULT_LANGUAGES_REFRESH_MILLIS}. 0 requests the languages on
+         *                               every call.
+         */
+        public Builder languagesRefreshMillis(long languagesRefreshMillis) {
+            if (languagesRefreshMillis < 0) {
+                throw new IllegalArgumentException("languagesRefreshMillis must not be negative");
+            }
+            this.languagesRefreshMillis = languagesRefreshMillis;
+            return this;
+        }
+
+        /**
+         * @param endpoint The base URL of the v3 Translator API, defaults to {@link #DEFAULT_ENDPOINT}.
+         */
+        public Builder endpoint(String endpoint) {
+            if (endpoint == null) {
+                throw new IllegalArgumentException("endpoint must not be null");
+            }
+            this.endpoint = endpoint.endsWith("/") ? endpoint.substring(0, endpoint.length() - 1) : endpoint;
+            return this;
+        }
+
+        /**
+         * @param router Routes the requests between several endpoints, e.g.
+         *               {@code new EndpointRouter(Endpoint.GLOBAL, Endpoint.EUROPE)}, instead of sending them to
+         *               {@link #endpoint(String)}. May be shared by several clients.
+         */
+        public Builder router(EndpointRouter router) {
+            this.router = router;
+            return this;
+        }
+
+        /**
+         * @param referrer The HTTP referrer sent with token requests.
+         */
+        public Builder referrer(String referrer) {
+            this.referrer = referrer;
+            return this;
+        }
+
+        /**
+         * @param transport The transport to share, the client does not close it. If not set, the client
+         *                  creates its own {@link io.github.firemaples.http.UrlConnectionTransport}.
+         */
+        public Builder transport(HttpTransport transport) {
+            this.transport = transport;
+            return this;
+        }
+
+        /**
+         * @param executor The executor of the asynchronous calls to share, the client does not shut it down.
+         *                 Takes precedence over {@link #executionMode(ExecutionMode)}.
+         */
+        public Builder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * @param executionMode The kind of thread the client's own executor runs on.
+         */
+        public Builder executionMode(ExecutionMode executionMode) {
+            this.executionMode = executionMode != null ? executionMode : ExecutionMode.PLATFORM_THREADS;
+            return this;
+        }
+
+        public TranslatorConfig build() {
+            return new TranslatorConfig(this);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package io.github.firemaples;
+
+/**
+ * TranslatorException
+ * <p>
+ * An error response of the Translator service. The message keeps the "Error retrieving result from Microsoft
+ * Translator API (status): body" format; the status and Retry-After are also available as values, so callers
+ * do not have to parse the message.
+ */
+public class TranslatorException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    private final int statusCode;
+    private final long retryAfterMillis;
+    private final String responseBody;
+
+    public TranslatorException(String message, int statusCode, long retryAfterMillis, String responseBody) {
+        super(message);
+        this.statusCode = statusCode;
+        this.retryAfterMillis = retryAfterMillis;
+        this.responseBody = responseBody;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * @return The delay the service asked for with Retry-After in milliseconds, or -1 if it did not.
+     */
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+
+    public String getResponseBody() {
+        return responseBody;
+    }
+}
@@ -0,0 +1,271 @@
+package io.github.firemaples.auth;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * KeyPool
+ * <p>
+ * Spreads requests over several subscription keys to get past the character throughput of a single one.
+ * <p>
+ * Each request goes to the key with the best score: the share of its hourly character quota that is still
+ * unused, weighted down by the rate of 429 responses it recently got. A key that is throttled is drained,
+ * receiving no requests until the Retry-After of the response, or a cooldown, has passed. If every key is
+ * drained, the one that recovers first is used.
+ * <p>
+ * Usage is tracked per minute over a sliding hour and shared by everything using the same pool.
+ */
+public final class KeyPool {
+    public static final long DEFAULT_COOLDOWN = 10 * 1000;
+
+    private static final int BUCKETS = 60;
+    private static final long BUCKET_NANOS = TimeUnit.MINUTES.toNanos(1);
+    //Weight of the latest response in the 429 rate
+    private static final double THROTTLE_RATE_ALPHA = 0.2;
+
+    /**
+     * Supplies the current time in nanoseconds, {@link System#nanoTime()} outside of tests.
+     */
+    interface Clock {
+        long nanoTime();
+    }
+
+    private final List<SubscriptionKey> keys;
+    private final KeyState[] states;
+    private final long cooldownNanos;
+    private final Clock clock;
+
+    public KeyPool(SubscriptionKey... keys) {
+        this(toList(keys), DEFAULT_COOLDOWN);
+    }
+
+    /**
+     * @param keys           The keys, at least one.
+     * @param cooldownMillis How long a throttled key is drained when the response has no Retry-After.
+     */
+    public KeyPool(List<SubscriptionKey> keys, long cooldownMillis) {
+        this(keys, cooldownMillis, System::nanoTime);
+    }
+
+    KeyPool(List<SubscriptionKey> keys, long cooldownMillis, Clock clock) {
+        if (keys == null || keys.isEmpty()) {
+            throw new IllegalArgumentException("A key pool needs at least one key");
+        }
+        this.keys = Collections.unmodifiableList(new ArrayList<>(keys));
+        this.states = new KeyState[keys.size()];
+        for (int i = 0; i < states.length; i++) {
+            states[i] = new KeyState(this.keys.get(i).getTier().getCharactersPerHour());
+        }
+        this.cooldownNanos = TimeUnit.MILLISECONDS.toNanos(cooldownMillis);
+        this.clock = clock;
+    }
+
+    public List<SubscriptionKey> getKeys() {
+        return keys;
+    }
+
+    /**
+     * Chooses the key for a request and counts its characters against that key's quota.
+     *
+     * @param characters The number of characters the request translates.
+     * @return The key to send the request with.
+     */
+    public SubscriptionKey select(long characters) {
+        final long now = clock.nanoTime();
+        final int chosen = choose(now);
+        states[chosen].record(now, characters);
+        return keys.get(chosen);
+    }
+
+    /**
+     * Chooses the key for the retry of a request that was counted against another key. The characters of the
+     * request move to the chosen key, so a retry does not count them twice.
+     *
+     * @param previous   The key the failed attempt was sent with.
+     * @param characters The number of characters the request translates.
+     * @return The key to send the retry with.
+     */
+    public SubscriptionKey reselect(SubscriptionKey previous, long characters) {
+        final long now = clock.nanoTime();
+        final int chosen = choose(now);
+        final KeyState state = stateOf(previous);
+        if (states[chosen] != state) {
+            if (state != null) {
+                state.record(now, -characters);
+            }
+            states[chosen].record(now, characters);
+        }
+        return keys.get(chosen);
+    }
+
+    private int choose(long now) {
+        int best = -1;
+        double bestScore = -1;
+        long bestRemaining = -1;
+        int recoversFirst = 0;
+        for (int i = 0; i < states.length; i++) {
+            final KeyState state = states[i];
+            if (state.isDrained(now)) {
+                if (state.drainedUntil.get() - states[recoversFirst].drainedUntil.get() < 0) {
+                    recoversFirst = i;
+                }
+                continue;
+            }
+            //Ties, e.g. between unused keys, go to the key with the most characters left
+            final long remaining = state.remaining(now);
+            final double score = state.score(remaining);
+            if (score > bestScore || (score == bestScore && remaining > bestRemaining)) {
+                best = i;
+                bestScore = score;
+                bestRemaining = remaining;
+            }
+        }
+        return best >= 0 ? best : recoversFirst;
+    }
+
+    /**
+     * Reports the status of a response sent with a key of this pool.
+     *
+     * @param key              The key the request was sent with.
+     * @param statusCode       The HTTP status code.
+     * @param retryAfterMillis The Retry-After of a 429 response in milliseconds, or a negative value if none.
+     */
+    public void onResponse(SubscriptionKey key, int statusCode, long retryAfterMillis) {
+        final KeyState state = stateOf(key);
+        if (state == null) {
+            return;
+        }
+        final boolean throttled = statusCode == 429;
+        state.updateThrottleRate(throttled);
+        if (throttled) {
+            final long drain = retryAfterMillis >= 0 ? TimeUnit.MILLISECONDS.toNanos(retryAfterMillis) : cooldownNanos;
+            state.drainUntil(clock.nanoTime() + drain);
+        }
+    }
+
+    /**
+     * @return The characters the key can still translate within the sliding hour.
+     */
+    public long getRemainingCharacters(SubscriptionKey key) {
+        return requireState(key).remaining(clock.nanoTime());
+    }
+
+    /**
+     * @return The recent share of 429 responses of the key, between 0 and 1.
+     */
+    public double getThrottleRate(SubscriptionKey key) {
+        return Double.longBitsToDouble(requireState(key).throttleRate.get());
+    }
+
+    /**
+     * @return True if the key is drained after being throttled.
+     */
+    public boolean isDrained(SubscriptionKey key) {
+        return requireState(key).isDrained(clock.nanoTime());
+    }
+
+    private KeyState requireState(SubscriptionKey key) {
+        final KeyState state = stateOf(key);
+        if (state == null) {
+            throw new IllegalArgumentException(key + " is not part of this pool");
+        }
+        return state;
+    }
+
+    private KeyState stateOf(SubscriptionKey key) {
+        for (int i = 0; i < states.length; i++) {
+            if (keys.get(i) == key) {
+                return states[i];
+            }
+        }
+        return null;
+    }
+
+    private static List<SubscriptionKey> toList(SubscriptionKey[] keys) {
+        final List<SubscriptionKey> list = new ArrayList<>();
+        if (keys != null) {
+            Collections.addAll(list, keys);
+        }
+        return list;
+    }
+
+    private static final class KeyState {
+        final long limit;
+        //Characters per minute over the last hour; the stamp tells which minute a bucket holds
+        final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        final AtomicLongArray stamps = new AtomicLongArray(BUCKETS);
+        final AtomicLong throttleRate = new AtomicLong(Double.doubleToLongBits(0));
+        final AtomicLong drainedUntil = new AtomicLong();
+        volatile boolean drained;
+
+        KeyState(long limit) {
+            this.limit = limit;
+            for (int i = 0; i < BUCKETS; i++) {
+                stamps.set(i, Long.MIN_VALUE);
+            }
+        }
+
+        void record(long now, long characters) {
+            final long minute = Math.floorDiv(now, BUCKET_NANOS);
+            final int index = (int) Math.floorMod(minute, (long) BUCKETS);
+            long stamp = stamps.get(index);
+            if (stamp != minute && stamps.compareAndSet(index, stamp, minute)) {
+                buckets.set(index, 0);
+            }
+            buckets.addAndGet(index, characters);
+        }
+
+        long usage(long now) {
+            final long minute = Math.floorDiv(now, BUCKET_NANOS);
+            long used = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                final long stamp = stamps.get(i);
+                if (stamp != Long.MIN_VALUE && minute - stamp < BUCKETS) {
+                    used += buckets.get(i);
+                }
+            }
+            return used;
+        }
+
+        long remaining(long now) {
+            return Math.max(0, limit - usage(now));
+        }
+
+        double score(long remaining) {
+            return remaining / (double) limit * (1 - Double.longBitsToDouble(throttleRate.get()));
+        }
+
+        void updateThrottleRate(boolean throttled) {
+            final double sample = throttled ? 1 : 0;
+            while (true) {
+                final long current = throttleRate.get();
+                final double rate = Double.longBitsToDouble(current);
+                final double updated = rate + THROTTLE_RATE_ALPHA * (sample - rate);
+                if (throttleRate.compareAndSet(current, Double.doubleToLongBits(updated))) {
+                    return;
+                }
+            }
+        }
+
+        void drainUntil(long until) {
+            while (true) {
+                final long current = drainedUntil.get();
+                if (drained && current - until >= 0) {
+                    return;
+                }
+                if (drainedUntil.compareAndSet(current, until)) {
+                    drained = true;
+                    return;
+                }
+            }
+        }
+
+        boolean isDrained(long now) {
+            return drained && now - drainedUntil.get() < 0;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package io.github.firemaples.auth;
+
+/**
+ * PricingTier
+ * <p>
+ * The Translator pricing tiers and the number of characters per hour the service accepts on each of them.
+ */
+public enum PricingTier {
+    F0(2000000L),
+    S1(40000000L),
+    S2(40000000L),
+    S3(120000000L),
+    S4(200000000L);
+
+    private final long charactersPerHour;
+
+    PricingTier(long charactersPerHour) {
+        this.charactersPerHour = charactersPerHour;
+    }
+
+    public long getCharactersPerHour() {
+        return charactersPerHour;
+    }
+}
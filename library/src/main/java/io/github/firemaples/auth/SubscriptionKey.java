@@ -0,0 +1,55 @@
+package io.github.firemaples.auth;
+
+/**
+ * SubscriptionKey
+ * <p>
+ * An Azure Translator subscription key with the region and pricing tier of its resource.
+ */
+public final class SubscriptionKey {
+    private final String key;
+    private final String region;
+    private final PricingTier tier;
+
+    /**
+     * @param key    The subscription key.
+     * @param region The Azure region of a regional resource, or null for a global one.
+     * @param tier   The pricing tier of the resource.
+     */
+    public SubscriptionKey(String key, String region, PricingTier tier) {
+        if (key == null) {
+            throw new IllegalArgumentException("key must not be null");
+        }
+        this.key = key;
+        this.region = region;
+        this.tier = tier != null ? tier : PricingTier.S1;
+    }
+
+    /**
+     * Creates a global S1 key.
+     *
+     * @param key The subscription key.
+     * @return The subscription key.
+     */
+    public static SubscriptionKey of(String key) {
+        return new SubscriptionKey(key, null, PricingTier.S1);
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    public PricingTier getTier() {
+        return tier;
+    }
+
+    @Override
+    public String toString() {
+        //Never print the key itself
+        return "SubscriptionKey{" + (key.length() > 4 ? "..." + key.substring(key.length() - 4) : "...")
+                + (region != null ? ", " + region : "") + ", " + tier + "}";
+    }
+}
@@ -0,0 +1,219 @@
+package io.github.firemaples.auth;
+
+import java.io.Closeable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.github.firemaples.utils.DaemonThreads;
+
+/**
+ * TokenManager
+ * <p>
+ * Keeps a bearer token fresh for the request threads. The token is renewed in the background once it is
+ * {@code refreshAfter} old, so callers keep getting the current token while its successor is issued and only
+ * wait for a token when none is usable yet (before the first one arrives or after {@link #reset()}).
+ * <p>
+ * Concurrent refreshes are collapsed into a single call to the {@link TokenIssuer}; every waiting caller gets
+ * its result. A failed background refresh keeps the current token until it expires and is retried shortly.
+ * Tokens nobody asked for since the last refresh are left to expire instead of being renewed.
+ */
+public class TokenManager implements Closeable {
+    private static final long DEFAULT_RETRY_DELAY = 10 * 1000;
+
+    /**
+     * Issues a new token, e.g. by calling the token service.
+     */
+    public interface TokenIssuer {
+        String issueToken() throws Exception;
+    }
+
+    private final TokenIssuer issuer;
+    private final Executor executor;
+    private final long refreshAfter;
+    private final long expireAfter;
+    private final long retryDelay;
+
+    private volatile Token current;
+    private volatile ScheduledFuture<?> scheduledRefresh;
+    private volatile boolean closed;
+    private volatile boolean used;
+    private final AtomicReference<CompletableFuture<Token>> inFlight = new AtomicReference<>();
+    //Bumped by reset(), a token issued before it is never published
+    private final AtomicInteger generation = new AtomicInteger();
+
+    /**
+     * @param issuer       Issues the tokens.
+     * @param refreshAfter The age in milliseconds at which a token is renewed in the background.
+     * @param expireAfter  The age in milliseconds after which a token is no longer handed out.
+     */
+    public TokenManager(TokenIssuer issuer, long refreshAfter, long expireAfter) {
+        this(issuer, refreshAfter, expireAfter, null);
+    }
+
+    /**
+     * @param issuer       Issues the tokens.
+     * @param refreshAfter The age in milliseconds at which a token is renewed in the background.
+     * @param expireAfter  The age in milliseconds after which a token is no longer handed out.
+     * @param executor     Issues the background refreshes, or null for the refresh threads shared by all
+     *                     managers.
+     */
+    public TokenManager(TokenIssuer issuer, long refreshAfter, long expireAfter, Executor executor) {
+        this(issuer, refreshAfter, expireAfter, executor, DEFAULT_RETRY_DELAY);
+    }
+
+    TokenManager(TokenIssuer issuer, long refreshAfter, long expireAfter, Executor executor, long retryDelay) {
+        if (refreshAfter > expireAfter) {
+            throw new IllegalArgumentException("refreshAfter must not be greater than expireAfter");
+        }
+        this.issuer = issuer;
+        this.executor = executor != null ? executor : RefreshExecutorHolder.INSTANCE;
+        this.refreshAfter = refreshAfter;
+        this.expireAfter = expireAfter;
+        this.retryDelay = Math.min(retryDelay, refreshAfter);
+    }
+
+    /**
+     * Starts issuing a token in the background, so the next request does not have to.
+     */
+    public void prefetch() {
+        used = true;
+        schedule(0);
+    }
+
+    /**
+     * Gets a valid token, waiting only if there is none yet.
+     *
+     * @return The token.
+     * @throws Exception if the token could not be issued.
+     */
+    public String getToken() throws Exception {
+        used = true;
+        final Token token = current;
+        if (token != null && !token.isExpired(System.nanoTime())) {
+            return token.value;
+        }
+        try {
+            return refresh().get().value;
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : new RuntimeException(cause);
+        }
+    }
+
+    /**
+     * Drops the current token, the next {@link #getToken()} issues a new one.
+     */
+    public void reset() {
+        generation.incrementAndGet();
+        current = null;
+        cancelScheduledRefresh();
+    }
+
+    /**
+     * Stops the background refresh.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        reset();
+    }
+
+    //Issues a token on the calling thread unless another thread is already doing so, then joins that one
+    private CompletableFuture<Token> refresh() {
+        while (true) {
+            final CompletableFuture<Token> running = inFlight.get();
+            if (running != null) {
+                return running;
+            }
+            final CompletableFuture<Token> future = new CompletableFuture<>();
+            if (!inFlight.compareAndSet(null, future)) {
+                continue;
+            }
+            final int issuedGeneration = generation.get();
+            try {
+                final Token token = new Token(issuer.issueToken(), System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(expireAfter));
+                if (generation.get() != issuedGeneration) {
+                    //Reset while issuing, e.g. for another key: the token is dropped and the waiters get a new one
+                    inFlight.compareAndSet(future, null);
+                    refresh().whenComplete((renewed, error) -> {
+                        if (error != null) {
+                            future.completeExceptionally(error);
+                        } else {
+                            future.complete(renewed);
+                        }
+                    });
+                    return future;
+                }
+                current = token;
+                future.complete(token);
+                schedule(refreshAfter);
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+                if (current != null && generation.get() == issuedGeneration) {
+                    used = true;
+                    schedule(retryDelay);
+                }
+            } finally {
+                inFlight.compareAndSet(future, null);
+            }
+            return future;
+        }
+    }
+
+    private void schedule(long delay) {
+        if (closed) {
+            return;
+        }
+        cancelScheduledRefresh();
+        //The shared timer only starts the refresh, the token request blocks a thread of the executor
+        scheduledRefresh = DaemonThreads.scheduler().schedule(() -> {
+            try {
+                executor.execute(this::backgroundRefresh);
+            } catch (RejectedExecutionException e) {
+                //The executor is shutting down with its client
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void backgroundRefresh() {
+        if (current != null && !used) {
+            return;
+        }
+        used = false;
+        refresh();
+    }
+
+    private void cancelScheduledRefresh() {
+        final ScheduledFuture<?> scheduled = scheduledRefresh;
+        if (scheduled != null) {
+            scheduled.cancel(false);
+        }
+    }
+
+    private static final class Token {
+        final String value;
+        final long expiresAt;
+
+        Token(String value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+
+    //Issues the background refreshes of the managers without an executor, created on first use
+    private static final class RefreshExecutorHolder {
+        static final ExecutorService INSTANCE = Executors.newCachedThreadPool(DaemonThreads.factory("microsoft-translator-token"));
+    }
+}
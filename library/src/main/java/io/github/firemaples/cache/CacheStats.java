@@ -0,0 +1,65 @@
+package io.github.firemaples.cache;
+
+/**
+ * CacheStats
+ * <p>
+ * A snapshot of the statistics of a cache.
+ */
+public final class CacheStats {
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long size;
+    private final long bytes;
+
+    public CacheStats(long hits, long misses, long evictions, long size, long bytes) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.size = size;
+        this.bytes = bytes;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return The share of lookups that were hits, 0 before the first lookup.
+     */
+    public double getHitRate() {
+        final long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * @return The entries removed to make room or because they expired.
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return The number of entries.
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * @return The bytes the entries take, as estimated or stored by the cache.
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{hits=" + hits + ", misses=" + misses + ", evictions=" + evictions
+                + ", size=" + size + ", bytes=" + bytes + "}";
+    }
+}
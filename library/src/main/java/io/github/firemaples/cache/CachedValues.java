@@ -0,0 +1,38 @@
+package io.github.firemaples.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+import io.github.firemaples.codec.JsonCodec;
+import io.github.firemaples.codec.ModelCodecs;
+
+/**
+ * CachedValues
+ * <p>
+ * Encodes cached results as UTF-8 JSON for the caches that keep bytes rather than objects.
+ */
+final class CachedValues {
+    private CachedValues() {
+    }
+
+    static <T> byte[] encode(JsonCodec<T> codec, T value) {
+        try {
+            return ModelCodecs.encode(codec, value).getBytes(StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return The decoded value, or null if the bytes are not a valid value.
+     */
+    static <T> T decode(JsonCodec<T> codec, byte[] bytes, int offset, int length) {
+        try {
+            return ModelCodecs.decode(codec, new InputStreamReader(new ByteArrayInputStream(bytes, offset, length), StandardCharsets.UTF_8));
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package io.github.firemaples.cache;
+
+import io.github.firemaples.models.DetectResult;
+
+/**
+ * DetectionCache
+ * <p>
+ * Keeps the detected languages of single texts, so texts detected before are not sent to the service again.
+ * <p>
+ * A client with a cache looks up every text of a detect call and only sends the ones it misses; their results are
+ * then put into the cache. Implementations must be safe to use from several threads.
+ */
+public interface DetectionCache {
+    /**
+     * @return The cached result element of the text, or null if it is not cached. The client hands it to its
+     * caller, so it must not be shared with the cache or with other callers.
+     */
+    DetectResult.Result get(String text);
+
+    /**
+     * @param result The result element the service returned for the text. The client hands it to its caller as
+     *               well, so a cache keeping objects must keep a copy.
+     */
+    void put(String text, DetectResult.Result result);
+
+    /**
+     * @return The statistics of the cache so far.
+     */
+    CacheStats getStats();
+}
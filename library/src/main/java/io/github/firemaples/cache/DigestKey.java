@@ -0,0 +1,33 @@
+package io.github.firemaples.cache;
+
+/**
+ * DigestKey
+ * <p>
+ * A {@link TextDigest} as a hash map key.
+ */
+final class DigestKey {
+    private final long high;
+    private final long low;
+
+    DigestKey(byte[] digest) {
+        this.high = TextDigest.toLong(digest, 0);
+        this.low = TextDigest.toLong(digest, 8);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof DigestKey)) {
+            return false;
+        }
+        final DigestKey key = (DigestKey) o;
+        return high == key.high && low == key.low;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (high ^ (high >>> 32));
+    }
+}
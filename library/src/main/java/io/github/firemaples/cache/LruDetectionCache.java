@@ -0,0 +1,172 @@
+package io.github.firemaples.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import io.github.firemaples.models.DetectResult;
+
+/**
+ * LruDetectionCache
+ * <p>
+ * An in-memory {@link DetectionCache} bounded by its number of entries. When full, the least recently used entries
+ * are evicted first; entries older than the time to live are treated as misses and dropped when looked up. The
+ * whole result element is kept, alternatives and supported flags included.
+ * <p>
+ * Entries are keyed by a digest of the normalized text: lower case, Unicode composed and with runs of whitespace
+ * as one space, so texts that only differ in those share an entry and the texts are not kept. With a prefix length,
+ * only the start of the normalized text is keyed, which bounds the cost of hashing long texts; texts that start
+ * alike then share the detection of the first one.
+ */
+public final class LruDetectionCache implements DetectionCache {
+    //Rough heap cost of the map entry, key and result objects, and of each alternative
+    private static final int ENTRY_OVERHEAD = 160;
+    private static final int ALTERNATIVE_OVERHEAD = 64;
+
+    /**
+     * Supplies the current time in nanoseconds, {@link System#nanoTime()} outside of tests.
+     */
+    interface Clock {
+        long nanoTime();
+    }
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final int prefixLength;
+    private final Clock clock;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<DigestKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param maxEntries The most entries to keep.
+     * @param ttlMillis  How long an entry is served, 0 to keep entries until they are evicted.
+     */
+    public LruDetectionCache(int maxEntries, long ttlMillis) {
+        this(maxEntries, ttlMillis, 0);
+    }
+
+    /**
+     * @param maxEntries   The most entries to keep.
+     * @param ttlMillis    How long an entry is served, 0 to keep entries until they are evicted.
+     * @param prefixLength The characters at the start of the normalized text that make up the key, 0 for the whole
+     *                     text.
+     */
+    public LruDetectionCache(int maxEntries, long ttlMillis, int prefixLength) {
+        this(maxEntries, ttlMillis, prefixLength, System::nanoTime);
+    }
+
+    LruDetectionCache(int maxEntries, long ttlMillis, int prefixLength, Clock clock) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        if (ttlMillis < 0) {
+            throw new IllegalArgumentException("ttlMillis must not be negative");
+        }
+        if (prefixLength < 0) {
+            throw new IllegalArgumentException("prefixLength must not be negative");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.prefixLength = prefixLength;
+        this.clock = clock;
+    }
+
+    @Override
+    public DetectResult.Result get(String text) {
+        final DigestKey key = new DigestKey(TextDigest.ofDetection(text, prefixLength));
+        lock.lock();
+        try {
+            final Entry entry = entries.get(key);
+            if (entry == null) {
+                misses++;
+                return null;
+            }
+            if (ttlNanos > 0 && clock.nanoTime() - entry.createdAt >= ttlNanos) {
+                entries.remove(key);
+                bytes -= entry.bytes;
+                evictions++;
+                misses++;
+                return null;
+            }
+            hits++;
+            return entry.result.copy();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void put(String text, DetectResult.Result result) {
+        final DigestKey key = new DigestKey(TextDigest.ofDetection(text, prefixLength));
+        final Entry entry = new Entry(result.copy(), weigh(result), clock.nanoTime());
+        lock.lock();
+        try {
+            final Entry previous = entries.put(key, entry);
+            if (previous != null) {
+                bytes -= previous.bytes;
+            }
+            bytes += entry.bytes;
+            final Iterator<Map.Entry<DigestKey, Entry>> eldest = entries.entrySet().iterator();
+            while (entries.size() > maxEntries && eldest.hasNext()) {
+                bytes -= eldest.next().getValue().bytes;
+                eldest.remove();
+                evictions++;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public CacheStats getStats() {
+        lock.lock();
+        try {
+            return new CacheStats(hits, misses, evictions, entries.size(), bytes);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public int getPrefixLength() {
+        return prefixLength;
+    }
+
+    /**
+     * Removes all entries, the statistics are kept.
+     */
+    public void clear() {
+        lock.lock();
+        try {
+            entries.clear();
+            bytes = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static int weigh(DetectResult.Result result) {
+        return ENTRY_OVERHEAD + (result.alternatives != null ? result.alternatives.size() * ALTERNATIVE_OVERHEAD : 0);
+    }
+
+    private static final class Entry {
+        final DetectResult.Result result;
+        final int bytes;
+        final long createdAt;
+
+        Entry(DetectResult.Result result, int bytes, long createdAt) {
+            this.result = result;
+            this.bytes = bytes;
+            this.createdAt = createdAt;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package io.github.firemaples.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import io.github.firemaples.language.Language;
+import io.github.firemaples.models.TranslationResult;
+
+/**
+ * LruTranslationCache
+ * <p>
+ * An in-memory {@link TranslationCache} bounded by the estimated bytes of its entries. When full, the least
+ * recently used entries are evicted first; entries older than the time to live are treated as misses and
+ * dropped when looked up.
+ * <p>
+ * Entries are keyed by the language pair and a digest of the text, so the source texts are not kept. The cache
+ * keeps its own copy of each result and hands out copies, so callers may modify what they get.
+ */
+public final class LruTranslationCache implements TranslationCache {
+    //Rough heap cost of the map entry, key, result and translation objects
+    private static final int ENTRY_OVERHEAD = 160;
+    private static final int TRANSLATION_OVERHEAD = 80;
+
+    /**
+     * Supplies the current time in nanoseconds, {@link System#nanoTime()} outside of tests.
+     */
+    interface Clock {
+        long nanoTime();
+    }
+
+    private final long maxBytes;
+    private final long ttlNanos;
+    private final Clock clock;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<DigestKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param maxBytes  The most bytes the entries may take, as estimated from the length of the translations.
+     * @param ttlMillis How long an entry is served, 0 to keep entries until they are evicted.
+     */
+    public LruTranslationCache(long maxBytes, long ttlMillis) {
+        this(maxBytes, ttlMillis, System::nanoTime);
+    }
+
+    LruTranslationCache(long maxBytes, long ttlMillis, Clock clock) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be positive");
+        }
+        if (ttlMillis < 0) {
+            throw new IllegalArgumentException("ttlMillis must not be negative");
+        }
+        this.maxBytes = maxBytes;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.clock = clock;
+    }
+
+    @Override
+    public TranslationResult.Result get(Language from, Language to, String text) {
+        final DigestKey key = new DigestKey(TextDigest.of(from, to, text));
+        lock.lock();
+        try {
+            final Entry entry = entries.get(key);
+            if (entry == null) {
+                misses++;
+                return null;
+            }
+            if (ttlNanos > 0 && clock.nanoTime() - entry.createdAt >= ttlNanos) {
+                entries.remove(key);
+                bytes -= entry.bytes;
+                evictions++;
+                misses++;
+                return null;
+            }
+            hits++;
+            return entry.result.copy();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void put(Language from, Language to, String text, TranslationResult.Result result) {
+        final int weight = weigh(result);
+        if (weight > maxBytes) {
+            return;
+        }
+        final DigestKey key = new DigestKey(TextDigest.of(from, to, text));
+        final Entry entry = new Entry(result.copy(), weight, clock.nanoTime());
+        lock.lock();
+        try {
+            final Entry previous = entries.put(key, entry);
+            if (previous != null) {
+                bytes -= previous.bytes;
+            }
+            bytes += weight;
+            final Iterator<Map.Entry<DigestKey, Entry>> eldest = entries.entrySet().iterator();
+            while (bytes > maxBytes && eldest.hasNext()) {
+                bytes -= eldest.next().getValue().bytes;
+                eldest.remove();
+                evictions++;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public CacheStats getStats() {
+        lock.lock();
+        try {
+            return new CacheStats(hits, misses, evictions, entries.size(), bytes);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Removes all entries, the statistics are kept.
+     */
+    public void clear() {
+        lock.lock();
+        try {
+            entries.clear();
+            bytes = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static int weigh(TranslationResult.Result result) {
+        int weight = ENTRY_OVERHEAD;
+        if (result.translations != null) {
+            for (TranslationResult.Translation translation : result.translations) {
+                weight += TRANSLATION_OVERHEAD + 2 * (length(translation.text) + length(translation.to));
+            }
+        }
+        if (result.detectedLanguage != null) {
+            weight += TRANSLATION_OVERHEAD;
+        }
+        return weight;
+    }
+
+    private static int length(String text) {
+        return text != null ? text.length() : 0;
+    }
+
+    private static final class Entry {
+        final TranslationResult.Result result;
+        final int bytes;
+        final long createdAt;
+
+        Entry(TranslationResult.Result result, int bytes, long createdAt) {
+            this.result = result;
+            this.bytes = bytes;
+            this.createdAt = createdAt;
+        }
+    }
+}
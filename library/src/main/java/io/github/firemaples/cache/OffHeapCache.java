@@ -0,0 +1,260 @@
+package io.github.firemaples.cache;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.locks.ReentrantLock;
+
+import io.github.firemaples.codec.ModelCodecs;
+import io.github.firemaples.language.Language;
+import io.github.firemaples.models.DetectResult;
+import io.github.firemaples.models.TranslationResult;
+
+/**
+ * OffHeapCache
+ * <p>
+ * A {@link TranslationCache} and {@link DetectionCache} that keeps its entries outside of the Java heap, for caches
+ * of millions of entries that would otherwise lengthen garbage collection pauses. One instance can serve as both
+ * caches; its entries then share the memory and the statistics.
+ * <p>
+ * The entries are split between segments by key, each with its own lock, so more segments let more threads use the
+ * cache at once. A segment writes its entries, the digest of the key and the result element as UTF-8 JSON, one
+ * after the other into a direct buffer and wraps around when full, overwriting its oldest entries. A heap index of
+ * a primitive array finds them, taking about an eighth of the off-heap bytes; a key is looked up among a bounded
+ * number of index slots, and when they are all taken the oldest entry among them makes room.
+ * <p>
+ * Detections are keyed by the normalized text, see {@link LruDetectionCache}.
+ * <p>
+ * The direct buffers are allocated up front, so the memory use is fixed, and released when the cache is garbage
+ * collected. They count towards {@code -XX:MaxDirectMemorySize}.
+ */
+public final class OffHeapCache implements TranslationCache, DetectionCache {
+    public static final int DEFAULT_SEGMENTS = 16;
+
+    private static final int MIN_SEGMENT_BYTES = 4096;
+    //Digest and value length
+    private static final int ENTRY_HEADER = TextDigest.LENGTH + 4;
+    //Off-heap bytes per index slot, the index costs 8 bytes of heap per slot
+    private static final int BYTES_PER_SLOT = 64;
+    private static final int PROBE_LIMIT = 16;
+
+    private final Segment[] segments;
+    private final long maxBytes;
+
+    /**
+     * @param maxBytes The off-heap bytes of the entries, split between {@link #DEFAULT_SEGMENTS} segments.
+     */
+    public OffHeapCache(long maxBytes) {
+        this(maxBytes, DEFAULT_SEGMENTS);
+    }
+
+    /**
+     * @param maxBytes The off-heap bytes of the entries, split evenly between the segments.
+     * @param segments The number of segments, at least 1.
+     */
+    public OffHeapCache(long maxBytes, int segments) {
+        if (segments < 1) {
+            throw new IllegalArgumentException("segments must be at least 1");
+        }
+        final long segmentBytes = maxBytes / segments;
+        if (segmentBytes < MIN_SEGMENT_BYTES) {
+            throw new IllegalArgumentException("maxBytes must be at least " + MIN_SEGMENT_BYTES + " bytes per segment");
+        }
+        if (segmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("maxBytes must be at most " + Integer.MAX_VALUE + " bytes per segment");
+        }
+        this.segments = new Segment[segments];
+        for (int i = 0; i < segments; i++) {
+            this.segments[i] = new Segment((int) segmentBytes);
+        }
+        this.maxBytes = segmentBytes * segments;
+    }
+
+    @Override
+    public TranslationResult.Result get(Language from, Language to, String text) {
+        final byte[] value = get(TextDigest.of(from, to, text));
+        return value != null ? CachedValues.decode(ModelCodecs.TRANSLATION_RESULT_ELEMENT, value, 0, value.length) : null;
+    }
+
+    @Override
+    public void put(Language from, Language to, String text, TranslationResult.Result result) {
+        put(TextDigest.of(from, to, text), CachedValues.encode(ModelCodecs.TRANSLATION_RESULT_ELEMENT, result));
+    }
+
+    @Override
+    public DetectResult.Result get(String text) {
+        final byte[] value = get(TextDigest.ofDetection(text, 0));
+        return value != null ? CachedValues.decode(ModelCodecs.DETECT_RESULT_ELEMENT, value, 0, value.length) : null;
+    }
+
+    @Override
+    public void put(String text, DetectResult.Result result) {
+        put(TextDigest.ofDetection(text, 0), CachedValues.encode(ModelCodecs.DETECT_RESULT_ELEMENT, result));
+    }
+
+    /**
+     * @return The statistics of the entries of both kinds, evictions counting the entries overwritten or pushed out
+     * of the index.
+     */
+    @Override
+    public CacheStats getStats() {
+        long hits = 0;
+        long misses = 0;
+        long evictions = 0;
+        long size = 0;
+        long bytes = 0;
+        for (Segment segment : segments) {
+            segment.lock.lock();
+            try {
+                final long[] live = segment.live();
+                hits += segment.hits;
+                misses += segment.misses;
+                evictions += segment.puts - live[0];
+                size += live[0];
+                bytes += live[1];
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return new CacheStats(hits, misses, evictions, size, bytes);
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public int getSegments() {
+        return segments.length;
+    }
+
+    private byte[] get(byte[] digest) {
+        final long high = TextDigest.toLong(digest, 0);
+        return segmentOf(high).get(high, TextDigest.toLong(digest, 8));
+    }
+
+    private void put(byte[] digest, byte[] value) {
+        final long high = TextDigest.toLong(digest, 0);
+        segmentOf(high).put(high, TextDigest.toLong(digest, 8), value);
+    }
+
+    private Segment segmentOf(long high) {
+        return segments[(int) Math.floorMod(high, (long) segments.length)];
+    }
+
+    private static final class Segment {
+        final ReentrantLock lock = new ReentrantLock();
+        final ByteBuffer ring;
+        final int capacity;
+        //The position of an entry in the ring plus 1, 0 for a free slot
+        final long[] index;
+        final int mask;
+        //Positions grow without wrapping, the entry at a position is at its remainder of the capacity
+        long head;
+        long hits;
+        long misses;
+        long puts;
+
+        Segment(int capacity) {
+            this.ring = ByteBuffer.allocateDirect(capacity);
+            this.capacity = capacity;
+            final int slots = Math.max(PROBE_LIMIT, Integer.highestOneBit(capacity / BYTES_PER_SLOT));
+            this.index = new long[slots];
+            this.mask = slots - 1;
+        }
+
+        byte[] get(long high, long low) {
+            lock.lock();
+            try {
+                final int slot = find(high, low);
+                if (slot < 0) {
+                    misses++;
+                    return null;
+                }
+                final int offset = offset(index[slot] - 1);
+                final byte[] value = new byte[ring.getInt(offset + TextDigest.LENGTH)];
+                ring.position(offset + ENTRY_HEADER);
+                ring.get(value);
+                hits++;
+                return value;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void put(long high, long low, byte[] value) {
+            final int size = ENTRY_HEADER + value.length;
+            if (size > capacity) {
+                return;
+            }
+            lock.lock();
+            try {
+                if (find(high, low) >= 0) {
+                    return;
+                }
+                //Entries do not wrap, one that does not fit before the end starts over at the beginning
+                long position = head;
+                if (offset(position) + size > capacity) {
+                    position += capacity - offset(position);
+                }
+                head = position + size;
+                int target = -1;
+                long oldest = Long.MAX_VALUE;
+                for (int i = 0; i < PROBE_LIMIT; i++) {
+                    final int slot = ((int) low + i) & mask;
+                    final long entry = index[slot] - 1;
+                    if (entry < 0 || !isLive(entry)) {
+                        target = slot;
+                        break;
+                    }
+                    if (entry < oldest) {
+                        oldest = entry;
+                        target = slot;
+                    }
+                }
+                final int offset = offset(position);
+                ring.putLong(offset, high);
+                ring.putLong(offset + 8, low);
+                ring.putInt(offset + TextDigest.LENGTH, value.length);
+                ring.position(offset + ENTRY_HEADER);
+                ring.put(value);
+                index[target] = position + 1;
+                puts++;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        //The number and bytes of the entries the index finds, under the lock
+        long[] live() {
+            final long[] live = new long[2];
+            for (long slot : index) {
+                if (slot != 0 && isLive(slot - 1)) {
+                    live[0]++;
+                    live[1] += ENTRY_HEADER + ring.getInt(offset(slot - 1) + TextDigest.LENGTH);
+                }
+            }
+            return live;
+        }
+
+        private int find(long high, long low) {
+            for (int i = 0; i < PROBE_LIMIT; i++) {
+                final int slot = ((int) low + i) & mask;
+                final long entry = index[slot] - 1;
+                if (entry >= 0 && isLive(entry)) {
+                    final int offset = offset(entry);
+                    if (ring.getLong(offset) == high && ring.getLong(offset + 8) == low) {
+                        return slot;
+                    }
+                }
+            }
+            return -1;
+        }
+
+        //An entry is live until the ring wraps around to its first byte
+        private boolean isLive(long position) {
+            return position >= head - capacity;
+        }
+
+        private int offset(long position) {
+            return (int) (position % capacity);
+        }
+    }
+}
@@ -0,0 +1,449 @@
+package io.github.firemaples.cache;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import io.github.firemaples.codec.ModelCodecs;
+import io.github.firemaples.language.Language;
+import io.github.firemaples.models.TranslationResult;
+
+/**
+ * PersistentTranslationCache
+ * <p>
+ * A {@link TranslationCache} kept on disk, so translations survive restarts. Translations are appended to a log
+ * file and found through a hash index that is memory-mapped, so lookups cost one read of the log and neither
+ * the index nor the translations live on the heap.
+ * <p>
+ * The log holds one record per translation: the 128-bit digest of the language pair and text, the length of the
+ * value and the value, the result element as UTF-8 JSON. The index is an open-addressing table of digests and
+ * log offsets that doubles when half full. It is mapped in segments, as one mapping cannot exceed 2 GB, and stops
+ * growing at 2^30 slots; once it is full, new translations are no longer stored and miss. Entries are never
+ * evicted; delete the directory to start over.
+ * <p>
+ * Writes reach the files through the page cache; {@link #flush()} and {@link #close()} force them to disk. If the
+ * index is lost or behind the log after a crash, it is rebuilt from the log when the cache is opened, and a
+ * record cut short at the end of the log is dropped. A directory can only be opened by one cache at a time.
+ */
+public final class PersistentTranslationCache implements TranslationCache, Closeable {
+    static final int DEFAULT_INITIAL_CAPACITY = 1 << 16;
+    //A 24 GB index for more than 500 million translations
+    static final int DEFAULT_MAX_CAPACITY = 1 << 30;
+    //Slots per mapped segment, 384 MB
+    static final int DEFAULT_SEGMENT_SLOTS = 1 << 24;
+
+    private static final String LOG_FILE = "translations.log";
+    private static final String INDEX_FILE = "translations.idx";
+    private static final int LOG_MAGIC = 0x4D54544C;
+    private static final int INDEX_MAGIC = 0x4D545449;
+    private static final int VERSION = 1;
+    //Magic and version
+    private static final int LOG_HEADER = 8;
+    //Digest and value length
+    private static final int RECORD_HEADER = TextDigest.LENGTH + 4;
+    //Magic, version, capacity, count and the length of the log the index covers
+    private static final int INDEX_HEADER = 24;
+    //Digest and log offset, an offset of 0 marks an empty slot
+    private static final int SLOT = TextDigest.LENGTH + 8;
+    //Longer values can only come from a damaged record
+    private static final int MAX_VALUE_LENGTH = 16 * 1024 * 1024;
+
+    private final Path indexPath;
+    private final int maxCapacity;
+    private final int segmentSlots;
+    private final FileChannel log;
+    private final FileLock fileLock;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private Index index;
+    private int count;
+    private long logLength;
+    private boolean closed;
+
+    /**
+     * Opens the cache in a directory, creating it if needed.
+     *
+     * @param directory The directory of the log and index files.
+     * @throws IOException if the files cannot be opened or are used by another cache.
+     */
+    public PersistentTranslationCache(File directory) throws IOException {
+        this(directory, DEFAULT_INITIAL_CAPACITY);
+    }
+
+    PersistentTranslationCache(File directory, int initialCapacity) throws IOException {
+        this(directory, initialCapacity, DEFAULT_MAX_CAPACITY, DEFAULT_SEGMENT_SLOTS);
+    }
+
+    PersistentTranslationCache(File directory, int initialCapacity, int maxCapacity, int segmentSlots) throws IOException {
+        if (Integer.bitCount(initialCapacity) != 1 || Integer.bitCount(maxCapacity) != 1 || Integer.bitCount(segmentSlots) != 1) {
+            throw new IllegalArgumentException("initialCapacity, maxCapacity and segmentSlots must be powers of two");
+        }
+        if (initialCapacity > maxCapacity || maxCapacity > DEFAULT_MAX_CAPACITY || segmentSlots > DEFAULT_SEGMENT_SLOTS) {
+            throw new IllegalArgumentException("initialCapacity must not exceed maxCapacity, which must not exceed 2^30 slots");
+        }
+        this.maxCapacity = maxCapacity;
+        this.segmentSlots = segmentSlots;
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create the cache directory " + directory);
+        }
+        this.indexPath = new File(directory, INDEX_FILE).toPath();
+        this.log = FileChannel.open(new File(directory, LOG_FILE).toPath(),
+                StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+        FileLock acquired;
+        try {
+            acquired = log.tryLock();
+        } catch (OverlappingFileLockException e) {
+            acquired = null;
+        }
+        if (acquired == null) {
+            log.close();
+            throw new IOException("The cache directory " + directory + " is used by another cache");
+        }
+        this.fileLock = acquired;
+        try {
+            open(initialCapacity);
+        } catch (IOException | RuntimeException e) {
+            log.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public TranslationResult.Result get(Language from, Language to, String text) {
+        final byte[] digest = TextDigest.of(from, to, text);
+        final long offset;
+        lock.readLock().lock();
+        try {
+            final int slot = closed ? -1 : index.find(digest);
+            offset = slot >= 0 ? index.getOffset(slot) : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+        //The log is append-only, so the record can be read without the lock
+        final TranslationResult.Result result = offset > 0 ? readValue(offset) : null;
+        (result != null ? hits : misses).incrementAndGet();
+        return result;
+    }
+
+    @Override
+    public void put(Language from, Language to, String text, TranslationResult.Result result) {
+        final byte[] digest = TextDigest.of(from, to, text);
+        final byte[] value = CachedValues.encode(ModelCodecs.TRANSLATION_RESULT_ELEMENT, result);
+        lock.writeLock().lock();
+        try {
+            if (closed || index.find(digest) >= 0 || !ensureCapacity()) {
+                return;
+            }
+            final ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER + value.length);
+            record.put(digest).putInt(value.length).put(value).flip();
+            writeFully(record, logLength);
+            index.insert(digest, logLength);
+            logLength += record.capacity();
+            count++;
+            index.writeHeader(count, logLength);
+        } catch (IOException | RuntimeException ignored) {
+            //A record that failed to append is overwritten by the next one, the cache just misses it; the
+            //translation it came with has succeeded all the same
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public CacheStats getStats() {
+        lock.readLock().lock();
+        try {
+            return new CacheStats(hits.get(), misses.get(), 0, count, logLength);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Forces the translations written so far to disk.
+     *
+     * @throws IOException on error.
+     */
+    public void flush() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (!closed) {
+                log.force(false);
+                index.force();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            try {
+                log.force(false);
+                index.force();
+                fileLock.release();
+            } finally {
+                closed = true;
+                log.close();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void open(int initialCapacity) throws IOException {
+        final long size = log.size();
+        if (size < LOG_HEADER) {
+            writeFully((ByteBuffer) ByteBuffer.allocate(LOG_HEADER).putInt(LOG_MAGIC).putInt(VERSION).flip(), 0);
+            log.truncate(LOG_HEADER);
+        } else {
+            final ByteBuffer header = ByteBuffer.allocate(LOG_HEADER);
+            readFully(header, 0);
+            if (header.getInt(0) != LOG_MAGIC || header.getInt(4) != VERSION) {
+                throw new IOException("Not a translation log: " + LOG_FILE);
+            }
+        }
+        long indexed = -1;
+        index = Index.load(indexPath, segmentSlots);
+        if (index != null) {
+            indexed = index.getIndexedLength();
+            if (indexed < LOG_HEADER || indexed > log.size()) {
+                indexed = -1;
+            }
+        }
+        if (indexed < 0) {
+            index = Index.create(indexPath, initialCapacity, segmentSlots);
+            indexed = LOG_HEADER;
+        }
+        count = index.getCount();
+        logLength = recover(indexed);
+        index.writeHeader(count, logLength);
+    }
+
+    //Indexes the records from the offset on and returns the end of the last complete one
+    private long recover(long offset) throws IOException {
+        final long size = log.size();
+        final ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER);
+        final byte[] digest = new byte[TextDigest.LENGTH];
+        while (offset + RECORD_HEADER <= size) {
+            header.clear();
+            readFully(header, offset);
+            final int length = header.getInt(TextDigest.LENGTH);
+            if (length < 0 || length > MAX_VALUE_LENGTH || offset + RECORD_HEADER + length > size) {
+                break;
+            }
+            header.position(0);
+            header.get(digest);
+            //Records beyond a full index stay in the log unindexed
+            if (index.find(digest) < 0 && ensureCapacity()) {
+                index.insert(digest, offset);
+                count++;
+            }
+            offset += RECORD_HEADER + length;
+        }
+        if (offset < size) {
+            log.truncate(offset);
+        }
+        return offset;
+    }
+
+    //Grows the index if one more entry would fill it over half, false if it is at the maximum capacity
+    private boolean ensureCapacity() throws IOException {
+        if ((count + 1) * 2L <= index.capacity) {
+            return true;
+        }
+        if (index.capacity >= maxCapacity) {
+            return false;
+        }
+        final int grownCapacity = index.capacity * 2;
+        final Path grownPath = indexPath.resolveSibling(INDEX_FILE + ".tmp");
+        final Index grown = Index.create(grownPath, grownCapacity, segmentSlots);
+        final byte[] digest = new byte[TextDigest.LENGTH];
+        for (int slot = 0; slot < index.capacity; slot++) {
+            final long offset = index.getOffset(slot);
+            if (offset != 0) {
+                index.getDigest(slot, digest);
+                grown.insert(digest, offset);
+            }
+        }
+        grown.writeHeader(count, logLength);
+        grown.force();
+        Files.move(grownPath, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        index = grown;
+        return true;
+    }
+
+    private TranslationResult.Result readValue(long offset) {
+        try {
+            final ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER);
+            readFully(header, offset);
+            final int length = header.getInt(TextDigest.LENGTH);
+            if (length < 0 || length > MAX_VALUE_LENGTH) {
+                return null;
+            }
+            final byte[] value = new byte[length];
+            readFully(ByteBuffer.wrap(value), offset + RECORD_HEADER);
+            return CachedValues.decode(ModelCodecs.TRANSLATION_RESULT_ELEMENT, value, 0, length);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            final int read = log.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException();
+            }
+            position += read;
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += log.write(buffer, position);
+        }
+    }
+
+    /**
+     * The mapped index file: the header, then the slots. The slots are mapped in segments of equal size, so the
+     * index can outgrow the 2 GB a single mapping is limited to.
+     */
+    private static final class Index {
+        final int capacity;
+        private final MappedByteBuffer header;
+        private final MappedByteBuffer[] segments;
+        private final int segmentShift;
+        private final int segmentMask;
+
+        private Index(FileChannel channel, int capacity, int segmentSlots) throws IOException {
+            final int slotsPerSegment = Math.min(capacity, segmentSlots);
+            this.capacity = capacity;
+            this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, INDEX_HEADER);
+            this.segments = new MappedByteBuffer[capacity / slotsPerSegment];
+            this.segmentShift = Integer.numberOfTrailingZeros(slotsPerSegment);
+            this.segmentMask = slotsPerSegment - 1;
+            final long segmentLength = (long) slotsPerSegment * SLOT;
+            for (int i = 0; i < segments.length; i++) {
+                segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, INDEX_HEADER + i * segmentLength, segmentLength);
+            }
+        }
+
+        static Index create(Path path, int capacity, int segmentSlots) throws IOException {
+            final Index index;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                index = new Index(channel, capacity, segmentSlots);
+            }
+            index.header.putInt(0, INDEX_MAGIC);
+            index.header.putInt(4, VERSION);
+            index.header.putInt(8, capacity);
+            return index;
+        }
+
+        //Maps an existing index, or returns null if it cannot be used
+        static Index load(Path path, int segmentSlots) throws IOException {
+            if (!Files.isRegularFile(path) || Files.size(path) < INDEX_HEADER) {
+                return null;
+            }
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                final MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, INDEX_HEADER);
+                final int capacity = header.getInt(8);
+                if (header.getInt(0) != INDEX_MAGIC || header.getInt(4) != VERSION || capacity <= 0 || Integer.bitCount(capacity) != 1
+                        || capacity > DEFAULT_MAX_CAPACITY || channel.size() != INDEX_HEADER + (long) capacity * SLOT) {
+                    return null;
+                }
+                return new Index(channel, capacity, segmentSlots);
+            }
+        }
+
+        int getCount() {
+            return header.getInt(12);
+        }
+
+        //The length of the log the index covers
+        long getIndexedLength() {
+            return header.getLong(16);
+        }
+
+        void writeHeader(int count, long logLength) {
+            header.putInt(12, count);
+            header.putLong(16, logLength);
+        }
+
+        //The log offset of a slot, 0 if it is empty
+        long getOffset(int slot) {
+            return segment(slot).getLong(position(slot) + TextDigest.LENGTH);
+        }
+
+        void getDigest(int slot, byte[] digest) {
+            final MappedByteBuffer segment = segment(slot);
+            final int position = position(slot);
+            for (int i = 0; i < TextDigest.LENGTH; i++) {
+                digest[i] = segment.get(position + i);
+            }
+        }
+
+        //The slot holding the digest, or -1 if it is not indexed
+        int find(byte[] digest) {
+            final long high = TextDigest.toLong(digest, 0);
+            final long low = TextDigest.toLong(digest, 8);
+            for (int slot = (int) high & (capacity - 1); ; slot = (slot + 1) & (capacity - 1)) {
+                final MappedByteBuffer segment = segment(slot);
+                final int position = position(slot);
+                if (segment.getLong(position + TextDigest.LENGTH) == 0) {
+                    return -1;
+                }
+                if (segment.getLong(position) == high && segment.getLong(position + 8) == low) {
+                    return slot;
+                }
+            }
+        }
+
+        void insert(byte[] digest, long offset) {
+            final long high = TextDigest.toLong(digest, 0);
+            int slot = (int) high & (capacity - 1);
+            while (getOffset(slot) != 0) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            final MappedByteBuffer segment = segment(slot);
+            final int position = position(slot);
+            segment.putLong(position, high);
+            segment.putLong(position + 8, TextDigest.toLong(digest, 8));
+            segment.putLong(position + TextDigest.LENGTH, offset);
+        }
+
+        void force() {
+            header.force();
+            for (MappedByteBuffer segment : segments) {
+                segment.force();
+            }
+        }
+
+        private MappedByteBuffer segment(int slot) {
+            return segments[slot >>> segmentShift];
+        }
+
+        private int position(int slot) {
+            return (slot & segmentMask) * SLOT;
+        }
+    }
+}
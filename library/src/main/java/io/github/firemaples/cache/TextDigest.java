@@ -0,0 +1,104 @@
+package io.github.firemaples.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+
+import io.github.firemaples.language.Language;
+
+/**
+ * TextDigest
+ * <p>
+ * The 128-bit cache key of a text and its language pair: the first half of the SHA-256 of both, so keys have a
+ * fixed size whatever the length of the text and collisions are out of the question in practice.
+ */
+final class TextDigest {
+    static final int LENGTH = 16;
+
+    //No language code contains '?'
+    private static final byte[] DETECTION_PREFIX = "?\n".getBytes(StandardCharsets.UTF_8);
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private TextDigest() {
+    }
+
+    static byte[] of(Language from, Language to, String text) {
+        final MessageDigest digest = SHA_256.get();
+        digest.update(from.toString().getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) '>');
+        digest.update(to.toString().getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) '\n');
+        return finish(digest, text);
+    }
+
+    /**
+     * @param prefixLength The code points of the normalized text the key covers, 0 for all of them.
+     * @return The key of the detection of a text, distinct from the keys of its translations. Texts that only
+     * differ in case, Unicode composition or whitespace share a key.
+     */
+    static byte[] ofDetection(String text, int prefixLength) {
+        final MessageDigest digest = SHA_256.get();
+        digest.update(DETECTION_PREFIX);
+        return finish(digest, normalize(text, prefixLength));
+    }
+
+    static String normalize(String text, int prefixLength) {
+        if (prefixLength > 0 && text.length() > prefixLength * 4) {
+            //Enough of the text for the prefix unless it is mostly whitespace or combining marks
+            int end = prefixLength * 4;
+            if (Character.isHighSurrogate(text.charAt(end - 1))) {
+                end--;
+            }
+            text = text.substring(0, end);
+        }
+        final String composed = Normalizer.normalize(text, Normalizer.Form.NFC);
+        final StringBuilder normalized = new StringBuilder(composed.length());
+        int codePoints = 0;
+        boolean space = false;
+        for (int i = 0; i < composed.length() && (prefixLength == 0 || codePoints < prefixLength); ) {
+            final int c = composed.codePointAt(i);
+            i += Character.charCount(c);
+            if (Character.isWhitespace(c) || Character.isSpaceChar(c)) {
+                space = normalized.length() > 0;
+                continue;
+            }
+            if (space) {
+                normalized.append(' ');
+                space = false;
+                if (++codePoints == prefixLength) {
+                    break;
+                }
+            }
+            normalized.appendCodePoint(Character.toLowerCase(c));
+            codePoints++;
+        }
+        return normalized.toString();
+    }
+
+    private static byte[] finish(MessageDigest digest, String text) {
+        digest.update(text.getBytes(StandardCharsets.UTF_8));
+        final byte[] full = digest.digest();
+        final byte[] key = new byte[LENGTH];
+        System.arraycopy(full, 0, key, 0, LENGTH);
+        return key;
+    }
+
+    /**
+     * @return The eight bytes of the digest from the offset as a long.
+     */
+    static long toLong(byte[] digest, int offset) {
+        long value = 0;
+        for (int i = offset; i < offset + 8; i++) {
+            value = value << 8 | (digest[i] & 0xFF);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,31 @@
+package io.github.firemaples.cache;
+
+import io.github.firemaples.language.Language;
+import io.github.firemaples.models.TranslationResult;
+
+/**
+ * TranslationCache
+ * <p>
+ * Keeps translations of single texts, so texts translated before are not sent to the service again.
+ * <p>
+ * A client with a cache looks up every text of a translate call and only sends the ones it misses; their results
+ * are then put into the cache. Implementations must be safe to use from several threads.
+ */
+public interface TranslationCache {
+    /**
+     * @return The cached result element of the text, or null if it is not cached. The client hands it to its
+     * caller, so it must not be shared with the cache or with other callers.
+     */
+    TranslationResult.Result get(Language from, Language to, String text);
+
+    /**
+     * @param result The result element the service returned for the text. The client hands it to its caller as
+     *               well, so a cache keeping objects must keep a copy.
+     */
+    void put(Language from, Language to, String text, TranslationResult.Result result);
+
+    /**
+     * @return The statistics of the cache so far.
+     */
+    CacheStats getStats();
+}
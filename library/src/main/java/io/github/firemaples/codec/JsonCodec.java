@@ -0,0 +1,34 @@
+package io.github.firemaples.codec;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * JsonCodec
+ * <p>
+ * Reads and writes one type straight from and to a streaming JSON reader or writer, without reflection.
+ * Implementations hold no state, so a single instance can be shared by any number of threads.
+ *
+ * @param <T> The decoded type.
+ */
+public interface JsonCodec<T> {
+    /**
+     * Reads the next value.
+     *
+     * @param in The reader, positioned at the value.
+     * @return The decoded value, or null for a JSON null.
+     * @throws IOException on malformed input.
+     */
+    T read(JsonReader in) throws IOException;
+
+    /**
+     * Writes a value.
+     *
+     * @param out   The writer.
+     * @param value The value, null is written as a JSON null.
+     * @throws IOException on error.
+     */
+    void write(JsonWriter out, T value) throws IOException;
+}
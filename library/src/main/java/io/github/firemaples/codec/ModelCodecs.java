@@ -0,0 +1,584 @@
+package io.github.firemaples.codec;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.github.firemaples.models.BreakSentencesResult;
+import io.github.firemaples.models.DetectResult;
+import io.github.firemaples.models.LanguagesResult;
+import io.github.firemaples.models.TextArrayRequest;
+import io.github.firemaples.models.TranslationResult;
+
+/**
+ * ModelCodecs
+ * <p>
+ * Precompiled {@link JsonCodec}s for the {@link io.github.firemaples.models} types, producing the same objects
+ * as the reflective Gson mapping: unknown fields are skipped, nulls leave fields at their defaults and
+ * booleans are also accepted as "true"/"false"/"1"/"0" strings or 1/0 numbers.
+ * <p>
+ * All codecs are created when this class is loaded and are safe to use from any thread.
+ */
+public final class ModelCodecs {
+    public static final JsonCodec<TranslationResult.DetectedLanguage> TRANSLATION_DETECTED_LANGUAGE = new ModelCodec<TranslationResult.DetectedLanguage>() {
+        @Override
+        TranslationResult.DetectedLanguage readValue(JsonReader in) throws IOException {
+            TranslationResult.DetectedLanguage value = new TranslationResult.DetectedLanguage();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "language":
+                        value.language = readString(in);
+                        break;
+                    case "score":
+                        value.score = readFloat(in, value.score);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return value;
+        }
+
+        @Override
+        void writeValue(JsonWriter out, TranslationResult.DetectedLanguage value) throws IOException {
+            out.beginObject();
+            writeString(out, "language", value.language);
+            out.name("score").value(Float.valueOf(value.score));
+            out.endObject();
+        }
+    };
+
+    public static final JsonCodec<TranslationResult.Translation> TRANSLATION = new ModelCodec<TranslationResult.Translation>() {
+        @Override
+        TranslationResult.Translation readValue(JsonReader in) throws IOException {
+            TranslationResult.Translation value = new TranslationResult.Translation();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "text":
+                        value.text = readString(in);
+                        break;
+                    case "to":
+                        value.to = readString(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return value;
+        }
+
+        @Override
+        void writeValue(JsonWriter out, TranslationResult.Translation value) throws IOException {
+            out.beginObject();
+            writeString(out, "text", value.text);
+            writeString(out, "to", value.to);
+            out.endObject();
+        }
+    };
+
+    public static final JsonCodec<TranslationResult.Result> TRANSLATION_RESULT_ELEMENT = new ModelCodec<TranslationResult.Result>() {
+        @Override
+        TranslationResult.Result readValue(JsonReader in) throws IOException {
+            TranslationResult.Result value = new TranslationResult.Result();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "detectedLanguage":
+                        value.detectedLanguage = TRANSLATION_DETECTED_LANGUAGE.read(in);
+                        break;
+                    case "translations":
+                        value.translations = readList(in, TRANSLATION);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return value;
+        }
+
+        @Override
+        void writeValue(JsonWriter out, TranslationResult.Result value) throws IOException {
+            out.beginObject();
+            if (value.detectedLanguage != null) {
+                TRANSLATION_DETECTED_LANGUAGE.write(out.name("detectedLanguage"), value.detectedLanguage);
+            }
+            if (value.translations != null) {
+                writeList(out.name("translations"), TRANSLATION, value.translations);
+            }
+            out.endObject();
+        }
+    };
+
+    public static final JsonCodec<TranslationResult> TRANSLATION_RESULT = new ModelCodec<TranslationResult>() {
+        @Override
+        TranslationResult readValue(JsonReader in) throws IOException {
+            return readList(in, new TranslationResult(), TRANSLATION_RESULT_ELEMENT);
+        }
+
+        @Override
+        void writeValue(JsonWriter out, TranslationResult value) throws IOException {
+            writeList(out, TRANSLATION_RESULT_ELEMENT, value);
+        }
+    };
+
+    public static final JsonCodec<DetectResult.Alternative> DETECT_ALTERNATIVE = new ModelCodec<DetectResult.Alternative>() {
+        @Override
+        DetectResult.Alternative readValue(JsonReader in) throws IOException {
+            DetectResult.Alternative value = new DetectResult.Alternative();
+            in.beginObject();
+            while (in.hasNext()) {
+                if (!readAlternativeField(in, in.nextName(), value)) {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return value;
+        }
+
+        @Override
+        void writeValue(JsonWriter out, DetectResult.Alternative value) throws IOException {
+            out.beginObject();
+            writeAlternativeFields(out, value);
+            out.endObject();
+        }
+    };
+
+    public static final JsonCodec<DetectResult.Result> DETECT_RESULT_ELEMENT = new ModelCodec<DetectResult.Result>() {
+        @Override
+        DetectResult.Result readValue(JsonReader in) throws IOException {
+            DetectResult.Result value = new DetectResult.Result();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if ("alternatives".equals(name)) {
+                    value.alternatives = readList(in, DETECT_ALTERNATIVE);
+                } else if (!readAlternativeField(in, name, value)) {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return value;
+        }
+
+        @Override
+        void writeValue(JsonWriter out, DetectResult.Result value) throws IOException {
+            out.beginObject();
+            if (value.alternatives != null) {
+                writeList(out.name("alternatives"), DETECT_ALTERNATIVE, value.alternatives);
+            }
+            writeAlternativeFields(out, value);
+            out.endObject();
+        }
+    };
+
+    public static final JsonCodec<DetectResult> DETECT_RESULT = new ModelCodec<DetectResult>() {
+        @Override
+        DetectResult readValue(JsonReader in) throws IOException {
+            return readList(in, new DetectResult(), DETECT_RESULT_ELEMENT);
+        }
+
+        @Override
+        void writeValue(JsonWriter out, DetectResult value) throws IOException {
+            writeList(out, DETECT_RESULT_ELEMENT, value);
+        }
+    };
+
+    public static final JsonCodec<BreakSentencesResult.DetectedLanguage> BREAK_SENTENCES_DETECTED_LANGUAGE = new ModelCodec<BreakSentencesResult.DetectedLanguage>() {
+        @Override
+        BreakSentencesResult.DetectedLanguage readValue(JsonReader in) throws IOException {
+            BreakSentencesResult.DetectedLanguage value = new BreakSentencesResult.DetectedLanguage();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "language":
+                        value.language = readString(in);
+                        break;
+                    case "score":
+                        value.score = readFloat(in, value.score);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return value;
+        }
+
+        @Override
+        void writeValue(JsonWriter out, BreakSentencesResult.DetectedLanguage value) throws IOException {
+            out.beginObject();
+            writeString(out, "language", value.language);
+            out.name("score").value(Float.valueOf(value.score));
+            out.endObject();
+        }
+    };
+
+    public static final JsonCodec<BreakSentencesResult.Result> BREAK_SENTENCES_RESULT_ELEMENT = new ModelCodec<BreakSentencesResult.Result>() {
+        @Override
+        BreakSentencesResult.Result readValue(JsonReader in) throws IOException {
+            BreakSentencesResult.Result value = new BreakSentencesResult.Result();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "sentLen":
+                        value.sentLen = readIntegerArray(in);
+                        break;
+                    case "detectedLanguage":
+                        value.detectedLanguage = BREAK_SENTENCES_DETECTED_LANGUAGE.read(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return value;
+        }
+
+        @Override
+        void writeValue(JsonWriter out, BreakSentencesResult.Result value) throws IOException {
+            out.beginObject();
+            if (value.sentLen != null) {
+                out.name("sentLen").beginArray();
+                for (Integer length : value.sentLen) {
+                    out.value(length);
+                }
+                out.endArray();
+            }
+            if (value.detectedLanguage != null) {
+                BREAK_SENTENCES_DETECTED_LANGUAGE.write(out.name("detectedLanguage"), value.detectedLanguage);
+            }
+            out.endObject();
+        }
+    };
+
+    public static final JsonCodec<BreakSentencesResult> BREAK_SENTENCES_RESULT = new ModelCodec<BreakSentencesResult>() {
+        @Override
+        BreakSentencesResult readValue(JsonReader in) throws IOException {
+            return readList(in, new BreakSentencesResult(), BREAK_SENTENCES_RESULT_ELEMENT);
+        }
+
+        @Override
+        void writeValue(JsonWriter out, BreakSentencesResult value) throws IOException {
+            writeList(out, BREAK_SENTENCES_RESULT_ELEMENT, value);
+        }
+    };
+
+    public static final JsonCodec<LanguagesResult.TranslationLanguage> TRANSLATION_LANGUAGE = new ModelCodec<LanguagesResult.TranslationLanguage>() {
+        @Override
+        LanguagesResult.TranslationLanguage readValue(JsonReader in) throws IOException {
+            LanguagesResult.TranslationLanguage value = new LanguagesResult.TranslationLanguage();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "name":
+                        value.name = readString(in);
+                        break;
+                    case "nativeName":
+                        value.nativeName = readString(in);
+                        break;
+                    case "dir":
+                        value.dir = readString(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return value;
+        }
+
+        @Override
+        void writeValue(JsonWriter out, LanguagesResult.TranslationLanguage value) throws IOException {
+            out.beginObject();
+            writeString(out, "name", value.name);
+            writeString(out, "nativeName", value.nativeName);
+            writeString(out, "dir", value.dir);
+            out.endObject();
+        }
+    };
+
+    public static final JsonCodec<LanguagesResult> LANGUAGES_RESULT = new ModelCodec<LanguagesResult>() {
+        @Override
+        LanguagesResult readValue(JsonReader in) throws IOException {
+            LanguagesResult value = new LanguagesResult();
+            in.beginObject();
+            while (in.hasNext()) {
+                if ("translation".equals(in.nextName())) {
+                    value.translation = readTranslationLanguages(in);
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return value;
+        }
+
+        @Override
+        void writeValue(JsonWriter out, LanguagesResult value) throws IOException {
+            out.beginObject();
+            if (value.translation != null) {
+                out.name("translation").beginObject();
+                for (Map.Entry<String, LanguagesResult.TranslationLanguage> entry : value.translation.entrySet()) {
+                    TRANSLATION_LANGUAGE.write(out.name(entry.getKey()), entry.getValue());
+                }
+                out.endObject();
+            }
+            out.endObject();
+        }
+    };
+
+    public static final JsonCodec<TextArrayRequest> TEXT_ARRAY_REQUEST = new ModelCodec<TextArrayRequest>() {
+        @Override
+        TextArrayRequest readValue(JsonReader in) throws IOException {
+            List<String> texts = new ArrayList<>();
+            in.beginArray();
+            while (in.hasNext()) {
+                String text = null;
+                in.beginObject();
+                while (in.hasNext()) {
+                    if ("Text".equals(in.nextName())) {
+                        text = readString(in);
+                    } else {
+                        in.skipValue();
+                    }
+                }
+                in.endObject();
+                texts.add(text);
+            }
+            in.endArray();
+            return TextArrayRequest.build(texts.toArray(new String[0]));
+        }
+
+        @Override
+        void writeValue(JsonWriter out, TextArrayRequest value) throws IOException {
+            out.beginArray();
+            for (TextArrayRequest.Text text : value) {
+                out.beginObject();
+                writeString(out, "Text", text.getText());
+                out.endObject();
+            }
+            out.endArray();
+        }
+    };
+
+    private ModelCodecs() {
+    }
+
+    /**
+     * Decodes a complete JSON document.
+     *
+     * @param codec  The codec of the top level value.
+     * @param reader The document.
+     * @return The decoded value, or null for an empty document.
+     * @throws IOException on malformed input or a document with trailing content.
+     */
+    public static <T> T decode(JsonCodec<T> codec, Reader reader) throws IOException {
+        final JsonReader in = new JsonReader(reader);
+        in.setLenient(true);
+        try {
+            in.peek();
+        } catch (EOFException e) {
+            return null;
+        }
+        final T value = codec.read(in);
+        if (in.peek() != JsonToken.END_DOCUMENT) {
+            throw new JsonSyntaxException("JSON document was not fully consumed.");
+        }
+        return value;
+    }
+
+    /**
+     * Encodes a value as a JSON String.
+     *
+     * @param codec The codec of the value.
+     * @param value The value.
+     * @return The JSON String.
+     * @throws IOException on error.
+     */
+    public static <T> String encode(JsonCodec<T> codec, T value) throws IOException {
+        final StringWriter writer = new StringWriter();
+        codec.write(new JsonWriter(writer), value);
+        return writer.toString();
+    }
+
+    //Handles JSON nulls once for every model type
+    private abstract static class ModelCodec<T> implements JsonCodec<T> {
+        @Override
+        public final T read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            return readValue(in);
+        }
+
+        @Override
+        public final void write(JsonWriter out, T value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+            } else {
+                writeValue(out, value);
+            }
+        }
+
+        abstract T readValue(JsonReader in) throws IOException;
+
+        abstract void writeValue(JsonWriter out, T value) throws IOException;
+    }
+
+    private static boolean readAlternativeField(JsonReader in, String name, DetectResult.Alternative value) throws IOException {
+        switch (name) {
+            case "language":
+                value.language = readString(in);
+                return true;
+            case "score":
+                value.score = readFloat(in, value.score);
+                return true;
+            case "isTranslationSupported":
+                value.isTranslationSupported = readBoolean(in, value.isTranslationSupported);
+                return true;
+            case "isTransliterationSupported":
+                value.isTransliterationSupported = readBoolean(in, value.isTransliterationSupported);
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static void writeAlternativeFields(JsonWriter out, DetectResult.Alternative value) throws IOException {
+        writeString(out, "language", value.language);
+        out.name("score").value(Float.valueOf(value.score));
+        out.name("isTranslationSupported").value(value.isTranslationSupported);
+        out.name("isTransliterationSupported").value(value.isTransliterationSupported);
+    }
+
+    private static HashMap<String, LanguagesResult.TranslationLanguage> readTranslationLanguages(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        //Sized for the 100+ languages the service returns, so the table is never rehashed
+        HashMap<String, LanguagesResult.TranslationLanguage> languages = new HashMap<>(256);
+        in.beginObject();
+        while (in.hasNext()) {
+            String code = in.nextName();
+            languages.put(code, TRANSLATION_LANGUAGE.read(in));
+        }
+        in.endObject();
+        return languages;
+    }
+
+    private static <E> List<E> readList(JsonReader in, JsonCodec<E> elementCodec) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return readList(in, new ArrayList<E>(), elementCodec);
+    }
+
+    private static <E, L extends List<E>> L readList(JsonReader in, L list, JsonCodec<E> elementCodec) throws IOException {
+        in.beginArray();
+        while (in.hasNext()) {
+            list.add(elementCodec.read(in));
+        }
+        in.endArray();
+        return list;
+    }
+
+    private static <E> void writeList(JsonWriter out, JsonCodec<E> elementCodec, List<E> list) throws IOException {
+        out.beginArray();
+        for (E element : list) {
+            elementCodec.write(out, element);
+        }
+        out.endArray();
+    }
+
+    private static Integer[] readIntegerArray(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        List<Integer> values = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                values.add(null);
+            } else {
+                values.add(in.nextInt());
+            }
+        }
+        in.endArray();
+        return values.toArray(new Integer[0]);
+    }
+
+    private static String readString(JsonReader in) throws IOException {
+        final JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        if (token == JsonToken.BOOLEAN) {
+            return Boolean.toString(in.nextBoolean());
+        }
+        return in.nextString();
+    }
+
+    //Like Gson, a null keeps the current value of a primitive field
+    private static float readFloat(JsonReader in, float current) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return current;
+        }
+        return (float) in.nextDouble();
+    }
+
+    private static boolean readBoolean(JsonReader in, boolean current) throws IOException {
+        switch (in.peek()) {
+            case NULL:
+                in.nextNull();
+                return current;
+            case STRING: {
+                String s = in.nextString();
+                if (s.equalsIgnoreCase("true") || s.equals("1")) {
+                    return true;
+                } else if (s.equalsIgnoreCase("false") || s.equals("0")) {
+                    return false;
+                }
+                return Boolean.parseBoolean(s);
+            }
+            case NUMBER: {
+                int i = in.nextInt();
+                if (i == 1) {
+                    return true;
+                } else if (i == 0) {
+                    return false;
+                }
+                throw new JsonSyntaxException("Expected a boolean but was " + i + " at path " + in.getPath());
+            }
+            default:
+                return in.nextBoolean();
+        }
+    }
+
+    private static void writeString(JsonWriter out, String name, String value) throws IOException {
+        if (value != null) {
+            out.name(name).value(value);
+        }
+    }
+}
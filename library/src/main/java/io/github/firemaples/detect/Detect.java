@@ -17,13 +17,12 @@
  */
 package io.github.firemaples.detect;
 
-import java.net.URL;
+import java.util.concurrent.CompletableFuture;
 
 import io.github.firemaples.MicrosoftTranslatorAPI;
 import io.github.firemaples.language.Language;
 import io.github.firemaples.models.DetectResult;
-import io.github.firemaples.models.TextArrayRequest;
-import io.github.firemaples.utils.TypeReference;
+import io.github.firemaples.models.TextArrayBody;
 
 /**
  * Detect
@@ -35,9 +34,7 @@ import io.github.firemaples.utils.TypeReference;
  * @author Jonathan Griggs [jonathan.griggs at gmail.com]
  * @author Firemaples (add new Azure framework support) [firemaples at gmail.com]
  */
-public final class Detect extends MicrosoftTranslatorAPI<TextArrayRequest, DetectResult> {
-    private static Detect instance = new Detect();
-    private static final String SERVICE_URL = "api.cognitive.microsofttranslator.com/detect?api-version=3.0";
+public final class Detect extends MicrosoftTranslatorAPI<TextArrayBody, DetectResult> {
 //    private static final String ARRAY_SERVICE_URL = "api.microsofttranslator.com/V2/Ajax.svc/DetectArray?";
 
     // prevent instantiation
@@ -60,11 +57,7 @@ public final class Detect extends MicrosoftTranslatorAPI<TextArrayRequest, Detec
 //
 //        final String response = retrieveString(url);
 //        return Language.fromString(response);
-        DetectResult results = retrieveResult(text);
-        if (results != null && !results.isEmpty()) {
-            return Language.fromString(results.get(0).language);
-        }
-        throw new IllegalStateException("Parsing result failed");
+        return firstLanguage(retrieveResult(text));
     }
 
     /**
@@ -83,7 +76,49 @@ public final class Detect extends MicrosoftTranslatorAPI<TextArrayRequest, Detec
 //        //noinspection UnnecessaryLocalVariable
 //        final String[] response = retrieveStringArr(url);
 //        return response;
-        DetectResult results = retrieveResult(texts);
+        return languageArray(retrieveResult(texts));
+    }
+
+    public static DetectResult retrieveResult(String... texts) throws Exception {
+        return getDefaultClient().detect(texts);
+    }
+
+    /**
+     * Asynchronously detects the language of a supplied String.
+     *
+     * @param text The String to detect the language of.
+     * @return A future completed with the detected language
+     */
+    public static CompletableFuture<Language> executeAsync(final String text) {
+        return retrieveResultAsync(text).thenApply(Detect::firstLanguage);
+    }
+
+    /**
+     * Asynchronously detects the language of all supplied Strings in array.
+     *
+     * @return A future completed with a String array containing the detected languages
+     */
+    public static CompletableFuture<String[]> executeAsync(final String[] texts) {
+        return retrieveResultAsync(texts).thenApply(Detect::languageArray);
+    }
+
+    /**
+     * Asynchronous variant of {@link #retrieveResult(String...)}.
+     * <p>
+     * Validation errors and service errors complete the returned future exceptionally.
+     */
+    public static CompletableFuture<DetectResult> retrieveResultAsync(String... texts) {
+        return getDefaultClient().detectAsync(texts);
+    }
+
+    private static Language firstLanguage(DetectResult results) {
+        if (results != null && !results.isEmpty()) {
+            return Language.fromString(results.get(0).language);
+        }
+        throw new IllegalStateException("Parsing result failed");
+    }
+
+    private static String[] languageArray(DetectResult results) {
         if (results != null && results.size() > 0) {
             String[] resultArray = new String[results.size()];
             for (int i = 0; i < results.size(); i++) {
@@ -94,16 +129,6 @@ public final class Detect extends MicrosoftTranslatorAPI<TextArrayRequest, Detec
         throw new IllegalStateException("Parsing result failed");
     }
 
-    public static DetectResult retrieveResult(String... texts) throws Exception {
-        //Run the basic service validations first
-        validateServiceState(texts);
-        final URL url = new URL(PROTOCOL_HTTPS + SERVICE_URL);
-        //noinspection UnnecessaryLocalVariable
-        DetectResult result = instance.retrieveResponseV3(url, HTTP_POST, TextArrayRequest.build(texts), new TypeReference<DetectResult>() {
-        });
-        return result;
-    }
-
 //    private static void validateServiceState(final String text) throws Exception {
 //        final int byteLength = text.getBytes(ENCODING).length;
 //        if (byteLength > 10240) {
@@ -112,23 +137,4 @@ public final class Detect extends MicrosoftTranslatorAPI<TextArrayRequest, Detec
 //        validateServiceState();
 //    }
 
-    private static void validateServiceState(final String[] texts) throws Exception {
-        if (texts.length > 100) {
-            throw new RuntimeException("TEXT_COUNT_OVER_LIMIT - Microsoft Translator (Detect) can handle up to 100 texts per request");
-        }
-        for (String text : texts) {
-            String json = instance.toJsonString(new TextArrayRequest.Text(text));
-            if (json.length() > 10000) {
-                throw new RuntimeException("TEXT_TOO_LARGE - Microsoft Translator (Detect) can handle up to 10,000 characters per array element");
-            }
-        }
-
-        String json = instance.toJsonString(TextArrayRequest.build(texts));
-        if (json.length() > 50000) {
-            throw new RuntimeException("TEXT_TOO_LARGE - Microsoft Translator (Detect) can handle up to 50,000 characters per request");
-        }
-
-        validateServiceState();
-    }
-
 }
@@ -0,0 +1,51 @@
+package io.github.firemaples.hedge;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * HedgeBudget
+ * <p>
+ * Limits the hedges of one client to a share of its requests. Every request earns {@code ratio} of a hedge,
+ * up to {@code maxBurst} saved hedges, and every hedge spends one.
+ */
+public final class HedgeBudget {
+    //Kept in thousandths of a hedge to allow fractional ratios with an atomic long
+    private static final long SCALE = 1000;
+
+    private final long ratio;
+    private final long max;
+    private final AtomicLong tokens = new AtomicLong();
+
+    public HedgeBudget(double ratio, int maxBurst) {
+        if (ratio < 0 || maxBurst < 1) {
+            throw new IllegalArgumentException("ratio must not be negative and maxBurst must be at least 1");
+        }
+        this.ratio = Math.round(ratio * SCALE);
+        this.max = maxBurst * SCALE;
+    }
+
+    public void onRequest() {
+        while (true) {
+            final long current = tokens.get();
+            final long updated = Math.min(max, current + ratio);
+            if (current == updated || tokens.compareAndSet(current, updated)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return True if a hedge may be sent, spending it.
+     */
+    public boolean tryHedge() {
+        while (true) {
+            final long current = tokens.get();
+            if (current < SCALE) {
+                return false;
+            }
+            if (tokens.compareAndSet(current, current - SCALE)) {
+                return true;
+            }
+        }
+    }
+}
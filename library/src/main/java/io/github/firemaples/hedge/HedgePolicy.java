@@ -0,0 +1,165 @@
+package io.github.firemaples.hedge;
+
+/**
+ * HedgePolicy
+ * <p>
+ * Opt-in hedging of translate and detect requests to cut their tail latency. When a request has not completed
+ * within the given percentile of the recent latencies, a duplicate is sent to the hedge endpoint and the first
+ * successful answer wins. The latencies are those of single attempts, retries are not part of them.
+ * <p>
+ * A hedge sent to the endpoint that is already slow rarely helps and adds load where it hurts most, so a
+ * policy needs a {@link Builder#hedgeEndpoint(String) hedge endpoint} unless hedging on the same endpoint is
+ * {@link Builder#sameEndpoint(boolean) allowed} explicitly.
+ * <p>
+ * Every hedge is billed like the original request, so hedges are limited by a budget: each request earns
+ * {@code maxHedgeRatio} of a hedge and each hedge spends a whole one. With the default ratio of 0.05, hedging
+ * adds at most about 5% of requests, and characters, on top of the regular traffic.
+ */
+public final class HedgePolicy {
+    private final double percentile;
+    private final long minDelayMillis;
+    private final int minSamples;
+    private final int window;
+    private final double maxHedgeRatio;
+    private final int maxBurst;
+    private final String hedgeEndpoint;
+    private final boolean sameEndpoint;
+
+    private HedgePolicy(Builder builder) {
+        this.percentile = builder.percentile;
+        this.minDelayMillis = builder.minDelayMillis;
+        this.minSamples = builder.minSamples;
+        this.window = builder.window;
+        this.maxHedgeRatio = builder.maxHedgeRatio;
+        this.maxBurst = builder.maxBurst;
+        this.hedgeEndpoint = builder.hedgeEndpoint;
+        this.sameEndpoint = builder.sameEndpoint;
+    }
+
+    public double getPercentile() {
+        return percentile;
+    }
+
+    /**
+     * @return The shortest delay before a hedge, whatever the recent latencies.
+     */
+    public long getMinDelayMillis() {
+        return minDelayMillis;
+    }
+
+    /**
+     * @return The latencies to record before hedging starts.
+     */
+    public int getMinSamples() {
+        return minSamples;
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    public double getMaxHedgeRatio() {
+        return maxHedgeRatio;
+    }
+
+    /**
+     * @return The base URL hedges are sent to, or null to send them to the endpoint of the original request.
+     */
+    public String getHedgeEndpoint() {
+        return hedgeEndpoint;
+    }
+
+    /**
+     * @return True if hedges may go to the endpoint of the original request.
+     */
+    public boolean isSameEndpoint() {
+        return sameEndpoint;
+    }
+
+    /**
+     * @return A new latency tracker for one client.
+     */
+    public LatencyTracker newLatencyTracker() {
+        return new LatencyTracker(window);
+    }
+
+    /**
+     * @return A new hedge budget for one client.
+     */
+    public HedgeBudget newBudget() {
+        return new HedgeBudget(maxHedgeRatio, maxBurst);
+    }
+
+    public static class Builder {
+        private double percentile = 0.95;
+        private long minDelayMillis = 20;
+        private int minSamples = 20;
+        private int window = 512;
+        private double maxHedgeRatio = 0.05;
+        private int maxBurst = 10;
+        private String hedgeEndpoint;
+        private boolean sameEndpoint;
+
+        /**
+         * @param percentile The percentile of the recent latencies after which a request is hedged, between 0
+         *                   and 1.
+         */
+        public Builder percentile(double percentile) {
+            if (percentile <= 0 || percentile >= 1) {
+                throw new IllegalArgumentException("percentile must be between 0 and 1");
+            }
+            this.percentile = percentile;
+            return this;
+        }
+
+        public Builder minDelayMillis(long minDelayMillis) {
+            this.minDelayMillis = minDelayMillis;
+            return this;
+        }
+
+        /**
+         * @param minSamples The latencies to record before hedging starts.
+         * @param window     The number of recent latencies the percentile is computed from.
+         */
+        public Builder samples(int minSamples, int window) {
+            this.minSamples = minSamples;
+            this.window = window;
+            return this;
+        }
+
+        /**
+         * @param maxHedgeRatio The hedges allowed per request, e.g. 0.05.
+         * @param maxBurst      The most hedges saved up while latencies are low.
+         */
+        public Builder budget(double maxHedgeRatio, int maxBurst) {
+            this.maxHedgeRatio = maxHedgeRatio;
+            this.maxBurst = maxBurst;
+            return this;
+        }
+
+        /**
+         * @param hedgeEndpoint The base URL to send hedges to, e.g. a regional endpoint next to the global one.
+         */
+        public Builder hedgeEndpoint(String hedgeEndpoint) {
+            this.hedgeEndpoint = hedgeEndpoint != null && hedgeEndpoint.endsWith("/")
+                    ? hedgeEndpoint.substring(0, hedgeEndpoint.length() - 1) : hedgeEndpoint;
+            return this;
+        }
+
+        /**
+         * @param sameEndpoint True to send hedges to the endpoint of the original request when there is no hedge
+         *                     endpoint, e.g. behind a load balancer that spreads them over several servers.
+         */
+        public Builder sameEndpoint(boolean sameEndpoint) {
+            this.sameEndpoint = sameEndpoint;
+            return this;
+        }
+
+        public HedgePolicy build() {
+            if (hedgeEndpoint == null && !sameEndpoint) {
+                throw new IllegalArgumentException("A hedge policy needs a hedgeEndpoint, or sameEndpoint(true) to hedge on the original endpoint");
+            }
+            return new HedgePolicy(this);
+        }
+    }
+}
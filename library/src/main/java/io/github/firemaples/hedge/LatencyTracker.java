@@ -0,0 +1,86 @@
+package io.github.firemaples.hedge;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * LatencyTracker
+ * <p>
+ * Keeps the latencies of the most recent requests in a ring buffer and reports their percentiles. Recording is
+ * lock-free; a percentile sorts a copy of the window, so it is cached and only recomputed after
+ * {@code window / 16} new samples.
+ */
+public final class LatencyTracker {
+    private final AtomicLongArray samples;
+    private final AtomicLong count = new AtomicLong();
+    private final int recomputeEvery;
+
+    //Published as one object so a reader never pairs the value of one percentile with another
+    private volatile Cached cached;
+
+    /**
+     * @param window The number of recent samples the percentiles are computed from.
+     */
+    public LatencyTracker(int window) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("window must be positive");
+        }
+        this.samples = new AtomicLongArray(window);
+        this.recomputeEvery = Math.max(1, window / 16);
+    }
+
+    /**
+     * @param latencyNanos The latency of a completed request.
+     */
+    public void record(long latencyNanos) {
+        final long index = count.getAndIncrement();
+        samples.set((int) (index % samples.length()), latencyNanos);
+    }
+
+    /**
+     * @return The number of samples recorded so far, including those that left the window.
+     */
+    public long getSampleCount() {
+        return count.get();
+    }
+
+    /**
+     * @param percentile The percentile between 0 and 1, e.g. 0.95.
+     * @return The latency in nanoseconds below which that share of the recent requests completed, or -1 if
+     * nothing was recorded yet.
+     */
+    public long percentile(double percentile) {
+        final long recorded = count.get();
+        if (recorded == 0) {
+            return -1;
+        }
+        final Cached last = cached;
+        if (last != null && last.percentile == percentile && recorded - last.at < recomputeEvery) {
+            return last.value;
+        }
+        final int size = (int) Math.min(recorded, samples.length());
+        final long[] sorted = new long[size];
+        for (int i = 0; i < size; i++) {
+            sorted[i] = samples.get(i);
+        }
+        Arrays.sort(sorted);
+        final int index = Math.min(size - 1, Math.max(0, (int) Math.ceil(percentile * size) - 1));
+        final long value = sorted[index];
+        cached = new Cached(percentile, value, recorded);
+        return value;
+    }
+
+    private static final class Cached {
+        final double percentile;
+        final long value;
+        //The sample count the value was computed at
+        final long at;
+
+        Cached(double percentile, long value, long at) {
+            this.percentile = percentile;
+            this.value = value;
+            this.at = at;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package io.github.firemaples.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Http2Transport
+ * <p>
+ * A {@link HttpTransport} built on the JDK 11 {@code java.net.http.HttpClient}, configured to prefer HTTP/2.
+ * The version is negotiated by the client, through ALPN over https and an h2c upgrade offer over http; when
+ * HTTP/2 is agreed, concurrent requests to the same host are multiplexed over a single connection instead of
+ * taking one HTTP/1.1 connection each. Servers that do not speak HTTP/2 are served over HTTP/1.1.
+ * <p>
+ * {@link #executeAsync(HttpRequest, Executor)} is non-blocking: the response is read by the client's own
+ * selector thread and no thread waits while a request is in flight.
+ * <p>
+ * The library still targets Java 8 and Android, so the client is bound reflectively at runtime; check
+ * {@link #isAvailable()} before constructing one. Requests and responses are exchanged as-is, so results
+ * are identical to the ones returned through {@link UrlConnectionTransport}.
+ * <p>
+ * Select it by passing it to {@link io.github.firemaples.MicrosoftTranslatorAPI#setTransport(HttpTransport)}.
+ */
+public class Http2Transport implements HttpTransport {
+    private final Object client;
+    private final long requestTimeout;
+
+    /**
+     * Creates a transport with the default timeouts.
+     *
+     * @throws IllegalStateException if the running JDK has no java.net.http module.
+     */
+    public Http2Transport() {
+        this(new Builder());
+    }
+
+    private Http2Transport(Builder builder) {
+        if (!isAvailable()) {
+            throw new IllegalStateException("java.net.http.HttpClient requires Java 11 or greater");
+        }
+        this.requestTimeout = builder.requestTimeout;
+        try {
+            Object clientBuilder = Api.newClientBuilder.invoke(null);
+            Api.clientBuilderVersion.invoke(clientBuilder, Api.versionHttp2);
+            Api.clientBuilderFollowRedirects.invoke(clientBuilder, Api.redirectNormal);
+            Api.clientBuilderConnectTimeout.invoke(clientBuilder, Api.durationOfMillis.invoke(null, builder.connectTimeout));
+            this.client = Api.clientBuilderBuild.invoke(clientBuilder);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Unable to create HttpClient", e);
+        }
+    }
+
+    /**
+     * @return True if the running JDK provides java.net.http.HttpClient.
+     */
+    public static boolean isAvailable() {
+        return Api.available;
+    }
+
+    @Override
+    public HttpResponse execute(HttpRequest request) throws IOException {
+        try {
+            Object response = Api.clientSend.invoke(client, buildRequest(request), Api.bodyHandlerInputStream);
+            int statusCode = (Integer) Api.responseStatusCode.invoke(response);
+            @SuppressWarnings("unchecked")
+            Map<String, List<String>> headers = (Map<String, List<String>>) Api.headersMap.invoke(Api.responseHeaders.invoke(response));
+            InputStream body = (InputStream) Api.responseBody.invoke(response);
+            return new HttpResponse(statusCode, headers, body);
+        } catch (InvocationTargetException e) {
+            throw rethrow(e.getCause());
+        } catch (IllegalAccessException | URISyntaxException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<HttpResponse> executeAsync(HttpRequest request, Executor executor) {
+        final CompletableFuture<?> future;
+        try {
+            future = (CompletableFuture<?>) Api.clientSendAsync.invoke(client, buildRequest(request), Api.bodyHandlerByteArray);
+        } catch (InvocationTargetException e) {
+            return failed(e.getCause());
+        } catch (IOException e) {
+            return failed(e);
+        } catch (IllegalAccessException | URISyntaxException e) {
+            return failed(new IOException(e));
+        }
+        final CompletableFuture<HttpResponse> result = future.thenApply(response -> {
+            try {
+                int statusCode = (Integer) Api.responseStatusCode.invoke(response);
+                @SuppressWarnings("unchecked")
+                Map<String, List<String>> headers = (Map<String, List<String>>) Api.headersMap.invoke(Api.responseHeaders.invoke(response));
+                byte[] body = (byte[]) Api.responseBody.invoke(response);
+                return new HttpResponse(statusCode, headers, new ByteArrayInputStream(body));
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                throw new CompletionException(e);
+            }
+        });
+        //Cancelling the client's future aborts the exchange
+        result.whenComplete((response, error) -> {
+            if (result.isCancelled()) {
+                future.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    private static <T> CompletableFuture<T> failed(Throwable cause) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(cause);
+        return future;
+    }
+
+    private Object buildRequest(HttpRequest request) throws InvocationTargetException, IllegalAccessException, URISyntaxException, IOException {
+        Object requestBuilder = Api.newRequestBuilder.invoke(null, request.getUrl().toURI());
+        RequestBody body = request.getBody();
+        Object publisher = body != null
+                ? Api.bodyPublisherOfByteArray.invoke(null, (Object) toByteArray(body))
+                : Api.bodyPublisherNoBody.invoke(null);
+        Api.requestBuilderMethod.invoke(requestBuilder, request.getMethod(), publisher);
+        Api.requestBuilderTimeout.invoke(requestBuilder, Api.durationOfMillis.invoke(null, requestTimeout));
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            if (header.getValue() != null) {
+                Api.requestBuilderHeader.invoke(requestBuilder, header.getKey(), header.getValue());
+            }
+        }
+        return Api.requestBuilderBuild.invoke(requestBuilder);
+    }
+
+    //HttpClient publishes bodies from its own threads, so the body is encoded once up front
+    private static byte[] toByteArray(RequestBody body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream((int) body.contentLength());
+        body.writeTo(out);
+        return out.toByteArray();
+    }
+
+    private static IOException rethrow(Throwable cause) {
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        }
+        if (cause instanceof InterruptedException) {
+            Thread.currentThread().interrupt();
+            return new InterruptedIOException("Interrupted while waiting for the response");
+        }
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        return new IOException(cause);
+    }
+
+    public static class Builder {
+        private long connectTimeout = UrlConnectionTransport.DEFAULT_CONNECT_TIMEOUT;
+        private long requestTimeout = UrlConnectionTransport.DEFAULT_READ_TIMEOUT;
+
+        /**
+         * @param connectTimeout The connect timeout in milliseconds.
+         */
+        public Builder connectTimeout(long connectTimeout) {
+            this.connectTimeout = connectTimeout;
+            return this;
+        }
+
+        /**
+         * @param requestTimeout The time to wait for the response headers, in milliseconds.
+         */
+        public Builder requestTimeout(long requestTimeout) {
+            this.requestTimeout = requestTimeout;
+            return this;
+        }
+
+        public Http2Transport build() {
+            return new Http2Transport(this);
+        }
+    }
+
+    //Reflective bindings to java.net.http, resolved once
+    private static final class Api {
+        static final boolean available;
+        static Method durationOfMillis;
+        static Method newClientBuilder, clientBuilderVersion, clientBuilderFollowRedirects,
+                clientBuilderConnectTimeout, clientBuilderBuild, clientSend, clientSendAsync;
+        static Object versionHttp2, redirectNormal;
+        static Method newRequestBuilder, requestBuilderMethod, requestBuilderTimeout, requestBuilderHeader,
+                requestBuilderBuild;
+        static Method bodyPublisherOfByteArray, bodyPublisherNoBody;
+        static Object bodyHandlerInputStream, bodyHandlerByteArray;
+        static Method responseStatusCode, responseHeaders, responseBody, headersMap;
+
+        static {
+            boolean found;
+            try {
+                Class<?> duration = Class.forName("java.time.Duration");
+                Class<?> client = Class.forName("java.net.http.HttpClient");
+                Class<?> clientBuilder = Class.forName("java.net.http.HttpClient$Builder");
+                Class<?> version = Class.forName("java.net.http.HttpClient$Version");
+                Class<?> redirect = Class.forName("java.net.http.HttpClient$Redirect");
+                Class<?> request = Class.forName("java.net.http.HttpRequest");
+                Class<?> requestBuilder = Class.forName("java.net.http.HttpRequest$Builder");
+                Class<?> bodyPublisher = Class.forName("java.net.http.HttpRequest$BodyPublisher");
+                Class<?> bodyPublishers = Class.forName("java.net.http.HttpRequest$BodyPublishers");
+                Class<?> response = Class.forName("java.net.http.HttpResponse");
+                Class<?> bodyHandler = Class.forName("java.net.http.HttpResponse$BodyHandler");
+                Class<?> bodyHandlers = Class.forName("java.net.http.HttpResponse$BodyHandlers");
+                Class<?> headers = Class.forName("java.net.http.HttpHeaders");
+
+                durationOfMillis = duration.getMethod("ofMillis", long.class);
+                newClientBuilder = client.getMethod("newBuilder");
+                clientBuilderVersion = clientBuilder.getMethod("version", version);
+                clientBuilderFollowRedirects = clientBuilder.getMethod("followRedirects", redirect);
+                clientBuilderConnectTimeout = clientBuilder.getMethod("connectTimeout", duration);
+                clientBuilderBuild = clientBuilder.getMethod("build");
+                clientSend = client.getMethod("send", request, bodyHandler);
+                clientSendAsync = client.getMethod("sendAsync", request, bodyHandler);
+                versionHttp2 = version.getField("HTTP_2").get(null);
+                redirectNormal = redirect.getField("NORMAL").get(null);
+
+                newRequestBuilder = request.getMethod("newBuilder", URI.class);
+                requestBuilderMethod = requestBuilder.getMethod("method", String.class, bodyPublisher);
+                requestBuilderTimeout = requestBuilder.getMethod("timeout", duration);
+                requestBuilderHeader = requestBuilder.getMethod("header", String.class, String.class);
+                requestBuilderBuild = requestBuilder.getMethod("build");
+                bodyPublisherOfByteArray = bodyPublishers.getMethod("ofByteArray", byte[].class);
+                bodyPublisherNoBody = bodyPublishers.getMethod("noBody");
+                bodyHandlerInputStream = bodyHandlers.getMethod("ofInputStream").invoke(null);
+                bodyHandlerByteArray = bodyHandlers.getMethod("ofByteArray").invoke(null);
+
+                responseStatusCode = response.getMethod("statusCode");
+                responseHeaders = response.getMethod("headers");
+                responseBody = response.getMethod("body");
+                headersMap = headers.getMethod("map");
+                found = true;
+            } catch (ReflectiveOperationException | LinkageError e) {
+                found = false;
+            }
+            available = found;
+        }
+    }
+}
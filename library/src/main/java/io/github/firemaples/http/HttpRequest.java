@@ -0,0 +1,50 @@
+package io.github.firemaples.http;
+
+import java.net.URL;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An immutable HTTP request handed to a {@link HttpTransport}.
+ */
+public class HttpRequest {
+    private final String method;
+    private final URL url;
+    private final Map<String, String> headers;
+    private final RequestBody body;
+
+    /**
+     * @param method  The HTTP method, e.g. GET or POST.
+     * @param url     The request URL.
+     * @param headers The request headers, entries with a null value are skipped.
+     * @param body    The request body, or null if the request has no body.
+     */
+    public HttpRequest(String method, URL url, Map<String, String> headers, RequestBody body) {
+        this.method = method;
+        this.url = url;
+        this.headers = headers == null
+                ? Collections.<String, String>emptyMap()
+                : Collections.unmodifiableMap(new LinkedHashMap<>(headers));
+        this.body = body;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public URL getUrl() {
+        return url;
+    }
+
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * @return The request body, or null if the request has no body.
+     */
+    public RequestBody getBody() {
+        return body;
+    }
+}
@@ -0,0 +1,68 @@
+package io.github.firemaples.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An HTTP response returned by a {@link HttpTransport}.
+ * <p>
+ * The body is exposed as a stream and the response must be closed once it has been consumed, which
+ * lets the transport reuse the underlying connection.
+ */
+public class HttpResponse implements Closeable {
+    private final int statusCode;
+    private final Map<String, List<String>> headers;
+    private final InputStream body;
+
+    /**
+     * @param statusCode The HTTP status code.
+     * @param headers    The response headers, may be null.
+     * @param body       The response body (or error body) stream, may be null if there is no body.
+     */
+    public HttpResponse(int statusCode, Map<String, List<String>> headers, InputStream body) {
+        this.statusCode = statusCode;
+        this.headers = headers == null ? Collections.<String, List<String>>emptyMap() : headers;
+        this.body = body == null ? new ByteArrayInputStream(new byte[0]) : body;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public Map<String, List<String>> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * Returns the first value of the given header, ignoring the case of the header name.
+     *
+     * @param name The header name.
+     * @return The header value, or null if the header is absent.
+     */
+    public String getHeader(String name) {
+        for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+            if (entry.getKey() != null && entry.getKey().equalsIgnoreCase(name)
+                    && entry.getValue() != null && !entry.getValue().isEmpty()) {
+                return entry.getValue().get(0);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return The body stream, never null. For error statuses this is the error body.
+     */
+    public InputStream getBody() {
+        return body;
+    }
+
+    @Override
+    public void close() throws IOException {
+        body.close();
+    }
+}
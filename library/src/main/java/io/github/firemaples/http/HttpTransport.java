@@ -0,0 +1,60 @@
+package io.github.firemaples.http;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * HttpTransport
+ * <p>
+ * The pluggable HTTP layer used by {@link io.github.firemaples.MicrosoftTranslatorAPI} to talk to the
+ * Microsoft Translator services. The default implementation is {@link UrlConnectionTransport}; a custom
+ * transport can be installed with {@link io.github.firemaples.MicrosoftTranslatorAPI#setTransport(HttpTransport)}
+ * to plug in another HTTP stack or to stub the service in tests.
+ * <p>
+ * Implementations must be thread-safe.
+ */
+public interface HttpTransport {
+    /**
+     * Sends the request and returns the response once the status line and headers are available.
+     * <p>
+     * The caller owns the returned response and must close it, so the underlying connection can be
+     * returned to the pool.
+     *
+     * @param request The request to send.
+     * @return The response, never null.
+     * @throws IOException on network error.
+     */
+    HttpResponse execute(HttpRequest request) throws IOException;
+
+    /**
+     * Sends the request asynchronously.
+     * <p>
+     * The default implementation runs {@link #execute(HttpRequest)} on the given executor. Transports with a
+     * non-blocking I/O path override this so no thread is parked while the request is in flight.
+     * <p>
+     * Cancelling the returned future abandons the request: it is not sent if it has not started yet, and a
+     * response that arrives afterwards is closed. Transports that can abort an exchange in flight do so.
+     *
+     * @param request  The request to send.
+     * @param executor The executor for blocking work.
+     * @return A future completed with the response, or exceptionally with the I/O error.
+     */
+    default CompletableFuture<HttpResponse> executeAsync(final HttpRequest request, Executor executor) {
+        final CompletableFuture<HttpResponse> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            if (future.isDone()) {
+                return;
+            }
+            try {
+                final HttpResponse response = execute(request);
+                if (!future.complete(response)) {
+                    response.close();
+                }
+            } catch (IOException | RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+}
@@ -0,0 +1,42 @@
+package io.github.firemaples.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * The body of a {@link HttpRequest}, written straight to the connection by the transport.
+ */
+public interface RequestBody {
+    /**
+     * @return The exact number of bytes {@link #writeTo(OutputStream)} writes.
+     */
+    long contentLength();
+
+    /**
+     * Writes the body. May be called more than once, e.g. when a request is retried.
+     *
+     * @param out The stream to write to.
+     * @throws IOException on error.
+     */
+    void writeTo(OutputStream out) throws IOException;
+
+    /**
+     * Wraps an already encoded body.
+     *
+     * @param bytes The body bytes.
+     * @return The request body.
+     */
+    static RequestBody of(final byte[] bytes) {
+        return new RequestBody() {
+            @Override
+            public long contentLength() {
+                return bytes.length;
+            }
+
+            @Override
+            public void writeTo(OutputStream out) throws IOException {
+                out.write(bytes);
+            }
+        };
+    }
+}
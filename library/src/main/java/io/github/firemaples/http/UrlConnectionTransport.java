@@ -0,0 +1,220 @@
+package io.github.firemaples.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.security.GeneralSecurityException;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
+
+/**
+ * UrlConnectionTransport
+ * <p>
+ * The default {@link HttpTransport}, built on {@link HttpURLConnection} with keep-alive connection reuse.
+ * <p>
+ * Connections are never {@code disconnect()}ed after a successful exchange. Instead the response body is
+ * drained and closed, which hands the socket back to the JDK keep-alive cache so the next request to the
+ * same host skips the TCP and TLS handshakes. The cache evicts idle sockets once the keep-alive timeout
+ * announced by the server expires, and keeps at most {@code http.maxConnections} idle sockets per host
+ * (5 unless that system property is raised).
+ * <p>
+ * The number of connections in use at the same time is bounded by {@link Builder#maxConnections(int)};
+ * callers beyond the bound wait for a connection to be released. All HTTPS connections share one
+ * {@link SSLSocketFactory}, so TLS sessions are resumed and pooled sockets can be reused.
+ */
+public class UrlConnectionTransport implements HttpTransport {
+    public static final int DEFAULT_MAX_CONNECTIONS = 20;
+    public static final int DEFAULT_CONNECT_TIMEOUT = 10000;
+    public static final int DEFAULT_READ_TIMEOUT = 30000;
+
+    //Largest remaining body we drain to keep a connection alive, bigger leftovers close the socket instead
+    private static final int MAX_DRAIN_BYTES = 64 * 1024;
+
+    private final Semaphore connections;
+    private final int connectTimeout;
+    private final int readTimeout;
+    private final SSLSocketFactory sslSocketFactory;
+
+    public UrlConnectionTransport() {
+        this(new Builder());
+    }
+
+    private UrlConnectionTransport(Builder builder) {
+        this.connections = new Semaphore(builder.maxConnections, true);
+        this.connectTimeout = builder.connectTimeout;
+        this.readTimeout = builder.readTimeout;
+        this.sslSocketFactory = builder.buildSslSocketFactory();
+    }
+
+    @Override
+    public HttpResponse execute(HttpRequest request) throws IOException {
+        try {
+            connections.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a connection");
+        }
+
+        HttpURLConnection uc = null;
+        try {
+            uc = (HttpURLConnection) request.getUrl().openConnection();
+            if (uc instanceof HttpsURLConnection) {
+                ((HttpsURLConnection) uc).setSSLSocketFactory(sslSocketFactory);
+            }
+            uc.setConnectTimeout(connectTimeout);
+            uc.setReadTimeout(readTimeout);
+            uc.setUseCaches(false);
+            uc.setRequestMethod(request.getMethod());
+            for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+                if (header.getValue() != null) {
+                    uc.setRequestProperty(header.getKey(), header.getValue());
+                }
+            }
+
+            RequestBody body = request.getBody();
+            if (body != null) {
+                uc.setDoOutput(true);
+                uc.setFixedLengthStreamingMode(body.contentLength());
+                OutputStream out = uc.getOutputStream();
+                try {
+                    body.writeTo(out);
+                } finally {
+                    out.close();
+                }
+            }
+
+            final int responseCode = uc.getResponseCode();
+            InputStream in = responseCode >= 400 ? uc.getErrorStream() : uc.getInputStream();
+            return new HttpResponse(responseCode, uc.getHeaderFields(), new PooledInputStream(in, connections));
+        } catch (IOException | RuntimeException e) {
+            //The connection is in an unknown state, do not let it back into the keep-alive cache
+            if (uc != null) {
+                uc.disconnect();
+            }
+            connections.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Drains the remaining body on close so the socket can be reused, then releases the connection permit.
+     */
+    private static class PooledInputStream extends FilterInputStream {
+        private final Semaphore connections;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        PooledInputStream(InputStream in, Semaphore connections) {
+            super(in != null ? in : new ByteArrayInputStream(new byte[0]));
+            this.connections = connections;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                byte[] buffer = new byte[4096];
+                int drained = 0;
+                int read;
+                while (drained < MAX_DRAIN_BYTES && (read = in.read(buffer)) != -1) {
+                    drained += read;
+                }
+            } finally {
+                try {
+                    in.close();
+                } finally {
+                    connections.release();
+                }
+            }
+        }
+    }
+
+    public static class Builder {
+        private int maxConnections = DEFAULT_MAX_CONNECTIONS;
+        private int connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+        private int readTimeout = DEFAULT_READ_TIMEOUT;
+        private SSLSocketFactory sslSocketFactory;
+        private int sslSessionTimeout = -1;
+
+        /**
+         * Sets the maximum number of connections in use at the same time.
+         *
+         * @param maxConnections The connection bound, must be positive.
+         */
+        public Builder maxConnections(int maxConnections) {
+            if (maxConnections <= 0) {
+                throw new IllegalArgumentException("maxConnections must be positive");
+            }
+            this.maxConnections = maxConnections;
+            return this;
+        }
+
+        /**
+         * @param connectTimeout The connect timeout in milliseconds, 0 means infinite.
+         */
+        public Builder connectTimeout(int connectTimeout) {
+            this.connectTimeout = connectTimeout;
+            return this;
+        }
+
+        /**
+         * @param readTimeout The read timeout in milliseconds, 0 means infinite.
+         */
+        public Builder readTimeout(int readTimeout) {
+            this.readTimeout = readTimeout;
+            return this;
+        }
+
+        /**
+         * Uses the given socket factory for all HTTPS connections instead of the JDK default one.
+         *
+         * @param sslSocketFactory The socket factory.
+         */
+        public Builder sslSocketFactory(SSLSocketFactory sslSocketFactory) {
+            this.sslSocketFactory = sslSocketFactory;
+            return this;
+        }
+
+        /**
+         * Uses a dedicated TLS context whose client sessions are cached for the given time, so resumed
+         * handshakes stay cheap across keep-alive timeouts. Ignored if a socket factory is set.
+         *
+         * @param seconds The session timeout in seconds, 0 means no limit.
+         */
+        public Builder sslSessionTimeout(int seconds) {
+            this.sslSessionTimeout = seconds;
+            return this;
+        }
+
+        public UrlConnectionTransport build() {
+            return new UrlConnectionTransport(this);
+        }
+
+        private SSLSocketFactory buildSslSocketFactory() {
+            if (sslSocketFactory != null) {
+                return sslSocketFactory;
+            }
+            if (sslSessionTimeout < 0) {
+                return HttpsURLConnection.getDefaultSSLSocketFactory();
+            }
+            try {
+                SSLContext context = SSLContext.getInstance("TLS");
+                context.init(null, null, null);
+                context.getClientSessionContext().setSessionTimeout(sslSessionTimeout);
+                return context.getSocketFactory();
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Unable to create TLS context", e);
+            }
+        }
+    }
+}
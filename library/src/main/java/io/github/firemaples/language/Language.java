@@ -17,10 +17,8 @@
  */
 package io.github.firemaples.language;
 
-import java.net.URL;
 import java.net.URLEncoder;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
@@ -30,7 +28,6 @@ import io.github.firemaples.MicrosoftTranslatorAPI;
 import io.github.firemaples.models.DetectResult;
 import io.github.firemaples.models.LanguagesResult;
 import io.github.firemaples.models.TextArrayRequest;
-import io.github.firemaples.utils.TypeReference;
 
 /**
  * Language - an enum of all language codes supported by the Microsoft Translator API
@@ -255,8 +252,6 @@ public enum Language {
     }
 
     private final static class LanguageService extends MicrosoftTranslatorAPI<Void, LanguagesResult> {
-        private static LanguageService instance = new LanguageService();
-        private static final String SERVICE_URL = "api.cognitive.microsofttranslator.com/languages?api-version=3.0";
 
         /**
          * Detects the language of a supplied String.
@@ -286,22 +281,11 @@ public enum Language {
         }
 
         public static LanguagesResult retrieveResult(Language locale) throws Exception {
-            //Run the basic service validations first
-            validateServiceState();
-            final URL url = new URL(PROTOCOL_HTTPS + SERVICE_URL
-                    + PARAM_SCOPE + "translation");
-            HashMap<String, String> headers = new HashMap<>();
-            headers.put("Accept-Language", locale.toString());
-            //noinspection UnnecessaryLocalVariable
-            LanguagesResult result = instance.retrieveResponseV3(url, HTTP_GET, null, new TypeReference<LanguagesResult>() {
-            }, headers);
-            return result;
+            return getDefaultClient().languages(locale);
         }
     }
 
     private final static class GetLanguagesForTranslateService extends MicrosoftTranslatorAPI<Void, LanguagesResult> {
-        private static GetLanguagesForTranslateService instance = new GetLanguagesForTranslateService();
-        private static final String SERVICE_URL = "api.cognitive.microsofttranslator.com/languages?api-version=3.0";
 
         /**
          * Detects the language of a supplied String.
@@ -325,14 +309,7 @@ public enum Language {
         }
 
         public static LanguagesResult retrieveResult() throws Exception {
-            //Run the basic service validations first
-            validateServiceState();
-            final URL url = new URL(PROTOCOL_HTTPS + SERVICE_URL
-                    + PARAM_SCOPE + "translation");
-            //noinspection UnnecessaryLocalVariable
-            LanguagesResult result = instance.retrieveResponseV3(url, HTTP_GET, null, new TypeReference<LanguagesResult>() {
-            });
-            return result;
+            return getDefaultClient().languages(null);
         }
     }
 }
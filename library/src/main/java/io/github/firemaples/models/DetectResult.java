@@ -4,8 +4,41 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class DetectResult extends ArrayList<DetectResult.Result> {
+    private long deduplicatedCharacters;
+
+    /**
+     * @return The characters of the call's texts that were not sent because they repeated an earlier text of the
+     * same call.
+     */
+    public long getDeduplicatedCharacters() {
+        return deduplicatedCharacters;
+    }
+
+    public void setDeduplicatedCharacters(long deduplicatedCharacters) {
+        this.deduplicatedCharacters = deduplicatedCharacters;
+    }
     public static class Result extends Alternative {
         public List<Alternative> alternatives;
+
+        /**
+         * @return A deep copy, e.g. to hand a cached result to a caller that may modify it.
+         */
+        public Result copy() {
+            final Result copy = new Result();
+            copyTo(copy);
+            if (alternatives != null) {
+                copy.alternatives = new ArrayList<>(alternatives.size());
+                for (Alternative alternative : alternatives) {
+                    Alternative alternativeCopy = null;
+                    if (alternative != null) {
+                        alternativeCopy = new Alternative();
+                        alternative.copyTo(alternativeCopy);
+                    }
+                    copy.alternatives.add(alternativeCopy);
+                }
+            }
+            return copy;
+        }
     }
 
     public static class Alternative {
@@ -13,5 +46,12 @@ public class DetectResult extends ArrayList<DetectResult.Result> {
         public float score;
         public boolean isTranslationSupported;
         public boolean isTransliterationSupported;
+
+        void copyTo(Alternative copy) {
+            copy.language = language;
+            copy.score = score;
+            copy.isTranslationSupported = isTranslationSupported;
+            copy.isTransliterationSupported = isTransliterationSupported;
+        }
     }
 }
@@ -0,0 +1,84 @@
+package io.github.firemaples.models;
+
+/**
+ * RequestSize
+ * <p>
+ * Measures the {@code [{"Text":"..."}, ...]} JSON of a text array request the way the request limits are checked,
+ * in one pass over the characters and without building the JSON.
+ * <p>
+ * Lengths are in characters of the JSON as Gson writes it by default: quotes, backslashes and the short control
+ * escapes take two characters, other control characters, line and paragraph separators and the HTML-sensitive
+ * {@code < > & = '} take a six character unicode escape, everything else one character per UTF-16 unit.
+ */
+public final class RequestSize {
+    /**
+     * The characters of {@code {"Text":""}} around the escaped text of an element.
+     */
+    public static final int ELEMENT_OVERHEAD = 11;
+
+    //The characters of {}, the element of a null text
+    private static final int NULL_ELEMENT_LENGTH = 2;
+
+    private RequestSize() {
+    }
+
+    /**
+     * @return The length of the text once JSON escaped, without quotes.
+     */
+    public static int escapedLength(String text) {
+        return escapedLength(text, 0, text.length());
+    }
+
+    /**
+     * @return The length of the characters from {@code start} to {@code end} of the text once JSON escaped.
+     */
+    public static int escapedLength(CharSequence text, int start, int end) {
+        int escaped = end - start;
+        for (int i = start; i < end; i++) {
+            final char c = text.charAt(i);
+            if (c >= 0x20 && c < 0x80) {
+                if (c == '"' || c == '\\') {
+                    escaped += 1;
+                } else if (c == '<' || c == '>' || c == '&' || c == '=' || c == '\'') {
+                    escaped += 5;
+                }
+            } else if (c == '\t' || c == '\b' || c == '\n' || c == '\r' || c == '\f') {
+                escaped += 1;
+            } else if (c < 0x20 || c == '\u2028' || c == '\u2029') {
+                escaped += 5;
+            }
+        }
+        return escaped;
+    }
+
+    /**
+     * @return The length of the text as an element of the request, without the separating comma.
+     */
+    public static int elementLength(String text) {
+        return text == null ? NULL_ELEMENT_LENGTH : ELEMENT_OVERHEAD + escapedLength(text);
+    }
+
+    /**
+     * @return The length of the JSON request of the texts.
+     */
+    public static long requestLength(String[] texts) {
+        long length = 2 + Math.max(0, texts.length - 1);
+        for (String text : texts) {
+            length += elementLength(text);
+        }
+        return length;
+    }
+
+    /**
+     * @return The characters of the texts the service charges for.
+     */
+    public static long characters(String[] texts) {
+        long characters = 0;
+        for (String text : texts) {
+            if (text != null) {
+                characters += text.length();
+            }
+        }
+        return characters;
+    }
+}
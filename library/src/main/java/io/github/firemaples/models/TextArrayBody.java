@@ -0,0 +1,186 @@
+package io.github.firemaples.models;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+
+import io.github.firemaples.http.RequestBody;
+
+/**
+ * The {@code [{"Text":"..."}, ...]} body of the v3 text array services, streamed as UTF-8 JSON straight
+ * from the source strings.
+ * <p>
+ * Unlike serializing a {@link TextArrayRequest}, no wrapper objects or intermediate JSON String are created:
+ * each character is escaped and encoded into a pooled byte buffer that is flushed to the connection as it
+ * fills up.
+ */
+public final class TextArrayBody implements RequestBody {
+    private static final byte[] ELEMENT_START = {'{', '"', 'T', 'e', 'x', 't', '"', ':', '"'};
+    private static final byte[] ELEMENT_END = {'"', '}'};
+    private static final byte[] HEX = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
+
+    private static final int BUFFER_SIZE = 8192;
+    //Worst case per step: a six byte unicode escape or a four byte surrogate pair
+    private static final int MAX_BYTES_PER_STEP = 6;
+    private static final ArrayBlockingQueue<byte[]> BUFFERS = new ArrayBlockingQueue<>(16);
+
+    private final String[] texts;
+    private long contentLength = -1;
+
+    private TextArrayBody(String[] texts) {
+        this.texts = texts;
+    }
+
+    public static TextArrayBody of(String... texts) {
+        return new TextArrayBody(texts);
+    }
+
+    public String[] getTexts() {
+        return texts;
+    }
+
+    @Override
+    public long contentLength() {
+        if (contentLength < 0) {
+            long length = 2 + Math.max(0, texts.length - 1);
+            for (String text : texts) {
+                length += text == null ? 2 : ELEMENT_START.length + escapedUtf8Length(text) + ELEMENT_END.length;
+            }
+            contentLength = length;
+        }
+        return contentLength;
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        byte[] buffer = BUFFERS.poll();
+        if (buffer == null) {
+            buffer = new byte[BUFFER_SIZE];
+        }
+        try {
+            int pos = 0;
+            buffer[pos++] = '[';
+            for (int i = 0; i < texts.length; i++) {
+                if (buffer.length - pos < ELEMENT_START.length + 1) {
+                    out.write(buffer, 0, pos);
+                    pos = 0;
+                }
+                if (i > 0) {
+                    buffer[pos++] = ',';
+                }
+                String text = texts[i];
+                if (text == null) {
+                    //Matches Gson, which leaves out null fields
+                    buffer[pos++] = '{';
+                    buffer[pos++] = '}';
+                    continue;
+                }
+                System.arraycopy(ELEMENT_START, 0, buffer, pos, ELEMENT_START.length);
+                pos += ELEMENT_START.length;
+                pos = writeEscaped(text, buffer, pos, out);
+                if (buffer.length - pos < ELEMENT_END.length + 1) {
+                    out.write(buffer, 0, pos);
+                    pos = 0;
+                }
+                buffer[pos++] = '"';
+                buffer[pos++] = '}';
+            }
+            buffer[pos++] = ']';
+            out.write(buffer, 0, pos);
+        } finally {
+            BUFFERS.offer(buffer);
+        }
+    }
+
+    private static int writeEscaped(String text, byte[] buffer, int pos, OutputStream out) throws IOException {
+        final int length = text.length();
+        for (int i = 0; i < length; i++) {
+            if (buffer.length - pos < MAX_BYTES_PER_STEP) {
+                out.write(buffer, 0, pos);
+                pos = 0;
+            }
+            char c = text.charAt(i);
+            if (c >= 0x20 && c < 0x80 && c != '"' && c != '\\') {
+                buffer[pos++] = (byte) c;
+            } else if (c == '"' || c == '\\') {
+                buffer[pos++] = '\\';
+                buffer[pos++] = (byte) c;
+            } else if (c == '\n') {
+                buffer[pos++] = '\\';
+                buffer[pos++] = 'n';
+            } else if (c == '\r') {
+                buffer[pos++] = '\\';
+                buffer[pos++] = 'r';
+            } else if (c == '\t') {
+                buffer[pos++] = '\\';
+                buffer[pos++] = 't';
+            } else if (c == '\b') {
+                buffer[pos++] = '\\';
+                buffer[pos++] = 'b';
+            } else if (c == '\f') {
+                buffer[pos++] = '\\';
+                buffer[pos++] = 'f';
+            } else if (c < 0x20 || c == '\u2028' || c == '\u2029') {
+                pos = writeUnicodeEscape(c, buffer, pos);
+            } else if (c < 0x800) {
+                buffer[pos++] = (byte) (0xC0 | (c >> 6));
+                buffer[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                buffer[pos++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[pos++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                //A lone surrogate has no UTF-8 form, keep it as an escape
+                pos = writeUnicodeEscape(c, buffer, pos);
+            } else {
+                buffer[pos++] = (byte) (0xE0 | (c >> 12));
+                buffer[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return pos;
+    }
+
+    private static int writeUnicodeEscape(char c, byte[] buffer, int pos) {
+        buffer[pos++] = '\\';
+        buffer[pos++] = 'u';
+        buffer[pos++] = HEX[(c >> 12) & 0xF];
+        buffer[pos++] = HEX[(c >> 8) & 0xF];
+        buffer[pos++] = HEX[(c >> 4) & 0xF];
+        buffer[pos++] = HEX[c & 0xF];
+        return pos;
+    }
+
+    /**
+     * Returns the number of bytes the given text takes once JSON escaped and UTF-8 encoded, without quotes.
+     *
+     * @param text The text.
+     * @return The encoded length in bytes.
+     */
+    static int escapedUtf8Length(String text) {
+        final int length = text.length();
+        int bytes = 0;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c >= 0x20 && c < 0x80 && c != '"' && c != '\\') {
+                bytes += 1;
+            } else if (c == '"' || c == '\\' || c == '\n' || c == '\r' || c == '\t' || c == '\b' || c == '\f') {
+                bytes += 2;
+            } else if (c < 0x20 || c == '\u2028' || c == '\u2029') {
+                bytes += 6;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                bytes += 6;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+}
@@ -20,6 +20,10 @@ public class TextArrayRequest extends ArrayList<TextArrayRequest.Text> {
         public Text(String text) {
             Text = text;
         }
+
+        public String getText() {
+            return Text;
+        }
     }
 }
 
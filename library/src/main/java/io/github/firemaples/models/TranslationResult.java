@@ -4,19 +4,62 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class TranslationResult extends ArrayList<TranslationResult.Result> {
+    private long deduplicatedCharacters;
+
+    /**
+     * @return The characters of the call's texts that were not sent because they repeated an earlier text of the
+     * same call, counted once per target language.
+     */
+    public long getDeduplicatedCharacters() {
+        return deduplicatedCharacters;
+    }
+
+    public void setDeduplicatedCharacters(long deduplicatedCharacters) {
+        this.deduplicatedCharacters = deduplicatedCharacters;
+    }
 
     public static class Result {
         public DetectedLanguage detectedLanguage;
         public List<Translation> translations = new ArrayList<>();
+
+        /**
+         * @return A deep copy, e.g. to hand a cached result to a caller that may modify it.
+         */
+        public Result copy() {
+            final Result copy = new Result();
+            copy.detectedLanguage = detectedLanguage != null ? detectedLanguage.copy() : null;
+            if (translations == null) {
+                copy.translations = null;
+            } else {
+                for (Translation translation : translations) {
+                    copy.translations.add(translation != null ? translation.copy() : null);
+                }
+            }
+            return copy;
+        }
     }
 
     public static class Translation {
         public String text;
         public String to;
+
+        Translation copy() {
+            final Translation copy = new Translation();
+            copy.text = text;
+            copy.to = to;
+            return copy;
+        }
     }
 
     public static class DetectedLanguage {
         public String language;
         public float score;
+
+        DetectedLanguage copy() {
+            final DetectedLanguage copy = new DetectedLanguage();
+            copy.language = language;
+            copy.score = score;
+            return copy;
+        }
     }
 }
@@ -0,0 +1,204 @@
+package io.github.firemaples.ratelimit;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import io.github.firemaples.auth.PricingTier;
+
+/**
+ * CharacterRateLimiter
+ * <p>
+ * A token bucket of billable characters that keeps a client within the character quota of its subscription,
+ * so bursts are smoothed on the client instead of being answered with 429 responses.
+ * <p>
+ * The bucket holds up to {@code capacity} characters and refills continuously at {@code charactersPerHour}.
+ * A request takes as many characters as it translates; one that is larger than the whole bucket waits for a
+ * full bucket and leaves it in debt, so the long-run rate still holds. What happens when the characters run
+ * out depends on the {@link OverflowPolicy}.
+ * <p>
+ * The limiter is thread-safe and may be shared by several clients using the same subscription.
+ */
+public final class CharacterRateLimiter {
+    public static final int DEFAULT_MAX_QUEUED = 1000;
+
+    /**
+     * Supplies the current time in nanoseconds, {@link System#nanoTime()} outside of tests.
+     */
+    interface Clock {
+        long nanoTime();
+    }
+
+    private final long capacity;
+    private final long charactersPerHour;
+    private final double charactersPerNano;
+    private final OverflowPolicy policy;
+    private final int maxQueued;
+    private final Clock clock;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition refilled = lock.newCondition();
+    //Requests waiting for characters, oldest first
+    private final ArrayDeque<Object> waiters = new ArrayDeque<>();
+    private double available;
+    private long lastRefill;
+
+    /**
+     * @param capacity          The most characters the bucket holds, i.e. the largest burst.
+     * @param charactersPerHour The rate the bucket refills at.
+     * @param policy            What to do with requests when the characters run out.
+     * @param maxQueued         The most requests waiting at once with {@link OverflowPolicy#QUEUE}.
+     */
+    public CharacterRateLimiter(long capacity, long charactersPerHour, OverflowPolicy policy, int maxQueued) {
+        this(capacity, charactersPerHour, policy, maxQueued, System::nanoTime);
+    }
+
+    CharacterRateLimiter(long capacity, long charactersPerHour, OverflowPolicy policy, int maxQueued, Clock clock) {
+        if (capacity <= 0 || charactersPerHour <= 0) {
+            throw new IllegalArgumentException("capacity and charactersPerHour must be positive");
+        }
+        this.capacity = capacity;
+        this.charactersPerHour = charactersPerHour;
+        this.charactersPerNano = charactersPerHour / (double) TimeUnit.HOURS.toNanos(1);
+        this.policy = policy != null ? policy : OverflowPolicy.BLOCK;
+        this.maxQueued = maxQueued;
+        this.clock = clock;
+        this.available = capacity;
+        this.lastRefill = clock.nanoTime();
+    }
+
+    /**
+     * Creates a limiter for the documented quota of a pricing tier that blocks when the characters run out.
+     */
+    public static CharacterRateLimiter forTier(PricingTier tier) {
+        return forTier(tier, OverflowPolicy.BLOCK);
+    }
+
+    /**
+     * Creates a limiter for the documented quota of a pricing tier: its characters per hour, in bursts of at
+     * most a minute's worth, which the service also enforces.
+     */
+    public static CharacterRateLimiter forTier(PricingTier tier, OverflowPolicy policy) {
+        final long perHour = tier.getCharactersPerHour();
+        return new CharacterRateLimiter(perHour / 60, perHour, policy, DEFAULT_MAX_QUEUED);
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public long getCharactersPerHour() {
+        return charactersPerHour;
+    }
+
+    public OverflowPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * @return The characters that can be taken right now, negative while the bucket is in debt.
+     */
+    public long getAvailableCharacters() {
+        lock.lock();
+        try {
+            refill(clock.nanoTime());
+            return (long) Math.floor(available);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes characters if they are available right now, without waiting.
+     *
+     * @param characters The characters the request translates.
+     * @return True if the characters were taken.
+     */
+    public boolean tryAcquire(long characters) {
+        lock.lock();
+        try {
+            refill(clock.nanoTime());
+            if (canTake(characters, null)) {
+                available -= characters;
+                return true;
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes characters, waiting for them or failing as the {@link OverflowPolicy} says.
+     *
+     * @param characters The characters the request translates.
+     * @throws RateLimitExceededException if the policy refuses the request.
+     * @throws InterruptedException       if interrupted while waiting.
+     */
+    public void acquire(long characters) throws InterruptedException {
+        if (tryAcquire(characters)) {
+            return;
+        }
+        lock.lockInterruptibly();
+        try {
+            refill(clock.nanoTime());
+            if (canTake(characters, null)) {
+                available -= characters;
+                return;
+            }
+            if (policy == OverflowPolicy.FAIL_FAST) {
+                throw new RateLimitExceededException("Character rate limit exceeded - " + characters
+                        + " characters requested, " + (long) Math.floor(available) + " available",
+                        TimeUnit.NANOSECONDS.toMillis(nanosUntilAvailable(characters)) + 1);
+            }
+            if (policy == OverflowPolicy.QUEUE && waiters.size() >= maxQueued) {
+                throw new RateLimitExceededException("Character rate limit exceeded - " + waiters.size()
+                        + " requests are already waiting", TimeUnit.NANOSECONDS.toMillis(nanosUntilAvailable(characters)) + 1);
+            }
+            final Object waiter = new Object();
+            waiters.addLast(waiter);
+            try {
+                while (true) {
+                    refill(clock.nanoTime());
+                    if (canTake(characters, waiter)) {
+                        available -= characters;
+                        return;
+                    }
+                    //Queued requests behind the head only wake up when the head is served
+                    if (policy == OverflowPolicy.QUEUE && waiters.peekFirst() != waiter) {
+                        refilled.await();
+                    } else {
+                        refilled.awaitNanos(nanosUntilAvailable(characters));
+                    }
+                }
+            } finally {
+                waiters.remove(waiter);
+                refilled.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //Requests larger than the bucket need a full one; in queue mode only the oldest waiter may take
+    private boolean canTake(long characters, Object waiter) {
+        if (policy == OverflowPolicy.QUEUE && !waiters.isEmpty() && waiters.peekFirst() != waiter) {
+            return false;
+        }
+        return available >= Math.min(characters, capacity);
+    }
+
+    private long nanosUntilAvailable(long characters) {
+        final double missing = Math.min(characters, capacity) - available;
+        return missing <= 0 ? 0 : Math.max(1, (long) Math.ceil(missing / charactersPerNano));
+    }
+
+    private void refill(long now) {
+        final long elapsed = now - lastRefill;
+        if (elapsed > 0) {
+            available = Math.min(capacity, available + elapsed * charactersPerNano);
+            lastRefill = now;
+        }
+    }
+}
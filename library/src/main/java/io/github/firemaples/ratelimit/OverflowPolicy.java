@@ -0,0 +1,23 @@
+package io.github.firemaples.ratelimit;
+
+/**
+ * OverflowPolicy
+ * <p>
+ * What a {@link CharacterRateLimiter} does with a request when there are not enough characters left in its
+ * budget.
+ */
+public enum OverflowPolicy {
+    /**
+     * Waits until the budget has refilled. Waiting requests are not served in any particular order.
+     */
+    BLOCK,
+    /**
+     * Throws a {@link RateLimitExceededException} right away.
+     */
+    FAIL_FAST,
+    /**
+     * Waits in a bounded first-in, first-out queue; throws a {@link RateLimitExceededException} if the queue
+     * is full.
+     */
+    QUEUE
+}
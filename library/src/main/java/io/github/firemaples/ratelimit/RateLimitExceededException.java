@@ -0,0 +1,24 @@
+package io.github.firemaples.ratelimit;
+
+/**
+ * RateLimitExceededException
+ * <p>
+ * Thrown by a {@link CharacterRateLimiter} that refuses a request instead of letting it wait.
+ */
+public class RateLimitExceededException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterMillis;
+
+    public RateLimitExceededException(String message, long retryAfterMillis) {
+        super(message);
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    /**
+     * @return The estimated time in milliseconds until the budget can take the request.
+     */
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
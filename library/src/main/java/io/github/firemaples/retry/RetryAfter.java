@@ -0,0 +1,50 @@
+package io.github.firemaples.retry;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * RetryAfter
+ * <p>
+ * Parses the Retry-After header, which holds either a number of seconds or an HTTP-date.
+ */
+public final class RetryAfter {
+    private static final String HTTP_DATE_FORMAT = "EEE, dd MMM yyyy HH:mm:ss zzz";
+
+    private RetryAfter() {
+    }
+
+    /**
+     * @param value     The header value, may be null.
+     * @param nowMillis The current wall-clock time, to turn an HTTP-date into a delay.
+     * @return The delay in milliseconds, 0 for a date in the past, or -1 if the value is missing or invalid.
+     */
+    public static long parseMillis(String value, long nowMillis) {
+        if (value == null) {
+            return -1;
+        }
+        final String trimmed = value.trim();
+        if (trimmed.isEmpty()) {
+            return -1;
+        }
+        if (Character.isDigit(trimmed.charAt(0))) {
+            try {
+                return Long.parseLong(trimmed) * 1000;
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+        //SimpleDateFormat is not thread-safe, so each call gets its own
+        final SimpleDateFormat format = new SimpleDateFormat(HTTP_DATE_FORMAT, Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+        try {
+            final Date date = format.parse(trimmed);
+            return Math.max(0, date.getTime() - nowMillis);
+        } catch (ParseException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package io.github.firemaples.retry;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * RetryBudget
+ * <p>
+ * Limits the retries of one client so an outage does not multiply its traffic. The budget holds up to
+ * {@code maxTokens}; every failed attempt takes one token and every successful one gives back
+ * {@code tokenRatio}. Retries are only allowed while more than half of the tokens are left, so once most
+ * attempts fail the client stops retrying until successes have refilled the budget.
+ */
+public final class RetryBudget {
+    //Tokens are kept in thousandths to allow fractional ratios with an atomic long
+    private static final long SCALE = 1000;
+
+    private final long maxTokens;
+    private final long tokenRatio;
+    private final AtomicLong tokens;
+
+    /**
+     * @param maxTokens  The size of the budget.
+     * @param tokenRatio The tokens a successful attempt gives back, e.g. 0.1 for one retry per ten successes.
+     */
+    public RetryBudget(int maxTokens, double tokenRatio) {
+        if (maxTokens <= 0 || tokenRatio < 0) {
+            throw new IllegalArgumentException("maxTokens must be positive and tokenRatio must not be negative");
+        }
+        this.maxTokens = maxTokens * SCALE;
+        this.tokenRatio = Math.round(tokenRatio * SCALE);
+        this.tokens = new AtomicLong(this.maxTokens);
+    }
+
+    public void onSuccess() {
+        while (true) {
+            final long current = tokens.get();
+            final long updated = Math.min(maxTokens, current + tokenRatio);
+            if (current == updated || tokens.compareAndSet(current, updated)) {
+                return;
+            }
+        }
+    }
+
+    public void onFailure() {
+        while (true) {
+            final long current = tokens.get();
+            final long updated = Math.max(0, current - SCALE);
+            if (current == updated || tokens.compareAndSet(current, updated)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return True if a failed attempt may be retried.
+     */
+    public boolean canRetry() {
+        return tokens.get() > maxTokens / 2;
+    }
+
+    /**
+     * @return The tokens left.
+     */
+    public double getTokens() {
+        return tokens.get() / (double) SCALE;
+    }
+}
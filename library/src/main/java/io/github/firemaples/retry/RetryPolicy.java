@@ -0,0 +1,184 @@
+package io.github.firemaples.retry;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import io.github.firemaples.TranslatorException;
+
+/**
+ * RetryPolicy
+ * <p>
+ * Decides which failed requests are retried and how long to wait before each retry.
+ * <p>
+ * Throttling (429), timeouts (408), server errors (500, 502, 503, 504) and I/O errors are retried by default;
+ * other statuses point at the request itself and fail right away. A Retry-After sent by the service is
+ * honored, unless it asks for a longer wait than {@code maxDelay}, in which case the request fails instead of
+ * stalling. Otherwise the delays grow with decorrelated jitter: each one is random between {@code baseDelay}
+ * and three times the previous one, capped at {@code maxDelay}, so the retries of many clients spread out.
+ * <p>
+ * Each client also keeps a {@link RetryBudget} built from this policy, which stops retries while most of its
+ * requests fail.
+ */
+public final class RetryPolicy {
+    /**
+     * The policy clients use unless configured otherwise.
+     */
+    public static final RetryPolicy DEFAULT = new Builder().build();
+
+    /**
+     * A policy without retries.
+     */
+    public static final RetryPolicy NONE = new Builder().maxAttempts(1).build();
+
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final Set<Integer> retryableStatuses;
+    private final boolean retryOnIOException;
+    private final int budgetMaxTokens;
+    private final double budgetTokenRatio;
+
+    private RetryPolicy(Builder builder) {
+        this.maxAttempts = builder.maxAttempts;
+        this.baseDelayMillis = builder.baseDelayMillis;
+        this.maxDelayMillis = builder.maxDelayMillis;
+        this.retryableStatuses = Collections.unmodifiableSet(new HashSet<>(builder.retryableStatuses));
+        this.retryOnIOException = builder.retryOnIOException;
+        this.budgetMaxTokens = builder.budgetMaxTokens;
+        this.budgetTokenRatio = builder.budgetTokenRatio;
+    }
+
+    /**
+     * @return The most attempts per request, including the first one.
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public long getBaseDelayMillis() {
+        return baseDelayMillis;
+    }
+
+    public long getMaxDelayMillis() {
+        return maxDelayMillis;
+    }
+
+    public Set<Integer> getRetryableStatuses() {
+        return retryableStatuses;
+    }
+
+    /**
+     * @param error The error of a failed attempt.
+     * @return True if a request failing with the error may succeed when sent again.
+     */
+    public boolean isRetryable(Throwable error) {
+        if (error instanceof TranslatorException) {
+            return retryableStatuses.contains(((TranslatorException) error).getStatusCode());
+        }
+        return retryOnIOException && error instanceof IOException;
+    }
+
+    /**
+     * @param previousDelayMillis The delay before the previous retry, or 0 before the first one.
+     * @param retryAfterMillis    The Retry-After of the failed attempt, or a negative value if none.
+     * @return The delay before the next retry in milliseconds, or -1 if the Retry-After is too long to wait.
+     */
+    public long nextDelayMillis(long previousDelayMillis, long retryAfterMillis) {
+        if (retryAfterMillis >= 0) {
+            return retryAfterMillis <= maxDelayMillis ? retryAfterMillis : -1;
+        }
+        final long upper = Math.max(baseDelayMillis, previousDelayMillis * 3);
+        final long delay = upper > baseDelayMillis
+                ? ThreadLocalRandom.current().nextLong(baseDelayMillis, upper + 1) : baseDelayMillis;
+        return Math.min(maxDelayMillis, delay);
+    }
+
+    /**
+     * @return A new budget for one client.
+     */
+    public RetryBudget newBudget() {
+        return new RetryBudget(budgetMaxTokens, budgetTokenRatio);
+    }
+
+    public Builder toBuilder() {
+        return new Builder(this);
+    }
+
+    public static class Builder {
+        private int maxAttempts = 3;
+        private long baseDelayMillis = 100;
+        private long maxDelayMillis = 10 * 1000;
+        private Set<Integer> retryableStatuses = new HashSet<>(Arrays.asList(408, 429, 500, 502, 503, 504));
+        private boolean retryOnIOException = true;
+        private int budgetMaxTokens = 10;
+        private double budgetTokenRatio = 0.1;
+
+        public Builder() {
+        }
+
+        private Builder(RetryPolicy policy) {
+            this.maxAttempts = policy.maxAttempts;
+            this.baseDelayMillis = policy.baseDelayMillis;
+            this.maxDelayMillis = policy.maxDelayMillis;
+            this.retryableStatuses = new HashSet<>(policy.retryableStatuses);
+            this.retryOnIOException = policy.retryOnIOException;
+            this.budgetMaxTokens = policy.budgetMaxTokens;
+            this.budgetTokenRatio = policy.budgetTokenRatio;
+        }
+
+        /**
+         * @param maxAttempts The most attempts per request including the first one, 1 to disable retries.
+         */
+        public Builder maxAttempts(int maxAttempts) {
+            if (maxAttempts < 1) {
+                throw new IllegalArgumentException("maxAttempts must be at least 1");
+            }
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /**
+         * @param baseDelayMillis The shortest delay before a retry.
+         * @param maxDelayMillis  The longest delay before a retry, also the longest Retry-After honored.
+         */
+        public Builder delays(long baseDelayMillis, long maxDelayMillis) {
+            if (baseDelayMillis < 0 || maxDelayMillis < baseDelayMillis) {
+                throw new IllegalArgumentException("Delays must satisfy 0 <= baseDelayMillis <= maxDelayMillis");
+            }
+            this.baseDelayMillis = baseDelayMillis;
+            this.maxDelayMillis = maxDelayMillis;
+            return this;
+        }
+
+        /**
+         * @param statuses The HTTP statuses that are retried.
+         */
+        public Builder retryableStatuses(Integer... statuses) {
+            this.retryableStatuses = new HashSet<>(Arrays.asList(statuses));
+            return this;
+        }
+
+        public Builder retryOnIOException(boolean retryOnIOException) {
+            this.retryOnIOException = retryOnIOException;
+            return this;
+        }
+
+        /**
+         * @param maxTokens  The size of the retry budget of each client.
+         * @param tokenRatio The tokens a successful attempt gives back, see {@link RetryBudget}.
+         */
+        public Builder budget(int maxTokens, double tokenRatio) {
+            this.budgetMaxTokens = maxTokens;
+            this.budgetTokenRatio = tokenRatio;
+            return this;
+        }
+
+        public RetryPolicy build() {
+            return new RetryPolicy(this);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package io.github.firemaples.routing;
+
+/**
+ * Endpoint
+ * <p>
+ * A base URL of the Translator v3 API. Besides the global endpoint, which sends each request to the nearest
+ * datacenter, there are geography endpoints that keep requests within the Americas, Europe or Asia Pacific.
+ */
+public final class Endpoint {
+    public static final Endpoint GLOBAL = new Endpoint("global", "https://api.cognitive.microsofttranslator.com");
+    public static final Endpoint AMERICAS = new Endpoint("americas", "https://api-nam.cognitive.microsofttranslator.com");
+    public static final Endpoint EUROPE = new Endpoint("europe", "https://api-eur.cognitive.microsofttranslator.com");
+    public static final Endpoint ASIA_PACIFIC = new Endpoint("asia-pacific", "https://api-apc.cognitive.microsofttranslator.com");
+
+    private final String name;
+    private final String url;
+
+    /**
+     * @param name A name for logs and metrics.
+     * @param url  The base URL, e.g. a local stand-in server in tests.
+     */
+    public Endpoint(String name, String url) {
+        if (url == null) {
+            throw new IllegalArgumentException("url must not be null");
+        }
+        this.name = name;
+        this.url = url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return The base URL, without trailing slash.
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + url + ")";
+    }
+}
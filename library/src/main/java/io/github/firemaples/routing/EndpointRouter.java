@@ -0,0 +1,247 @@
+package io.github.firemaples.routing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * EndpointRouter
+ * <p>
+ * Routes requests between several endpoints of the Translator API by their recent latency and errors.
+ * <p>
+ * Each endpoint keeps a moving average of its latency and of its error rate; requests go to the endpoint with
+ * the lowest latency plus a penalty for its errors, so endpoints that have not been used yet are tried first.
+ * After {@code failureThreshold} failures in a row an endpoint is taken out of rotation for a cooldown. If every
+ * endpoint is out, the one whose cooldown ends first is used.
+ * <p>
+ * Endpoints that carry no traffic are probed every {@code probeIntervalMillis} by the clients using the router,
+ * so their scores stay current and a recovered endpoint gets back into rotation.
+ */
+public final class EndpointRouter {
+    public static final long DEFAULT_COOLDOWN = 30 * 1000;
+    public static final int DEFAULT_FAILURE_THRESHOLD = 3;
+    public static final long DEFAULT_PROBE_INTERVAL = 30 * 1000;
+
+    //Weight of the latest sample in the moving averages
+    private static final double ALPHA = 0.2;
+    //The latency an error rate of 1 is worth
+    private static final double ERROR_PENALTY_MILLIS = 1000;
+
+    /**
+     * Supplies the current time in nanoseconds, {@link System#nanoTime()} outside of tests.
+     */
+    interface Clock {
+        long nanoTime();
+    }
+
+    private final List<Endpoint> endpoints;
+    private final EndpointState[] states;
+    private final long cooldownNanos;
+    private final int failureThreshold;
+    private final long probeIntervalMillis;
+    private final Clock clock;
+
+    public EndpointRouter(Endpoint... endpoints) {
+        this(toList(endpoints), DEFAULT_COOLDOWN, DEFAULT_FAILURE_THRESHOLD, DEFAULT_PROBE_INTERVAL);
+    }
+
+    /**
+     * @param endpoints           The endpoints, at least one. Earlier ones win ties.
+     * @param cooldownMillis      How long an endpoint that keeps failing is out of rotation.
+     * @param failureThreshold    The failures in a row that take an endpoint out of rotation.
+     * @param probeIntervalMillis How often idle endpoints are probed, 0 to never probe them.
+     */
+    public EndpointRouter(List<Endpoint> endpoints, long cooldownMillis, int failureThreshold, long probeIntervalMillis) {
+        this(endpoints, cooldownMillis, failureThreshold, probeIntervalMillis, System::nanoTime);
+    }
+
+    EndpointRouter(List<Endpoint> endpoints, long cooldownMillis, int failureThreshold, long probeIntervalMillis, Clock clock) {
+        if (endpoints == null || endpoints.isEmpty()) {
+            throw new IllegalArgumentException("A router needs at least one endpoint");
+        }
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("failureThreshold must be at least 1");
+        }
+        this.endpoints = Collections.unmodifiableList(new ArrayList<>(endpoints));
+        this.states = new EndpointState[endpoints.size()];
+        for (int i = 0; i < states.length; i++) {
+            states[i] = new EndpointState();
+        }
+        this.cooldownNanos = TimeUnit.MILLISECONDS.toNanos(cooldownMillis);
+        this.failureThreshold = failureThreshold;
+        this.probeIntervalMillis = probeIntervalMillis;
+        this.clock = clock;
+    }
+
+    public List<Endpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    public long getProbeIntervalMillis() {
+        return probeIntervalMillis;
+    }
+
+    /**
+     * @return The endpoint to send the next request to.
+     */
+    public Endpoint select() {
+        final long now = clock.nanoTime();
+        int best = -1;
+        double bestScore = Double.MAX_VALUE;
+        int recoversFirst = 0;
+        for (int i = 0; i < states.length; i++) {
+            final EndpointState state = states[i];
+            if (state.isOut(now)) {
+                if (state.outUntil.get() - states[recoversFirst].outUntil.get() < 0) {
+                    recoversFirst = i;
+                }
+                continue;
+            }
+            final double score = state.score();
+            if (score < bestScore) {
+                best = i;
+                bestScore = score;
+            }
+        }
+        return endpoints.get(best >= 0 ? best : recoversFirst);
+    }
+
+    /**
+     * Reports a request the endpoint answered, whatever the status, unless it was a server error.
+     *
+     * @param latencyNanos The time until the response arrived.
+     */
+    public void onSuccess(Endpoint endpoint, long latencyNanos) {
+        final EndpointState state = stateOf(endpoint);
+        if (state == null) {
+            return;
+        }
+        state.lastSampleAt.set(clock.nanoTime());
+        state.sampled = true;
+        state.latencyMillis.update(latencyNanos / 1e6);
+        state.errorRate.update(0);
+        state.consecutiveFailures.set(0);
+        state.out = false;
+    }
+
+    /**
+     * Reports a request that failed with an I/O error or a server error.
+     */
+    public void onFailure(Endpoint endpoint) {
+        final EndpointState state = stateOf(endpoint);
+        if (state == null) {
+            return;
+        }
+        final long now = clock.nanoTime();
+        state.lastSampleAt.set(now);
+        state.sampled = true;
+        state.errorRate.update(1);
+        if (state.consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            state.outUntil.set(now + cooldownNanos);
+            state.out = true;
+        }
+    }
+
+    /**
+     * @return True if the endpoint had no request within the probe interval, or its cooldown has ended.
+     */
+    public boolean needsProbe(Endpoint endpoint) {
+        final EndpointState state = requireState(endpoint);
+        final long now = clock.nanoTime();
+        if (state.isOut(now)) {
+            return false;
+        }
+        if (state.out || !state.sampled) {
+            return true;
+        }
+        return probeIntervalMillis > 0 && now - state.lastSampleAt.get() >= TimeUnit.MILLISECONDS.toNanos(probeIntervalMillis);
+    }
+
+    /**
+     * @return True unless the endpoint is out of rotation after failing.
+     */
+    public boolean isHealthy(Endpoint endpoint) {
+        return !requireState(endpoint).isOut(clock.nanoTime());
+    }
+
+    /**
+     * @return The moving average of the latency in milliseconds, or 0 before the first response.
+     */
+    public double getLatencyMillis(Endpoint endpoint) {
+        return requireState(endpoint).latencyMillis.get();
+    }
+
+    /**
+     * @return The moving average of the error rate, between 0 and 1.
+     */
+    public double getErrorRate(Endpoint endpoint) {
+        return requireState(endpoint).errorRate.get();
+    }
+
+    private EndpointState requireState(Endpoint endpoint) {
+        final EndpointState state = stateOf(endpoint);
+        if (state == null) {
+            throw new IllegalArgumentException(endpoint + " is not routed by this router");
+        }
+        return state;
+    }
+
+    private EndpointState stateOf(Endpoint endpoint) {
+        for (int i = 0; i < states.length; i++) {
+            if (endpoints.get(i) == endpoint) {
+                return states[i];
+            }
+        }
+        return null;
+    }
+
+    private static List<Endpoint> toList(Endpoint[] endpoints) {
+        final List<Endpoint> list = new ArrayList<>();
+        if (endpoints != null) {
+            Collections.addAll(list, endpoints);
+        }
+        return list;
+    }
+
+    private static final class EndpointState {
+        final MovingAverage latencyMillis = new MovingAverage();
+        final MovingAverage errorRate = new MovingAverage();
+        final AtomicInteger consecutiveFailures = new AtomicInteger();
+        final AtomicLong outUntil = new AtomicLong();
+        final AtomicLong lastSampleAt = new AtomicLong();
+        volatile boolean out;
+        volatile boolean sampled;
+
+        double score() {
+            return latencyMillis.get() + errorRate.get() * ERROR_PENALTY_MILLIS;
+        }
+
+        boolean isOut(long now) {
+            return out && now - outUntil.get() < 0;
+        }
+    }
+
+    private static final class MovingAverage {
+        //The first sample is taken as is rather than averaged with the initial 0
+        private final AtomicLong bits = new AtomicLong(Double.doubleToLongBits(Double.NaN));
+
+        double get() {
+            final double value = Double.longBitsToDouble(bits.get());
+            return Double.isNaN(value) ? 0 : value;
+        }
+
+        void update(double sample) {
+            while (true) {
+                final long current = bits.get();
+                final double value = Double.longBitsToDouble(current);
+                final double updated = Double.isNaN(value) ? sample : value + ALPHA * (sample - value);
+                if (bits.compareAndSet(current, Double.doubleToLongBits(updated))) {
+                    return;
+                }
+            }
+        }
+    }
+}
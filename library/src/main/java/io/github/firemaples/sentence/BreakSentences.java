@@ -17,15 +17,13 @@
  */
 package io.github.firemaples.sentence;
 
-import java.net.URL;
-import java.net.URLEncoder;
+import java.util.concurrent.CompletableFuture;
 
 import io.github.firemaples.MicrosoftTranslatorAPI;
 import io.github.firemaples.language.Language;
 import io.github.firemaples.models.BreakSentencesResult;
 import io.github.firemaples.models.DetectResult;
-import io.github.firemaples.models.TextArrayRequest;
-import io.github.firemaples.utils.TypeReference;
+import io.github.firemaples.models.TextArrayBody;
 
 /**
  * BreakSentences
@@ -40,11 +38,7 @@ import io.github.firemaples.utils.TypeReference;
  * @author Jonathan Griggs [jonathan.griggs at gmail.com]
  * @author Firemaples (add new Azure framework support) [firemaples at gmail.com]
  */
-public final class BreakSentences extends MicrosoftTranslatorAPI<TextArrayRequest, BreakSentencesResult> {
-    private static BreakSentences instance = new BreakSentences();
-
-    private static final String SERVICE_URL = "api.cognitive.microsofttranslator.com/breaksentence?api-version=3.0";
-
+public final class BreakSentences extends MicrosoftTranslatorAPI<TextArrayBody, BreakSentencesResult> {
     // prevent instantiation
     private BreakSentences() {
     }
@@ -68,41 +62,38 @@ public final class BreakSentences extends MicrosoftTranslatorAPI<TextArrayReques
 //        //noinspection UnnecessaryLocalVariable
 //        final Integer[] response = retrieveIntArray(url);
 //        return response;
-        BreakSentencesResult results = retrieveResult(fromLang, text);
-        if (results != null && !results.isEmpty()) {
-            return results.get(0).sentLen;
-        }
-        throw new IllegalStateException("Parsing result failed");
+        return firstSentenceLengths(retrieveResult(fromLang, text));
     }
 
     public static BreakSentencesResult retrieveResult(Language fromLang, String... texts) throws Exception {
-        //Run the basic service validations first
-        validateServiceState(texts);
-        final URL url = new URL(PROTOCOL_HTTPS + SERVICE_URL
-                + PARAM_SENTENCES_LANGUAGE + URLEncoder.encode(fromLang.toString(), ENCODING));
-        //noinspection UnnecessaryLocalVariable
-        BreakSentencesResult result = instance.retrieveResponseV3(url, HTTP_POST, TextArrayRequest.build(texts), new TypeReference<BreakSentencesResult>() {
-        });
-        return result;
+        return getDefaultClient().breakSentences(fromLang, texts);
     }
 
-    private static void validateServiceState(final String[] texts) throws Exception {
-        if (texts.length > 100) {
-            throw new RuntimeException("TEXT_COUNT_OVER_LIMIT - Microsoft Translator (BreakSentences) can handle up to 100 texts per request");
-        }
-        for (String text : texts) {
-            String json = instance.toJsonString(new TextArrayRequest.Text(text));
-            if (json.length() > 10000) {
-                throw new RuntimeException("TEXT_TOO_LARGE - Microsoft Translator (BreakSentences) can handle up to 10,000 characters per array element");
-            }
-        }
+    /**
+     * Asynchronously reports the number of sentences detected and the length of those sentences
+     *
+     * @param text     The String to break into sentences
+     * @param fromLang The Language of origin
+     * @return A future completed with an array of integers representing the size of each detected sentence
+     */
+    public static CompletableFuture<Integer[]> executeAsync(final String text, final Language fromLang) {
+        return retrieveResultAsync(fromLang, text).thenApply(BreakSentences::firstSentenceLengths);
+    }
 
-        String json = instance.toJsonString(TextArrayRequest.build(texts));
-        if (json.length() > 50000) {
-            throw new RuntimeException("TEXT_TOO_LARGE - Microsoft Translator (BreakSentences) can handle up to 50,000 characters per request");
-        }
+    /**
+     * Asynchronous variant of {@link #retrieveResult(Language, String...)}.
+     * <p>
+     * Validation errors and service errors complete the returned future exceptionally.
+     */
+    public static CompletableFuture<BreakSentencesResult> retrieveResultAsync(Language fromLang, String... texts) {
+        return getDefaultClient().breakSentencesAsync(fromLang, texts);
+    }
 
-        validateServiceState();
+    private static Integer[] firstSentenceLengths(BreakSentencesResult results) {
+        if (results != null && !results.isEmpty()) {
+            return results.get(0).sentLen;
+        }
+        throw new IllegalStateException("Parsing result failed");
     }
 
 //    private static void validateServiceState(final String text, final Language fromLang) throws Exception {
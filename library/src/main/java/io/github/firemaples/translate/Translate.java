@@ -17,15 +17,13 @@
  */
 package io.github.firemaples.translate;
 
-import java.net.URL;
-import java.net.URLEncoder;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import io.github.firemaples.MicrosoftTranslatorAPI;
 import io.github.firemaples.language.Language;
-import io.github.firemaples.models.TextArrayRequest;
+import io.github.firemaples.models.TextArrayBody;
 import io.github.firemaples.models.TranslationResult;
-import io.github.firemaples.utils.TypeReference;
 
 /**
  * Translate
@@ -37,10 +35,7 @@ import io.github.firemaples.utils.TypeReference;
  * @author Jonathan Griggs [jonathan.griggs at gmail.com]
  * @author Firemaples (add new Azure framework support) [firemaples at gmail.com]
  */
-public final class Translate extends MicrosoftTranslatorAPI<TextArrayRequest, TranslationResult> {
-    private static Translate instance = new Translate();
-
-    private static final String SERVICE_URL = "api.cognitive.microsofttranslator.com/translate?api-version=3.0";
+public final class Translate extends MicrosoftTranslatorAPI<TextArrayBody, TranslationResult> {
 //    private static final String ARRAY_SERVICE_URL = "api.microsofttranslator.com/V2/Ajax.svc/TranslateArray?";
 //    private static final String ARRAY_JSON_OBJECT_PROPERTY = "TranslatedText";
 
@@ -71,14 +66,7 @@ public final class Translate extends MicrosoftTranslatorAPI<TextArrayRequest, Tr
 //        final String response = retrieveString(url);
 //        return response;
 
-        TranslationResult result = retrieveResult(from, to, text);
-        if (result != null && result.size() > 0) {
-            List<TranslationResult.Translation> translations = result.get(0).translations;
-            if (translations != null && translations.size() > 0) {
-                return translations.get(0).text;
-            }
-        }
-        throw new IllegalStateException("Parsing result failed");
+        return firstTranslation(retrieveResult(from, to, text));
     }
 
     /**
@@ -95,13 +83,43 @@ public final class Translate extends MicrosoftTranslatorAPI<TextArrayRequest, Tr
         return execute(text, Language.AUTO_DETECT, to);
     }
 
+    /**
+     * Translates a text of any length, such as a whole article, from a given Language to another given Language.
+     * <p>
+     * The text is cut at sentence boundaries into parts that are translated in parallel and joined back together
+     * with the original whitespace.
+     *
+     * @param text The String to translate.
+     * @param from The language code to translate from.
+     * @param to   The language code to translate to.
+     * @return The translated String.
+     * @throws Exception on error.
+     */
+    public static String executeDocument(final String text, final Language from, final Language to) throws Exception {
+        return getDefaultClient().translateDocument(from, to, text);
+    }
+
+    /**
+     * Asynchronous variant of {@link #executeDocument(String, Language, Language)}.
+     *
+     * @param text The String to translate.
+     * @param from The language code to translate from.
+     * @param to   The language code to translate to.
+     * @return A future completed with the translated String.
+     */
+    public static CompletableFuture<String> executeDocumentAsync(final String text, final Language from, final Language to) {
+        return getDefaultClient().translateDocumentAsync(from, to, text);
+    }
+
     /**
      * Translates an array of texts from a given Language to another given Language using Microsoft Translator's TranslateArray
      * service
      * <p>
      * Note that the Microsoft Translator expects all source texts to be of the SAME language.
+     * <p>
+     * Arrays over the limits of a single request are split into several requests, sent in parallel.
      *
-     * @param texts The Strings Array to translate.
+     * @param texts The Strings Array to translate, each of up to 5,000 characters.
      * @param from  The language code to translate from.
      * @param to    The language code to translate to.
      * @return The translated Strings Array[].
@@ -120,21 +138,22 @@ public final class Translate extends MicrosoftTranslatorAPI<TextArrayRequest, Tr
 //        //noinspection UnnecessaryLocalVariable
 //        final String[] response = retrieveStringArr(url, ARRAY_JSON_OBJECT_PROPERTY);
 //        return response;
-        TranslationResult result = retrieveResult(from, to, texts);
+        return translationArray(getDefaultClient().translateAll(from, to, texts));
+    }
 
-        if (result != null && result.size() > 0) {
-            String[] resultArr = new String[result.size()];
-            for (int i = 0; i < result.size(); i++) {
-                List<TranslationResult.Translation> translations = result.get(i).translations;
-                if (translations != null && translations.size() > 0) {
-                    resultArr[i] = translations.get(0).text;
-                } else {
-                    resultArr[i] = "";
-                }
-            }
-            return resultArr;
-        }
-        throw new IllegalStateException("Parsing result failed");
+    /**
+     * Translates an array of texts from a given Language into several Languages.
+     * <p>
+     * Note that the Microsoft Translator expects all source texts to be of the SAME language.
+     *
+     * @param texts The Strings Array to translate, up to 100 texts of 5,000 characters in total.
+     * @param from  The language code to translate from.
+     * @param to    The language codes to translate to.
+     * @return The translated Strings, one Array[] per language of {@code to}, in its order.
+     * @throws Exception on error.
+     */
+    public static String[][] execute(final String[] texts, final Language from, final Language[] to) throws Exception {
+        return translationMatrix(retrieveResult(from, to, texts), to.length);
     }
 
     /**
@@ -168,30 +187,136 @@ public final class Translate extends MicrosoftTranslatorAPI<TextArrayRequest, Tr
      * @throws Exception on error.
      */
     public static TranslationResult retrieveResult(final Language from, final Language to, String... texts) throws Exception {
-        //Run the basic service validations first
-        validateServiceState(texts);
-        final String params =
-                PARAM_FROM_LANG + URLEncoder.encode(from.toString(), ENCODING)
-                        + PARAM_TO_LANG + URLEncoder.encode(to.toString(), ENCODING);
+        return getDefaultClient().translate(from, to, texts);
+    }
+
+    /**
+     * Translates an array of texts from a given Language into several Languages, in as few requests as the
+     * service limits allow.
+     *
+     * @param from  The language code to translate from.
+     * @param to    The language codes to translate to.
+     * @param texts The Strings Array to translate.
+     * @return The translation result, one element per text with one translation per language of {@code to}.
+     * @throws Exception on error.
+     */
+    public static TranslationResult retrieveResult(final Language from, final Language[] to, String... texts) throws Exception {
+        return getDefaultClient().translate(from, to, texts);
+    }
 
-        final URL url = new URL(PROTOCOL_HTTPS + SERVICE_URL + params);
-        //noinspection UnnecessaryLocalVariable
-        TranslationResult result = instance.retrieveResponseV3(url, HTTP_POST, TextArrayRequest.build(texts), new TypeReference<TranslationResult>() {
-        });
-        return result;
+    /**
+     * Asynchronously translates text from a given Language to another given Language.
+     *
+     * @param text The String to translate.
+     * @param from The language code to translate from.
+     * @param to   The language code to translate to.
+     * @return A future completed with the translated String.
+     */
+    public static CompletableFuture<String> executeAsync(final String text, final Language from, final Language to) {
+        return retrieveResultAsync(from, to, text).thenApply(Translate::firstTranslation);
     }
 
-    private static void validateServiceState(final String[] texts) throws Exception {
-        if (texts.length > 100) {
-            throw new RuntimeException("TEXT_COUNT_OVER_LIMIT - Microsoft Translator (Translate) can handle up to 100 texts per request");
+    /**
+     * Asynchronously translates text from an automatically detected Language to another given Language.
+     *
+     * @param text The String to translate.
+     * @param to   The language code to translate to.
+     * @return A future completed with the translated String.
+     */
+    public static CompletableFuture<String> executeAsync(final String text, final Language to) {
+        return executeAsync(text, Language.AUTO_DETECT, to);
+    }
+
+    /**
+     * Asynchronously translates an array of texts from a given Language to another given Language.
+     * <p>
+     * Arrays over the limits of a single request are split into several requests, sent in parallel.
+     *
+     * @param texts The Strings Array to translate.
+     * @param from  The language code to translate from.
+     * @param to    The language code to translate to.
+     * @return A future completed with the translated Strings Array[].
+     */
+    public static CompletableFuture<String[]> executeAsync(final String[] texts, final Language from, final Language to) {
+        return getDefaultClient().translateAllAsync(from, to, texts).thenApply(Translate::translationArray);
+    }
+
+    /**
+     * Asynchronously translates an array of texts from an automatically detected Language to another given Language.
+     *
+     * @param texts The Strings Array to translate.
+     * @param to    The language code to translate to.
+     * @return A future completed with the translated Strings Array[].
+     */
+    public static CompletableFuture<String[]> executeAsync(final String[] texts, final Language to) {
+        return executeAsync(texts, Language.AUTO_DETECT, to);
+    }
+
+    /**
+     * Asynchronously translates an array of texts from a given Language into several Languages.
+     *
+     * @param texts The Strings Array to translate.
+     * @param from  The language code to translate from.
+     * @param to    The language codes to translate to.
+     * @return A future completed with the translated Strings, one Array[] per language of {@code to}.
+     */
+    public static CompletableFuture<String[][]> executeAsync(final String[] texts, final Language from, final Language[] to) {
+        return getDefaultClient().translateAsync(from, to, texts).thenApply(result -> translationMatrix(result, to.length));
+    }
+
+    /**
+     * Asynchronous variant of {@link #retrieveResult(Language, Language, String...)}.
+     * <p>
+     * Validation errors and service errors complete the returned future exceptionally.
+     *
+     * @param from  The language code to translate from.
+     * @param to    The language code to translate to.
+     * @param texts The Strings Array to translate.
+     * @return A future completed with the translation result.
+     */
+    public static CompletableFuture<TranslationResult> retrieveResultAsync(final Language from, final Language to, String... texts) {
+        return getDefaultClient().translateAsync(from, to, texts);
+    }
+
+    private static String firstTranslation(TranslationResult result) {
+        if (result != null && result.size() > 0) {
+            List<TranslationResult.Translation> translations = result.get(0).translations;
+            if (translations != null && translations.size() > 0) {
+                return translations.get(0).text;
+            }
         }
-        String json = instance.toJsonString(TextArrayRequest.build(texts));
-        if (json.length() > 5000) {
-            throw new RuntimeException("TEXT_TOO_LARGE - Microsoft Translator (Translate) can handle up to 5,000 characters per request");
+        throw new IllegalStateException("Parsing result failed");
+    }
+
+    private static String[] translationArray(TranslationResult result) {
+        if (result != null && result.size() > 0) {
+            String[] resultArr = new String[result.size()];
+            for (int i = 0; i < result.size(); i++) {
+                List<TranslationResult.Translation> translations = result.get(i).translations;
+                if (translations != null && translations.size() > 0) {
+                    resultArr[i] = translations.get(0).text;
+                } else {
+                    resultArr[i] = "";
+                }
+            }
+            return resultArr;
         }
-        validateServiceState();
+        throw new IllegalStateException("Parsing result failed");
     }
 
+    private static String[][] translationMatrix(TranslationResult result, int targets) {
+        if (result != null && result.size() > 0) {
+            String[][] resultMatrix = new String[targets][result.size()];
+            for (int i = 0; i < result.size(); i++) {
+                List<TranslationResult.Translation> translations = result.get(i).translations;
+                for (int j = 0; j < targets; j++) {
+                    resultMatrix[j][i] = translations != null && translations.size() > j ? translations.get(j).text : "";
+                }
+            }
+            return resultMatrix;
+        }
+        throw new IllegalStateException("Parsing result failed");
+    }
 
 //    private static void validateServiceState(final String text) throws Exception {
 //        String json = instance.toJsonString(TextArrayRequest.build(text));
@@ -0,0 +1,77 @@
+package io.github.firemaples.utils;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+
+/**
+ * A UTF-8 reader over a response stream that drops the byte order mark the Microsoft services prepend to
+ * their responses. Everything after it, including line breaks, is passed through untouched.
+ */
+public class BomSkippingReader extends FilterReader {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final char BOM = '\uFEFF';
+
+    private boolean started;
+
+    public BomSkippingReader(InputStream in) {
+        super(new InputStreamReader(in, UTF_8));
+    }
+
+    @Override
+    public int read() throws IOException {
+        int c = in.read();
+        if (!started) {
+            started = true;
+            if (c == BOM) {
+                c = in.read();
+            }
+        }
+        return c;
+    }
+
+    @Override
+    public int read(char[] buffer, int offset, int length) throws IOException {
+        int read = in.read(buffer, offset, length);
+        if (!started && read > 0) {
+            started = true;
+            if (buffer[offset] == BOM) {
+                if (read == 1) {
+                    return read(buffer, offset, length);
+                }
+                System.arraycopy(buffer, offset + 1, buffer, offset, read - 1);
+                read--;
+            }
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        if (!started && n > 0) {
+            //Let read() drop the mark first
+            return read() == -1 ? 0 : 1 + in.skip(n - 1);
+        }
+        return in.skip(n);
+    }
+
+    /**
+     * Reads the remaining content into a String.
+     *
+     * @param reader The reader to drain.
+     * @return The content.
+     * @throws IOException on error.
+     */
+    public static String readFully(Reader reader) throws IOException {
+        final StringBuilder builder = new StringBuilder();
+        final char[] buffer = new char[2048];
+        int read;
+        while ((read = reader.read(buffer, 0, buffer.length)) != -1) {
+            builder.append(buffer, 0, read);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,53 @@
+package io.github.firemaples.utils;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DaemonThreads
+ * <p>
+ * The threads the library starts itself. They are daemons, so they never keep the JVM alive.
+ */
+public final class DaemonThreads {
+    private DaemonThreads() {
+    }
+
+    /**
+     * @param prefix The name of the threads, numbered from 1, e.g. "microsoft-translator-client".
+     * @return A factory of daemon threads.
+     */
+    public static ThreadFactory factory(final String prefix) {
+        return new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+    /**
+     * The one timer thread of the library: it starts the delayed retries, hedges, batches, probes and token
+     * refreshes of all clients. Tasks on it must not block, they hand blocking work to an executor.
+     *
+     * @return The shared scheduler, created on first use.
+     */
+    public static ScheduledExecutorService scheduler() {
+        return SchedulerHolder.INSTANCE;
+    }
+
+    private static final class SchedulerHolder {
+        static final ScheduledExecutorService INSTANCE;
+
+        static {
+            final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, factory("microsoft-translator-timer"));
+            executor.setRemoveOnCancelPolicy(true);
+            INSTANCE = executor;
+        }
+    }
+}
@@ -11,34 +11,37 @@ import com.google.gson.stream.JsonToken;
 import com.google.gson.stream.JsonWriter;
 
 import java.io.IOException;
+import java.io.Reader;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class JsonUtil<T> {
-    private static Gson gson = null;
-    private static GsonBuilder gsonBuilder = null;
+    private static final ReentrantLock lock = new ReentrantLock();
+    private static final GsonBuilder gsonBuilder = new GsonBuilder().registerTypeAdapterFactory(new BooleanTypeAdapterFactory());
+    //Created eagerly so every thread sees a fully built instance, rebuilt only when an adapter is registered
+    private static volatile Gson gson = gsonBuilder.create();
 
+    /**
+     * @deprecated No longer set while parsing, the {@link io.github.firemaples.codec.ModelCodecs} cover the
+     * models without any per-call state.
+     */
+    @Deprecated
     public static final ThreadLocal<Object> sThreadLocalReadObject = new ThreadLocal<>();
 
     // this helper method can be used to make JSON parsing a one-line operation
 
     public T parseJson(String str, Class<T> clazz) {
         try {
-            sThreadLocalReadObject.set(clazz);
             return defaultGson().fromJson(str, clazz);
         } catch (Exception e) {
             throw new RuntimeException(e);
-        } finally {
-            sThreadLocalReadObject.set(null);
         }
     }
 
     public <R> R parseJson(JsonObject json, Class<R> clazz) {
         try {
-            sThreadLocalReadObject.set(clazz);
             return defaultGson().fromJson(json, clazz);
         } catch (Exception e) {
             throw new RuntimeException(e);
-        } finally {
-            sThreadLocalReadObject.set(null);
         }
     }
 
@@ -50,12 +53,24 @@ public class JsonUtil<T> {
             return (T) str;
         }
         try {
-            sThreadLocalReadObject.set(typeRef);
             return defaultGson().fromJson(str, typeRef.getType());
         } catch (Exception e) {
             throw new RuntimeException(e);
-        } finally {
-            sThreadLocalReadObject.set(null);
+        }
+    }
+
+    public T parseJson(Reader reader, TypeReference<T> typeRef) {
+        if (reader == null) {
+            return null;
+        }
+        try {
+            if (String.class.equals(typeRef.getType())) {
+                //The String variant returns the text as it is
+                return parseJson(BomSkippingReader.readFully(reader), typeRef);
+            }
+            return defaultGson().fromJson(reader, typeRef.getType());
+        } catch (Exception e) {
+            throw new RuntimeException(e);
         }
     }
 
@@ -69,27 +84,20 @@ public class JsonUtil<T> {
     }
 
     private Gson defaultGson() {
-        if (gson == null) {
-            gson = defaultGsonBuilder().create();
-        }
         return gson;
     }
 
-    private GsonBuilder defaultGsonBuilder() {
-        if (gsonBuilder != null) {
-            return gsonBuilder;
-        }
-        gsonBuilder = new GsonBuilder();
-        gsonBuilder.registerTypeAdapterFactory(new BooleanTypeAdapterFactory());
-        return gsonBuilder;
-    }
-
     public void registerTypeAdapter(Class<T> type, Object deser) {
-        defaultGsonBuilder().registerTypeAdapter(type, deser);
+        lock.lock();
+        try {
+            gson = gsonBuilder.registerTypeAdapter(type, deser).create();
+        } finally {
+            lock.unlock();
+        }
     }
 
 
-    public class BooleanTypeAdapterFactory implements TypeAdapterFactory {
+    public static class BooleanTypeAdapterFactory implements TypeAdapterFactory {
         @Override
         public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
             final TypeAdapter<T> delegate = gson.getDelegateAdapter(this, type);
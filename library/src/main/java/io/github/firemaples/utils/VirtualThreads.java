@@ -0,0 +1,47 @@
+package io.github.firemaples.utils;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Reflective access to the Java 21 virtual thread executor, the library itself still targets Java 8.
+ */
+public final class VirtualThreads {
+    private static final Method NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = findFactory();
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * @return True if the running JDK supports virtual threads.
+     */
+    public static boolean isAvailable() {
+        return NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null;
+    }
+
+    /**
+     * Creates an executor that starts a new virtual thread for each task.
+     *
+     * @return The executor.
+     * @throws IllegalStateException if the running JDK does not support virtual threads.
+     */
+    public static ExecutorService newExecutor() {
+        if (NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR == null) {
+            throw new IllegalStateException("Virtual threads require Java 21 or greater");
+        }
+        try {
+            return (ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invoke(null);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Unable to create virtual thread executor", e);
+        }
+    }
+
+    private static Method findFactory() {
+        try {
+            return Class.forName("java.util.concurrent.Executors").getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
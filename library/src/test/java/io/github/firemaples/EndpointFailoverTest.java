@@ -0,0 +1,145 @@
+package io.github.firemaples;
+
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.github.firemaples.retry.RetryPolicy;
+import io.github.firemaples.routing.Endpoint;
+import io.github.firemaples.routing.EndpointRouter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EndpointFailoverTest {
+    private static final String DETECTED = "[{\"language\":\"de\",\"score\":1.0}]";
+
+    private StandInServer degraded;
+    private StandInServer healthy;
+
+    @Before
+    public void setUp() throws Exception {
+        degraded = new StandInServer(503);
+        healthy = new StandInServer(200);
+    }
+
+    @After
+    public void tearDown() {
+        degraded.stop();
+        healthy.stop();
+    }
+
+    @Test(timeout = 10000)
+    public void testFailsOverToHealthyEndpoint() throws Exception {
+        Endpoint first = new Endpoint("degraded", degraded.url());
+        Endpoint second = new Endpoint("healthy", healthy.url());
+        EndpointRouter router = new EndpointRouter(Arrays.asList(first, second), 60000, 2, 0);
+
+        try (TranslatorClient client = new TranslatorClient(new TranslatorConfig.Builder()
+                .subscriptionKey("key")
+                .router(router)
+                .retryPolicy(new RetryPolicy.Builder().delays(1, 10).build())
+                .build())) {
+            for (int i = 0; i < 10; i++) {
+                assertEquals("de", client.detect("Hallo").get(0).language);
+            }
+            assertEquals("de", client.detectAsync("Hallo").get().get(0).language);
+        }
+
+        //Only the first attempt went to the degraded endpoint, its retry and everything after failed over
+        assertEquals(1, degraded.requests.get());
+        assertEquals(11, healthy.requests.get());
+        assertTrue(router.isHealthy(second));
+        assertTrue(router.getErrorRate(first) > router.getErrorRate(second));
+    }
+
+    @Test(timeout = 10000)
+    public void testTakesFailingEndpointOutOfRotation() throws Exception {
+        Endpoint first = new Endpoint("degraded", degraded.url());
+        Endpoint second = new Endpoint("healthy", healthy.url());
+        EndpointRouter router = new EndpointRouter(Arrays.asList(first, second), 60000, 2, 0);
+
+        try (TranslatorClient client = new TranslatorClient(new TranslatorConfig.Builder()
+                .subscriptionKey("key")
+                .router(router)
+                .retryPolicy(RetryPolicy.NONE)
+                .build())) {
+            for (int i = 0; i < 2; i++) {
+                try {
+                    client.detect("Hallo");
+                } catch (TranslatorException e) {
+                    assertEquals(503, e.getStatusCode());
+                }
+                //Make the healthy endpoint look slower, so only the failures move traffic away
+                router.onSuccess(second, 5000000000L);
+            }
+            assertFalse(router.isHealthy(first));
+            assertEquals("de", client.detect("Hallo").get(0).language);
+        }
+        assertEquals(1, healthy.requests.get());
+    }
+
+    @Test(timeout = 10000)
+    public void testProbesIdleEndpoints() throws Exception {
+        Endpoint first = new Endpoint("degraded", degraded.url());
+        Endpoint second = new Endpoint("healthy", healthy.url());
+        EndpointRouter router = new EndpointRouter(Arrays.asList(first, second), 60000, 2, 20);
+
+        TranslatorClient client = new TranslatorClient(new TranslatorConfig.Builder().router(router).build());
+        try {
+            //The degraded endpoint is taken out of rotation after two failed probes
+            while (router.isHealthy(first) || healthy.probes.get() < 2) {
+                Thread.sleep(10);
+            }
+        } finally {
+            client.close();
+        }
+        assertEquals(2, degraded.probes.get());
+        assertEquals(1, router.getErrorRate(first), 1e-9);
+        assertEquals(0, router.getErrorRate(second), 1e-9);
+    }
+
+    private static final class StandInServer {
+        final AtomicInteger requests = new AtomicInteger();
+        final AtomicInteger probes = new AtomicInteger();
+        private final HttpServer server;
+
+        StandInServer(final int status) throws IOException {
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.createContext("/detect", exchange -> {
+                requests.incrementAndGet();
+                byte[] body = (status == 200 ? DETECTED : "{\"error\":{\"code\":503000}}").getBytes("UTF-8");
+                exchange.sendResponseHeaders(status, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            });
+            server.createContext("/languages", exchange -> {
+                probes.incrementAndGet();
+                byte[] body = (status == 200 ? "{\"dictionary\":{}}" : "{\"error\":{\"code\":503000}}").getBytes("UTF-8");
+                exchange.sendResponseHeaders(status, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            });
+            server.start();
+        }
+
+        String url() {
+            return "http://127.0.0.1:" + server.getAddress().getPort();
+        }
+
+        void stop() {
+            server.stop(0);
+        }
+    }
+}
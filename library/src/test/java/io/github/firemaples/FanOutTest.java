@@ -0,0 +1,68 @@
+package io.github.firemaples;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class FanOutTest {
+    @Test
+    public void testRun_CollectsInOrder() throws Exception {
+        List<CompletableFuture<Integer>> parts = new ArrayList<>();
+        CompletableFuture<List<Integer>> result = FanOut.run(3, 2, index -> part(parts));
+        assertEquals(2, parts.size());
+
+        parts.get(1).complete(1);
+        assertEquals(3, parts.size());
+        parts.get(2).complete(2);
+        parts.get(0).complete(0);
+        assertEquals(Arrays.asList(0, 1, 2), result.get());
+    }
+
+    @Test
+    public void testRun_FailureCancelsPartsInFlight() throws Exception {
+        List<CompletableFuture<Integer>> parts = new ArrayList<>();
+        CompletableFuture<List<Integer>> result = FanOut.run(4, 3, index -> part(parts));
+        assertEquals(3, parts.size());
+
+        parts.get(1).completeExceptionally(new IOException("failed"));
+        try {
+            result.get();
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+        assertTrue(parts.get(0).isCancelled());
+        assertTrue(parts.get(2).isCancelled());
+        //No further parts are sent
+        assertEquals(3, parts.size());
+    }
+
+    @Test
+    public void testRun_CancelCancelsPartsInFlight() {
+        List<CompletableFuture<Integer>> parts = new ArrayList<>();
+        CompletableFuture<List<Integer>> result = FanOut.run(3, 2, index -> part(parts));
+        parts.get(0).complete(0);
+        assertEquals(3, parts.size());
+
+        result.cancel(false);
+        assertFalse(parts.get(0).isCancelled());
+        assertTrue(parts.get(1).isCancelled());
+        assertTrue(parts.get(2).isCancelled());
+    }
+
+    private static CompletableFuture<Integer> part(List<CompletableFuture<Integer>> parts) {
+        CompletableFuture<Integer> part = new CompletableFuture<>();
+        parts.add(part);
+        return part;
+    }
+}
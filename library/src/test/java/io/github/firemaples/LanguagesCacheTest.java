@@ -0,0 +1,185 @@
+package io.github.firemaples;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import io.github.firemaples.language.Language;
+import io.github.firemaples.models.LanguagesResult;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class LanguagesCacheTest {
+    @Test
+    public void testGet_RefreshesInBackground() throws Exception {
+        FakeClock clock = new FakeClock();
+        StubFetcher fetcher = new StubFetcher();
+        LanguagesCache cache = new LanguagesCache(fetcher, 1000, clock);
+        fetcher.respond(new LanguagesCache.Fetched(result("v1"), "\"v1\""));
+        assertEquals("v1", name(cache.get(Language.ENGLISH)));
+        assertNull(fetcher.etags.get(0));
+
+        clock.advance(999);
+        assertEquals("v1", name(cache.get(Language.ENGLISH)));
+        assertEquals(1, fetcher.etags.size());
+
+        //The stale response is served while the refresh is in flight, and only one refresh is sent
+        clock.advance(1);
+        CompletableFuture<LanguagesCache.Fetched> refresh = new CompletableFuture<>();
+        fetcher.responses.add(refresh);
+        assertEquals("v1", name(cache.get(Language.ENGLISH)));
+        assertEquals("v1", name(cache.get(Language.ENGLISH)));
+        assertEquals(2, fetcher.etags.size());
+        assertEquals("\"v1\"", fetcher.etags.get(1));
+
+        refresh.complete(new LanguagesCache.Fetched(result("v2"), "\"v2\""));
+        assertEquals("v2", name(cache.get(Language.ENGLISH)));
+        assertEquals(2, fetcher.etags.size());
+    }
+
+    @Test
+    public void testGet_KeepsResultWhenNotModifiedOrFailed() throws Exception {
+        FakeClock clock = new FakeClock();
+        StubFetcher fetcher = new StubFetcher();
+        LanguagesCache cache = new LanguagesCache(fetcher, 1000, clock);
+        fetcher.respond(new LanguagesCache.Fetched(result("v1"), "\"v1\""));
+        cache.get(null);
+
+        clock.advance(1000);
+        fetcher.respond(new LanguagesCache.Fetched(null, "\"v1\""));
+        assertEquals("v1", name(cache.get(null)));
+
+        clock.advance(1000);
+        CompletableFuture<LanguagesCache.Fetched> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new RuntimeException("Service unavailable"));
+        fetcher.responses.add(failed);
+        assertEquals("v1", name(cache.get(null)));
+
+        //Checked again after another interval, with the same ETag
+        assertEquals("v1", name(cache.get(null)));
+        assertEquals(3, fetcher.etags.size());
+        clock.advance(1000);
+        fetcher.respond(new LanguagesCache.Fetched(null, "\"v1\""));
+        assertEquals("v1", name(cache.get(null)));
+        assertEquals("\"v1\"", fetcher.etags.get(3));
+    }
+
+    @Test
+    public void testGet_KeyedByLocale() throws Exception {
+        StubFetcher fetcher = new StubFetcher();
+        LanguagesCache cache = new LanguagesCache(fetcher, 1000, new FakeClock());
+        fetcher.respond(new LanguagesCache.Fetched(result("English"), null));
+        fetcher.respond(new LanguagesCache.Fetched(result("Anglais"), null));
+
+        assertEquals("English", name(cache.get(Language.ENGLISH)));
+        assertEquals("Anglais", name(cache.get(Language.FRENCH)));
+        assertEquals("English", name(cache.get(Language.ENGLISH)));
+        assertEquals(2, fetcher.etags.size());
+    }
+
+    @Test(timeout = 10000)
+    public void testGet_ConcurrentFirstCallsShareOneRequest() throws Exception {
+        final StubFetcher fetcher = new StubFetcher();
+        final LanguagesCache cache = new LanguagesCache(fetcher, 1000, new FakeClock());
+        CompletableFuture<LanguagesCache.Fetched> response = new CompletableFuture<>();
+        fetcher.responses.add(response);
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<LanguagesResult>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(pool.submit(() -> cache.get(Language.ENGLISH)));
+            }
+            Thread.sleep(100);
+            response.complete(new LanguagesCache.Fetched(result("v1"), null));
+            for (Future<LanguagesResult> result : results) {
+                assertEquals("v1", name(result.get()));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, fetcher.etags.size());
+    }
+
+    @Test
+    public void testGet_FailedFirstRequestIsSentAgain() throws Exception {
+        StubFetcher fetcher = new StubFetcher();
+        LanguagesCache cache = new LanguagesCache(fetcher, 1000, new FakeClock());
+        CompletableFuture<LanguagesCache.Fetched> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new IOException("Service unavailable"));
+        fetcher.responses.add(failed);
+        try {
+            cache.get(null);
+            fail("Expected the request to fail");
+        } catch (IOException e) {
+            assertEquals("Service unavailable", e.getMessage());
+        }
+
+        fetcher.respond(new LanguagesCache.Fetched(result("v1"), null));
+        assertEquals("v1", name(cache.get(null)));
+        assertEquals(2, fetcher.etags.size());
+    }
+
+    @Test
+    public void testGet_CallersGetTheirOwnCopy() throws Exception {
+        StubFetcher fetcher = new StubFetcher();
+        LanguagesCache cache = new LanguagesCache(fetcher, 1000, new FakeClock());
+        fetcher.respond(new LanguagesCache.Fetched(result("v1"), null));
+
+        LanguagesResult first = cache.get(null);
+        first.translation.get("en").name = "changed";
+        first.translation.clear();
+        assertEquals("v1", name(cache.get(null)));
+    }
+
+    private static LanguagesResult result(String name) {
+        LanguagesResult result = new LanguagesResult();
+        result.translation = new HashMap<>();
+        LanguagesResult.TranslationLanguage language = new LanguagesResult.TranslationLanguage();
+        language.name = name;
+        result.translation.put("en", language);
+        return result;
+    }
+
+    private static String name(LanguagesResult result) {
+        return result.translation.get("en").name;
+    }
+
+    private static final class StubFetcher implements LanguagesCache.Fetcher {
+        final List<CompletableFuture<LanguagesCache.Fetched>> responses = new ArrayList<>();
+        final List<String> etags = new ArrayList<>();
+
+        void respond(LanguagesCache.Fetched fetched) {
+            responses.add(CompletableFuture.completedFuture(fetched));
+        }
+
+        @Override
+        public CompletableFuture<LanguagesCache.Fetched> fetch(Language locale, String etag) {
+            etags.add(etag);
+            return responses.remove(0);
+        }
+    }
+
+    private static final class FakeClock implements LanguagesCache.Clock {
+        private long now = TimeUnit.DAYS.toNanos(1);
+
+        void advance(long millis) {
+            now += TimeUnit.MILLISECONDS.toNanos(millis);
+        }
+
+        @Override
+        public long nanoTime() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,796 @@
+package io.github.firemaples;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.github.firemaples.auth.KeyPool;
+import io.github.firemaples.auth.PricingTier;
+import io.github.firemaples.auth.SubscriptionKey;
+import io.github.firemaples.cache.LruTranslationCache;
+import io.github.firemaples.cache.OffHeapCache;
+import io.github.firemaples.hedge.HedgePolicy;
+import io.github.firemaples.http.HttpRequest;
+import io.github.firemaples.http.HttpResponse;
+import io.github.firemaples.http.HttpTransport;
+import io.github.firemaples.language.Language;
+import io.github.firemaples.models.DetectResult;
+import io.github.firemaples.models.LanguagesResult;
+import io.github.firemaples.models.RequestSize;
+import io.github.firemaples.models.TextArrayRequest;
+import io.github.firemaples.models.TranslationResult;
+import io.github.firemaples.ratelimit.CharacterRateLimiter;
+import io.github.firemaples.ratelimit.OverflowPolicy;
+import io.github.firemaples.ratelimit.RateLimitExceededException;
+import io.github.firemaples.retry.RetryPolicy;
+import io.github.firemaples.utils.TypeReference;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TranslatorClientTest {
+
+    @Test
+    public void testClients_UseTheirOwnConfig() throws Exception {
+        RecordingTransport transport = new RecordingTransport("[{\"translations\":[{\"text\":\"Bonjour\",\"to\":\"fr\"}]}]");
+        TranslatorConfig global = new TranslatorConfig.Builder()
+                .subscriptionKey("key-1")
+                .endpoint("https://global.example.com/")
+                .transport(transport)
+                .build();
+        TranslatorConfig regional = global.toBuilder()
+                .subscriptionKey("key-2")
+                .region("westeurope")
+                .endpoint("https://eu.example.com")
+                .build();
+
+        try (TranslatorClient first = new TranslatorClient(global);
+             TranslatorClient second = new TranslatorClient(regional)) {
+            TranslationResult result = first.translate(Language.ENGLISH, Language.FRENCH, "Hello");
+            assertEquals("Bonjour", result.get(0).translations.get(0).text);
+            second.translate(Language.ENGLISH, Language.FRENCH, "Hello");
+        }
+
+        HttpRequest firstRequest = transport.requests.get(0);
+        assertEquals("https://global.example.com/translate?api-version=3.0&from=en&to=fr", firstRequest.getUrl().toString());
+        assertEquals("key-1", firstRequest.getHeaders().get("Ocp-Apim-Subscription-Key"));
+        assertNull(firstRequest.getHeaders().get("Ocp-Apim-Subscription-Region"));
+
+        HttpRequest secondRequest = transport.requests.get(1);
+        assertEquals("https://eu.example.com/translate?api-version=3.0&from=en&to=fr", secondRequest.getUrl().toString());
+        assertEquals("key-2", secondRequest.getHeaders().get("Ocp-Apim-Subscription-Key"));
+        assertEquals("westeurope", secondRequest.getHeaders().get("Ocp-Apim-Subscription-Region"));
+    }
+
+    @Test
+    public void testDetectAsync() throws Exception {
+        RecordingTransport transport = new RecordingTransport("[{\"language\":\"de\",\"score\":1.0}]");
+        try (TranslatorClient client = new TranslatorClient(new TranslatorConfig.Builder().subscriptionKey("key").transport(transport).build())) {
+            DetectResult result = client.detectAsync("Hallo").get();
+            assertEquals("de", result.get(0).language);
+        }
+        assertEquals("https://api.cognitive.microsofttranslator.com/detect?api-version=3.0", transport.requests.get(0).getUrl().toString());
+    }
+
+    @Test
+    public void testLanguages_SendsLocale() throws Exception {
+        RecordingTransport transport = new RecordingTransport("{\"translation\":{\"fr\":{\"name\":\"French\",\"nativeName\":\"Français\",\"dir\":\"ltr\"}}}");
+        try (TranslatorClient client = new TranslatorClient(new TranslatorConfig.Builder().subscriptionKey("key").transport(transport).build())) {
+            LanguagesResult result = client.languages(Language.ENGLISH);
+            assertEquals("Français", result.translation.get("fr").nativeName);
+        }
+        HttpRequest request = transport.requests.get(0);
+        assertEquals("GET", request.getMethod());
+        assertEquals("en", request.getHeaders().get("Accept-Language"));
+    }
+
+    @Test
+    public void testMissingSubscriptionKey() throws Exception {
+        RecordingTransport transport = new RecordingTransport("[]");
+        try (TranslatorClient client = new TranslatorClient(new TranslatorConfig.Builder().transport(transport).build())) {
+            try {
+                client.translateAsync(Language.ENGLISH, Language.FRENCH, "Hello").get();
+                fail("Expected the missing key to fail the future");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause().getMessage().startsWith("Must provide a Windows Azure Marketplace SubscriptionKey"));
+            }
+        }
+        assertTrue(transport.requests.isEmpty());
+    }
+
+    @Test
+    public void testDefaultClient_FollowsStaticSettings() throws Exception {
+        RecordingTransport transport = new RecordingTransport("[]");
+        try {
+            MicrosoftTranslatorAPI.setSubscriptionKey("static-key");
+            MicrosoftTranslatorAPI.setTransport(transport);
+            TranslatorConfig config = MicrosoftTranslatorAPI.getDefaultClient().getConfig();
+            assertEquals("static-key", config.getSubscriptionKey());
+            assertTrue(config.getTransport() == transport);
+        } finally {
+            MicrosoftTranslatorAPI.setTransport(null);
+            MicrosoftTranslatorAPI.setSubscriptionKey(null);
+        }
+    }
+
+    @Test
+    public void testDefaultClient_KeepsStateAcrossSettings() throws Exception {
+        RecordingTransport transport = new RecordingTransport("[{\"language\":\"de\",\"score\":1.0}]");
+        try {
+            MicrosoftTranslatorAPI.setSubscriptionKey("static-key");
+            MicrosoftTranslatorAPI.setTransport(transport);
+            TranslatorClient client = MicrosoftTranslatorAPI.getDefaultClient();
+            client.getAccessToken();
+            client.detect("Hallo", "Hallo");
+            long deduplicated = MicrosoftTranslatorAPI.getDeduplicatedCharacters();
+
+            MicrosoftTranslatorAPI.setRetryPolicy(RetryPolicy.NONE);
+            assertTrue(MicrosoftTranslatorAPI.getDefaultClient() == client);
+            assertEquals(deduplicated, MicrosoftTranslatorAPI.getDeduplicatedCharacters());
+            client.getAccessToken();
+            assertEquals(1, issueTokenRequests(transport));
+
+            //A token of the old key is not used for the new one
+            MicrosoftTranslatorAPI.setSubscriptionKey("other-key");
+            client.getAccessToken();
+            assertEquals(2, issueTokenRequests(transport));
+            HttpRequest last = transport.requests.get(transport.requests.size() - 1);
+            assertEquals("other-key", last.getHeaders().get("Ocp-Apim-Subscription-Key"));
+        } finally {
+            MicrosoftTranslatorAPI.setRetryPolicy(null);
+            MicrosoftTranslatorAPI.setTransport(null);
+            MicrosoftTranslatorAPI.setSubscriptionKey(null);
+        }
+    }
+
+    @Test
+    public void testDefaultClient_ServesLegacySubclasses() throws Exception {
+        RecordingTransport transport = new RecordingTransport("[{\"language\":\"de\",\"score\":1.0}]");
+        try {
+            MicrosoftTranslatorAPI.setSubscriptionKey("static-key");
+            MicrosoftTranslatorAPI.setTransport(transport);
+            DetectResult result = new LegacyDetect().detect("Hallo");
+            assertEquals("de", result.get(0).language);
+            assertEquals("static-key", transport.requests.get(0).getHeaders().get("Ocp-Apim-Subscription-Key"));
+        } finally {
+            MicrosoftTranslatorAPI.setTransport(null);
+            MicrosoftTranslatorAPI.setSubscriptionKey(null);
+        }
+    }
+
+    //A subclass written against the retrieveResponseV3 methods before TranslatorClient existed
+    private static class LegacyDetect extends MicrosoftTranslatorAPI<TextArrayRequest, DetectResult> {
+        @SuppressWarnings("deprecation")
+        DetectResult detect(String text) throws Exception {
+            return retrieveResponseV3(new URL("https://api.cognitive.microsofttranslator.com/detect?api-version=3.0"), HTTP_POST,
+                    TextArrayRequest.build(text), new TypeReference<DetectResult>() {
+                    });
+        }
+    }
+
+    private static int issueTokenRequests(RecordingTransport transport) {
+        int count = 0;
+        for (HttpRequest request : transport.requests) {
+            if (request.getUrl().getPath().endsWith("/issueToken")) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void testKeyPool_ThrottledKeyIsSkipped() throws Exception {
+        final SubscriptionKey first = new SubscriptionKey("key-1", "westeurope", PricingTier.S1);
+        final SubscriptionKey second = new SubscriptionKey("key-2", "eastus", PricingTier.S1);
+        final KeyPool pool = new KeyPool(first, second);
+        final List<HttpRequest> requests = new CopyOnWriteArrayList<>();
+        HttpTransport transport = request -> {
+            requests.add(request);
+            if ("key-1".equals(request.getHeaders().get("Ocp-Apim-Subscription-Key"))) {
+                return new HttpResponse(429, Collections.singletonMap("Retry-After", Collections.singletonList("30")),
+                        new ByteArrayInputStream("{\"error\":{\"code\":429001}}".getBytes("UTF-8")));
+            }
+            return new HttpResponse(200, null, new ByteArrayInputStream("[{\"language\":\"de\",\"score\":1.0}]".getBytes("UTF-8")));
+        };
+
+        try (TranslatorClient client = new TranslatorClient(new TranslatorConfig.Builder().keyPool(pool).transport(transport).build())) {
+            //The throttled attempt is retried on the other key right away
+            assertEquals("de", client.detect("Hallo").get(0).language);
+            assertTrue(pool.isDrained(first));
+            assertEquals("de", client.detect("Hallo").get(0).language);
+        }
+
+        assertEquals(3, requests.size());
+        assertEquals("key-1", requests.get(0).getHeaders().get("Ocp-Apim-Subscription-Key"));
+        assertEquals("key-2", requests.get(1).getHeaders().get("Ocp-Apim-Subscription-Key"));
+        assertEquals("eastus", requests.get(1).getHeaders().get("Ocp-Apim-Subscription-Region"));
+        assertEquals("key-2", requests.get(2).getHeaders().get("Ocp-Apim-Subscription-Key"));
+        assertEquals(PricingTier.S1.getCharactersPerHour(), pool.getRemainingCharacters(first));
+        assertEquals(PricingTier.S1.getCharactersPerHour() - 10, pool.getRemainingCharacters(second));
+    }
+
+    @Test
+    public void testRateLimiter_FailFastStopsRequest() throws Exception {
+        RecordingTransport transport = new RecordingTransport("[{\"language\":\"en\",\"score\":1.0}]");
+        CharacterRateLimiter limiter = new CharacterRateLimiter(8, 1, OverflowPolicy.FAIL_FAST, 0);
+        try (TranslatorClient client = new TranslatorClient(new TranslatorConfig.Builder()
+                .subscriptionKey("key").rateLimiter(limiter).transport(transport).build())) {
+            client.detect("Hello");
+            try {
+                client.detectAsync("Hello").get();
+                fail("Expected the limiter to refuse the request");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof RateLimitExceededException);
+            }
+        }
+        assertEquals(1, transport.requests.size());
+    }
+
+    @Test
+    public void testRetry_TransientErrorsAreRetried() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        HttpTransport transport = request -> {
+            if (calls.incrementAndGet() % 3 != 0) {
+                return new HttpResponse(503, null, new ByteArrayInputStream("{}".getBytes("UTF-8")));
+            }
+            return new HttpResponse(200, null, new ByteArrayInputStream("[{\"language\":\"de\",\"score\":1.0}]".getBytes("UTF-8")));
+        };
+        RetryPolicy policy = new RetryPolicy.Builder().delays(1, 20).build();
+        try (TranslatorClient client = new TranslatorClient(new TranslatorConfig.Builder()
+                .subscriptionKey("key").retryPolicy(policy).transport(transport).build())) {
+            assertEquals("de", client.detect("Hallo").get(0).language);
+            assertEquals("de", client.detectAsync("Hallo").get().get(0).language);
+        }
+        assertEquals(6, calls.get());
+    }
+
+    @Test
+    public void testRetry_CharactersAreTakenOnce() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        HttpTransport transport = request -> {
+            if (calls.incrementAndGet() % 2 != 0) {
+                return new HttpResponse(503, null, new ByteArrayInputStream("{}".getBytes("UTF-8")));
+            }
+            return new HttpResponse(200, null, new ByteArrayInputStream("[{\"language\":\"de\",\"score\":1.0}]".getBytes("UTF-8")));
+        };
+        CharacterRateLimiter limiter = new CharacterRateLimiter(10, 1, OverflowPolicy.FAIL_FAST, 0);
+        RetryPolicy policy = new RetryPolicy.Builder().delays(1, 20).build();
+        try (TranslatorClient client = new TranslatorClient(new TranslatorConfig.Builder()
+                .subscriptionKey("key").rateLimiter(limiter).retryPolicy(policy).transport(transport).build())) {
+            assertEquals("de", client.detect("Hallo").get(0).language);
+            assertEquals("de", client.detectAsync("Hallo").get().get(0).language);
+        }
+        assertEquals(4, calls.get());
+        assertEquals(0, limiter.getAvailableCharacters());
+    }
+
+    @Test
+    public void testRetry_GivesUpWithStatus() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        HttpTransport transport = request -> {
+            calls.incrementAndGet();
+            int status = request.getUrl().getPath().equals("/detect") ? 400 : 429;
+            return new HttpResponse(status, Collections.singletonMap("Retry-After", Collections.singletonList("60")),
+                    new ByteArrayInputStream("{\"error\":{}}".getBytes("UTF-8")));
+        };
+        try (TranslatorClient client = new TranslatorClient(new TranslatorConfig.Builder()
+                .subscriptionKey("key").transport(transport).build())) {
+            try {
+                client.detect("Hallo");
+                fail("Expected the bad request to fail");
+            } catch (TranslatorException e) {
+                assertEquals(400, e.getStatusCode());
+                assertEquals("Error retrieving result from Microsoft Translator API (400): {\"error\":{}}", e.getMessage());
+            }
+            assertEquals(1, calls.get());
+
+            //Waiting a minute is longer than the policy allows, so the 429 is not retried either
+            try {
+                client.translateAsync(Language.ENGLISH, Language.FRENCH, "Hello").get();
+                fail("Expected the throttled request to fail");
+            } catch (ExecutionException e) {
+                TranslatorException cause = (TranslatorException) e.getCause();
+                assertEquals(429, cause.getStatusCode());
+                assertEquals(60000, cause.getRetryAfterMillis());
+            }
+            assertEquals(2, calls.get());
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testHedge_SlowRequestIsAnsweredByHedge() throws Exception {
+        final AtomicInteger slow = new AtomicInteger();
+        final List<String> hosts = new CopyOnWriteArrayList<>();
+        HttpTransport transport = request -> {
+            String host = request.getUrl().getHost();
+            hosts.add(host);
+            if (host.equals("primary.example.com") && slow.get() > 0) {
+                try {
+                    Thread.sleep(3000);
+                } catch (InterruptedException ignored) {
+                }
+            }
+            String text = host.equals("primary.example.com") ? "primary" : "hedge";
+            return new HttpResponse(200, null, new ByteArrayInputStream(("[{\"translations\":[{\"text\":\"" + text + "\",\"to\":\"fr\"}]}]").getBytes("UTF-8")));
+        };
+        HedgePolicy policy = new HedgePolicy.Builder()
+                .samples(5, 64)
+                .minDelayMillis(20)
+                .budget(1, 10)
+                .hedgeEndpoint("https://hedge.example.com/")
+                .build();
+        try (TranslatorClient client = new TranslatorClient(new TranslatorConfig.Builder()
+                .subscriptionKey("key").endpoint("https://primary.example.com").hedgePolicy(policy).transport(transport).build())) {
+            for (int i = 0; i < 5; i++) {
+                assertEquals("primary", client.translate(Language.ENGLISH, Language.FRENCH, "Hello").get(0).translations.get(0).text);
+            }
+            assertEquals(5, hosts.size());
+
+            slow.set(1);
+            long start = System.nanoTime();
+            TranslationResult result = client.translate(Language.ENGLISH, Language.FRENCH, "Hello");
+            assertEquals("hedge", result.get(0).translations.get(0).text);
+            assertTrue(System.nanoTime() - start < 2000000000L);
+        }
+        assertEquals("hedge.example.com", hosts.get(6));
+    }
+
+    @Test(timeout = 10000)
+    public void testHedge_LosingRequestIsNotRetried() throws Exception {
+        final AtomicInteger slow = new AtomicInteger();
+        final AtomicInteger primaryCalls = new AtomicInteger();
+        HttpTransport transport = request -> {
+            String host = request.getUrl().getHost();
+            if (host.equals("primary.example.com")) {
+                primaryCalls.incrementAndGet();
+                if (slow.get() > 0) {
+                    try {
+                        Thread.sleep(500);
+                    } catch (InterruptedException ignored) {
+                    }
+                    return new HttpResponse(503, null, new ByteArrayInputStream("{}".getBytes("UTF-8")));
+                }
+            }
+            return new HttpResponse(200, null, new ByteArrayInputStream(("[{\"translations\":[{\"text\":\"" + host + "\",\"to\":\"fr\"}]}]").getBytes("UTF-8")));
+        };
+        HedgePolicy policy = new HedgePolicy.Builder()
+                .samples(5, 64)
+                .minDelayMillis(20)
+                .budget(1, 10)
+                .hedgeEndpoint("https://hedge.example.com/")
+                .build();
+        try (TranslatorClient client = new TranslatorClient(new TranslatorConfig.Builder()
+                .subscriptionKey("key").endpoint("https://primary.example.com").hedgePolicy(policy)
+                .retryPolicy(new RetryPolicy.Builder().delays(1, 1).build()).transport(transport).build())) {
+            for (int i = 0; i < 5; i++) {
+                client.translate(Language.ENGLISH, Language.FRENCH, "Hello");
+            }
+
+            slow.set(1);
+            assertEquals("hedge.example.com", client.translate(Language.ENGLISH, Language.FRENCH, "Hello").get(0).translations.get(0).text);
+            //The 503 of the cancelled primary arrives after the hedge won and is not retried
+            Thread.sleep(1000);
+            assertEquals(6, primaryCalls.get());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testHedgePolicy_SameEndpointIsRefused() {
+        new HedgePolicy.Builder().build();
+    }
+
+    @Test(timeout = 10000)
+    public void testBatch_ConcurrentTranslationsShareRequests() throws Exception {
+        EchoTransport transport = new EchoTransport();
+        try (final TranslatorClient client = new TranslatorClient(new TranslatorConfig.Builder()
+                .subscriptionKey("key").batchLingerMillis(200).transport(transport).build())) {
+            final CountDownLatch start = new CountDownLatch(1);
+            final String[] results = new String[20];
+            Thread[] threads = new Thread[results.length];
+            for (int i = 0; i < threads.length; i++) {
+                final int index = i;
+                threads[i] = new Thread(() -> {
+                    try {
+                        start.await();
+                        Language to = index % 2 == 0 ? Language.FRENCH : Language.GERMAN;
+                        results[index] = client.translate(Language.ENGLISH, to, "Hello " + index).get(0).translations.get(0).text;
+                    } catch (Exception ignored) {
+                    }
+                });
+                threads[i].start();
+            }
+            start.countDown();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            for (int i = 0; i < results.length; i++) {
+                assertEquals((i % 2 == 0 ? "fr" : "de") + ":Hello " + i, results[i]);
+            }
+            //One request per language pair unless a thread was late for the linger window
+            assertTrue(transport.requests.size() >= 2);
+            assertTrue(transport.requests.size() < 10);
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testBatch_CloseSendsWaitingTranslations() throws Exception {
+        EchoTransport transport = new EchoTransport();
+        CompletableFuture<TranslationResult> first;
+        CompletableFuture<TranslationResult> second;
+        try (TranslatorClient client = new TranslatorClient(new TranslatorConfig.Builder()
+                .subscriptionKey("key").batchLingerMillis(60 * 1000).transport(transport).build())) {
+            first = client.translateAsync(Language.ENGLISH, Language.FRENCH, "one");
+            second = client.translateAsync(Language.ENGLISH, Language.FRENCH, "two");
+            //Several texts are not batched
+            assertEquals(2, client.translate(Language.ENGLISH, Language.FRENCH, "three", "four").size());
+            assertEquals(1, transport.requests.size());
+            assertFalse(first.isDone());
+        }
+        assertEquals("fr:one", first.get().get(0).translations.get(0).text);
+        assertEquals("fr:two", second.get().get(0).translations.get(0).text);
+        assertEquals(2, transport.requests.size());
+    }
+
+    @Test(timeout = 10000)
+    public void testTranslateAll_SplitsIntoParallelRequests() throws Exception {
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        EchoTransport transport = new EchoTransport() {
+            @Override
+            public HttpResponse execute(HttpRequest request) throws IOException {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(20);
+                    return super.execute(request);
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            }
+        };
+        String[] texts = new String[250];
+        for (int i = 0; i < texts.length; i++) {
+            texts[i] = "Text " + i;
+        }
+        try (TranslatorClient client = new TranslatorClient(new TranslatorConfig.Builder()
+                .subscriptionKey("key").fanOutParallelism(2).transport(transport).build())) {
+            TranslationResult result = client.translateAll(Language.ENGLISH, Language.FRENCH, texts);
+            assertEquals(texts.length, result.size());
+            for (int i = 0; i < texts.length; i++) {
+                assertEquals("fr:Text " + i, result.get(i).translations.get(0).text);
+            }
+            //100 texts per request
+            assertEquals(3, transport.requests.size());
+            assertTrue(maxInFlight.get() <= 2);
+
+            //A single text over the limit cannot be split
+            StringBuilder large = new StringBuilder();
+            while (large.length() <= 5000) {
+                large.append("Hello. ");
+            }
+            try {
+                client.translateAll(Language.ENGLISH, Language.FRENCH, "Hello", large.toString());
+                fail("Expected the large text to be refused");
+            } catch (RuntimeException e) {
+                assertTrue(e.getMessage().startsWith("TEXT_TOO_LARGE"));
+            }
+            assertEquals(3, transport.requests.size());
+        }
+    }
+
+    @Test
+    public void testPack_RespectsBothLimits() {
+        String[] texts = new String[150];
+        Arrays.fill(texts, "a");
+        assertArrayEquals(new int[]{100, 150}, TextPacking.pack(texts));
+
+        //Each element is {"Text":"<1,000 characters>"}, 1,011 characters plus the separating comma
+        char[] chars = new char[1000];
+        Arrays.fill(chars, 'a');
+        texts = new String[7];
+        Arrays.fill(texts, new String(chars));
+        assertArrayEquals(new int[]{4, 7}, TextPacking.pack(texts));
+        assertArrayEquals(new int[]{0}, TextPacking.pack(new String[0]));
+    }
+
+    @Test(timeout = 10000)
+    public void testTranslateDocument_SplitsAtSentences() throws Exception {
+        EchoTransport transport = new EchoTransport();
+        StringBuilder document = new StringBuilder("  ");
+        for (int i = 0; i < 300; i++) {
+            document.append("This is sentence number ").append(i).append(" of the \"document\".");
+            document.append(i % 10 == 9 ? "\n\n" : " ");
+        }
+        try (TranslatorClient client = new TranslatorClient(new TranslatorConfig.Builder()
+                .subscriptionKey("key").transport(transport).build())) {
+            String translated = client.translateDocument(Language.ENGLISH, Language.FRENCH, document.toString());
+            assertTrue(transport.requests.size() >= 3);
+            //Each chunk is translated to "fr:" and its text, with the whitespace around it kept
+            assertTrue(translated.startsWith("  fr:This is sentence number 0 "));
+            assertEquals(document.toString(), translated.replace("fr:", ""));
+            for (HttpRequest request : transport.requests) {
+                assertTrue(request.getBody().contentLength() <= 5000);
+            }
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testTranslateDocument_SendsChunksAtOnce() throws Exception {
+        StringBuilder document = new StringBuilder();
+        for (int i = 0; i < 600; i++) {
+            document.append("This is sentence number ").append(i).append(" of the document. ");
+        }
+        final int chunks = DocumentSplitter.split(document.toString(), Language.ENGLISH).size();
+        assertTrue(chunks > 4);
+        final EchoTransport echo = new EchoTransport();
+        final CountDownLatch allSent = new CountDownLatch(chunks);
+        //Only answers once every chunk is in flight
+        HttpTransport transport = request -> {
+            allSent.countDown();
+            try {
+                allSent.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            return echo.execute(request);
+        };
+        try (TranslatorClient client = new TranslatorClient(new TranslatorConfig.Builder()
+                .subscriptionKey("key").fanOutParallelism(1).transport(transport).build())) {
+            String translated = client.translateDocument(Language.ENGLISH, Language.FRENCH, document.toString());
+            assertEquals(document.toString(), translated.replace("fr:", ""));
+        }
+        assertEquals(chunks, echo.requests.size());
+    }
+
+    @Test
+    public void testDeduplication_FailedCallsAreNotCounted() throws Exception {
+        HttpTransport transport = request -> new HttpResponse(500, null, new ByteArrayInputStream("{}".getBytes("UTF-8")));
+        try (TranslatorClient client = new TranslatorClient(new TranslatorConfig.Builder()
+                .subscriptionKey("key").retryPolicy(RetryPolicy.NONE).transport(transport).build())) {
+            try {
+                client.detect("Hallo", "Hallo");
+                fail("Expected the request to fail");
+            } catch (TranslatorException expected) {
+                assertEquals(500, expected.getStatusCode());
+            }
+            assertEquals(0, client.getDeduplicatedCharacters());
+        }
+    }
+
+    @Test
+    public void testTranslateDocument_BlankIsNotSent() throws Exception {
+        EchoTransport transport = new EchoTransport();
+        try (TranslatorClient client = new TranslatorClient(new TranslatorConfig.Builder()
+                .subscriptionKey("key").transport(transport).build())) {
+            assertEquals("", client.translateDocument(Language.ENGLISH, Language.FRENCH, ""));
+            assertEquals(" \n\t ", client.translateDocument(Language.ENGLISH, Language.FRENCH, " \n\t "));
+        }
+        assertEquals(0, transport.requests.size());
+    }
+
+    @Test
+    public void testSplit_CutsLongSentences() {
+        StringBuilder text = new StringBuilder();
+        while (text.length() < 12000) {
+            text.append("word ");
+        }
+        text.append("Short one.");
+        List<String> chunks = DocumentSplitter.split(text.toString(), Language.ENGLISH);
+        assertEquals(3, chunks.size());
+        StringBuilder joined = new StringBuilder();
+        for (String chunk : chunks) {
+            assertTrue(TextPacking.requestLength(RequestSize.elementLength(chunk), 1) <= TextPacking.MAX_TRANSLATE_LENGTH);
+            //Cut after a space
+            assertTrue(chunk.endsWith(" ") || chunk.endsWith("."));
+            joined.append(chunk);
+        }
+        assertEquals(text.toString(), joined.toString());
+        assertEquals(Collections.singletonList("One. Two."), DocumentSplitter.split("One. Two.", Language.AUTO_DETECT));
+        assertTrue(DocumentSplitter.split("", Language.ENGLISH).isEmpty());
+    }
+
+    @Test
+    public void testTranslate_ManyTargets() throws Exception {
+        EchoTransport transport = new EchoTransport();
+        Language[] targets = {Language.FRENCH, Language.GERMAN, Language.ITALIAN, Language.SPANISH, Language.DUTCH};
+        char[] chars = new char[1500];
+        Arrays.fill(chars, 'a');
+        String large = new String(chars);
+        try (TranslatorClient client = new TranslatorClient(new TranslatorConfig.Builder()
+                .subscriptionKey("key").transport(transport).build())) {
+            TranslationResult result = client.translate(Language.ENGLISH, targets, "Hello", "World");
+            assertEquals(1, transport.requests.size());
+            assertEquals(2, result.size());
+            assertEquals(5, result.get(1).translations.size());
+            assertEquals("it:World", result.get(1).translations.get(2).text);
+
+            //Every target counts towards the 5,000 character limit, so three fit a request
+            result = client.translate(Language.ENGLISH, targets, large);
+            assertEquals(3, transport.requests.size());
+            assertEquals(5, result.get(0).translations.size());
+            for (int i = 0; i < targets.length; i++) {
+                assertEquals(targets[i] + ":" + large, result.get(0).translations.get(i).text);
+            }
+        }
+    }
+
+    @Test
+    public void testDeduplication_SendsRepeatedTextsOnce() throws Exception {
+        EchoTransport transport = new EchoTransport();
+        try (TranslatorClient client = new TranslatorClient(new TranslatorConfig.Builder()
+                .subscriptionKey("key").transport(transport).build())) {
+            TranslationResult result = client.translate(Language.ENGLISH, Language.FRENCH, "Size", "Add to cart", "Size", "Size");
+            assertEquals(4, result.size());
+            assertEquals("fr:Add to cart", result.get(1).translations.get(0).text);
+            assertEquals("fr:Size", result.get(3).translations.get(0).text);
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            transport.requests.get(0).getBody().writeTo(body);
+            assertEquals("[{\"Text\":\"Size\"},{\"Text\":\"Add to cart\"}]", body.toString("UTF-8"));
+            assertEquals(8, result.getDeduplicatedCharacters());
+            assertEquals(8, client.getDeduplicatedCharacters());
+            //Each occurrence gets its own element
+            result.get(0).translations.get(0).text = "Changed";
+            assertEquals("fr:Size", result.get(2).translations.get(0).text);
+
+            //Counted once per target language
+            result = client.translate(Language.ENGLISH, new Language[]{Language.FRENCH, Language.GERMAN}, "Size", "Size");
+            assertEquals("de:Size", result.get(1).translations.get(1).text);
+            assertEquals(8, result.getDeduplicatedCharacters());
+            assertEquals(16, client.getDeduplicatedCharacters());
+
+            String[] texts = new String[300];
+            for (int i = 0; i < texts.length; i++) {
+                texts[i] = "Text " + (i % 150);
+            }
+            result = client.translateAll(Language.ENGLISH, Language.FRENCH, texts);
+            assertEquals(300, result.size());
+            //The second "Text 0" to "Text 149": 10 of 6 characters, 90 of 7 and 50 of 8
+            assertEquals(1090, result.getDeduplicatedCharacters());
+            assertEquals("fr:Text 149", result.get(299).translations.get(0).text);
+            //150 distinct texts fit two requests
+            assertEquals(4, transport.requests.size());
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testLanguages_ConditionalRefresh() throws Exception {
+        List<HttpRequest> requests = new CopyOnWriteArrayList<>();
+        HttpTransport transport = request -> {
+            requests.add(request);
+            Map<String, List<String>> headers = new HashMap<>();
+            headers.put("ETag", Collections.singletonList("\"v1\""));
+            if ("\"v1\"".equals(request.getHeaders().get("If-None-Match"))) {
+                return new HttpResponse(304, headers, null);
+            }
+            String body = "{\"translation\":{\"fr\":{\"name\":\"French\",\"nativeName\":\"Français\",\"dir\":\"ltr\"}}}";
+            return new HttpResponse(200, headers, new ByteArrayInputStream(body.getBytes("UTF-8")));
+        };
+        try (TranslatorClient client = new TranslatorClient(new TranslatorConfig.Builder()
+                .subscriptionKey("key").languagesRefreshMillis(1).transport(transport).build())) {
+            assertEquals("Français", client.languages(null).translation.get("fr").nativeName);
+            Thread.sleep(5);
+            assertEquals("Français", client.languages(null).translation.get("fr").nativeName);
+            while (requests.size() < 2) {
+                Thread.sleep(1);
+            }
+            assertEquals("\"v1\"", requests.get(1).getHeaders().get("If-None-Match"));
+            assertEquals("Français", client.languages(null).translation.get("fr").nativeName);
+        }
+    }
+
+    @Test
+    public void testCache_SendsOnlyMisses() throws Exception {
+        EchoTransport transport = new EchoTransport();
+        LruTranslationCache cache = new LruTranslationCache(1024 * 1024, 0);
+        try (TranslatorClient client = new TranslatorClient(new TranslatorConfig.Builder()
+                .subscriptionKey("key").translationCache(cache).transport(transport).build())) {
+            client.translate(Language.ENGLISH, Language.FRENCH, "Hello", "World");
+            TranslationResult result = client.translateAsync(Language.ENGLISH, Language.FRENCH, "Size", "Hello", "World").get();
+            assertEquals("fr:Size", result.get(0).translations.get(0).text);
+            assertEquals("fr:World", result.get(2).translations.get(0).text);
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            transport.requests.get(1).getBody().writeTo(body);
+            assertEquals("[{\"Text\":\"Size\"}]", body.toString("UTF-8"));
+
+            //All cached, nothing is sent
+            assertEquals("fr:Size", client.translateAll(Language.ENGLISH, Language.FRENCH, "World", "Size").get(1).translations.get(0).text);
+            assertEquals(2, transport.requests.size());
+            assertEquals(4, cache.getStats().getHits());
+            assertEquals(3, cache.getStats().getMisses());
+        }
+    }
+
+    @Test
+    public void testDetectionCache_SendsOnlyMisses() throws Exception {
+        RecordingTransport transport = new RecordingTransport("[{\"language\":\"de\",\"score\":0.9,"
+                + "\"alternatives\":[{\"language\":\"nl\",\"score\":0.1,\"isTranslationSupported\":true}]}]");
+        OffHeapCache cache = new OffHeapCache(64 * 1024, 2);
+        try (TranslatorClient client = new TranslatorClient(new TranslatorConfig.Builder()
+                .subscriptionKey("key").detectionCache(cache).transport(transport).build())) {
+            client.detect("Hallo");
+            DetectResult result = client.detectAsync("Hallo").get();
+            assertEquals("de", result.get(0).language);
+            assertEquals("nl", result.get(0).alternatives.get(0).language);
+            assertTrue(result.get(0).alternatives.get(0).isTranslationSupported);
+            assertEquals(1, transport.requests.size());
+
+            client.detect("Hallo", "Welt");
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            transport.requests.get(1).getBody().writeTo(body);
+            assertEquals("[{\"Text\":\"Welt\"}]", body.toString("UTF-8"));
+            assertEquals(2, cache.getStats().getHits());
+            assertEquals(2, cache.getStats().getMisses());
+        }
+    }
+
+    private static class RecordingTransport implements HttpTransport {
+        final List<HttpRequest> requests = new CopyOnWriteArrayList<>();
+        private final String response;
+
+        RecordingTransport(String response) {
+            this.response = response;
+        }
+
+        @Override
+        public HttpResponse execute(HttpRequest request) throws IOException {
+            requests.add(request);
+            return new HttpResponse(200, null, new ByteArrayInputStream(response.getBytes("UTF-8")));
+        }
+    }
+
+    //Answers each text of a translate request with each target language and the text
+    private static class EchoTransport implements HttpTransport {
+        final List<HttpRequest> requests = new CopyOnWriteArrayList<>();
+
+        @Override
+        public HttpResponse execute(HttpRequest request) throws IOException {
+            requests.add(request);
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            request.getBody().writeTo(body);
+            List<String> targets = new ArrayList<>();
+            for (String param : request.getUrl().getQuery().split("&")) {
+                if (param.startsWith("to=")) {
+                    targets.add(param.substring(3));
+                }
+            }
+            JsonArray response = new JsonArray();
+            for (JsonElement element : new JsonParser().parse(body.toString("UTF-8")).getAsJsonArray()) {
+                JsonArray translations = new JsonArray();
+                for (String to : targets) {
+                    JsonObject translation = new JsonObject();
+                    translation.addProperty("text", to + ":" + element.getAsJsonObject().get("Text").getAsString());
+                    translation.addProperty("to", to);
+                    translations.add(translation);
+                }
+                JsonObject result = new JsonObject();
+                result.add("translations", translations);
+                response.add(result);
+            }
+            return new HttpResponse(200, null, new ByteArrayInputStream(response.toString().getBytes("UTF-8")));
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package io.github.firemaples.auth;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class KeyPoolTest {
+    private final SubscriptionKey first = new SubscriptionKey("key-1", "westeurope", PricingTier.S1);
+    private final SubscriptionKey second = new SubscriptionKey("key-2", "eastus", PricingTier.S1);
+    private final FakeClock clock = new FakeClock();
+
+    @Test
+    public void testSelect_SpreadsCharactersOverKeys() {
+        KeyPool pool = new KeyPool(Arrays.asList(first, second), 1000, clock);
+
+        Map<SubscriptionKey, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            counts.merge(pool.select(1000), 1, Integer::sum);
+        }
+
+        assertEquals(50, (int) counts.get(first));
+        assertEquals(50, (int) counts.get(second));
+        assertEquals(PricingTier.S1.getCharactersPerHour() - 50000, pool.getRemainingCharacters(first));
+    }
+
+    @Test
+    public void testSelect_PrefersKeyWithLargerQuota() {
+        SubscriptionKey big = new SubscriptionKey("key-3", null, PricingTier.S4);
+        KeyPool pool = new KeyPool(Arrays.asList(first, big), 1000, clock);
+
+        long quarter = PricingTier.S1.getCharactersPerHour() / 4;
+        assertSame(big, pool.select(quarter));
+        assertSame(first, pool.select(quarter));
+        assertSame(big, pool.select(quarter));
+        assertSame(big, pool.select(quarter));
+
+        assertEquals(3 * quarter, pool.getRemainingCharacters(first));
+    }
+
+    @Test
+    public void testOnResponse_ThrottledKeyIsDrainedUntilRetryAfter() {
+        KeyPool pool = new KeyPool(Arrays.asList(first, second), 1000, clock);
+
+        pool.onResponse(first, 429, 5000);
+        assertTrue(pool.isDrained(first));
+        for (int i = 0; i < 10; i++) {
+            assertSame(second, pool.select(10));
+        }
+
+        clock.advance(5000);
+        assertFalse(pool.isDrained(first));
+        //Back in rotation, but scored down by its 429 rate until the other key is used more
+        assertSame(second, pool.select(PricingTier.S1.getCharactersPerHour() / 2));
+        assertSame(first, pool.select(10));
+    }
+
+    @Test
+    public void testOnResponse_CooldownWithoutRetryAfter() {
+        KeyPool pool = new KeyPool(Arrays.asList(first, second), 1000, clock);
+
+        pool.onResponse(first, 429, -1);
+        clock.advance(999);
+        assertTrue(pool.isDrained(first));
+        clock.advance(1);
+        assertFalse(pool.isDrained(first));
+    }
+
+    @Test
+    public void testOnResponse_ThrottleRateLowersScore() {
+        KeyPool pool = new KeyPool(Arrays.asList(first, second), 0, clock);
+
+        pool.onResponse(first, 429, 0);
+        assertEquals(0.2, pool.getThrottleRate(first), 1e-9);
+        assertSame(second, pool.select(10));
+
+        pool.onResponse(first, 200, -1);
+        assertEquals(0.16, pool.getThrottleRate(first), 1e-9);
+    }
+
+    @Test
+    public void testSelect_AllDrainedUsesKeyRecoveringFirst() {
+        KeyPool pool = new KeyPool(Arrays.asList(first, second), 1000, clock);
+
+        pool.onResponse(first, 429, 8000);
+        pool.onResponse(second, 429, 3000);
+
+        assertSame(second, pool.select(10));
+    }
+
+    @Test
+    public void testReselect_MovesCharactersToNewKey() {
+        KeyPool pool = new KeyPool(Arrays.asList(first, second), 1000, clock);
+
+        assertSame(first, pool.select(1000));
+        pool.onResponse(first, 429, 5000);
+        assertSame(second, pool.reselect(first, 1000));
+        assertEquals(PricingTier.S1.getCharactersPerHour(), pool.getRemainingCharacters(first));
+        assertEquals(PricingTier.S1.getCharactersPerHour() - 1000, pool.getRemainingCharacters(second));
+
+        //A retry on the same key is not counted again
+        pool.onResponse(second, 503, -1);
+        assertSame(second, pool.reselect(second, 1000));
+        assertEquals(PricingTier.S1.getCharactersPerHour() - 1000, pool.getRemainingCharacters(second));
+    }
+
+    @Test
+    public void testUsage_ExpiresAfterAnHour() {
+        KeyPool pool = new KeyPool(Arrays.asList(first), 1000, clock);
+
+        pool.select(1000);
+        clock.advance(TimeUnit.MINUTES.toMillis(30));
+        pool.select(500);
+        assertEquals(PricingTier.S1.getCharactersPerHour() - 1500, pool.getRemainingCharacters(first));
+
+        clock.advance(TimeUnit.MINUTES.toMillis(31));
+        assertEquals(PricingTier.S1.getCharactersPerHour() - 500, pool.getRemainingCharacters(first));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_NoKeys() {
+        new KeyPool();
+    }
+
+    private static final class FakeClock implements KeyPool.Clock {
+        private long now = TimeUnit.DAYS.toNanos(1);
+
+        void advance(long millis) {
+            now += TimeUnit.MILLISECONDS.toNanos(millis);
+        }
+
+        @Override
+        public long nanoTime() {
+            return now;
+        }
+    }
+}
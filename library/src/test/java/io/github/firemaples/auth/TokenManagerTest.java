@@ -0,0 +1,149 @@
+package io.github.firemaples.auth;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TokenManagerTest {
+    private TokenManager manager;
+
+    @After
+    public void tearDown() {
+        if (manager != null) {
+            manager.close();
+        }
+    }
+
+    @Test
+    public void testGetToken_ConcurrentCallersShareOneRequest() throws Exception {
+        final AtomicInteger issued = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+        manager = new TokenManager(() -> {
+            release.await(5, TimeUnit.SECONDS);
+            return "token-" + issued.incrementAndGet();
+        }, 60000, 120000);
+
+        ExecutorService pool = Executors.newFixedThreadPool(20);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                results.add(pool.submit(() -> manager.getToken()));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<String> result : results) {
+                assertEquals("token-1", result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, issued.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testGetToken_RefreshedInBackground() throws Exception {
+        final AtomicInteger issued = new AtomicInteger();
+        final String caller = Thread.currentThread().getName();
+        final List<String> issuingThreads = new ArrayList<>();
+        manager = new TokenManager(() -> {
+            synchronized (issuingThreads) {
+                issuingThreads.add(Thread.currentThread().getName());
+            }
+            return "token-" + issued.incrementAndGet();
+        }, 100, 60000);
+
+        assertEquals("token-1", manager.getToken());
+        long deadline = System.currentTimeMillis() + 5000;
+        while (issued.get() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals("token-2", manager.getToken());
+        synchronized (issuingThreads) {
+            assertEquals(caller, issuingThreads.get(0));
+            assertNotEquals(caller, issuingThreads.get(1));
+        }
+    }
+
+    @Test
+    public void testGetToken_UnusedTokenIsNotRenewed() throws Exception {
+        final AtomicInteger issued = new AtomicInteger();
+        manager = new TokenManager(() -> "token-" + issued.incrementAndGet(), 50, 60000);
+
+        manager.getToken();
+        Thread.sleep(400);
+        //One background refresh for the token that was used, none after that
+        assertEquals(2, issued.get());
+    }
+
+    @Test
+    public void testGetToken_FailureIsRetriedOnNextCall() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        manager = new TokenManager(() -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new IOException("unavailable");
+            }
+            return "token";
+        }, 60000, 120000);
+
+        try {
+            manager.getToken();
+            fail("Expected the issuer failure");
+        } catch (IOException e) {
+            assertEquals("unavailable", e.getMessage());
+        }
+        assertEquals("token", manager.getToken());
+    }
+
+    @Test
+    public void testReset_IssuesNewToken() throws Exception {
+        final AtomicInteger issued = new AtomicInteger();
+        manager = new TokenManager(() -> "token-" + issued.incrementAndGet(), 60000, 120000);
+
+        assertEquals("token-1", manager.getToken());
+        assertEquals("token-1", manager.getToken());
+        manager.reset();
+        assertEquals("token-2", manager.getToken());
+    }
+
+    @Test
+    public void testReset_DropsTokenIssuedBeforeIt() throws Exception {
+        final AtomicInteger issued = new AtomicInteger();
+        final CountDownLatch issuing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        manager = new TokenManager(() -> {
+            if (issued.incrementAndGet() == 1) {
+                issuing.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            }
+            return "token-" + issued.get();
+        }, 60000, 120000);
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> first = pool.submit(() -> manager.getToken());
+            assertTrue(issuing.await(5, TimeUnit.SECONDS));
+            //The key changes while the first token is being issued
+            manager.reset();
+            release.countDown();
+            assertEquals("token-2", first.get(5, TimeUnit.SECONDS));
+            assertEquals("token-2", manager.getToken());
+            assertEquals(2, issued.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package io.github.firemaples.cache;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import io.github.firemaples.models.DetectResult;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LruDetectionCacheTest {
+    @Test
+    public void testGet_KeyedByNormalizedText() {
+        LruDetectionCache cache = new LruDetectionCache(100, 0);
+        DetectResult.Result german = result("de");
+        cache.put("Grüße aus  Berlin", german);
+
+        assertEquals("de", cache.get("  grüße aus\tberlin\n").language);
+        //Decomposed u with diaeresis
+        assertEquals("de", cache.get("Gru\u0308ße aus Berlin").language);
+        assertNull(cache.get("Grüße aus Bern"));
+        assertEquals("de", cache.get("GRÜßE AUS BERLIN").language);
+        assertEquals(3, cache.getStats().getHits());
+    }
+
+    @Test
+    public void testGet_CallersGetTheirOwnCopy() {
+        LruDetectionCache cache = new LruDetectionCache(100, 0);
+        DetectResult.Result german = result("de");
+        cache.put("Hallo", german);
+        german.language = "changed by the caller it was detected for";
+
+        DetectResult.Result first = cache.get("Hallo");
+        assertNotSame(first, cache.get("Hallo"));
+        first.language = "changed";
+        first.alternatives.get(0).language = "changed";
+        first.alternatives.clear();
+        DetectResult.Result second = cache.get("Hallo");
+        assertEquals("de", second.language);
+        assertEquals(0.9f, second.score, 0f);
+        assertTrue(second.isTranslationSupported);
+        assertEquals("en", second.alternatives.get(0).language);
+    }
+
+    @Test
+    public void testGet_PrefixKeys() {
+        LruDetectionCache cache = new LruDetectionCache(100, 0, 10);
+        cache.put("Bonjour tout le monde", result("fr"));
+
+        assertEquals("fr", cache.get("bonjour tout le reste").language);
+        assertNull(cache.get("Bonjour à tous"));
+        assertEquals("bonjour to", TextDigest.normalize("  Bonjour \n tout le monde", 10));
+        assertEquals("a b", TextDigest.normalize("a  b", 3));
+        assertEquals("a", TextDigest.normalize("a  b", 1));
+    }
+
+    @Test
+    public void testPut_EvictsLeastRecentlyUsed() {
+        LruDetectionCache cache = new LruDetectionCache(2, 0);
+        cache.put("a", result("en"));
+        cache.put("b", result("en"));
+        assertNotNull(cache.get("a"));
+        cache.put("c", result("en"));
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertEquals(1, cache.getStats().getEvictions());
+        assertEquals(2, cache.getStats().getSize());
+    }
+
+    @Test
+    public void testGet_ExpiresAfterTtl() {
+        FakeClock clock = new FakeClock();
+        LruDetectionCache cache = new LruDetectionCache(100, 1000, 0, clock);
+        cache.put("Hello", result("en"));
+        clock.advance(999);
+        assertNotNull(cache.get("Hello"));
+        clock.advance(1);
+        assertNull(cache.get("Hello"));
+        assertEquals(0, cache.getStats().getSize());
+        assertEquals(0, cache.getStats().getBytes());
+    }
+
+    private static DetectResult.Result result(String language) {
+        DetectResult.Alternative alternative = new DetectResult.Alternative();
+        alternative.language = "en";
+        alternative.score = 0.1f;
+        DetectResult.Result result = new DetectResult.Result();
+        result.language = language;
+        result.score = 0.9f;
+        result.isTranslationSupported = true;
+        result.alternatives = new ArrayList<>();
+        result.alternatives.add(alternative);
+        return result;
+    }
+
+    private static final class FakeClock implements LruDetectionCache.Clock {
+        private long now = TimeUnit.DAYS.toNanos(1);
+
+        void advance(long millis) {
+            now += TimeUnit.MILLISECONDS.toNanos(millis);
+        }
+
+        @Override
+        public long nanoTime() {
+            return now;
+        }
+    }
+}
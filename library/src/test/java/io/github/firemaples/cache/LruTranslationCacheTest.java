@@ -0,0 +1,102 @@
+package io.github.firemaples.cache;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import io.github.firemaples.language.Language;
+import io.github.firemaples.models.TranslationResult;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+
+public class LruTranslationCacheTest {
+    @Test
+    public void testGet_KeyedByLanguagePair() {
+        LruTranslationCache cache = new LruTranslationCache(1024 * 1024, 0);
+        TranslationResult.Result bonjour = result("Bonjour");
+        cache.put(Language.ENGLISH, Language.FRENCH, "Hello", bonjour);
+
+        assertEquals("Bonjour", cache.get(Language.ENGLISH, Language.FRENCH, "Hello").translations.get(0).text);
+        assertNull(cache.get(Language.ENGLISH, Language.GERMAN, "Hello"));
+        assertNull(cache.get(Language.AUTO_DETECT, Language.FRENCH, "Hello"));
+        assertNull(cache.get(Language.ENGLISH, Language.FRENCH, "hello"));
+
+        CacheStats stats = cache.getStats();
+        assertEquals(1, stats.getHits());
+        assertEquals(3, stats.getMisses());
+        assertEquals(0.25, stats.getHitRate(), 0.0001);
+        assertEquals(1, stats.getSize());
+    }
+
+    @Test
+    public void testGet_CallersGetTheirOwnCopy() {
+        LruTranslationCache cache = new LruTranslationCache(1024 * 1024, 0);
+        TranslationResult.Result bonjour = result("Bonjour");
+        cache.put(Language.ENGLISH, Language.FRENCH, "Hello", bonjour);
+        bonjour.translations.get(0).text = "Changed by the caller it was translated for";
+
+        TranslationResult.Result first = cache.get(Language.ENGLISH, Language.FRENCH, "Hello");
+        assertNotSame(first, cache.get(Language.ENGLISH, Language.FRENCH, "Hello"));
+        first.translations.get(0).text = "Changed";
+        first.translations.clear();
+        assertEquals("Bonjour", cache.get(Language.ENGLISH, Language.FRENCH, "Hello").translations.get(0).text);
+    }
+
+    @Test
+    public void testPut_EvictsLeastRecentlyUsed() {
+        LruTranslationCache probe = new LruTranslationCache(1024 * 1024, 0);
+        probe.put(Language.ENGLISH, Language.FRENCH, "a", result("0123456789"));
+        long entryBytes = probe.getStats().getBytes();
+
+        //Room for two entries of this size
+        LruTranslationCache cache = new LruTranslationCache(entryBytes * 2, 0);
+        cache.put(Language.ENGLISH, Language.FRENCH, "a", result("0123456789"));
+        cache.put(Language.ENGLISH, Language.FRENCH, "b", result("0123456789"));
+        assertNotNull(cache.get(Language.ENGLISH, Language.FRENCH, "a"));
+        cache.put(Language.ENGLISH, Language.FRENCH, "c", result("0123456789"));
+
+        assertNotNull(cache.get(Language.ENGLISH, Language.FRENCH, "a"));
+        assertNull(cache.get(Language.ENGLISH, Language.FRENCH, "b"));
+        assertNotNull(cache.get(Language.ENGLISH, Language.FRENCH, "c"));
+        assertEquals(1, cache.getStats().getEvictions());
+        assertEquals(entryBytes * 2, cache.getStats().getBytes());
+    }
+
+    @Test
+    public void testGet_ExpiresAfterTtl() {
+        FakeClock clock = new FakeClock();
+        LruTranslationCache cache = new LruTranslationCache(1024 * 1024, 1000, clock);
+        cache.put(Language.ENGLISH, Language.FRENCH, "Hello", result("Bonjour"));
+        clock.advance(999);
+        assertNotNull(cache.get(Language.ENGLISH, Language.FRENCH, "Hello"));
+        clock.advance(1);
+        assertNull(cache.get(Language.ENGLISH, Language.FRENCH, "Hello"));
+        assertEquals(0, cache.getStats().getSize());
+        assertEquals(0, cache.getStats().getBytes());
+    }
+
+    static TranslationResult.Result result(String text) {
+        TranslationResult.Translation translation = new TranslationResult.Translation();
+        translation.text = text;
+        translation.to = "fr";
+        TranslationResult.Result result = new TranslationResult.Result();
+        result.translations.add(translation);
+        return result;
+    }
+
+    private static final class FakeClock implements LruTranslationCache.Clock {
+        private long now = TimeUnit.DAYS.toNanos(1);
+
+        void advance(long millis) {
+            now += TimeUnit.MILLISECONDS.toNanos(millis);
+        }
+
+        @Override
+        public long nanoTime() {
+            return now;
+        }
+    }
+}
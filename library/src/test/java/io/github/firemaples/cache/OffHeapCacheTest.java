@@ -0,0 +1,87 @@
+package io.github.firemaples.cache;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+import io.github.firemaples.language.Language;
+import io.github.firemaples.models.DetectResult;
+import io.github.firemaples.models.TranslationResult;
+
+import static io.github.firemaples.cache.LruTranslationCacheTest.result;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class OffHeapCacheTest {
+    @Test
+    public void testGet_TranslationsAndDetectionsKeyedApart() {
+        OffHeapCache cache = new OffHeapCache(64 * 1024, 4);
+        cache.put(Language.ENGLISH, Language.FRENCH, "Hello", result("Bonjour"));
+        DetectResult.Result detected = new DetectResult.Result();
+        detected.language = "en";
+        detected.score = 0.75f;
+        detected.isTranslationSupported = true;
+        detected.alternatives = new ArrayList<>();
+        cache.put("Hello", detected);
+
+        TranslationResult.Result translation = cache.get(Language.ENGLISH, Language.FRENCH, "Hello");
+        assertEquals("Bonjour", translation.translations.get(0).text);
+        assertNull(cache.get(Language.ENGLISH, Language.GERMAN, "Hello"));
+        DetectResult.Result detection = cache.get("Hello");
+        assertEquals("en", detection.language);
+        assertEquals(0.75f, detection.score, 0);
+        assertTrue(detection.isTranslationSupported);
+        assertTrue(detection.alternatives.isEmpty());
+        assertNull(cache.get("Bonjour"));
+
+        CacheStats stats = cache.getStats();
+        assertEquals(2, stats.getHits());
+        assertEquals(2, stats.getMisses());
+        assertEquals(2, stats.getSize());
+        assertEquals(0, stats.getEvictions());
+    }
+
+    @Test
+    public void testPut_OverwritesOldestWhenFull() {
+        OffHeapCache cache = new OffHeapCache(4096, 1);
+        for (int i = 0; i < 200; i++) {
+            cache.put(Language.ENGLISH, Language.FRENCH, "text " + i, result("texte " + i));
+        }
+
+        assertNull(cache.get(Language.ENGLISH, Language.FRENCH, "text 0"));
+        assertEquals("texte 199", cache.get(Language.ENGLISH, Language.FRENCH, "text 199").translations.get(0).text);
+        CacheStats stats = cache.getStats();
+        assertTrue(stats.getBytes() <= cache.getMaxBytes());
+        assertTrue(stats.getSize() > 0);
+        assertEquals(200, stats.getSize() + stats.getEvictions());
+    }
+
+    @Test
+    public void testPut_KeepsFirstResult() {
+        OffHeapCache cache = new OffHeapCache(64 * 1024);
+        cache.put(Language.ENGLISH, Language.FRENCH, "Hello", result("Bonjour"));
+        cache.put(Language.ENGLISH, Language.FRENCH, "Hello", result("Salut"));
+
+        assertEquals("Bonjour", cache.get(Language.ENGLISH, Language.FRENCH, "Hello").translations.get(0).text);
+        assertEquals(1, cache.getStats().getSize());
+        assertEquals(OffHeapCache.DEFAULT_SEGMENTS, cache.getSegments());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_SegmentsTooSmall() {
+        new OffHeapCache(16 * 1024, 8);
+    }
+
+    @Test
+    public void testPut_IgnoresEntryLargerThanSegment() {
+        OffHeapCache cache = new OffHeapCache(4096, 1);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            text.append('x');
+        }
+        cache.put(Language.ENGLISH, Language.FRENCH, "long", result(text.toString()));
+        assertNull(cache.get(Language.ENGLISH, Language.FRENCH, "long"));
+        assertEquals(0, cache.getStats().getSize());
+    }
+}
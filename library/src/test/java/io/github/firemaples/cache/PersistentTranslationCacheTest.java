@@ -0,0 +1,159 @@
+package io.github.firemaples.cache;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import io.github.firemaples.language.Language;
+import io.github.firemaples.models.TranslationResult;
+
+import static io.github.firemaples.cache.LruTranslationCacheTest.result;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PersistentTranslationCacheTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testGet_AfterReopen() throws IOException {
+        File directory = folder.newFolder();
+        try (PersistentTranslationCache cache = new PersistentTranslationCache(directory)) {
+            cache.put(Language.ENGLISH, Language.FRENCH, "Hello", result("Bonjour"));
+            cache.put(Language.ENGLISH, Language.FRENCH, "Hello", result("Salut"));
+            assertEquals(1, cache.getStats().getSize());
+        }
+
+        try (PersistentTranslationCache cache = new PersistentTranslationCache(directory)) {
+            assertEquals("Bonjour", text(cache.get(Language.ENGLISH, Language.FRENCH, "Hello")));
+            assertNull(cache.get(Language.ENGLISH, Language.GERMAN, "Hello"));
+            CacheStats stats = cache.getStats();
+            assertEquals(1, stats.getHits());
+            assertEquals(1, stats.getMisses());
+            assertEquals(1, stats.getSize());
+        }
+    }
+
+    @Test
+    public void testOpen_DirectoryInUse() throws IOException {
+        File directory = folder.newFolder();
+        PersistentTranslationCache cache = new PersistentTranslationCache(directory);
+        try {
+            new PersistentTranslationCache(directory);
+            fail("Expected the directory to be locked");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage().contains("used by another cache"));
+        } finally {
+            cache.close();
+        }
+    }
+
+    @Test
+    public void testPut_GrowsIndex() throws IOException {
+        File directory = folder.newFolder();
+        try (PersistentTranslationCache cache = new PersistentTranslationCache(directory, 4)) {
+            for (int i = 0; i < 100; i++) {
+                cache.put(Language.ENGLISH, Language.FRENCH, "text " + i, result("texte " + i));
+            }
+            assertEquals(100, cache.getStats().getSize());
+        }
+
+        try (PersistentTranslationCache cache = new PersistentTranslationCache(directory, 4)) {
+            for (int i = 0; i < 100; i++) {
+                assertEquals("texte " + i, text(cache.get(Language.ENGLISH, Language.FRENCH, "text " + i)));
+            }
+        }
+    }
+
+    @Test
+    public void testPut_FullIndexStopsStoring() throws IOException {
+        File directory = folder.newFolder();
+        //Up to 16 slots in segments of 4, so 8 entries
+        try (PersistentTranslationCache cache = new PersistentTranslationCache(directory, 4, 16, 4)) {
+            for (int i = 0; i < 20; i++) {
+                cache.put(Language.ENGLISH, Language.FRENCH, "text " + i, result("texte " + i));
+            }
+            assertEquals(8, cache.getStats().getSize());
+            assertEquals("texte 7", text(cache.get(Language.ENGLISH, Language.FRENCH, "text 7")));
+            assertNull(cache.get(Language.ENGLISH, Language.FRENCH, "text 8"));
+        }
+
+        try (PersistentTranslationCache cache = new PersistentTranslationCache(directory, 4, 16, 4)) {
+            for (int i = 0; i < 8; i++) {
+                assertEquals("texte " + i, text(cache.get(Language.ENGLISH, Language.FRENCH, "text " + i)));
+            }
+        }
+    }
+
+    @Test
+    public void testOpen_LogLargerThanIndexCanHold() throws IOException {
+        File directory = folder.newFolder();
+        try (PersistentTranslationCache cache = new PersistentTranslationCache(directory, 4, 16, 4)) {
+            for (int i = 0; i < 8; i++) {
+                cache.put(Language.ENGLISH, Language.FRENCH, "text " + i, result("texte " + i));
+            }
+        }
+        assertTrue(new File(directory, "translations.idx").delete());
+
+        //The rebuilt index only has room for the first 4 records
+        try (PersistentTranslationCache cache = new PersistentTranslationCache(directory, 4, 8, 4)) {
+            assertEquals(4, cache.getStats().getSize());
+            assertEquals("texte 3", text(cache.get(Language.ENGLISH, Language.FRENCH, "text 3")));
+            assertNull(cache.get(Language.ENGLISH, Language.FRENCH, "text 4"));
+            cache.put(Language.ENGLISH, Language.FRENCH, "Hello", result("Bonjour"));
+            assertNull(cache.get(Language.ENGLISH, Language.FRENCH, "Hello"));
+        }
+    }
+
+    @Test
+    public void testOpen_RebuildsLostIndex() throws IOException {
+        File directory = folder.newFolder();
+        try (PersistentTranslationCache cache = new PersistentTranslationCache(directory, 4)) {
+            for (int i = 0; i < 10; i++) {
+                cache.put(Language.ENGLISH, Language.FRENCH, "text " + i, result("texte " + i));
+            }
+        }
+        assertTrue(new File(directory, "translations.idx").delete());
+
+        try (PersistentTranslationCache cache = new PersistentTranslationCache(directory, 4)) {
+            assertEquals(10, cache.getStats().getSize());
+            assertEquals("texte 7", text(cache.get(Language.ENGLISH, Language.FRENCH, "text 7")));
+        }
+    }
+
+    @Test
+    public void testOpen_DropsTruncatedRecord() throws IOException {
+        File directory = folder.newFolder();
+        try (PersistentTranslationCache cache = new PersistentTranslationCache(directory)) {
+            cache.put(Language.ENGLISH, Language.FRENCH, "Hello", result("Bonjour"));
+            cache.put(Language.ENGLISH, Language.FRENCH, "Goodbye", result("Au revoir"));
+        }
+        //A crash in the middle of the last append, before the index was written
+        assertTrue(new File(directory, "translations.idx").delete());
+        File log = new File(directory, "translations.log");
+        try (RandomAccessFile file = new RandomAccessFile(log, "rw")) {
+            file.setLength(file.length() - 3);
+        }
+
+        try (PersistentTranslationCache cache = new PersistentTranslationCache(directory)) {
+            assertEquals("Bonjour", text(cache.get(Language.ENGLISH, Language.FRENCH, "Hello")));
+            assertNull(cache.get(Language.ENGLISH, Language.FRENCH, "Goodbye"));
+            cache.put(Language.ENGLISH, Language.FRENCH, "Goodbye", result("Au revoir"));
+        }
+
+        try (PersistentTranslationCache cache = new PersistentTranslationCache(directory)) {
+            assertEquals("Au revoir", text(cache.get(Language.ENGLISH, Language.FRENCH, "Goodbye")));
+            assertEquals(2, cache.getStats().getSize());
+        }
+    }
+
+    private static String text(TranslationResult.Result result) {
+        return result != null ? result.translations.get(0).text : null;
+    }
+}
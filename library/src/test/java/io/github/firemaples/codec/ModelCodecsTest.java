@@ -0,0 +1,126 @@
+package io.github.firemaples.codec;
+
+import com.google.gson.JsonParser;
+
+import org.junit.Test;
+
+import java.io.StringReader;
+
+import io.github.firemaples.models.BreakSentencesResult;
+import io.github.firemaples.models.DetectResult;
+import io.github.firemaples.models.LanguagesResult;
+import io.github.firemaples.models.TextArrayRequest;
+import io.github.firemaples.models.TranslationResult;
+import io.github.firemaples.utils.JsonUtil;
+import io.github.firemaples.utils.TypeReference;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ModelCodecsTest {
+    private static final String TRANSLATION_JSON = "[{\"detectedLanguage\":{\"language\":\"en\",\"score\":0.91},"
+            + "\"translations\":[{\"text\":\"Bonjour\\n\\\"monde\\\"\",\"to\":\"fr\",\"sentLen\":{\"srcSentLen\":[12],\"transSentLen\":[15]}},"
+            + "{\"text\":\"Hallo\",\"to\":\"de\",\"transliteration\":null}]},"
+            + "{\"translations\":[]}]";
+    private static final String DETECT_JSON = "[{\"language\":\"de\",\"score\":0.92,\"isTranslationSupported\":true,\"isTransliterationSupported\":\"0\","
+            + "\"alternatives\":[{\"language\":\"nl\",\"score\":0.84,\"isTranslationSupported\":1,\"isTransliterationSupported\":false}]}]";
+    private static final String BREAK_SENTENCES_JSON = "[{\"sentLen\":[13,11,22],\"detectedLanguage\":{\"language\":\"en\",\"score\":1.0}},{\"sentLen\":[]}]";
+    private static final String LANGUAGES_JSON = "{\"translation\":{\"af\":{\"name\":\"Afrikaans\",\"nativeName\":\"Afrikaans\",\"dir\":\"ltr\"},"
+            + "\"ar\":{\"name\":\"Arabic\",\"nativeName\":\"العربية\",\"dir\":\"rtl\"}},"
+            + "\"transliteration\":{\"ar\":{\"scripts\":[{\"code\":\"Arab\"}]}}}";
+
+    @Test
+    public void testTranslationResult_SameAsGson() throws Exception {
+        TranslationResult expected = new JsonUtil<TranslationResult>().parseJson(TRANSLATION_JSON, new TypeReference<TranslationResult>() {
+        });
+        TranslationResult actual = ModelCodecs.decode(ModelCodecs.TRANSLATION_RESULT, new StringReader(TRANSLATION_JSON));
+
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            TranslationResult.Result e = expected.get(i);
+            TranslationResult.Result a = actual.get(i);
+            assertEquals(e.detectedLanguage == null, a.detectedLanguage == null);
+            if (e.detectedLanguage != null) {
+                assertEquals(e.detectedLanguage.language, a.detectedLanguage.language);
+                assertEquals(e.detectedLanguage.score, a.detectedLanguage.score, 0f);
+            }
+            assertEquals(e.translations.size(), a.translations.size());
+            for (int j = 0; j < e.translations.size(); j++) {
+                assertEquals(e.translations.get(j).text, a.translations.get(j).text);
+                assertEquals(e.translations.get(j).to, a.translations.get(j).to);
+            }
+        }
+        assertEquals("Bonjour\n\"monde\"", actual.get(0).translations.get(0).text);
+    }
+
+    @Test
+    public void testDetectResult_LenientBooleans() throws Exception {
+        DetectResult expected = new JsonUtil<DetectResult>().parseJson(DETECT_JSON, new TypeReference<DetectResult>() {
+        });
+        DetectResult actual = ModelCodecs.decode(ModelCodecs.DETECT_RESULT, new StringReader(DETECT_JSON));
+
+        DetectResult.Result e = expected.get(0);
+        DetectResult.Result a = actual.get(0);
+        assertEquals(e.language, a.language);
+        assertEquals(e.score, a.score, 0f);
+        assertTrue(a.isTranslationSupported);
+        assertEquals(e.isTransliterationSupported, a.isTransliterationSupported);
+        assertEquals(1, a.alternatives.size());
+        assertEquals("nl", a.alternatives.get(0).language);
+        assertEquals(e.alternatives.get(0).isTranslationSupported, a.alternatives.get(0).isTranslationSupported);
+        assertFalse(a.alternatives.get(0).isTransliterationSupported);
+    }
+
+    @Test
+    public void testBreakSentencesResult() throws Exception {
+        BreakSentencesResult actual = ModelCodecs.decode(ModelCodecs.BREAK_SENTENCES_RESULT, new StringReader(BREAK_SENTENCES_JSON));
+
+        assertEquals(2, actual.size());
+        assertArrayEquals(new Integer[]{13, 11, 22}, actual.get(0).sentLen);
+        assertEquals("en", actual.get(0).detectedLanguage.language);
+        assertArrayEquals(new Integer[0], actual.get(1).sentLen);
+        assertNull(actual.get(1).detectedLanguage);
+    }
+
+    @Test
+    public void testLanguagesResult_SkipsOtherScopes() throws Exception {
+        LanguagesResult actual = ModelCodecs.decode(ModelCodecs.LANGUAGES_RESULT, new StringReader(LANGUAGES_JSON));
+
+        assertEquals(2, actual.translation.size());
+        assertEquals("Afrikaans", actual.translation.get("af").name);
+        assertEquals("العربية", actual.translation.get("ar").nativeName);
+        assertEquals("rtl", actual.translation.get("ar").dir);
+    }
+
+    @Test
+    public void testWrite_RoundTrip() throws Exception {
+        TranslationResult translation = ModelCodecs.decode(ModelCodecs.TRANSLATION_RESULT, new StringReader(TRANSLATION_JSON));
+        String json = ModelCodecs.encode(ModelCodecs.TRANSLATION_RESULT, translation);
+        assertEquals(json, ModelCodecs.encode(ModelCodecs.TRANSLATION_RESULT, ModelCodecs.decode(ModelCodecs.TRANSLATION_RESULT, new StringReader(json))));
+
+        LanguagesResult languages = ModelCodecs.decode(ModelCodecs.LANGUAGES_RESULT, new StringReader(LANGUAGES_JSON));
+        LanguagesResult decoded = ModelCodecs.decode(ModelCodecs.LANGUAGES_RESULT, new StringReader(ModelCodecs.encode(ModelCodecs.LANGUAGES_RESULT, languages)));
+        assertEquals("Arabic", decoded.translation.get("ar").name);
+    }
+
+    @Test
+    public void testWrite_TextArrayRequestSameAsGson() throws Exception {
+        TextArrayRequest request = TextArrayRequest.build("Hello", "wörld \"quoted\"", null);
+        String expected = new JsonUtil<TextArrayRequest>().writeJson(request);
+        assertEquals(new JsonParser().parse(expected), new JsonParser().parse(ModelCodecs.encode(ModelCodecs.TEXT_ARRAY_REQUEST, request)));
+    }
+
+    @Test
+    public void testDecode_EmptyAndNullDocuments() throws Exception {
+        assertNull(ModelCodecs.decode(ModelCodecs.TRANSLATION_RESULT, new StringReader("")));
+        assertNull(ModelCodecs.decode(ModelCodecs.TRANSLATION_RESULT, new StringReader("null")));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testDecode_TrailingContentFails() throws Exception {
+        ModelCodecs.decode(ModelCodecs.BREAK_SENTENCES_RESULT, new StringReader("[] []"));
+    }
+}
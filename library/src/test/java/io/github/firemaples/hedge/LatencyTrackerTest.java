@@ -0,0 +1,56 @@
+package io.github.firemaples.hedge;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyTrackerTest {
+
+    @Test
+    public void testPercentile() {
+        LatencyTracker tracker = new LatencyTracker(100);
+        assertEquals(-1, tracker.percentile(0.5));
+        for (int i = 100; i >= 1; i--) {
+            tracker.record(i);
+        }
+        assertEquals(50, tracker.percentile(0.5));
+        assertEquals(95, tracker.percentile(0.95));
+        assertEquals(99, tracker.percentile(0.99));
+    }
+
+    @Test
+    public void testPercentile_OnlyRecentSamples() {
+        LatencyTracker tracker = new LatencyTracker(16);
+        for (int i = 0; i < 16; i++) {
+            tracker.record(1000);
+        }
+        for (int i = 0; i < 16; i++) {
+            tracker.record(10);
+        }
+        assertEquals(10, tracker.percentile(0.99));
+        assertEquals(32, tracker.getSampleCount());
+    }
+
+    @Test
+    public void testBudget_LimitsHedgesToRatio() {
+        HedgeBudget budget = new HedgeBudget(0.25, 2);
+        assertFalse(budget.tryHedge());
+        int hedges = 0;
+        for (int i = 0; i < 100; i++) {
+            budget.onRequest();
+            if (budget.tryHedge()) {
+                hedges++;
+            }
+        }
+        assertEquals(25, hedges);
+
+        for (int i = 0; i < 100; i++) {
+            budget.onRequest();
+        }
+        assertTrue(budget.tryHedge());
+        assertTrue(budget.tryHedge());
+        assertFalse(budget.tryHedge());
+    }
+}
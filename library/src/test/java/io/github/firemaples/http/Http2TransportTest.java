@@ -0,0 +1,131 @@
+package io.github.firemaples.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class Http2TransportTest {
+    private HttpServer server;
+    private String baseUrl;
+
+    @Before
+    public void setUp() throws Exception {
+        Assume.assumeTrue(Http2Transport.isAvailable());
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/echo", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                byte[] body = readFully(exchange.getRequestBody());
+                String key = exchange.getRequestHeaders().getFirst("Ocp-Apim-Subscription-Key");
+                byte[] response = (exchange.getRequestMethod() + " " + key + " " + new String(body, "UTF-8")).getBytes("UTF-8");
+                exchange.sendResponseHeaders(200, response.length);
+                OutputStream out = exchange.getResponseBody();
+                out.write(response);
+                out.close();
+            }
+        });
+        server.createContext("/throttled", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                byte[] response = "busy".getBytes("UTF-8");
+                exchange.getResponseHeaders().add("Retry-After", "1");
+                exchange.sendResponseHeaders(429, response.length);
+                OutputStream out = exchange.getResponseBody();
+                out.write(response);
+                out.close();
+            }
+        });
+        server.createContext("/upgrade", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                //This server only speaks HTTP/1.1, so it ignores the upgrade and answers as usual
+                byte[] response = (exchange.getProtocol() + " " + exchange.getRequestHeaders().getFirst("Upgrade") + " "
+                        + exchange.getRequestHeaders().containsKey("HTTP2-Settings")).getBytes("UTF-8");
+                exchange.sendResponseHeaders(200, response.length);
+                OutputStream out = exchange.getResponseBody();
+                out.write(response);
+                out.close();
+            }
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void testExecute_SameResultAsUrlConnection() throws Exception {
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Content-Type", "application/json");
+        headers.put("Ocp-Apim-Subscription-Key", "key");
+        HttpRequest request = new HttpRequest("POST", new URL(baseUrl + "/echo"), headers, RequestBody.of("[{\"Text\":\"Héllo\"}]".getBytes("UTF-8")));
+
+        byte[] expected;
+        try (HttpResponse response = new UrlConnectionTransport().execute(request)) {
+            expected = readFully(response.getBody());
+        }
+        try (HttpResponse response = new Http2Transport().execute(request)) {
+            assertEquals(200, response.getStatusCode());
+            assertArrayEquals(expected, readFully(response.getBody()));
+        }
+    }
+
+    @Test
+    public void testExecuteAsync() throws Exception {
+        HttpRequest request = new HttpRequest("POST", new URL(baseUrl + "/echo"), null, RequestBody.of("[]".getBytes("UTF-8")));
+        try (HttpResponse response = new Http2Transport().executeAsync(request, null).get()) {
+            assertEquals(200, response.getStatusCode());
+            assertEquals("POST null []", new String(readFully(response.getBody()), "UTF-8"));
+        }
+    }
+
+    @Test
+    public void testExecute_OffersHttp2AndFallsBackToHttp11() throws Exception {
+        //The JDK has no HTTP/2 server to negotiate with, so this checks the offer and the fallback only
+        try (HttpResponse response = new Http2Transport().execute(new HttpRequest("GET", new URL(baseUrl + "/upgrade"), null, null))) {
+            assertEquals(200, response.getStatusCode());
+            assertEquals("HTTP/1.1 h2c true", new String(readFully(response.getBody()), "UTF-8"));
+        }
+    }
+
+    @Test
+    public void testExecute_ErrorStatusExposesBody() throws Exception {
+        try (HttpResponse response = new Http2Transport().execute(new HttpRequest("GET", new URL(baseUrl + "/throttled"), null, null))) {
+            assertEquals(429, response.getStatusCode());
+            assertEquals("1", response.getHeader("Retry-After"));
+            assertEquals("busy", new String(readFully(response.getBody()), "UTF-8"));
+        }
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,149 @@
+package io.github.firemaples.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+public class UrlConnectionTransportTest {
+    private HttpServer server;
+    private String baseUrl;
+    private final List<Integer> remotePorts = Collections.synchronizedList(new ArrayList<Integer>());
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    @Before
+    public void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/echo", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                remotePorts.add(exchange.getRemoteAddress().getPort());
+                byte[] body = readFully(exchange.getRequestBody());
+                respond(exchange, 200, body.length == 0 ? "ok".getBytes("UTF-8") : body);
+            }
+        });
+        server.createContext("/throttled", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                exchange.getResponseHeaders().add("Retry-After", "1");
+                respond(exchange, 429, "busy".getBytes("UTF-8"));
+            }
+        });
+        server.createContext("/slow", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                int current = inFlight.incrementAndGet();
+                int max;
+                while (current > (max = maxInFlight.get()) && !maxInFlight.compareAndSet(max, current)) {
+                    Thread.yield();
+                }
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException ignored) {
+                }
+                inFlight.decrementAndGet();
+                respond(exchange, 200, "ok".getBytes("UTF-8"));
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.stop(0);
+    }
+
+    @Test
+    public void testExecute_PostBody() throws Exception {
+        HttpTransport transport = new UrlConnectionTransport();
+        byte[] body = "[{\"Text\":\"Hello\"}]".getBytes("UTF-8");
+        try (HttpResponse response = transport.execute(new HttpRequest("POST", new URL(baseUrl + "/echo"), null, RequestBody.of(body)))) {
+            assertEquals(200, response.getStatusCode());
+            assertEquals("[{\"Text\":\"Hello\"}]", new String(readFully(response.getBody()), "UTF-8"));
+        }
+    }
+
+    @Test
+    public void testExecute_ErrorStatusExposesBody() throws Exception {
+        HttpTransport transport = new UrlConnectionTransport();
+        try (HttpResponse response = transport.execute(new HttpRequest("GET", new URL(baseUrl + "/throttled"), null, null))) {
+            assertEquals(429, response.getStatusCode());
+            assertEquals("1", response.getHeader("retry-after"));
+            assertEquals("busy", new String(readFully(response.getBody()), "UTF-8"));
+        }
+    }
+
+    @Test
+    public void testExecute_ReusesKeepAliveConnection() throws Exception {
+        HttpTransport transport = new UrlConnectionTransport();
+        for (int i = 0; i < 3; i++) {
+            try (HttpResponse response = transport.execute(new HttpRequest("GET", new URL(baseUrl + "/echo"), null, null))) {
+                assertEquals(200, response.getStatusCode());
+            }
+        }
+        assertEquals(3, remotePorts.size());
+        assertEquals(remotePorts.get(0), remotePorts.get(1));
+        assertEquals(remotePorts.get(0), remotePorts.get(2));
+    }
+
+    @Test
+    public void testExecute_BoundsConcurrentConnections() throws Exception {
+        final HttpTransport transport = new UrlConnectionTransport.Builder().maxConnections(2).build();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try (HttpResponse ignored = transport.execute(new HttpRequest("GET", new URL(baseUrl + "/slow"), null, null))) {
+                        ignored.getStatusCode();
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(2, maxInFlight.get());
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(status, body.length);
+        OutputStream out = exchange.getResponseBody();
+        out.write(body);
+        out.close();
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,39 @@
+package io.github.firemaples.models;
+
+import org.junit.Test;
+
+import io.github.firemaples.utils.JsonUtil;
+
+import static org.junit.Assert.assertEquals;
+
+public class RequestSizeTest {
+    private final JsonUtil<Object> jsonUtil = new JsonUtil<>();
+
+    @Test
+    public void testRequestLength_MatchesGson() {
+        String[] texts = {"Hello", "", null, "\"quoted\" \\ back\\slash", "tab\tnew\nline\r\b\f\u0001\u001f",
+                "<b>Tom & Jerry's</b> = 1", "line paragraph ", "¬£7.6bn 据了解 😀 \uD800"};
+        assertEquals(jsonUtil.writeJson(TextArrayRequest.build(texts)).length(), RequestSize.requestLength(texts));
+        for (String text : texts) {
+            assertEquals(jsonUtil.writeJson(new TextArrayRequest.Text(text)).length(), RequestSize.elementLength(text));
+        }
+        assertEquals(jsonUtil.writeJson(TextArrayRequest.build()).length(), RequestSize.requestLength(new String[0]));
+    }
+
+    @Test
+    public void testEscapedLength_EveryCharacter() {
+        StringBuilder all = new StringBuilder();
+        for (char c = 0; c < 0x3000; c++) {
+            all.append(c);
+        }
+        String text = all.toString();
+        assertEquals(jsonUtil.writeJson(new TextArrayRequest.Text(text)).length() - RequestSize.ELEMENT_OVERHEAD,
+                RequestSize.escapedLength(text));
+        assertEquals(RequestSize.escapedLength(text.substring(30, 70)), RequestSize.escapedLength(text, 30, 70));
+    }
+
+    @Test
+    public void testCharacters() {
+        assertEquals(12, RequestSize.characters(new String[]{"Hello", null, "Bonjour"}));
+    }
+}
@@ -0,0 +1,87 @@
+package io.github.firemaples.models;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParser;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.Assert.assertEquals;
+
+public class TextArrayBodyTest {
+
+    @Test
+    public void testWriteTo_SameJsonAsGson() throws Exception {
+        assertSameJson("Hello", "I would like to be \"translated\"", "back\\slash");
+    }
+
+    @Test
+    public void testWriteTo_EscapesControlAndSeparatorCharacters() throws Exception {
+        assertSameJson("line\nbreak\r\ttab", "\u0000\u001f", "  ", "<html>&'=");
+    }
+
+    @Test
+    public void testWriteTo_ShortEscapesForBackspaceAndFormFeed() throws Exception {
+        TextArrayBody body = TextArrayBody.of("a\bb\fc\u000bd");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+        assertEquals("[{\"Text\":\"a\\bb\\fc\\u000bd\"}]", out.toString("UTF-8"));
+        assertEquals(out.size(), body.contentLength());
+        //The same escapes the request limits are measured with
+        assertEquals(RequestSize.escapedLength("a\bb\fc\u000bd"), TextArrayBody.escapedUtf8Length("a\bb\fc\u000bd"));
+    }
+
+    @Test
+    public void testWriteTo_EncodesUnicodeAsUtf8() throws Exception {
+        assertSameJson("Héllo wörld", "据了解，深圳", "emoji 😀 pair", "हैलो वर्ल्ड");
+    }
+
+    @Test
+    public void testWriteTo_EmptyAndNullTexts() throws Exception {
+        assertSameJson();
+        assertSameJson("", null, "x");
+    }
+
+    @Test
+    public void testWriteTo_TextLargerThanBuffer() throws Exception {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            builder.append("a\"é深😀");
+        }
+        String[] texts = new String[5];
+        for (int i = 0; i < texts.length; i++) {
+            texts[i] = builder.toString() + i;
+        }
+        assertSameJson(texts);
+    }
+
+    @Test
+    public void testWriteTo_LoneSurrogateIsEscaped() throws Exception {
+        TextArrayBody body = TextArrayBody.of("a\uD800b");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+        assertEquals("[{\"Text\":\"a\\ud800b\"}]", out.toString("UTF-8"));
+        assertEquals(out.size(), body.contentLength());
+    }
+
+    @Test
+    public void testWriteTo_Repeatable() throws Exception {
+        TextArrayBody body = TextArrayBody.of("Hello", "World");
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+        body.writeTo(first);
+        body.writeTo(second);
+        assertEquals(first.toString("UTF-8"), second.toString("UTF-8"));
+    }
+
+    private static void assertSameJson(String... texts) throws Exception {
+        TextArrayBody body = TextArrayBody.of(texts);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+        assertEquals(out.size(), body.contentLength());
+
+        String expected = new Gson().toJson(TextArrayRequest.build(texts));
+        assertEquals(new JsonParser().parse(expected), new JsonParser().parse(out.toString("UTF-8")));
+    }
+}
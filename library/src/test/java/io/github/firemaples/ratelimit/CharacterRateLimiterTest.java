@@ -0,0 +1,143 @@
+package io.github.firemaples.ratelimit;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import io.github.firemaples.auth.PricingTier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CharacterRateLimiterTest {
+    private static final long PER_HOUR = 3600 * 1000;
+
+    @Test
+    public void testForTier_AllowsOneMinuteBurst() {
+        CharacterRateLimiter limiter = CharacterRateLimiter.forTier(PricingTier.F0);
+        assertEquals(PricingTier.F0.getCharactersPerHour() / 60, limiter.getCapacity());
+        assertEquals(PricingTier.F0.getCharactersPerHour(), limiter.getCharactersPerHour());
+        assertEquals(OverflowPolicy.BLOCK, limiter.getPolicy());
+    }
+
+    @Test
+    public void testTryAcquire_RefillsOverTime() {
+        FakeClock clock = new FakeClock();
+        //1,000 characters per second
+        CharacterRateLimiter limiter = new CharacterRateLimiter(5000, PER_HOUR, OverflowPolicy.FAIL_FAST, 10, clock);
+
+        assertTrue(limiter.tryAcquire(5000));
+        assertFalse(limiter.tryAcquire(1));
+
+        clock.advance(2000);
+        assertEquals(2000, limiter.getAvailableCharacters());
+        assertTrue(limiter.tryAcquire(2000));
+
+        clock.advance(60000);
+        assertEquals(5000, limiter.getAvailableCharacters());
+    }
+
+    @Test
+    public void testAcquire_FailFast() throws Exception {
+        FakeClock clock = new FakeClock();
+        CharacterRateLimiter limiter = new CharacterRateLimiter(5000, PER_HOUR, OverflowPolicy.FAIL_FAST, 10, clock);
+        limiter.acquire(4000);
+        try {
+            limiter.acquire(3000);
+            fail("Expected the limiter to refuse the request");
+        } catch (RateLimitExceededException e) {
+            assertEquals(2001, e.getRetryAfterMillis());
+        }
+        assertEquals(1000, limiter.getAvailableCharacters());
+    }
+
+    @Test
+    public void testAcquire_LargeRequestLeavesDebt() throws Exception {
+        FakeClock clock = new FakeClock();
+        CharacterRateLimiter limiter = new CharacterRateLimiter(5000, PER_HOUR, OverflowPolicy.FAIL_FAST, 10, clock);
+        limiter.acquire(8000);
+        assertEquals(-3000, limiter.getAvailableCharacters());
+        clock.advance(4000);
+        assertFalse(limiter.tryAcquire(2000));
+        assertTrue(limiter.tryAcquire(1000));
+    }
+
+    @Test(timeout = 5000)
+    public void testAcquire_BlockWaitsForRefill() throws Exception {
+        //100 characters per millisecond
+        CharacterRateLimiter limiter = new CharacterRateLimiter(1000, 100 * PER_HOUR, OverflowPolicy.BLOCK, 10);
+        limiter.acquire(1000);
+        long start = System.nanoTime();
+        limiter.acquire(1000);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 9);
+    }
+
+    @Test(timeout = 5000)
+    public void testAcquire_QueueServesInOrder() throws Exception {
+        //1 character per millisecond
+        final CharacterRateLimiter limiter = new CharacterRateLimiter(100, PER_HOUR, OverflowPolicy.QUEUE, 10);
+        limiter.acquire(100);
+
+        final List<Integer> served = new CopyOnWriteArrayList<>();
+        Thread[] threads = new Thread[3];
+        for (int i = 0; i < threads.length; i++) {
+            final int index = i;
+            threads[i] = new Thread(() -> {
+                try {
+                    limiter.acquire(index == 0 ? 100 : 10);
+                    served.add(index);
+                } catch (InterruptedException ignored) {
+                }
+            });
+            threads[i].start();
+            //Let the thread join the queue before the next one
+            Thread.sleep(20);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, (int) served.get(0));
+        assertEquals(1, (int) served.get(1));
+        assertEquals(2, (int) served.get(2));
+    }
+
+    @Test(timeout = 5000)
+    public void testAcquire_QueueFull() throws Exception {
+        final CharacterRateLimiter limiter = new CharacterRateLimiter(100, 1, OverflowPolicy.QUEUE, 1);
+        limiter.acquire(100);
+        Thread waiter = new Thread(() -> {
+            try {
+                limiter.acquire(100);
+            } catch (InterruptedException ignored) {
+            }
+        });
+        waiter.start();
+        Thread.sleep(50);
+        try {
+            limiter.acquire(1);
+            fail("Expected the full queue to refuse the request");
+        } catch (RateLimitExceededException e) {
+            assertTrue(e.getMessage().startsWith("Character rate limit exceeded"));
+        } finally {
+            waiter.interrupt();
+            waiter.join();
+        }
+    }
+
+    private static final class FakeClock implements CharacterRateLimiter.Clock {
+        private long now = TimeUnit.DAYS.toNanos(1);
+
+        void advance(long millis) {
+            now += TimeUnit.MILLISECONDS.toNanos(millis);
+        }
+
+        @Override
+        public long nanoTime() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package io.github.firemaples.retry;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+
+import io.github.firemaples.TranslatorException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RetryPolicyTest {
+
+    @Test
+    public void testIsRetryable_ClassifiesStatuses() {
+        RetryPolicy policy = RetryPolicy.DEFAULT;
+        for (int status : new int[]{408, 429, 500, 502, 503, 504}) {
+            assertTrue(String.valueOf(status), policy.isRetryable(error(status)));
+        }
+        for (int status : new int[]{400, 401, 403, 404, 413, 501}) {
+            assertFalse(String.valueOf(status), policy.isRetryable(error(status)));
+        }
+        assertTrue(policy.isRetryable(new SocketTimeoutException()));
+        assertFalse(policy.isRetryable(new RuntimeException()));
+        assertFalse(policy.toBuilder().retryOnIOException(false).build().isRetryable(new IOException()));
+    }
+
+    @Test
+    public void testNextDelay_DecorrelatedJitter() {
+        RetryPolicy policy = new RetryPolicy.Builder().delays(100, 2000).build();
+        long previous = 0;
+        for (int i = 0; i < 1000; i++) {
+            long delay = policy.nextDelayMillis(previous, -1);
+            assertTrue(delay >= 100);
+            assertTrue(delay <= Math.min(2000, Math.max(100, previous * 3)));
+            previous = delay;
+        }
+    }
+
+    @Test
+    public void testNextDelay_HonorsRetryAfter() {
+        RetryPolicy policy = new RetryPolicy.Builder().delays(100, 2000).build();
+        assertEquals(1500, policy.nextDelayMillis(0, 1500));
+        assertEquals(0, policy.nextDelayMillis(400, 0));
+        assertEquals(-1, policy.nextDelayMillis(0, 2001));
+    }
+
+    @Test
+    public void testRetryAfter_Parse() {
+        long now = 784111777000L - 30000;
+        assertEquals(120000, RetryAfter.parseMillis("120", now));
+        assertEquals(30000, RetryAfter.parseMillis("Sun, 06 Nov 1994 08:49:37 GMT", now));
+        assertEquals(0, RetryAfter.parseMillis("Sun, 06 Nov 1994 08:49:37 GMT", now + 60000));
+        assertEquals(-1, RetryAfter.parseMillis("soon", now));
+        assertEquals(-1, RetryAfter.parseMillis(null, now));
+    }
+
+    @Test
+    public void testBudget_StopsRetriesWhenMostAttemptsFail() {
+        RetryBudget budget = new RetryBudget(10, 0.5);
+        for (int i = 0; i < 4; i++) {
+            budget.onFailure();
+        }
+        assertTrue(budget.canRetry());
+        budget.onFailure();
+        assertFalse(budget.canRetry());
+
+        budget.onSuccess();
+        budget.onSuccess();
+        assertTrue(budget.canRetry());
+        assertEquals(6, budget.getTokens(), 1e-9);
+    }
+
+    private static TranslatorException error(int status) {
+        return new TranslatorException("Error retrieving result from Microsoft Translator API (" + status + "): ", status, -1, "");
+    }
+}
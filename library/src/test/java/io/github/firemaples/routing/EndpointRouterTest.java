@@ -0,0 +1,89 @@
+package io.github.firemaples.routing;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class EndpointRouterTest {
+    private final Endpoint first = new Endpoint("first", "http://localhost:1");
+    private final Endpoint second = new Endpoint("second", "http://localhost:2/");
+    private final FakeClock clock = new FakeClock();
+
+    @Test
+    public void testSelect_TriesUnknownEndpointsThenPrefersFaster() {
+        EndpointRouter router = new EndpointRouter(Arrays.asList(first, second), 1000, 3, 0, clock);
+
+        assertSame(first, router.select());
+        router.onSuccess(first, TimeUnit.MILLISECONDS.toNanos(80));
+        assertSame(second, router.select());
+        router.onSuccess(second, TimeUnit.MILLISECONDS.toNanos(20));
+        assertSame(second, router.select());
+        assertEquals(20, router.getLatencyMillis(second), 1e-9);
+        assertEquals("http://localhost:2", second.getUrl());
+    }
+
+    @Test
+    public void testSelect_ErrorsOutweighLatency() {
+        EndpointRouter router = new EndpointRouter(Arrays.asList(first, second), 1000, 3, 0, clock);
+        router.onSuccess(first, TimeUnit.MILLISECONDS.toNanos(10));
+        router.onSuccess(second, TimeUnit.MILLISECONDS.toNanos(200));
+
+        router.onFailure(first);
+        assertTrue(router.isHealthy(first));
+        assertSame(second, router.select());
+    }
+
+    @Test
+    public void testOnFailure_FailsOverAndRecovers() {
+        EndpointRouter router = new EndpointRouter(Arrays.asList(first, second), 1000, 3, 0, clock);
+        for (int i = 0; i < 3; i++) {
+            router.onFailure(first);
+        }
+        assertFalse(router.isHealthy(first));
+        assertFalse(router.needsProbe(first));
+
+        clock.advance(1000);
+        assertTrue(router.isHealthy(first));
+        assertTrue(router.needsProbe(first));
+        router.onSuccess(first, TimeUnit.MILLISECONDS.toNanos(10));
+        assertFalse(router.needsProbe(first));
+    }
+
+    @Test
+    public void testSelect_AllOutUsesEndpointRecoveringFirst() {
+        EndpointRouter router = new EndpointRouter(Arrays.asList(first, second), 1000, 1, 0, clock);
+        router.onFailure(second);
+        clock.advance(500);
+        router.onFailure(first);
+        assertSame(second, router.select());
+    }
+
+    @Test
+    public void testNeedsProbe_IdleEndpoints() {
+        EndpointRouter router = new EndpointRouter(Arrays.asList(first, second), 1000, 3, 5000, clock);
+        assertTrue(router.needsProbe(first));
+        router.onSuccess(first, 1);
+        assertFalse(router.needsProbe(first));
+        clock.advance(5000);
+        assertTrue(router.needsProbe(first));
+    }
+
+    private static final class FakeClock implements EndpointRouter.Clock {
+        private long now = TimeUnit.DAYS.toNanos(1);
+
+        void advance(long millis) {
+            now += TimeUnit.MILLISECONDS.toNanos(millis);
+        }
+
+        @Override
+        public long nanoTime() {
+            return now;
+        }
+    }
+}
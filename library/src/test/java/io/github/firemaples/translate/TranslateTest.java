@@ -18,16 +18,27 @@
 package io.github.firemaples.translate;
 
 import org.junit.After;
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.net.URL;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+import io.github.firemaples.ExecutionMode;
+import io.github.firemaples.http.HttpRequest;
+import io.github.firemaples.http.HttpResponse;
+import io.github.firemaples.http.HttpTransport;
 import io.github.firemaples.language.Language;
+import io.github.firemaples.utils.VirtualThreads;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -63,6 +74,8 @@ public class TranslateTest {
         Translate.setContentType("text/plain");
         Translate.setSubscriptionKey(null);
         Translate.setHttpReferrer(null);
+        Translate.setTransport(null);
+        Translate.setExecutor(null);
     }
 
 //    public void testSetApiKey() {
@@ -81,6 +94,59 @@ public class TranslateTest {
         assertEquals("Bonjour", Translate.execute("Hello", Language.ENGLISH, Language.FRENCH));
     }
 
+    @Test
+    public void testTranslate_CustomTransport() throws Exception {
+        Translate.setTransport(new HttpTransport() {
+            @Override
+            public HttpResponse execute(HttpRequest request) throws IOException {
+                assertEquals("POST", request.getMethod());
+                assertTrue(request.getUrl().toString().endsWith("&from=en&to=fr"));
+                byte[] body = "\uFEFF[{\"translations\":[{\"text\":\"Bonjour\",\"to\":\"fr\"}]}]".getBytes("UTF-8");
+                return new HttpResponse(200, null, new ByteArrayInputStream(body));
+            }
+        });
+        assertEquals("Bonjour", Translate.execute("Hello", Language.ENGLISH, Language.FRENCH));
+    }
+
+    @Test
+    public void testTranslate_Async() throws Exception {
+        Translate.setTransport(new HttpTransport() {
+            @Override
+            public HttpResponse execute(HttpRequest request) throws IOException {
+                byte[] body = "[{\"translations\":[{\"text\":\"Bonjour\",\"to\":\"fr\"}]},{\"translations\":[{\"text\":\"Monde\",\"to\":\"fr\"}]}]".getBytes("UTF-8");
+                return new HttpResponse(200, null, new ByteArrayInputStream(body));
+            }
+        });
+        String[] translated = Translate.executeAsync(new String[]{"Hello", "World"}, Language.ENGLISH, Language.FRENCH).get();
+        assertEquals("Bonjour", translated[0]);
+        assertEquals("Monde", translated[1]);
+    }
+
+    @Test
+    public void testTranslate_VirtualThreadExecutionMode() throws Exception {
+        Assume.assumeTrue(VirtualThreads.isAvailable());
+        final List<String> threads = new CopyOnWriteArrayList<>();
+        Translate.setExecutionMode(ExecutionMode.VIRTUAL_THREADS);
+        Translate.setTransport(new HttpTransport() {
+            @Override
+            public HttpResponse execute(HttpRequest request) throws IOException {
+                threads.add(Thread.currentThread().toString());
+                byte[] body = "[{\"translations\":[{\"text\":\"Bonjour\",\"to\":\"fr\"}]}]".getBytes("UTF-8");
+                return new HttpResponse(200, null, new ByteArrayInputStream(body));
+            }
+        });
+        assertEquals("Bonjour", Translate.executeAsync("Hello", Language.ENGLISH, Language.FRENCH).get());
+        assertEquals(1, threads.size());
+        assertTrue(threads.get(0).startsWith("VirtualThread"));
+    }
+
+    @Test
+    public void testTranslate_AsyncValidationFailsFuture() throws Exception {
+        Translate.setSubscriptionKey(null);
+        CompletableFuture<String> future = Translate.executeAsync("Hello", Language.ENGLISH, Language.FRENCH);
+        assertTrue(future.isCompletedExceptionally());
+    }
+
     @Test
     public void testTranslate_NoSpace() throws Exception {
         assertEquals("Bonjour", Translate.execute("Hello", Language.ENGLISH, Language.FRENCH));
@@ -342,6 +408,17 @@ public class TranslateTest {
 
     }
 
+    @Test
+    public void testLargeDocument() throws Exception {
+        StringBuilder largeText = new StringBuilder();
+        for (int i = 0; i < 400; i++) {
+            largeText.append("How are you doing today? ");
+        }
+        String result = Translate.executeDocument(largeText.toString(), Language.ENGLISH, Language.FRENCH);
+        assertTrue(result.startsWith("comment allez-vous aujourd'hui?"));
+        assertTrue(result.endsWith(" "));
+    }
+
     @Test
     public void testTranslateArray() throws Exception {
         String[] sourceTexts = {"Hello", "I would like to be translated", "How are you doing today?"};
@@ -352,6 +429,16 @@ public class TranslateTest {
         assertEquals("comment allez-vous aujourd'hui?", translatedTexts[2]);
     }
 
+    @Test
+    public void testTranslateArray_ManyTargets() throws Exception {
+        String[] sourceTexts = {"Hello", "How are you doing today?"};
+        String[][] translatedTexts = Translate.execute(sourceTexts, Language.ENGLISH, new Language[]{Language.FRENCH, Language.GERMAN});
+        assertEquals(2, translatedTexts.length);
+        assertEquals("Bonjour", translatedTexts[0][0]);
+        assertEquals("comment allez-vous aujourd'hui?", translatedTexts[0][1]);
+        assertEquals("Hallo", translatedTexts[1][0]);
+    }
+
     @Test
     public void testTranslateArray_UsingSSL() throws Exception {
         Translate.setUsingSSL(true);
@@ -398,7 +485,7 @@ public class TranslateTest {
     }
 
     @Test
-    public void testLargeLimitArrayException() throws Exception {
+    public void testLargeLimitArray_Split() throws Exception {
         String[] sourceTexts = new String[43];
         String largeText = "Figures from the Office for National Statistics (ONS) show that between December and April, "
                 + "the five-month period typically regarded as peak bonus season, those working in the financial "
@@ -407,9 +494,10 @@ public class TranslateTest {
         for (int i = 0; i < sourceTexts.length; i++)
             sourceTexts[i] = largeText;
 
-        exception.expect(RuntimeException.class);
-        exception.expectMessage("TEXT_TOO_LARGE - Microsoft Translator (Translate) can handle up to 5,000 characters per request");
-        Translate.execute(sourceTexts, Language.ENGLISH, Language.FRENCH);
+        String[] results = Translate.execute(sourceTexts, Language.ENGLISH, Language.FRENCH);
+
+        assertEquals(sourceTexts.length, results.length);
+        assertEquals(results[0], results[sourceTexts.length - 1]);
     }
 
     @Test
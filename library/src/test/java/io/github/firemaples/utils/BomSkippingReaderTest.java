@@ -0,0 +1,58 @@
+package io.github.firemaples.utils;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.Reader;
+
+import static org.junit.Assert.assertEquals;
+
+public class BomSkippingReaderTest {
+
+    @Test
+    public void testReadFully_DropsLeadingBom() throws Exception {
+        assertEquals("[{\"a\":1}]", BomSkippingReader.readFully(reader("\uFEFF[{\"a\":1}]")));
+    }
+
+    @Test
+    public void testReadFully_WithoutBom() throws Exception {
+        assertEquals("[]", BomSkippingReader.readFully(reader("[]")));
+        assertEquals("", BomSkippingReader.readFully(reader("")));
+    }
+
+    @Test
+    public void testReadFully_KeepsLaterBomAndLineBreaks() throws Exception {
+        assertEquals("line1\nline2\r\n\uFEFFline3", BomSkippingReader.readFully(reader("\uFEFFline1\nline2\r\n\uFEFFline3")));
+    }
+
+    @Test
+    public void testRead_SingleCharacters() throws Exception {
+        Reader reader = reader("\uFEFFab");
+        assertEquals('a', reader.read());
+        assertEquals('b', reader.read());
+        assertEquals(-1, reader.read());
+    }
+
+    @Test
+    public void testRead_OneCharacterBuffer() throws Exception {
+        Reader reader = reader("\uFEFFa");
+        char[] buffer = new char[1];
+        assertEquals(1, reader.read(buffer, 0, 1));
+        assertEquals('a', buffer[0]);
+        assertEquals(-1, reader.read(buffer, 0, 1));
+    }
+
+    @Test
+    public void testParseJson_FromReader() throws Exception {
+        JsonUtil<String[]> jsonUtil = new JsonUtil<>();
+        String[] result = jsonUtil.parseJson(reader("\uFEFF[\"a\\nb\",\"c\"]"), new TypeReference<String[]>() {
+        });
+        assertEquals(2, result.length);
+        assertEquals("a\nb", result[0]);
+        assertEquals("c", result[1]);
+    }
+
+    private static Reader reader(String content) throws Exception {
+        return new BomSkippingReader(new ByteArrayInputStream(content.getBytes("UTF-8")));
+    }
+}